@@ -40,6 +40,22 @@ uniform vec2 grassCoordinate;
 void main(){
     vec4 texCoord = gl_TexCoord[0];
 
+    // The mip level is selected using the texture coordinates before they are wrapped
+    vec2 texCoordDx = dFdx(texCoord.xy);
+    vec2 texCoordDy = dFdy(texCoord.xy);
+
+    /* GREEDY MESHED FACES REPEAT THEIR TEXTURE TILE */
+    if (texCoord.z > 1.5) {
+        float tile = floor(texCoord.z - 1.5);
+        float tilesPerRow = 1.0 / TEXTURE_OFFSET;
+
+        vec2 tileOrigin = vec2(mod(tile, tilesPerRow), floor(tile / tilesPerRow)) * TEXTURE_OFFSET;
+        texCoord.xy = tileOrigin + fract(texCoord.xy) * TEXTURE_OFFSET_WIDTH;
+
+        texCoordDx *= TEXTURE_OFFSET_WIDTH;
+        texCoordDy *= TEXTURE_OFFSET_WIDTH;
+    }
+
     vec3 normalizedVPos = -normalize(vertexWorldPos.xyz);
     vec3 normalWater;
     bool isWater = false;
@@ -67,7 +83,11 @@ void main(){
         color = texture2D(textureLava, texCoord.xy);
     /* APPLY DEFAULT TEXTURE FROM ATLAS */
     } else {
+#ifdef GL_ARB_shader_texture_lod
+        color = texture2DGradARB(textureAtlas, texCoord.xy, texCoordDx, texCoordDy);
+#else
         color = texture2D(textureAtlas, texCoord.xy);
+#endif
     }
 
     /* CONVERT SRGB TO LINEAR COLOR SPACE */
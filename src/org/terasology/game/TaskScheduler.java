@@ -0,0 +1,264 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.game;
+
+import org.terasology.logic.manager.Config;
+import org.terasology.performanceMonitor.PerformanceMonitor;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executes background tasks using one bounded pool of workers per task category.
+ * <p/>
+ * The tasks of each category are ordered by their priority: player triggered tasks come first, followed by tasks
+ * concerning the visible world (ordered by their distance to the player) and finally all other background tasks.
+ * Tasks which became stale can be cancelled as long as they have not been started. The queue depth and the
+ * latency (the time a task waits before it gets started) of each category are reported to the PerformanceMonitor.
+ */
+public final class TaskScheduler {
+
+    public enum CATEGORY {
+        /* Tasks modifying or deriving data from the world, like explosions or collision shapes */
+        WORLD("World Tasks"),
+        /* Simulation of liquids and plant growth */
+        SIMULATION("Simulation Tasks"),
+        /* Reading and writing chunks */
+        IO("IO Tasks"),
+        /* Effects like the generation of clouds */
+        EFFECTS("Effect Tasks");
+
+        private final String _title;
+
+        private CATEGORY(String title) {
+            _title = title;
+        }
+
+        public String getTitle() {
+            return _title;
+        }
+
+        private int getThreadCount() {
+            if (this == WORLD)
+                return Math.max(1, Config.getInstance().getMaxThreads());
+
+            return 1;
+        }
+    }
+
+    public enum PRIORITY {
+        PLAYER_TRIGGERED, VISIBLE, BACKGROUND
+    }
+
+    /* WORKERS */
+    private final ThreadPoolExecutor[] _workers = new ThreadPoolExecutor[CATEGORY.values().length];
+    private final AtomicInteger[] _queueDepths = new AtomicInteger[CATEGORY.values().length];
+
+    /* ORDER OF TASKS WITH THE SAME PRIORITY AND DISTANCE */
+    private final AtomicLong _sequence = new AtomicLong();
+
+    public TaskScheduler() {
+        for (CATEGORY category : CATEGORY.values()) {
+            _queueDepths[category.ordinal()] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * Schedules a task.
+     *
+     * @param name     The name of the task, used for the performance monitoring
+     * @param category The category of the task
+     * @param priority The priority of the task
+     * @param distance The distance of the affected area to the player, orders tasks of the same priority
+     * @param task     The task to execute
+     * @return The scheduled task, which can be used to cancel it
+     */
+    public ScheduledTask submit(String name, CATEGORY category, PRIORITY priority, double distance, Runnable task) {
+        ScheduledTask scheduledTask = new ScheduledTask(name, category, priority, distance, _sequence.getAndIncrement(), task);
+
+        PerformanceMonitor.setQueueDepth(category.getTitle(), _queueDepths[category.ordinal()].incrementAndGet());
+        getWorkers(category).execute(scheduledTask);
+
+        return scheduledTask;
+    }
+
+    /**
+     * Schedules a task of the given category without any priority.
+     */
+    public ScheduledTask submit(String name, CATEGORY category, Runnable task) {
+        return submit(name, category, PRIORITY.BACKGROUND, 0, task);
+    }
+
+    /**
+     * Returns the amount of tasks waiting to be executed in the given category.
+     */
+    public int getQueueDepth(CATEGORY category) {
+        return _queueDepths[category.ordinal()].get();
+    }
+
+    /**
+     * Returns the amount of tasks currently executed.
+     */
+    public int getActiveCount() {
+        int result = 0;
+
+        for (CATEGORY category : CATEGORY.values()) {
+            result += getWorkers(category).getActiveCount();
+        }
+
+        return result;
+    }
+
+    /**
+     * Executes all tasks already scheduled and stops the workers afterwards.
+     */
+    public void shutdown() {
+        for (CATEGORY category : CATEGORY.values()) {
+            getWorkers(category).shutdown();
+        }
+    }
+
+    public void awaitTermination() throws InterruptedException {
+        for (CATEGORY category : CATEGORY.values()) {
+            getWorkers(category).awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Returns the workers of the given category. The workers are created on demand, since the
+     * scheduler is created before the configuration is loaded.
+     */
+    private synchronized ThreadPoolExecutor getWorkers(CATEGORY category) {
+        ThreadPoolExecutor workers = _workers[category.ordinal()];
+
+        if (workers == null) {
+            int threads = category.getThreadCount();
+
+            workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>(), new WorkerThreadFactory(category));
+            _workers[category.ordinal()] = workers;
+        }
+
+        return workers;
+    }
+
+    private void taskDequeued(ScheduledTask task) {
+        PerformanceMonitor.setQueueDepth(task._category.getTitle(), _queueDepths[task._category.ordinal()].decrementAndGet());
+    }
+
+    /**
+     * A task waiting for its execution.
+     */
+    public final class ScheduledTask implements Runnable, Comparable<ScheduledTask> {
+        private final String _name;
+        private final CATEGORY _category;
+        private final PRIORITY _priority;
+        private final double _distance;
+        private final long _sequence;
+        private final long _submitTime = System.nanoTime();
+
+        private final Runnable _task;
+        private boolean _dequeued, _cancelled;
+
+        private ScheduledTask(String name, CATEGORY category, PRIORITY priority, double distance, long sequence, Runnable task) {
+            _name = name;
+            _category = category;
+            _priority = priority;
+            _distance = distance;
+            _sequence = sequence;
+            _task = task;
+        }
+
+        /**
+         * Cancels the task if it has not been started yet.
+         *
+         * @return True if the task was cancelled
+         */
+        public boolean cancel() {
+            synchronized (this) {
+                if (!dequeue())
+                    return false;
+
+                _cancelled = true;
+            }
+
+            getWorkers(_category).remove(this);
+            return true;
+        }
+
+        public synchronized boolean isCancelled() {
+            return _cancelled;
+        }
+
+        public void run() {
+            if (!dequeue())
+                return;
+
+            PerformanceMonitor.recordTaskLatency(_category.getTitle(), (System.nanoTime() - _submitTime) / 1000000.0);
+
+            PerformanceMonitor.startThread(_name);
+            try {
+                _task.run();
+            } finally {
+                PerformanceMonitor.endThread(_name);
+            }
+        }
+
+        /**
+         * Removes the task from the queue, either to execute or to cancel it.
+         */
+        private synchronized boolean dequeue() {
+            if (_dequeued)
+                return false;
+
+            _dequeued = true;
+            taskDequeued(this);
+            return true;
+        }
+
+        public int compareTo(ScheduledTask o) {
+            if (_priority != o._priority)
+                return _priority.ordinal() < o._priority.ordinal() ? -1 : 1;
+
+            if (_distance != o._distance)
+                return _distance < o._distance ? -1 : 1;
+
+            if (_sequence != o._sequence)
+                return _sequence < o._sequence ? -1 : 1;
+
+            return 0;
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final CATEGORY _category;
+        private final AtomicInteger _counter = new AtomicInteger();
+
+        private WorkerThreadFactory(CATEGORY category) {
+            _category = category;
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, _category.getTitle() + " " + _counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+}
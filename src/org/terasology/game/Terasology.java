@@ -39,9 +39,6 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.Map;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -62,7 +59,7 @@ public final class Terasology {
 
     private final Logger _logger = Logger.getLogger("Terasology");
     private final GroovyManager _groovyManager = new GroovyManager();
-    private final ThreadPoolExecutor _threadPool = (ThreadPoolExecutor) Executors.newCachedThreadPool();
+    private final TaskScheduler _taskScheduler = new TaskScheduler();
     private Timer _timer;
 
     /* GAME LOOP */
@@ -291,9 +288,9 @@ public final class Terasology {
     }
 
     private void terminateThreads() {
-        _threadPool.shutdown();
+        _taskScheduler.shutdown();
         try {
-            _threadPool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            _taskScheduler.awaitTermination();
         } catch (InterruptedException e) {
             getLogger().log(Level.SEVERE, e.toString(), e);
         }
@@ -410,22 +407,35 @@ public final class Terasology {
         return _timer.getTimeInMs();
     }
 
-    public void submitTask(final String name, final Runnable task) {
-        _threadPool.execute(new Runnable() {
-            public void run() {
-                Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
-                PerformanceMonitor.startThread(name);
-                try {
-                    task.run();
-                } finally {
-                    PerformanceMonitor.endThread(name);
-                }
-            }
-        });
+    /**
+     * Schedules a background task of the given category.
+     *
+     * @param name     The name of the task
+     * @param category The category of the task
+     * @param task     The task to execute
+     * @return The scheduled task, which can be cancelled as long as it has not been started
+     */
+    public TaskScheduler.ScheduledTask submitTask(String name, TaskScheduler.CATEGORY category, Runnable task) {
+        return _taskScheduler.submit(name, category, task);
+    }
+
+    /**
+     * Schedules a task of the given category and priority. Tasks with the same priority are ordered by the
+     * distance of the affected area to the player.
+     *
+     * @param name     The name of the task
+     * @param category The category of the task
+     * @param priority The priority of the task
+     * @param distance The distance of the affected area to the player
+     * @param task     The task to execute
+     * @return The scheduled task, which can be cancelled as long as it has not been started
+     */
+    public TaskScheduler.ScheduledTask submitTask(String name, TaskScheduler.CATEGORY category, TaskScheduler.PRIORITY priority, double distance, Runnable task) {
+        return _taskScheduler.submit(name, category, priority, distance, task);
     }
 
     public int activeTasks() {
-        return _threadPool.getActiveCount();
+        return _taskScheduler.getActiveCount();
     }
 
     public GroovyManager getGroovyManager() {
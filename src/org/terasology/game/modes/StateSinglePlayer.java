@@ -42,6 +42,9 @@ import static org.lwjgl.opengl.GL11.*;
  */
 public class StateSinglePlayer implements IGameState {
 
+    /* CONST */
+    private static final long MAX_FAST_FORWARD_TIME = 30000;
+
     /* GUI */
     private ArrayList<UIDisplayElement> _guiScreens = new ArrayList<UIDisplayElement>();
     private UIHeadsUpDisplay _hud;
@@ -181,12 +184,16 @@ public class StateSinglePlayer implements IGameState {
         Display.update();
 
         int chunksGenerated = 0;
+        int chunksToGenerate = Math.min(64, getWorldRenderer().getChunksInProximity().size());
+
+        long startTime = Terasology.getInstance().getTimeInMs();
 
-        while (chunksGenerated < 64) {
-            getWorldRenderer().generateChunk();
-            chunksGenerated++;
+        // The chunks are generated in the background by the chunk pipeline. Give up waiting after a while,
+        // chunks which keep failing or getting dirty again would otherwise keep the loading screen up forever
+        while (chunksGenerated < chunksToGenerate && Terasology.getInstance().getTimeInMs() - startTime < MAX_FAST_FORWARD_TIME) {
+            chunksGenerated = getWorldRenderer().generateChunks(chunksToGenerate);
 
-            _loadingScreen.updateStatus(String.format("Fast forwarding world... %.2f%%! :-)", (chunksGenerated / 64f) * 100f));
+            _loadingScreen.updateStatus(String.format("Fast forwarding world... %.2f%%! :-)", (chunksGenerated / (float) chunksToGenerate) * 100f));
 
             renderUserInterface();
             updateUserInterface();
@@ -38,7 +38,22 @@ public class ChunkGeneratorFlora extends ChunkGeneratorTerrain {
 
     @Override
     public void generate(Chunk c) {
-        for (int y = 0; y < Chunk.CHUNK_DIMENSION_Y; y++) {
+        // Grass, sand and snow are never found above the surface
+        int maxHeight = -1;
+
+        for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x++) {
+            for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z++) {
+                maxHeight = Math.max(maxHeight, c.getSurfaceHeight(x, z));
+            }
+        }
+
+        for (int y = 0; y <= maxHeight; y++) {
+            int sectionBlock = c.getSectionBlock(y / Chunk.SECTION_HEIGHT);
+
+            // Within uniform sections only the topmost layer of grass, sand or snow can be covered by air
+            if (sectionBlock != Chunk.MIXED_SECTION && (!isGround(sectionBlock) || y % Chunk.SECTION_HEIGHT != Chunk.SECTION_HEIGHT - 1))
+                continue;
+
             for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x++) {
                 for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z++) {
                     generateGrassAndFlowers(c, x, y, z);
@@ -46,18 +61,30 @@ public class ChunkGeneratorFlora extends ChunkGeneratorTerrain {
             }
         }
 
-        generateTrees(c);
+        generateTrees(c, maxHeight);
     }
 
     /**
      * Generates trees on the given chunk.
      *
-     * @param c The chunk
+     * @param c         The chunk
+     * @param maxHeight The height of the surface, no ground blocks are found above it
      */
-    private void generateTrees(Chunk c) {
+    private void generateTrees(Chunk c, int maxHeight) {
         for (int y = 32; y < Chunk.CHUNK_DIMENSION_Y; y++) {
+            int sectionBlock = c.getSectionBlock(y / Chunk.SECTION_HEIGHT);
+            // Trees can only grow on the ground
+            boolean skip = y > maxHeight || (sectionBlock != Chunk.MIXED_SECTION && !isGround(sectionBlock));
+
             for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x += 4) {
                 for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z += 4) {
+                    if (skip) {
+                        // Keep the random sequence and thus the generated trees unchanged
+                        c.getRandom().randomInt();
+                        c.getRandom().randomInt();
+                        continue;
+                    }
+
                     BIOME_TYPE biome = calcBiomeTypeForGlobalPosition(c.getBlockWorldPosX(x), c.getBlockWorldPosZ(z));
 
                     int randX = x + c.getRandom().randomInt() % 12 + 6;
@@ -84,6 +111,15 @@ public class ChunkGeneratorFlora extends ChunkGeneratorTerrain {
         }
     }
 
+    /**
+     * Returns true if grass, flowers and trees can grow on the given block type.
+     */
+    private static boolean isGround(int blockId) {
+        return blockId == (BlockManager.getInstance().getBlock("Grass").getId() & 0xFF)
+                || blockId == (BlockManager.getInstance().getBlock("Sand").getId() & 0xFF)
+                || blockId == (BlockManager.getInstance().getBlock("Snow").getId() & 0xFF);
+    }
+
     /**
      * Generates grass or a flower on the given chunk.
      *
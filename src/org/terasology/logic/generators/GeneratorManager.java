@@ -29,15 +29,21 @@ public class GeneratorManager {
 
     /* WORLD GENERATION */
     protected final ArrayList<ChunkGenerator> _chunkGenerators = new ArrayList<ChunkGenerator>(8);
+    protected final ArrayList<ChunkGenerator> _terrainGenerators = new ArrayList<ChunkGenerator>(8);
+    protected final ArrayList<ChunkGenerator> _featureGenerators = new ArrayList<ChunkGenerator>(8);
     protected final HashMap<ChunkGeneratorTerrain.BIOME_TYPE, ArrayList<TreeGenerator>> _treeGenerators = new HashMap<ChunkGeneratorTerrain.BIOME_TYPE, ArrayList<TreeGenerator>>(8);
 
     public GeneratorManager(IWorldProvider parent) {
         _parent = parent;
 
         // Init. static generators
-        _chunkGenerators.add(new ChunkGeneratorTerrain(this));
-        _chunkGenerators.add(new ChunkGeneratorFlora(this));
-        _chunkGenerators.add(new ChunkGeneratorLiquids(this));
+        _terrainGenerators.add(new ChunkGeneratorTerrain(this));
+        // Features may place blocks in the neighbors of a chunk
+        _featureGenerators.add(new ChunkGeneratorFlora(this));
+        _featureGenerators.add(new ChunkGeneratorLiquids(this));
+
+        _chunkGenerators.addAll(_terrainGenerators);
+        _chunkGenerators.addAll(_featureGenerators);
 
         loadTrees();
     }
@@ -55,6 +61,20 @@ public class GeneratorManager {
         return _chunkGenerators;
     }
 
+    /**
+     * Returns the generators which only modify the chunk they are applied to.
+     */
+    public ArrayList<ChunkGenerator> getTerrainGenerators() {
+        return _terrainGenerators;
+    }
+
+    /**
+     * Returns the generators which populate the terrain and may modify the neighbors of the chunk too.
+     */
+    public ArrayList<ChunkGenerator> getFeatureGenerators() {
+        return _featureGenerators;
+    }
+
     public void addTreeGenerator(ChunkGeneratorTerrain.BIOME_TYPE type, TreeGenerator gen) {
         ArrayList<TreeGenerator> list;
 
@@ -69,7 +69,22 @@ public class TreeGeneratorLSystem extends TreeGenerator {
 
     @Override
     public void generate(FastRandom rand, int posX, int posY, int posZ, boolean update) {
+        if (!update) {
+            generateTree(rand, posX, posY, posZ, false);
+            return;
+        }
+
+        // Update the light of the whole tree at once
+        _generatorManager.getParent().beginBatch();
+
+        try {
+            generateTree(rand, posX, posY, posZ, true);
+        } finally {
+            _generatorManager.getParent().commitBatch();
+        }
+    }
 
+    private void generateTree(FastRandom rand, int posX, int posY, int posZ, boolean update) {
         String axiom = _initialAxiom;
 
         Stack<Vector3f> _stackPosition = new Stack<Vector3f>();
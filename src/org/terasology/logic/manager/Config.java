@@ -376,6 +376,86 @@ public final class Config {
         _setting.getSystemBuilder().setVerticalChunkMeshSegments(verticalChunkMeshSegments);
     }
 
+    public boolean isCompactChunkStorage() {
+        return _setting.getSystemBuilder().getCompactChunkStorage();
+    }
+
+    public void setCompactChunkStorage(boolean compactChunkStorage) {
+        _setting.getSystemBuilder().setCompactChunkStorage(compactChunkStorage);
+    }
+
+    public int getChunkTerrainWorkers() {
+        return _setting.getSystemBuilder().getChunkTerrainWorkers();
+    }
+
+    public void setChunkTerrainWorkers(int chunkTerrainWorkers) {
+        _setting.getSystemBuilder().setChunkTerrainWorkers(chunkTerrainWorkers);
+    }
+
+    public int getChunkFeaturesWorkers() {
+        return _setting.getSystemBuilder().getChunkFeaturesWorkers();
+    }
+
+    public void setChunkFeaturesWorkers(int chunkFeaturesWorkers) {
+        _setting.getSystemBuilder().setChunkFeaturesWorkers(chunkFeaturesWorkers);
+    }
+
+    public int getChunkSunlightWorkers() {
+        return _setting.getSystemBuilder().getChunkSunlightWorkers();
+    }
+
+    public void setChunkSunlightWorkers(int chunkSunlightWorkers) {
+        _setting.getSystemBuilder().setChunkSunlightWorkers(chunkSunlightWorkers);
+    }
+
+    public int getChunkLightWorkers() {
+        return _setting.getSystemBuilder().getChunkLightWorkers();
+    }
+
+    public void setChunkLightWorkers(int chunkLightWorkers) {
+        _setting.getSystemBuilder().setChunkLightWorkers(chunkLightWorkers);
+    }
+
+    public int getChunkTessellationWorkers() {
+        return _setting.getSystemBuilder().getChunkTessellationWorkers();
+    }
+
+    public void setChunkTessellationWorkers(int chunkTessellationWorkers) {
+        _setting.getSystemBuilder().setChunkTessellationWorkers(chunkTessellationWorkers);
+    }
+
+    public int getChunkPipelineCapacity() {
+        return _setting.getSystemBuilder().getChunkPipelineCapacity();
+    }
+
+    public void setChunkPipelineCapacity(int chunkPipelineCapacity) {
+        _setting.getSystemBuilder().setChunkPipelineCapacity(chunkPipelineCapacity);
+    }
+
+    public int getChunkUploadsPerFrame() {
+        return _setting.getSystemBuilder().getChunkUploadsPerFrame();
+    }
+
+    public void setChunkUploadsPerFrame(int chunkUploadsPerFrame) {
+        _setting.getSystemBuilder().setChunkUploadsPerFrame(chunkUploadsPerFrame);
+    }
+
+    public boolean isGreedyMeshing() {
+        return _setting.getSystemBuilder().getGreedyMeshing();
+    }
+
+    public void setGreedyMeshing(boolean greedyMeshing) {
+        _setting.getSystemBuilder().setGreedyMeshing(greedyMeshing);
+    }
+
+    public int getChunkPrefetchBudget() {
+        return _setting.getSystemBuilder().getChunkPrefetchBudget();
+    }
+
+    public void setChunkPrefetchBudget(int chunkPrefetchBudget) {
+        _setting.getSystemBuilder().setChunkPrefetchBudget(chunkPrefetchBudget);
+    }
+
     public double getMouseSens() {
         return _setting.getPlayerBuilder().getMouseSens();
     }
@@ -15,6 +15,7 @@
  */
 package org.terasology.logic.simulators;
 
+import org.terasology.logic.world.BlockCursor;
 import org.terasology.logic.world.Chunk;
 import org.terasology.logic.world.IWorldProvider;
 import org.terasology.model.blocks.Block;
@@ -45,6 +46,8 @@ public class LiquidSimulator extends Simulator {
 
         if (currentActiveBlocks != null) {
             boolean simulated = false;
+            BlockCursor cursor = new BlockCursor(_parent.getChunkProvider());
+
             while (currentActiveBlocks.size() > 0) {
                 simulated = true;
 
@@ -62,17 +65,18 @@ public class LiquidSimulator extends Simulator {
 
                 currentActiveBlocks.remove(randomBlock);
 
-                byte state = _parent.getState(bp.x, bp.y, bp.z);
+                byte state = cursor.moveTo(bp.x, bp.y, bp.z).getState();
 
-                byte type = _parent.getBlock(bp.x, bp.y, bp.z);
-                byte typeBelow = _parent.getBlock(bpd.x, bpd.y, bpd.z);
+                byte type = cursor.getBlock();
+                byte typeBelow = cursor.move(0, -1, 0).getBlock();
 
                 if (state >= 1) {
                     int minState = Integer.MAX_VALUE;
 
                     for (int j = 0; j < 4; j++) {
-                        byte nType = _parent.getBlock((int) NEIGHBORS4[j].x * j + bp.x, (int) NEIGHBORS4[j].y * j + bp.y, (int) NEIGHBORS4[j].z * j + bp.z);
-                        byte nState = _parent.getState((int) NEIGHBORS4[j].x * j + bp.x, (int) NEIGHBORS4[j].y * j + bp.y, (int) NEIGHBORS4[j].z * j + bp.z);
+                        cursor.moveTo((int) NEIGHBORS4[j].x * j + bp.x, (int) NEIGHBORS4[j].y * j + bp.y, (int) NEIGHBORS4[j].z * j + bp.z);
+                        byte nType = cursor.getBlock();
+                        byte nState = cursor.getState();
 
                         if (nType == type) {
                             if (nState < minState)
@@ -109,9 +113,9 @@ public class LiquidSimulator extends Simulator {
 
                 for (int k = 0; k < 4; k++) {
                     BlockPosition nBp = new BlockPosition((int) NEIGHBORS4[k].x + bp.x, bp.y, (int) NEIGHBORS4[k].z + bp.z);
-                    byte nBpType = _parent.getBlock(nBp.x, nBp.y, nBp.z);
+                    byte nBpType = cursor.moveTo(nBp.x, nBp.y, nBp.z).getBlock();
 
-                    if ((nBpType == 0 || BlockManager.getInstance().getBlock(nBpType).getBlockForm() == Block.BLOCK_FORM.BILLBOARD) && _parent.getBlock(nBp.x, nBp.y - 1, nBp.z) != type) {
+                    if ((nBpType == 0 || BlockManager.getInstance().getBlock(nBpType).getBlockForm() == Block.BLOCK_FORM.BILLBOARD) && cursor.move(0, -1, 0).getBlock() != type) {
                         _parent.setBlock(nBp.x, nBp.y, nBp.z, type, true, true);
                         _parent.setState(nBp.x, nBp.y, nBp.z, (byte) (state + 1));
                         addActiveBlock(nBp);
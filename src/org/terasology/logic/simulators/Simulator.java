@@ -15,6 +15,7 @@
  */
 package org.terasology.logic.simulators;
 
+import org.terasology.game.TaskScheduler;
 import org.terasology.game.Terasology;
 import org.terasology.logic.world.IBlockObserver;
 import org.terasology.logic.world.IWorldProvider;
@@ -113,7 +114,7 @@ public abstract class Simulator implements IBlockObserver {
             }
         };
 
-        Terasology.getInstance().submitTask(_name + "Complete", r);
+        Terasology.getInstance().submitTask(_name + "Complete", TaskScheduler.CATEGORY.SIMULATION, r);
     }
 
     public boolean simulate(boolean force) {
@@ -134,7 +135,7 @@ public abstract class Simulator implements IBlockObserver {
                 }
             };
 
-            Terasology.getInstance().submitTask(_name, r);
+            Terasology.getInstance().submitTask(_name, TaskScheduler.CATEGORY.SIMULATION, r);
 
             _lastUpdate = currentTime;
             return true;
@@ -15,6 +15,7 @@
  */
 package org.terasology.logic.tools;
 
+import org.terasology.game.TaskScheduler;
 import org.terasology.game.Terasology;
 import org.terasology.logic.characters.Player;
 import org.terasology.logic.manager.AudioManager;
@@ -37,7 +38,7 @@ public class ExplosionTool extends SimpleTool {
     }
 
     public void executeLeftClickAction() {
-        Terasology.getInstance().submitTask("Explosion", new Runnable() {
+        Terasology.getInstance().submitTask("Explosion", TaskScheduler.CATEGORY.WORLD, TaskScheduler.PRIORITY.PLAYER_TRIGGERED, 0, new Runnable() {
             public void run() {
                 explode();
             }
@@ -54,38 +55,45 @@ public class ExplosionTool extends SimpleTool {
     public void explode() {
         IWorldProvider worldProvider = _player.getParent().getWorldProvider();
 
-        if (_player.getSelectedBlock() != null) {
-            BlockPosition blockPos = _player.getSelectedBlock().getBlockPosition();
-            Vector3d origin = blockPos.toVector3d();
+        // Update the light of all destroyed blocks at once
+        worldProvider.beginBatch();
 
-            for (int i = 0; i < 256; i++) {
-                Vector3d direction = new Vector3d((float) _random.randomDouble(), (float) _random.randomDouble(), (float) _random.randomDouble());
-                direction.normalize();
-                Vector3f impulse = new Vector3f(direction);
-                impulse.scale(800000);
+        try {
+            if (_player.getSelectedBlock() != null) {
+                BlockPosition blockPos = _player.getSelectedBlock().getBlockPosition();
+                Vector3d origin = blockPos.toVector3d();
 
-                for (int j = 0; j < 4; j++) {
-                    Vector3f target = new Vector3f(origin);
+                for (int i = 0; i < 256; i++) {
+                    Vector3d direction = new Vector3d((float) _random.randomDouble(), (float) _random.randomDouble(), (float) _random.randomDouble());
+                    direction.normalize();
+                    Vector3f impulse = new Vector3f(direction);
+                    impulse.scale(800000);
 
-                    target.x += direction.x * j;
-                    target.y += direction.y * j;
-                    target.z += direction.z * j;
+                    for (int j = 0; j < 4; j++) {
+                        Vector3f target = new Vector3f(origin);
 
-                    byte currentBlockType = worldProvider.getBlock((int) target.x, (int) target.y, (int) target.z);
+                        target.x += direction.x * j;
+                        target.y += direction.y * j;
+                        target.z += direction.z * j;
 
-                    if (currentBlockType == 0x0)
-                        continue;
+                        byte currentBlockType = worldProvider.getBlock((int) target.x, (int) target.y, (int) target.z);
 
-                    Block currentBlock = BlockManager.getInstance().getBlock(currentBlockType);
+                        if (currentBlockType == 0x0)
+                            continue;
 
-                    /* PHYSICS */
-                    if (currentBlock.isDestructible()) {
-                        // Make sure no updates are triggered
-                        placeBlock((int) target.x, (int) target.y, (int) target.z, (byte) 0x0, false);
-                        _player.getParent().getBulletRenderer().addTemporaryBlock(target, currentBlockType, impulse, BulletPhysicsRenderer.BLOCK_SIZE.FULL_SIZE);
+                        Block currentBlock = BlockManager.getInstance().getBlock(currentBlockType);
+
+                        /* PHYSICS */
+                        if (currentBlock.isDestructible()) {
+                            // Make sure no updates are triggered
+                            placeBlock((int) target.x, (int) target.y, (int) target.z, (byte) 0x0, false);
+                            _player.getParent().getBulletRenderer().addTemporaryBlock(target, currentBlockType, impulse, BulletPhysicsRenderer.BLOCK_SIZE.FULL_SIZE);
+                        }
                     }
                 }
             }
+        } finally {
+            worldProvider.commitBatch();
         }
     }
 
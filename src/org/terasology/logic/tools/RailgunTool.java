@@ -15,6 +15,7 @@
  */
 package org.terasology.logic.tools;
 
+import org.terasology.game.TaskScheduler;
 import org.terasology.game.Terasology;
 import org.terasology.logic.characters.Player;
 import org.terasology.logic.manager.AudioManager;
@@ -36,7 +37,7 @@ public class RailgunTool extends SimpleTool {
     }
 
     public void executeLeftClickAction() {
-        Terasology.getInstance().submitTask("Railgun", new Runnable() {
+        Terasology.getInstance().submitTask("Railgun", TaskScheduler.CATEGORY.WORLD, TaskScheduler.PRIORITY.PLAYER_TRIGGERED, 0, new Runnable() {
             public void run() {
                 explode();
             }
@@ -58,38 +59,45 @@ public class RailgunTool extends SimpleTool {
         //Vector3d origin = blockPos.toVector3d();
         Vector3d dir = _player.getViewingDirection();
         Vector3d origin = (Vector3d) _player.getPosition().clone();
-        for (int s = 4; s <= 10000; s += 30) {
+        // Update the light of all destroyed blocks at once
+        worldProvider.beginBatch();
 
-            origin.add(dir);
+        try {
+            for (int s = 4; s <= 10000; s += 30) {
 
-            for (int i = 0; i < 64; i++) {
-                Vector3d direction = new Vector3d((float) _random.randomDouble(), (float) _random.randomDouble(), (float) _random.randomDouble());
-                direction.normalize();
-                Vector3f impulse = new Vector3f(direction);
-                impulse.scale(800000);
+                origin.add(dir);
 
-                for (int j = 0; j < 3; j++) {
-                    Vector3f target = new Vector3f(origin);
+                for (int i = 0; i < 64; i++) {
+                    Vector3d direction = new Vector3d((float) _random.randomDouble(), (float) _random.randomDouble(), (float) _random.randomDouble());
+                    direction.normalize();
+                    Vector3f impulse = new Vector3f(direction);
+                    impulse.scale(800000);
 
-                    target.x += direction.x * j;
-                    target.y += direction.y * j;
-                    target.z += direction.z * j;
+                    for (int j = 0; j < 3; j++) {
+                        Vector3f target = new Vector3f(origin);
 
-                    byte currentBlockType = worldProvider.getBlock((int) target.x, (int) target.y, (int) target.z);
+                        target.x += direction.x * j;
+                        target.y += direction.y * j;
+                        target.z += direction.z * j;
 
-                    if (currentBlockType == 0x0)
-                        continue;
+                        byte currentBlockType = worldProvider.getBlock((int) target.x, (int) target.y, (int) target.z);
 
-                    Block currentBlock = BlockManager.getInstance().getBlock(currentBlockType);
+                        if (currentBlockType == 0x0)
+                            continue;
 
-                    /* PHYSICS */
-                    if (currentBlock.isDestructible()) {
-                        // Make sure no updates are triggered
-                        placeBlock((int) target.x, (int) target.y, (int) target.z, (byte) 0x0, false);
-                        _player.getParent().getBulletRenderer().addTemporaryBlock(target, currentBlockType, impulse, BulletPhysicsRenderer.BLOCK_SIZE.FULL_SIZE);
+                        Block currentBlock = BlockManager.getInstance().getBlock(currentBlockType);
+
+                        /* PHYSICS */
+                        if (currentBlock.isDestructible()) {
+                            // Make sure no updates are triggered
+                            placeBlock((int) target.x, (int) target.y, (int) target.z, (byte) 0x0, false);
+                            _player.getParent().getBulletRenderer().addTemporaryBlock(target, currentBlockType, impulse, BulletPhysicsRenderer.BLOCK_SIZE.FULL_SIZE);
+                        }
                     }
                 }
             }
+        } finally {
+            worldProvider.commitBatch();
         }
     }
 }
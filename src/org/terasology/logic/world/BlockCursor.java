@@ -0,0 +1,119 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+/**
+ * Accesses the blocks of the world relative to a current position. Moving the cursor into an adjacent chunk
+ * follows the neighbor references of the chunks, so walking through the world only requires a lookup
+ * if a chunk is not loaded yet or the cursor jumps further.
+ * <p/>
+ * Cursors are cheap and not thread-safe. Use a new cursor for each operation, since a cursor keeps
+ * referencing its current chunk even after the chunk has been removed from the cache.
+ */
+public final class BlockCursor {
+
+    private final IChunkProvider _chunkProvider;
+
+    private Chunk _chunk;
+    private int _chunkX, _chunkZ;
+    private int _x, _y, _z;
+
+    /**
+     * Init. a new cursor located at the origin.
+     *
+     * @param chunkProvider The chunk provider used to access chunks which are not linked
+     */
+    public BlockCursor(IChunkProvider chunkProvider) {
+        _chunkProvider = chunkProvider;
+    }
+
+    /**
+     * Moves the cursor to the given position.
+     *
+     * @param x The X-coordinate
+     * @param y The Y-coordinate
+     * @param z The Z-coordinate
+     * @return This cursor
+     */
+    public BlockCursor moveTo(int x, int y, int z) {
+        _x = x;
+        _y = y;
+        _z = z;
+
+        int chunkX = x >> 4, chunkZ = z >> 4;
+
+        if (_chunk != null && chunkX == _chunkX && chunkZ == _chunkZ)
+            return this;
+
+        Chunk chunk = null;
+
+        // Step over to the adjacent chunk if possible
+        if (_chunk != null && Math.abs(chunkX - _chunkX) <= 1 && Math.abs(chunkZ - _chunkZ) <= 1)
+            chunk = _chunk.getNeighbor(chunkX - _chunkX, chunkZ - _chunkZ);
+
+        if (chunk == null)
+            chunk = _chunkProvider.loadOrCreateChunk(chunkX, chunkZ);
+
+        _chunk = chunk;
+        _chunkX = chunkX;
+        _chunkZ = chunkZ;
+        return this;
+    }
+
+    /**
+     * Moves the cursor by the given offset.
+     *
+     * @return This cursor
+     */
+    public BlockCursor move(int dx, int dy, int dz) {
+        return moveTo(_x + dx, _y + dy, _z + dz);
+    }
+
+    public byte getBlock() {
+        return _chunk.getBlock(_x & 15, _y, _z & 15);
+    }
+
+    public byte getState() {
+        return _chunk.getState(_x & 15, _y, _z & 15);
+    }
+
+    public byte getLight(Chunk.LIGHT_TYPE type) {
+        return _chunk.getLight(_x & 15, _y, _z & 15, type);
+    }
+
+    public void setLight(byte intensity, Chunk.LIGHT_TYPE type) {
+        _chunk.setLight(_x & 15, _y, _z & 15, intensity, type);
+    }
+
+    /**
+     * Returns the chunk containing the current position.
+     */
+    public Chunk getChunk() {
+        return _chunk;
+    }
+
+    public int getX() {
+        return _x;
+    }
+
+    public int getY() {
+        return _y;
+    }
+
+    public int getZ() {
+        return _z;
+    }
+}
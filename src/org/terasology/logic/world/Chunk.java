@@ -23,17 +23,23 @@ import com.bulletphysics.dynamics.RigidBodyConstructionInfo;
 import com.bulletphysics.linearmath.DefaultMotionState;
 import com.bulletphysics.linearmath.Transform;
 import org.lwjgl.opengl.GL11;
+import org.terasology.game.TaskScheduler;
 import org.terasology.game.Terasology;
 import org.terasology.logic.generators.ChunkGenerator;
 import org.terasology.logic.manager.Config;
 import org.terasology.logic.manager.ShaderManager;
+import org.terasology.logic.world.codecs.ChunkCodecs;
 import org.terasology.math.TeraMath;
 import org.terasology.model.blocks.Block;
 import org.terasology.model.blocks.management.BlockManager;
 import org.terasology.model.structures.AABB;
+import org.terasology.model.structures.IChunkCodec;
+import org.terasology.model.structures.ITeraArray;
 import org.terasology.model.structures.TeraArray;
 import org.terasology.model.structures.TeraSmartArray;
+import org.terasology.model.structures.TeraSparseArray;
 import org.terasology.rendering.primitives.ChunkMesh;
+import org.terasology.rendering.physics.ChunkCollisionShapeBuilder;
 import org.terasology.rendering.primitives.ChunkTessellator;
 import org.terasology.rendering.shader.ShaderProgram;
 import org.terasology.utilities.FastRandom;
@@ -43,11 +49,15 @@ import javax.vecmath.Matrix3f;
 import javax.vecmath.Matrix4f;
 import javax.vecmath.Vector3d;
 import javax.vecmath.Vector3f;
+import java.io.DataOutput;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 
@@ -72,18 +82,38 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
     public static final int CHUNK_DIMENSION_Y = 256;
     public static final int CHUNK_DIMENSION_Z = 16;
     public static final int VERTICAL_SEGMENTS = Config.getInstance().getVerticalChunkMeshSegments();
-    private static final Vector3d[] LIGHT_DIRECTIONS = {new Vector3d(1, 0, 0), new Vector3d(-1, 0, 0), new Vector3d(0, 1, 0), new Vector3d(0, -1, 0), new Vector3d(0, 0, 1), new Vector3d(0, 0, -1)};
+    public static final int SEGMENT_HEIGHT = CHUNK_DIMENSION_Y / VERTICAL_SEGMENTS;
+    public static final int SECTION_HEIGHT = 16;
+    public static final int SECTIONS = CHUNK_DIMENSION_Y / SECTION_HEIGHT;
+    public static final int MIXED_SECTION = -1;
+    private static final boolean COMPACT_STORAGE = Config.getInstance().isCompactChunkStorage();
+    /* SERIALIZATION */
+    private static final short CHUNK_DATA_MAGIC = 0x5443;
+    // Version 1 used the x-major layout of the chunk layers, version 2 stores them column by column,
+    // version 3 adds the heightmaps
+    private static final byte CHUNK_DATA_VERSION = 3;
+    private static final int ALL_SEGMENTS = -1;
+    private static final short UNKNOWN_HEIGHT = Short.MIN_VALUE;
+    /* NEIGHBORS */
+    // The order used by loadOrCreateNeighbors(), opposite neighbors only differ in the lowest bit
+    private static final int[][] NEIGHBOR_OFFSETS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {-1, -1}, {-1, 1}, {1, -1}};
+    private static final int NO_RIGID_BODY = Integer.MIN_VALUE;
 
     private final Vector3d _position = new Vector3d();
     /* ------ */
     private FastRandom _random;
     /* ------ */
-    private boolean _dirty, _lightDirty, _fresh;
+    private boolean _lightDirty, _fresh;
+    private boolean _terrainGenerated, _featuresGenerated;
     /* ------ */
     private LocalWorldProvider _parent;
     /* ------ */
-    private final TeraArray _blocks;
-    private final TeraSmartArray _sunlight, _light, _states;
+    private final ITeraArray _blocks, _sunlight, _light, _states;
+    // The block type filling each section or MIXED_SECTION
+    private final short[] _sectionBlocks = new short[SECTIONS];
+    // The highest blocks of each column or UNKNOWN_HEIGHT if they have to be determined again
+    private final short[] _surfaceHeights = new short[CHUNK_DIMENSION_X * CHUNK_DIMENSION_Z];
+    private final short[] _sunlightHeights = new short[CHUNK_DIMENSION_X * CHUNK_DIMENSION_Z];
     /* ------ */
     private ChunkMesh _activeMeshes[];
     private ChunkMesh _newMeshes[];
@@ -95,7 +125,20 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
     private AABB _aabb = null;
     private AABB[] _subMeshAABB = null;
     /* ----- */
-    private RigidBody _rigidBody = null;
+    private volatile RigidBody _rigidBody = null;
+    private TaskScheduler.ScheduledTask _rigidBodyTask = null;
+    private volatile boolean _rigidBodyTaskPending = false;
+    private volatile int _rigidBodyVersion = NO_RIGID_BODY;
+    private final AtomicInteger _rigidBodyGeneration = new AtomicInteger();
+    /* ----- */
+    private volatile int _lastAccess;
+    /* ----- */
+    private final AtomicInteger _version = new AtomicInteger();
+    private final AtomicInteger _blockVersion = new AtomicInteger();
+    /* ----- */
+    private final AtomicInteger _dirtySegments = new AtomicInteger();
+    /* ----- */
+    private final AtomicReferenceArray<Chunk> _neighbors = new AtomicReferenceArray<Chunk>(NEIGHBOR_OFFSETS.length);
     /* ----- */
     private ReentrantLock _lock = new ReentrantLock();
     private ReentrantLock _lockRigidBody = new ReentrantLock();
@@ -110,12 +153,23 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
     }
 
     public Chunk() {
-        _tessellator = new ChunkTessellator(this);
+        _tessellator = new ChunkTessellator();
+
+        if (COMPACT_STORAGE) {
+            _blocks = new TeraSparseArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z, false);
+            _sunlight = new TeraSparseArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z, true);
+            _light = new TeraSparseArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z, true);
+            _states = new TeraSparseArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z, true);
+        } else {
+            _blocks = new TeraArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
+            _sunlight = new TeraSmartArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
+            _light = new TeraSmartArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
+            _states = new TeraSmartArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
+        }
 
-        _blocks = new TeraArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
-        _sunlight = new TeraSmartArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
-        _light = new TeraSmartArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
-        _states = new TeraSmartArray(CHUNK_DIMENSION_X, CHUNK_DIMENSION_Y, CHUNK_DIMENSION_Z);
+        // Fresh chunks only contain air
+        Arrays.fill(_surfaceHeights, (short) -1);
+        Arrays.fill(_sunlightHeights, (short) -1);
 
         setLightDirty(true);
         setDirty(true);
@@ -147,18 +201,63 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
      */
     public boolean generate() {
         if (isFresh()) {
-            for (ChunkGenerator gen : _parent.getGeneratorManager().getChunkGenerators()) {
-                gen.generate(this);
-            }
-
-            generateSunlight();
-            setFresh(false);
+            generateTerrain();
+            generateFeatures();
+            generateInitialSunlight();
 
             return true;
         }
         return false;
     }
 
+    /**
+     * Generates the terrain of a fresh chunk. Only modifies this chunk.
+     */
+    public void generateTerrain() {
+        if (!isFresh() || _terrainGenerated)
+            return;
+
+        for (ChunkGenerator gen : _parent.getGeneratorManager().getTerrainGenerators()) {
+            gen.generate(this);
+        }
+
+        updateSections();
+        _terrainGenerated = true;
+    }
+
+    /**
+     * Populates the terrain of a fresh chunk with flora and liquids. Might modify the neighbors
+     * of this chunk, so their terrain should be generated beforehand.
+     */
+    public void generateFeatures() {
+        if (!isFresh() || _featuresGenerated)
+            return;
+
+        generateTerrain();
+
+        for (ChunkGenerator gen : _parent.getGeneratorManager().getFeatureGenerators()) {
+            gen.generate(this);
+        }
+
+        updateSections();
+        _featuresGenerated = true;
+    }
+
+    /**
+     * Generates the initial sunlight of a fresh chunk and completes its generation. The features of
+     * the neighbors should be generated beforehand, since they might place blocks in this chunk.
+     */
+    public void generateInitialSunlight() {
+        if (!isFresh())
+            return;
+
+        generateFeatures();
+        generateSunlight();
+        updateSections();
+        compactStorage();
+        setFresh(false);
+    }
+
     /**
      * Updates the light of this chunk.
      */
@@ -166,27 +265,128 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
         if (isFresh() || !isLightDirty())
             return;
 
-        for (int x = 0; x < CHUNK_DIMENSION_X; x++) {
-            for (int z = 0; z < CHUNK_DIMENSION_Z; z++) {
-                for (int y = CHUNK_DIMENSION_Y - 1; y >= 0; y--) {
-                    byte blockValue = getBlock(x, y, z);
-                    byte lightValue = getLight(x, y, z, LIGHT_TYPE.SUN);
+        LightPropagator propagator = LightPropagator.getInstance();
+        propagator.beginSpreading(getParent().getChunkProvider(), getBlockWorldPosX(CHUNK_DIMENSION_X / 2), getBlockWorldPosZ(CHUNK_DIMENSION_Z / 2), LIGHT_TYPE.SUN);
+
+        boolean sky = true;
+
+        for (int section = SECTIONS - 1; section >= 0; section--) {
+            int sectionBlock = _sectionBlocks[section];
+            Block uniformBlock = sectionBlock != MIXED_SECTION ? BlockManager.getInstance().getBlock((byte) sectionBlock) : null;
 
-                    if (!BlockManager.getInstance().getBlock(blockValue).isTranslucent()) {
+            // Opaque sections do not carry any sunlight
+            if (uniformBlock != null && !uniformBlock.isTranslucent()) {
+                sky = false;
+                continue;
+            }
+
+            // Air sections open to the sky are fully lit, so only the light leaving them has to be spread
+            sky &= sectionBlock == 0;
+            boolean lowestSky = sky && (section == 0 || _sectionBlocks[section - 1] != 0);
+
+            for (int x = 0; x < CHUNK_DIMENSION_X; x++) {
+                for (int z = 0; z < CHUNK_DIMENSION_Z; z++) {
+                    boolean border = x == 0 || z == 0 || x == CHUNK_DIMENSION_X - 1 || z == CHUNK_DIMENSION_Z - 1;
+
+                    if (sky && !border && !lowestSky)
                         continue;
-                    }
 
-                    // Spread the sunlight in translucent blocks with a light value greater than zero.
-                    if (lightValue > 0) {
-                        spreadLight(x, y, z, lightValue, LIGHT_TYPE.SUN);
+                    for (int y = section * SECTION_HEIGHT + SECTION_HEIGHT - 1; y >= section * SECTION_HEIGHT; y--) {
+                        if (sky && !border && y != section * SECTION_HEIGHT)
+                            continue;
+
+                        byte lightValue = _sunlight.getUnsafe(x, y, z);
+
+                        if (uniformBlock == null && !BlockManager.getInstance().getBlock(getBlockUnsafe(x, y, z)).isTranslucent()) {
+                            continue;
+                        }
+
+                        // Spread the sunlight in translucent blocks with a light value greater than zero.
+                        if (lightValue > 0) {
+                            propagator.queueSource(getBlockWorldPosX(x), y, getBlockWorldPosZ(z), lightValue);
+                        }
                     }
                 }
             }
         }
 
+        propagator.finishSpreading();
+
+        updateSections();
+        compactStorage();
         setLightDirty(false);
     }
 
+    /**
+     * Reduces the memory used by the block, light and state data. Only has an effect
+     * if the compact chunk storage is enabled.
+     */
+    private void compactStorage() {
+        _blocks.compact();
+        _sunlight.compact();
+        _light.compact();
+        _states.compact();
+    }
+
+    /**
+     * Determines which sections are filled with a single block type. Sections modified since are
+     * conservatively treated as mixed, so this restores the exact summary.
+     */
+    private void updateSections() {
+        int version = _version.get();
+        short[] sectionBlocks = new short[SECTIONS];
+
+        for (int section = 0; section < SECTIONS; section++) {
+            int minY = section * SECTION_HEIGHT;
+            int sectionBlock = _blocks.getUnsafe(0, minY, 0) & 0xFF;
+
+            for (int x = 0; x < CHUNK_DIMENSION_X && sectionBlock != MIXED_SECTION; x++) {
+                for (int z = 0; z < CHUNK_DIMENSION_Z && sectionBlock != MIXED_SECTION; z++) {
+                    for (int y = minY; y < minY + SECTION_HEIGHT; y++) {
+                        if ((_blocks.getUnsafe(x, y, z) & 0xFF) != sectionBlock) {
+                            sectionBlock = MIXED_SECTION;
+                            break;
+                        }
+                    }
+                }
+            }
+
+            sectionBlocks[section] = (short) sectionBlock;
+        }
+
+        // Drop the result if a block has been changed in the meantime
+        if (version == _version.get()) {
+            System.arraycopy(sectionBlocks, 0, _sectionBlocks, 0, SECTIONS);
+
+            // A block changed while copying might not be covered by the summary
+            if (version != _version.get())
+                Arrays.fill(_sectionBlocks, (short) MIXED_SECTION);
+        }
+    }
+
+    /**
+     * Marks the section containing the given block as mixed, unless it is filled with the new block type anyway.
+     */
+    private void markSectionModified(int y, byte type) {
+        if (y < 0 || y >= CHUNK_DIMENSION_Y)
+            return;
+
+        if (_sectionBlocks[y / SECTION_HEIGHT] != (type & 0xFF))
+            _sectionBlocks[y / SECTION_HEIGHT] = MIXED_SECTION;
+    }
+
+    /**
+     * Returns the block type filling the given section of SECTION_HEIGHT blocks, or MIXED_SECTION
+     * if the section might contain different block types. Passes over the chunk can skip uniform
+     * sections or handle them at once.
+     *
+     * @param section The section, counted from the bottom of the chunk
+     * @return The block type or MIXED_SECTION
+     */
+    public int getSectionBlock(int section) {
+        return _sectionBlocks[section];
+    }
+
     /**
      * Generates the initial sunlight.
      */
@@ -207,41 +407,41 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
      * @param refreshSunlight Refreshes the sunlight using the surrounding chunks when the light value is lower than before
      */
     public void refreshSunlightAtLocalPos(int x, int z, boolean spreadLight, boolean refreshSunlight) {
-        boolean covered = false;
+        if (x < 0 || z < 0 || x >= CHUNK_DIMENSION_X || z >= CHUNK_DIMENSION_Z)
+            return;
 
-        for (int y = CHUNK_DIMENSION_Y - 1; y >= 0; y--) {
-            byte blockId = _blocks.get(x, y, z);
-            Block b = BlockManager.getInstance().getBlock(blockId);
+        int minChangedY = CHUNK_DIMENSION_Y, maxChangedY = -1;
+        // The column is covered from the highest block blocking the sunlight downwards
+        int sunlightHeight = getSunlightHeight(x, z);
 
-            // Remember if this "column" is covered
-            if ((!b.isInvisible() && b.getBlockForm() != Block.BLOCK_FORM.BILLBOARD) && !covered) {
-                covered = true;
-            }
+        for (int y = CHUNK_DIMENSION_Y - 1; y >= 0; y--) {
+            boolean covered = y <= sunlightHeight;
 
-            byte oldValue = _sunlight.get(x, y, z);
+            byte oldValue = _sunlight.getUnsafe(x, y, z);
             byte newValue;
 
             // If the column is not covered...
             if (!covered) {
-                if (b.isInvisible() || b.getBlockForm() == Block.BLOCK_FORM.BILLBOARD)
-                    _sunlight.set(x, y, z, (byte) 15);
-                else
-                    _sunlight.set(x, y, z, (byte) 0x0);
+                _sunlight.setUnsafe(x, y, z, (byte) 15);
 
-                newValue = _sunlight.get(x, y, z);
+                newValue = _sunlight.getUnsafe(x, y, z);
 
                 // Otherwise the column is covered. Don't generate any light in the cells...
             } else {
-                _sunlight.set(x, y, z, (byte) 0);
+                _sunlight.setUnsafe(x, y, z, (byte) 0);
 
                 // Update the sunlight at the current position (check the surrounding cells)
                 if (refreshSunlight) {
                     refreshLightAtLocalPos(x, y, z, LIGHT_TYPE.SUN);
                 }
 
-                newValue = _sunlight.get(x, y, z);
+                newValue = _sunlight.getUnsafe(x, y, z);
             }
 
+            if (oldValue != newValue) {
+                minChangedY = Math.min(minChangedY, y);
+                maxChangedY = Math.max(maxChangedY, y);
+            }
 
             if (spreadLight && oldValue > newValue)
                 unspreadLight(x, y, z, oldValue, Chunk.LIGHT_TYPE.SUN);
@@ -253,6 +453,16 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
                 spreadLight(x, y, z, newValue, LIGHT_TYPE.SUN);
             }
         }
+
+        if (maxChangedY >= 0) {
+            markDirty(minChangedY - 1, maxChangedY + 1);
+
+            // The whole chunk gets tessellated anyway while it is generated
+            if (!isFresh())
+                markNeighborsDirty(x, z, minChangedY - 1, maxChangedY + 1);
+        }
+
+        _version.incrementAndGet();
     }
 
     /**
@@ -296,56 +506,21 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
     }
 
     /**
-     * Recursive light calculation.
+     * Removes the light originating from the given position and fills the gap with the light
+     * of the surrounding light sources.
      *
      * @param x          Local block position on the x-axis
      * @param y          Local block position on the y-axis
      * @param z          Local block position on the z-axis
-     * @param lightValue The light value used to spread the light
+     * @param lightValue The light value before the light got removed
      * @param type       The type of the light
      */
     public void unspreadLight(int x, int y, int z, byte lightValue, LIGHT_TYPE type) {
-        ArrayList<Vector3d> brightSpots = new ArrayList<Vector3d>();
-        unspreadLight(x, y, z, lightValue, 0, type, brightSpots);
-
-        for (Vector3d pos : brightSpots) {
-            getParent().spreadLight((int) pos.x, (int) pos.y, (int) pos.z, _parent.getLight((int) pos.x, (int) pos.y, (int) pos.z, type), 0, type);
-        }
-    }
-
-    /**
-     * Recursive light calculation.
-     *
-     * @param x           Local block position on the x-axis
-     * @param y           Local block position on the y-axis
-     * @param z           Local block position on the z-axis
-     * @param lightValue  The light value used to spread the light
-     * @param depth       Depth of the recursion
-     * @param type        The type of the light
-     * @param brightSpots Log of light spots, which where brighter than the current light node
-     */
-    public void unspreadLight(int x, int y, int z, byte lightValue, int depth, LIGHT_TYPE type, ArrayList<Vector3d> brightSpots) {
-        int blockPosX = getBlockWorldPosX(x);
-        int blockPosZ = getBlockWorldPosZ(z);
-
-        // Remove the light at this point
-        getParent().setLight(blockPosX, y, blockPosZ, (byte) 0x0, type);
-
-        for (int i = 0; i < 6; i++) {
-
-            byte neighborValue = getParent().getLight(blockPosX + (int) LIGHT_DIRECTIONS[i].x, y + (int) LIGHT_DIRECTIONS[i].y, blockPosZ + (int) LIGHT_DIRECTIONS[i].z, type);
-            byte neighborType = getParent().getBlock(blockPosX + (int) LIGHT_DIRECTIONS[i].x, y + (int) LIGHT_DIRECTIONS[i].y, blockPosZ + (int) LIGHT_DIRECTIONS[i].z);
-
-            if (neighborValue < lightValue && neighborValue > 0 && BlockManager.getInstance().getBlock(neighborType).isTranslucent()) {
-                getParent().unspreadLight(blockPosX + (int) LIGHT_DIRECTIONS[i].x, y + (int) LIGHT_DIRECTIONS[i].y, blockPosZ + (int) LIGHT_DIRECTIONS[i].z, (byte) (lightValue - 1), depth + 1, type, brightSpots);
-            } else if (neighborValue >= lightValue) {
-                brightSpots.add(new Vector3d(blockPosX + (int) LIGHT_DIRECTIONS[i].x, y + (int) LIGHT_DIRECTIONS[i].y, blockPosZ + (int) LIGHT_DIRECTIONS[i].z));
-            }
-        }
+        LightPropagator.getInstance().unspreadLight(getParent().getChunkProvider(), getBlockWorldPosX(x), y, getBlockWorldPosZ(z), lightValue, type);
     }
 
     /**
-     * Recursive light calculation.
+     * Sets the light value at the given position and spreads it to the surrounding blocks.
      *
      * @param x          Local block position on the x-axis
      * @param y          Local block position on the y-axis
@@ -354,40 +529,7 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
      * @param type       The type of the light
      */
     public void spreadLight(int x, int y, int z, byte lightValue, LIGHT_TYPE type) {
-        spreadLight(x, y, z, lightValue, 0, type);
-    }
-
-    /**
-     * Recursive light calculation.
-     *
-     * @param x          Local block position on the x-axis
-     * @param y          Local block position on the y-axis
-     * @param z          Local block position on the z-axis
-     * @param lightValue The light value used to spread the light
-     * @param depth      Depth of the recursion
-     * @param type       The type of the light
-     */
-    public void spreadLight(int x, int y, int z, byte lightValue, int depth, LIGHT_TYPE type) {
-        if (depth > lightValue || lightValue - depth < 1) {
-            return;
-        }
-
-        int blockPosX = getBlockWorldPosX(x);
-        int blockPosZ = getBlockWorldPosZ(z);
-
-        byte newLightValue;
-        newLightValue = (byte) (lightValue - depth);
-
-        getParent().setLight(blockPosX, y, blockPosZ, newLightValue, type);
-
-        for (int i = 0; i < 6; i++) {
-            byte neighborValue = getParent().getLight(blockPosX + (int) LIGHT_DIRECTIONS[i].x, y + (int) LIGHT_DIRECTIONS[i].y, blockPosZ + (int) LIGHT_DIRECTIONS[i].z, type);
-            byte neighborType = getParent().getBlock(blockPosX + (int) LIGHT_DIRECTIONS[i].x, y + (int) LIGHT_DIRECTIONS[i].y, blockPosZ + (int) LIGHT_DIRECTIONS[i].z);
-
-            if (neighborValue < newLightValue - 1 && BlockManager.getInstance().getBlock(neighborType).isTranslucent()) {
-                getParent().spreadLight(blockPosX + (int) LIGHT_DIRECTIONS[i].x, y + (int) LIGHT_DIRECTIONS[i].y, blockPosZ + (int) LIGHT_DIRECTIONS[i].z, lightValue, depth + 1, type);
-            }
-        }
+        LightPropagator.getInstance().spreadLight(getParent().getChunkProvider(), getBlockWorldPosX(x), y, getBlockWorldPosZ(z), lightValue, type);
     }
 
     /**
@@ -425,7 +567,7 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
      * @param type      The type of the light
      */
     public void setLight(int x, int y, int z, byte intensity, LIGHT_TYPE type) {
-        TeraSmartArray lSource;
+        ITeraArray lSource;
         if (type == LIGHT_TYPE.SUN) {
             lSource = _sunlight;
         } else if (type == LIGHT_TYPE.BLOCK) {
@@ -438,9 +580,10 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
         lSource.set(x, y, z, intensity);
 
         if (oldValue != intensity) {
-            setDirty(true);
+            _version.incrementAndGet();
+            markDirty(y - 1, y + 1);
             // Mark the neighbors as dirty
-            markNeighborsDirty(x, z);
+            markNeighborsDirty(x, z, y - 1, y + 1);
         }
     }
 
@@ -462,6 +605,19 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
         return 0;
     }
 
+    /**
+     * Same as getBlock(...), but without checking the bounds. Only use this in loops running within the chunk.
+     */
+    private byte getBlockUnsafe(int x, int y, int z) {
+        byte result = _blocks.getUnsafe(x, y, z);
+
+        if (result >= 0) {
+            return result;
+        }
+
+        return 0;
+    }
+
     /**
      * Returns the state at a given local block position.
      *
@@ -475,12 +631,89 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
     }
 
     public boolean canBlockSeeTheSky(int x, int y, int z) {
-        for (int y1 = y + 1; y1 < CHUNK_DIMENSION_Y; y1++) {
-            if (!BlockManager.getInstance().getBlock(getBlock(x, y1, z)).isTranslucent())
-                return false;
+        if (x < 0 || z < 0 || x >= CHUNK_DIMENSION_X || z >= CHUNK_DIMENSION_Z)
+            return false;
+
+        return getSurfaceHeight(x, z) < Math.max(y + 1, 0);
+    }
+
+    /**
+     * Returns the height of the highest block in the given column that is not translucent.
+     *
+     * @param x Local block position on the x-axis
+     * @param z Local block position on the z-axis
+     * @return The height of the block or -1 if the column only contains translucent blocks
+     */
+    public int getSurfaceHeight(int x, int z) {
+        int column = x * CHUNK_DIMENSION_Z + z;
+
+        if (_surfaceHeights[column] == UNKNOWN_HEIGHT)
+            return updateHeights(x, z)[0];
+
+        return _surfaceHeights[column];
+    }
+
+    /**
+     * Returns the height of the highest block in the given column blocking the sunlight: any block
+     * that is neither invisible nor a billboard.
+     */
+    private int getSunlightHeight(int x, int z) {
+        int column = x * CHUNK_DIMENSION_Z + z;
+
+        if (_sunlightHeights[column] == UNKNOWN_HEIGHT)
+            return updateHeights(x, z)[1];
+
+        return _sunlightHeights[column];
+    }
+
+    /**
+     * Scans the given column from the top and stores the surface and the sunlight height.
+     *
+     * @return The surface and the sunlight height
+     */
+    private int[] updateHeights(int x, int z) {
+        int version = _version.get();
+        int surfaceHeight = -1, sunlightHeight = -1;
+
+        for (int y = CHUNK_DIMENSION_Y - 1; y >= 0 && (surfaceHeight < 0 || sunlightHeight < 0); y--) {
+            Block b = BlockManager.getInstance().getBlock(getBlockUnsafe(x, y, z));
+
+            if (sunlightHeight < 0 && !b.isInvisible() && b.getBlockForm() != Block.BLOCK_FORM.BILLBOARD)
+                sunlightHeight = y;
+            if (surfaceHeight < 0 && !b.isTranslucent())
+                surfaceHeight = y;
         }
 
-        return true;
+        // Leave the column unknown if a block has been changed in the meantime
+        if (version == _version.get()) {
+            int column = x * CHUNK_DIMENSION_Z + z;
+            _surfaceHeights[column] = (short) surfaceHeight;
+            _sunlightHeights[column] = (short) sunlightHeight;
+
+            // The heights might have been invalidated before they were written
+            if (version != _version.get()) {
+                _surfaceHeights[column] = UNKNOWN_HEIGHT;
+                _sunlightHeights[column] = UNKNOWN_HEIGHT;
+            }
+        }
+
+        return new int[]{surfaceHeight, sunlightHeight};
+    }
+
+    /**
+     * Forgets the heights of the given column if the new block might change them. Removing blocks below
+     * the heights or placing air above them has no effect.
+     */
+    private void markHeightsModified(int x, int y, int z, byte type) {
+        if (x < 0 || z < 0 || y < 0 || x >= CHUNK_DIMENSION_X || z >= CHUNK_DIMENSION_Z || y >= CHUNK_DIMENSION_Y)
+            return;
+
+        int column = x * CHUNK_DIMENSION_Z + z;
+
+        if (y == _surfaceHeights[column] || (y > _surfaceHeights[column] && type != 0))
+            _surfaceHeights[column] = UNKNOWN_HEIGHT;
+        if (y == _sunlightHeights[column] || (y > _sunlightHeights[column] && type != 0))
+            _sunlightHeights[column] = UNKNOWN_HEIGHT;
     }
 
     /**
@@ -496,10 +729,15 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
         _blocks.set(x, y, z, type);
 
         if (oldValue != type) {
+            // Bump the version before invalidating the summaries, so concurrent rescans drop their results
+            _version.incrementAndGet();
+            _blockVersion.incrementAndGet();
+            markSectionModified(y, type);
+            markHeightsModified(x, y, z, type);
             // Update vertex arrays and light
-            setDirty(true);
+            markDirty(y - 1, y + 1);
             // Mark the neighbors as dirty
-            markNeighborsDirty(x, z);
+            markNeighborsDirty(x, z, y - 1, y + 1);
         }
     }
 
@@ -536,60 +774,134 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
      * @return The adjacent chunks
      */
     public Chunk[] loadOrCreateNeighbors() {
-        Chunk[] chunks = new Chunk[8];
+        Chunk[] chunks = new Chunk[NEIGHBOR_OFFSETS.length];
+
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = _neighbors.get(i);
 
-        chunks[0] = getParent().getChunkProvider().loadOrCreateChunk((int) getPosition().x + 1, (int) getPosition().z);
-        chunks[1] = getParent().getChunkProvider().loadOrCreateChunk((int) getPosition().x - 1, (int) getPosition().z);
-        chunks[2] = getParent().getChunkProvider().loadOrCreateChunk((int) getPosition().x, (int) getPosition().z + 1);
-        chunks[3] = getParent().getChunkProvider().loadOrCreateChunk((int) getPosition().x, (int) getPosition().z - 1);
-        chunks[4] = getParent().getChunkProvider().loadOrCreateChunk((int) getPosition().x + 1, (int) getPosition().z + 1);
-        chunks[5] = getParent().getChunkProvider().loadOrCreateChunk((int) getPosition().x - 1, (int) getPosition().z - 1);
-        chunks[6] = getParent().getChunkProvider().loadOrCreateChunk((int) getPosition().x - 1, (int) getPosition().z + 1);
-        chunks[7] = getParent().getChunkProvider().loadOrCreateChunk((int) getPosition().x + 1, (int) getPosition().z - 1);
+            // Only neighbors which are not loaded yet have to be requested
+            if (chunks[i] == null)
+                chunks[i] = getParent().getChunkProvider().loadOrCreateChunk((int) getPosition().x + NEIGHBOR_OFFSETS[i][0], (int) getPosition().z + NEIGHBOR_OFFSETS[i][1]);
+        }
 
         return chunks;
     }
 
+    /**
+     * Returns the loaded neighbors of this chunk in the order used by loadOrCreateNeighbors(). Unlike
+     * loadOrCreateNeighbors() this never loads chunks, neighbors which are not loaded are null.
+     *
+     * @return The adjacent chunks
+     */
+    public Chunk[] getNeighbors() {
+        Chunk[] chunks = new Chunk[NEIGHBOR_OFFSETS.length];
+
+        for (int i = 0; i < chunks.length; i++)
+            chunks[i] = _neighbors.get(i);
+
+        return chunks;
+    }
+
+    /**
+     * Returns the loaded chunk adjacent to this chunk in the given direction.
+     *
+     * @param dx The offset on the x-axis, -1, 0 or 1
+     * @param dz The offset on the z-axis, -1, 0 or 1
+     * @return The chunk, this chunk for an offset of zero or null if the neighbor is not loaded
+     */
+    public Chunk getNeighbor(int dx, int dz) {
+        if (dx == 0 && dz == 0)
+            return this;
+
+        for (int i = 0; i < NEIGHBOR_OFFSETS.length; i++) {
+            if (NEIGHBOR_OFFSETS[i][0] == dx && NEIGHBOR_OFFSETS[i][1] == dz)
+                return _neighbors.get(i);
+        }
+
+        return null;
+    }
+
+    /**
+     * Links this chunk and the given chunk if they are adjacent. Used by the chunk cache, both chunks
+     * have to be loaded.
+     *
+     * @param c The chunk
+     */
+    void linkNeighbor(Chunk c) {
+        int dx = (int) c.getPosition().x - (int) getPosition().x;
+        int dz = (int) c.getPosition().z - (int) getPosition().z;
+
+        for (int i = 0; i < NEIGHBOR_OFFSETS.length; i++) {
+            if (NEIGHBOR_OFFSETS[i][0] == dx && NEIGHBOR_OFFSETS[i][1] == dz) {
+                _neighbors.set(i, c);
+                c._neighbors.set(i ^ 1, this);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the references between this chunk and its neighbors. Used by the chunk cache once
+     * the chunk has been removed.
+     */
+    void unlinkNeighbors() {
+        for (int i = 0; i < NEIGHBOR_OFFSETS.length; i++) {
+            Chunk neighbor = _neighbors.getAndSet(i, null);
+
+            // The neighbor might already reference a reloaded version of this chunk
+            if (neighbor != null)
+                neighbor._neighbors.compareAndSet(i ^ 1, this, null);
+        }
+    }
+
     /**
      * Marks those neighbors of a chunk dirty, that are adjacent to
      * the given block coordinate.
      *
-     * @param x Local block position on the x-axis
-     * @param z Local block position on the z-axis
+     * @param x    Local block position on the x-axis
+     * @param z    Local block position on the z-axis
+     * @param minY The lowest affected block
+     * @param maxY The highest affected block
      */
-    private void markNeighborsDirty(int x, int z) {
-        Chunk[] neighbors = loadOrCreateNeighbors();
+    private void markNeighborsDirty(int x, int z, int minY, int maxY) {
+        // Only blocks at the borders affect the neighbors
+        if (x > 0 && z > 0 && x < CHUNK_DIMENSION_X - 1 && z < CHUNK_DIMENSION_Z - 1) {
+            return;
+        }
+
+        // Neighbors which are not loaded are tessellated once they are
+        Chunk[] neighbors = getNeighbors();
 
         if (x == 0 && neighbors[1] != null) {
-            neighbors[1].setDirty(true);
+            neighbors[1].markDirty(minY, maxY);
         }
 
         if (x == CHUNK_DIMENSION_X - 1 && neighbors[0] != null) {
-            neighbors[0].setDirty(true);
+            neighbors[0].markDirty(minY, maxY);
         }
 
         if (z == 0 && neighbors[3] != null) {
-            neighbors[3].setDirty(true);
+            neighbors[3].markDirty(minY, maxY);
         }
 
         if (z == CHUNK_DIMENSION_Z - 1 && neighbors[2] != null) {
-            neighbors[2].setDirty(true);
+            neighbors[2].markDirty(minY, maxY);
         }
 
         if (x == CHUNK_DIMENSION_X - 1 && z == 0 && neighbors[7] != null) {
-            neighbors[7].setDirty(true);
+            neighbors[7].markDirty(minY, maxY);
         }
 
         if (x == 0 && z == CHUNK_DIMENSION_Z - 1 && neighbors[6] != null) {
-            neighbors[6].setDirty(true);
+            neighbors[6].markDirty(minY, maxY);
         }
 
         if (x == 0 && z == 0 && neighbors[5] != null) {
-            neighbors[5].setDirty(true);
+            neighbors[5].markDirty(minY, maxY);
         }
 
         if (x == CHUNK_DIMENSION_X - 1 && z == CHUNK_DIMENSION_Z - 1 && neighbors[4] != null) {
-            neighbors[4].setDirty(true);
+            neighbors[4].markDirty(minY, maxY);
         }
     }
 
@@ -645,33 +957,139 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
         return _subMeshAABB[subMesh];
     }
 
-    public void processChunk() {
-        /*
-        * Generate the chunk...
-        */
-        generate();
-
-        /*
-        * ... and fetch its neighbors...
-        */
-        Chunk[] neighbors = loadOrCreateNeighbors();
-
-        /*
-        * Before starting the illumination process, make sure that the neighbor chunks
-        * are present and fully generated.
-        */
-        for (int i = 0; i < neighbors.length; i++) {
-            if (neighbors[i] != null) {
-                neighbors[i].generate();
+    public void writeExternal(ObjectOutput out) throws IOException {
+        writeHeader(out);
+
+        _blocks.writeLegacyRawBytes(out);
+        _sunlight.writeLegacyRawBytes(out);
+        _light.writeLegacyRawBytes(out);
+        _states.writeLegacyRawBytes(out);
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        getPosition().x = in.readInt();
+        getPosition().z = in.readInt();
+        readFlags(in.readByte());
+
+        for (ITeraArray layer : new ITeraArray[]{_blocks, _sunlight, _light, _states}) {
+            byte[] raw = new byte[layer.getRawSize()];
+            in.readFully(raw);
+            layer.readLegacyRawBytes(raw);
+        }
+
+        updateSections();
+        forgetHeights();
+    }
+
+    /**
+     * Writes the chunk data using the default codecs: run-length encoding for the blocks and
+     * page elision for the light and state layers.
+     *
+     * @param out The output to write to
+     * @throws IOException If the data could not be written
+     */
+    public void writeChunkData(DataOutput out) throws IOException {
+        writeChunkData(out, ChunkCodecs.RUN_LENGTH, ChunkCodecs.PAGE_ELISION);
+    }
+
+    /**
+     * Writes the versioned chunk data: a magic number and the format version followed by the position,
+     * the flags, the block, light and state layers, each prefixed with the id of the codec used, and
+     * the surface and sunlight heights of the columns.
+     *
+     * @param out         The output to write to
+     * @param blockCodec  The codec used for the block layer
+     * @param nibbleCodec The codec used for the light and state layers
+     * @throws IOException If the data could not be written
+     */
+    public void writeChunkData(DataOutput out, IChunkCodec blockCodec, IChunkCodec nibbleCodec) throws IOException {
+        out.writeShort(CHUNK_DATA_MAGIC);
+        out.writeByte(CHUNK_DATA_VERSION);
+
+        writeHeader(out);
+
+        writeLayer(out, _blocks, blockCodec);
+        writeLayer(out, _sunlight, nibbleCodec);
+        writeLayer(out, _light, nibbleCodec);
+        writeLayer(out, _states, nibbleCodec);
+
+        for (int i = 0; i < _surfaceHeights.length; i++) {
+            out.writeShort(_surfaceHeights[i]);
+            out.writeShort(_sunlightHeights[i]);
+        }
+    }
+
+    /**
+     * Reads chunk data from the given buffer, starting at its current position. Accepts both the
+     * versioned data written by writeChunkData(...) and the uncompressed data of older saves.
+     *
+     * @param buffer The buffer to read from
+     * @throws IOException If the data is corrupt or uses an unsupported version
+     */
+    public void readChunkData(ByteBuffer buffer) throws IOException {
+        ITeraArray[] layers = {_blocks, _sunlight, _light, _states};
+
+        if (buffer.remaining() < 3 || buffer.getShort(buffer.position()) != CHUNK_DATA_MAGIC) {
+            // Uncompressed data without a version
+            getPosition().x = buffer.getInt();
+            getPosition().z = buffer.getInt();
+            readFlags(buffer.get());
+
+            for (ITeraArray layer : layers) {
+                byte[] raw = new byte[layer.getRawSize()];
+                buffer.get(raw);
+                layer.readLegacyRawBytes(raw);
             }
+
+            updateSections();
+            forgetHeights();
+            return;
+        }
+
+        buffer.getShort();
+        byte version = buffer.get();
+
+        if (version > CHUNK_DATA_VERSION)
+            throw new IOException("Unsupported chunk data version " + version + ".");
+
+        getPosition().x = buffer.getInt();
+        getPosition().z = buffer.getInt();
+        readFlags(buffer.get());
+
+        for (ITeraArray layer : layers) {
+            IChunkCodec codec = ChunkCodecs.getCodec(buffer.get());
+
+            if (version == 1) {
+                byte[] raw = new byte[layer.getRawSize()];
+                codec.decode(buffer, raw);
+                layer.readLegacyRawBytes(raw);
+            } else {
+                layer.readRawBytes(codec, buffer);
+            }
+        }
+
+        updateSections();
+
+        if (version < 3) {
+            forgetHeights();
+            return;
         }
 
-        // Finally update the light and generate the meshes
-        updateLight();
-        generateMeshes();
+        for (int i = 0; i < _surfaceHeights.length; i++) {
+            _surfaceHeights[i] = buffer.getShort();
+            _sunlightHeights[i] = buffer.getShort();
+        }
     }
 
-    public void writeExternal(ObjectOutput out) throws IOException {
+    /**
+     * Determines the heights of all columns again when they are accessed next.
+     */
+    private void forgetHeights() {
+        Arrays.fill(_surfaceHeights, UNKNOWN_HEIGHT);
+        Arrays.fill(_sunlightHeights, UNKNOWN_HEIGHT);
+    }
+
+    private void writeHeader(DataOutput out) throws IOException {
         out.writeInt((int) getPosition().x);
         out.writeInt((int) getPosition().z);
 
@@ -684,43 +1102,17 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
             flags = Helper.setFlag(flags, (short) 1);
         }
 
-        // The flags are stored in the first byte of the file...
         out.writeByte(flags);
-
-        for (int i = 0; i < _blocks.size(); i++)
-            out.writeByte(_blocks.getRawByte(i));
-
-        for (int i = 0; i < _sunlight.sizePacked(); i++)
-            out.writeByte(_sunlight.getRawByte(i));
-
-        for (int i = 0; i < _light.sizePacked(); i++)
-            out.writeByte(_light.getRawByte(i));
-
-        for (int i = 0; i < _states.sizePacked(); i++)
-            out.writeByte(_states.getRawByte(i));
     }
 
-    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-        getPosition().x = in.readInt();
-        getPosition().z = in.readInt();
-
-        // The first byte contains the flags...
-        byte flags = in.readByte();
-        // Parse the flags...
+    private void readFlags(byte flags) {
         setLightDirty(Helper.isFlagSet(flags, (short) 0));
         setFresh(Helper.isFlagSet(flags, (short) 1));
+    }
 
-        for (int i = 0; i < _blocks.size(); i++)
-            _blocks.setRawByte(i, in.readByte());
-
-        for (int i = 0; i < _sunlight.sizePacked(); i++)
-            _sunlight.setRawByte(i, in.readByte());
-
-        for (int i = 0; i < _light.sizePacked(); i++)
-            _light.setRawByte(i, in.readByte());
-
-        for (int i = 0; i < _states.sizePacked(); i++)
-            _states.setRawByte(i, in.readByte());
+    private static void writeLayer(DataOutput out, ITeraArray layer, IChunkCodec codec) throws IOException {
+        out.writeByte(codec.getId());
+        layer.writeRawBytes(codec, out);
     }
 
     /**
@@ -730,14 +1122,29 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
         if (isFresh() || isLightDirty() || !isDirty())
             return;
 
+        // Modifications made from now on might not be part of the snapshot and have to mark the chunk dirty again
+        int dirtySegments = _dirtySegments.getAndSet(0);
+        ChunkSnapshot snapshot = ChunkSnapshot.create(this);
+
+        // Try again later instead of tessellating a torn copy
+        if (!snapshot.isConsistent()) {
+            markSegmentsDirty(dirtySegments);
+            return;
+        }
+
+        // Only the dirty segments are tessellated, the others keep their current mesh
         ChunkMesh[] newMeshes = new ChunkMesh[VERTICAL_SEGMENTS];
 
         for (int i = 0; i < VERTICAL_SEGMENTS; i++) {
-            newMeshes[i] = _tessellator.generateMesh(CHUNK_DIMENSION_Y / VERTICAL_SEGMENTS, i * (CHUNK_DIMENSION_Y / VERTICAL_SEGMENTS));
+            if ((dirtySegments & segmentBit(i)) != 0)
+                newMeshes[i] = _tessellator.generateMesh(snapshot, SEGMENT_HEIGHT, i * SEGMENT_HEIGHT);
         }
 
-        setNewMesh(newMeshes);
-        setDirty(false);
+        // Try again later if the meshes could not be stored
+        if (!setNewMesh(newMeshes)) {
+            disposeUnused(newMeshes, null, null);
+            markSegmentsDirty(dirtySegments);
+        }
     }
 
     /**
@@ -792,43 +1199,62 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
         swapActiveMesh();
     }
 
-    private void setNewMesh(ChunkMesh[] newMesh) {
+    /**
+     * Stores the given meshes as the next meshes to render. Missing meshes are taken from the current meshes.
+     *
+     * @return False if the meshes could not be stored
+     */
+    private boolean setNewMesh(ChunkMesh[] newMesh) {
         if (_lock.tryLock()) {
             try {
                 if (!_disposed) {
+                    ChunkMesh[] currentMesh = (_newMeshes != null) ? _newMeshes : _activeMeshes;
+
+                    for (int i = 0; i < newMesh.length; i++) {
+                        if (newMesh[i] == null) {
+                            // The meshes were cleared in the meantime
+                            if (currentMesh == null || currentMesh[i].isDisposed())
+                                return false;
+
+                            newMesh[i] = currentMesh[i];
+                        }
+                    }
+
                     ChunkMesh[] oldNewMesh = _newMeshes;
                     _newMeshes = newMesh;
 
-                    if (oldNewMesh != null) {
-                        for (int i = 0; i < oldNewMesh.length; i++)
-                            oldNewMesh[i].dispose();
-                    }
+                    disposeUnused(oldNewMesh, _newMeshes, _activeMeshes);
                 }
             } finally {
                 _lock.unlock();
             }
+
+            return true;
         }
+
+        return false;
     }
 
-    private boolean swapActiveMesh() {
+    /**
+     * Replaces the active meshes with the new meshes once their VBOs have been generated. The VBOs are
+     * generated by the upload stage of the chunk pipeline.
+     *
+     * @return True if the meshes were swapped
+     */
+    public boolean swapActiveMesh() {
         if (_lock.tryLock()) {
             try {
                 if (!_disposed) {
                     if (_newMeshes != null) {
-                        if (!_newMeshes[0].isDisposed() && _newMeshes[0].isGenerated()) {
+                        if (isGenerated(_newMeshes)) {
 
                             ChunkMesh[] newMesh = _newMeshes;
                             _newMeshes = null;
 
                             ChunkMesh[] oldActiveMesh = _activeMeshes;
                             _activeMeshes = newMesh;
-                            _rigidBody = null;
 
-                            if (oldActiveMesh != null) {
-                                for (int i = 0; i < oldActiveMesh.length; i++) {
-                                    oldActiveMesh[i].dispose();
-                                }
-                            }
+                            disposeUnused(oldActiveMesh, _activeMeshes, null);
 
                             return true;
                         }
@@ -842,6 +1268,40 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
         return false;
     }
 
+    private static boolean isGenerated(ChunkMesh[] meshes) {
+        for (ChunkMesh mesh : meshes) {
+            if (mesh.isDisposed() || !mesh.isGenerated())
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Disposes the given meshes, except for those which are still in use as part of the other arrays.
+     */
+    private static void disposeUnused(ChunkMesh[] meshes, ChunkMesh[] inUse, ChunkMesh[] alsoInUse) {
+        if (meshes == null)
+            return;
+
+        for (ChunkMesh mesh : meshes) {
+            if (mesh != null && !contains(inUse, mesh) && !contains(alsoInUse, mesh))
+                mesh.dispose();
+        }
+    }
+
+    private static boolean contains(ChunkMesh[] meshes, ChunkMesh mesh) {
+        if (meshes == null)
+            return false;
+
+        for (ChunkMesh m : meshes) {
+            if (m == mesh)
+                return true;
+        }
+
+        return false;
+    }
+
     /**
      * Returns the position of the chunk within the world.
      *
@@ -886,23 +1346,80 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
     }
 
     public boolean isDirty() {
-        return _dirty;
+        return _dirtySegments.get() != 0;
+    }
+
+    /**
+     * Returns true if the mesh of the given vertical segment has to be generated again.
+     *
+     * @param segment The vertical segment
+     */
+    public boolean isSegmentDirty(int segment) {
+        return (_dirtySegments.get() & segmentBit(segment)) != 0;
     }
 
     public boolean isFresh() {
         return _fresh;
     }
 
+    public boolean isTerrainGenerated() {
+        return _terrainGenerated;
+    }
+
+    public boolean isFeaturesGenerated() {
+        return _featuresGenerated;
+    }
+
     public boolean isLightDirty() {
         return _lightDirty;
     }
 
+    public boolean isDisposed() {
+        return _disposed;
+    }
+
     public void setFresh(boolean fresh) {
         _fresh = fresh;
     }
 
+    /**
+     * Marks all vertical segments dirty or clean.
+     */
     public void setDirty(boolean dirty) {
-        _dirty = dirty;
+        _dirtySegments.set(dirty ? ALL_SEGMENTS : 0);
+    }
+
+    /**
+     * Marks the vertical segments dirty which contain the given range of blocks.
+     *
+     * @param minY The lowest block
+     * @param maxY The highest block
+     */
+    public void markDirty(int minY, int maxY) {
+        minY = Math.max(minY, 0);
+        maxY = Math.min(maxY, CHUNK_DIMENSION_Y - 1);
+
+        int segments = 0;
+        for (int i = minY / SEGMENT_HEIGHT; i <= maxY / SEGMENT_HEIGHT; i++)
+            segments |= segmentBit(i);
+
+        markSegmentsDirty(segments);
+    }
+
+    private void markSegmentsDirty(int segments) {
+        while (true) {
+            int current = _dirtySegments.get();
+
+            if ((current | segments) == current || _dirtySegments.compareAndSet(current, current | segments))
+                return;
+        }
+    }
+
+    /**
+     * Returns the bit of the given segment within the dirty segments. Each bit is shared by every 32nd segment.
+     */
+    private static int segmentBit(int segment) {
+        return 1 << (segment & 31);
     }
 
     public void setLightDirty(boolean lightDirty) {
@@ -989,6 +1506,8 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
             _activeMeshes = null;
             _newMeshes = null;
 
+            releaseRigidBody();
+
         } finally {
             _lock.unlock();
         }
@@ -1006,39 +1525,29 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
         }
     }
 
+    /**
+     * Builds the collision shape of the chunk in the background, unless the current one is up to date.
+     * Only changes of the blocks cause a rebuild, the light values do not affect the collision shape.
+     */
     public void updateRigidBody() {
-        updateRigidBody(_activeMeshes);
-    }
+        final int version = _blockVersion.get();
+        final int generation = _rigidBodyGeneration.get();
 
-    private void updateRigidBody(final ChunkMesh[] meshes) {
-        if (_rigidBody != null || meshes == null || meshes.length < VERTICAL_SEGMENTS)
+        if (_rigidBodyTaskPending || _rigidBodyVersion == version || isFresh())
             return;
 
-        Terasology.getInstance().submitTask("Update Chunk Collision", new Runnable() {
+        _rigidBodyTaskPending = true;
+        _rigidBodyTask = Terasology.getInstance().submitTask("Update Chunk Collision", TaskScheduler.CATEGORY.WORLD, TaskScheduler.PRIORITY.VISIBLE, distanceToCamera(), new Runnable() {
             public void run() {
                 try {
-                    _lockRigidBody.lock();
+                    IndexedMesh indexedMesh = new ChunkCollisionShapeBuilder().build(Chunk.this);
+                    RigidBody rigidBody = null;
 
-                    TriangleIndexVertexArray vertexArray = new TriangleIndexVertexArray();
-
-                    int counter = 0;
-                    for (int k = 0; k < Chunk.VERTICAL_SEGMENTS; k++) {
-                        ChunkMesh mesh = meshes[k];
-
-                        if (mesh != null) {
-                            IndexedMesh indexedMesh = mesh._indexedMesh;
-
-                            if (indexedMesh != null) {
-                                vertexArray.addIndexedMesh(indexedMesh);
-                                counter++;
-                            }
-
-                            mesh._indexedMesh = null;
-                        }
-                    }
-
-                    if (counter == VERTICAL_SEGMENTS) {
+                    if (indexedMesh != null) {
                         try {
+                            TriangleIndexVertexArray vertexArray = new TriangleIndexVertexArray();
+                            vertexArray.addIndexedMesh(indexedMesh);
+
                             BvhTriangleMeshShape shape = new BvhTriangleMeshShape(vertexArray, true);
 
                             Matrix3f rot = new Matrix3f();
@@ -1047,19 +1556,56 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
                             DefaultMotionState blockMotionState = new DefaultMotionState(new Transform(new Matrix4f(rot, new Vector3f((float) getPosition().x * Chunk.CHUNK_DIMENSION_X, (float) getPosition().y * Chunk.CHUNK_DIMENSION_Y, (float) getPosition().z * Chunk.CHUNK_DIMENSION_Z), 1.0f)));
 
                             RigidBodyConstructionInfo blockConsInf = new RigidBodyConstructionInfo(0, blockMotionState, shape, new Vector3f());
-                            _rigidBody = new RigidBody(blockConsInf);
+                            rigidBody = new RigidBody(blockConsInf);
 
                         } catch (Exception e) {
                             Terasology.getInstance().getLogger().log(Level.WARNING, "Chunk failed to create rigid body.", e);
                         }
                     }
+
+                    _lockRigidBody.lock();
+
+                    try {
+                        // Do not bring back the collision shape if it has been released in the meantime
+                        if (_rigidBodyGeneration.get() == generation) {
+                            _rigidBody = rigidBody;
+                            _rigidBodyVersion = version;
+                        }
+                    } finally {
+                        _lockRigidBody.unlock();
+                    }
                 } finally {
-                    _lockRigidBody.unlock();
+                    _rigidBodyTaskPending = false;
                 }
             }
         });
     }
 
+    /**
+     * Frees the collision shape of the chunk. It is built again by the next call to updateRigidBody().
+     */
+    public void releaseRigidBody() {
+        cancelRigidBodyUpdate();
+
+        _lockRigidBody.lock();
+
+        try {
+            // Builds which are already running must not publish their result
+            _rigidBodyGeneration.incrementAndGet();
+            _rigidBody = null;
+            _rigidBodyVersion = NO_RIGID_BODY;
+        } finally {
+            _lockRigidBody.unlock();
+        }
+    }
+
+    private void cancelRigidBodyUpdate() {
+        TaskScheduler.ScheduledTask task = _rigidBodyTask;
+
+        if (task != null && task.cancel())
+            _rigidBodyTaskPending = false;
+    }
+
     public int triangleCount(ChunkMesh.RENDER_PHASE type) {
         int count = 0;
 
@@ -1083,4 +1629,22 @@ public class Chunk implements Comparable<Chunk>, Externalizable {
     public Vector3d getPosition() {
         return _position;
     }
+
+    /**
+     * Returns the version of the blocks and light values of this chunk. The version changes with every modification.
+     */
+    public int getVersion() {
+        return _version.get();
+    }
+
+    /**
+     * Returns the tick of the chunk cache this chunk has been used last.
+     */
+    public int getLastAccess() {
+        return _lastAccess;
+    }
+
+    public void setLastAccess(int lastAccess) {
+        _lastAccess = lastAccess;
+    }
 }
@@ -0,0 +1,599 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import org.terasology.game.Terasology;
+import org.terasology.logic.manager.Config;
+import org.terasology.performanceMonitor.PerformanceMonitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+
+/**
+ * Processes chunks in explicit stages, each with its own pool of workers:
+ * <p/>
+ * terrain -> features (flora and liquids) -> sunlight -> light propagation -> tessellation -> VBO upload
+ * <p/>
+ * A chunk only advances to the next stage once the surrounding chunks have reached the stage it depends on.
+ * Stages which might modify the neighbors of a chunk (features and light propagation) claim the whole 3x3
+ * neighborhood while they are running, all other stages only claim the chunk itself. Claimed chunks are not
+ * touched by any other worker. Neighbors which are needed to advance a chunk are pulled into the pipeline
+ * automatically, but only as far as required. Neighbors which are not loaded yet are loaded by the terrain
+ * workers, so the pipeline itself is never locked while chunks are read from disk.
+ * <p/>
+ * Player triggered updates are preferred, all other chunks are processed in the order they were offered in.
+ * The amount of chunks in the pipeline, including the pulled in neighbors, is limited, as is the amount of
+ * meshes waiting for the upload. The VBOs are uploaded on the main thread using processUploads().
+ * <p/>
+ * Stages without a configured amount of workers share the cores left by the other stages, keeping one core
+ * for the main thread.
+ */
+public final class ChunkPipeline {
+
+    public enum STAGE {
+        TERRAIN, FEATURES, SUNLIGHT, LIGHT, TESSELLATION, UPLOAD
+    }
+
+    /* CONST */
+    private static final STAGE[] STAGES = STAGE.values();
+
+    /* WORKERS */
+    private final ExecutorService[] _workers = new ExecutorService[STAGES.length];
+    private final int[] _workerCount = new int[STAGES.length];
+    private final int[] _runningJobs = new int[STAGES.length];
+
+    /* CHUNKS */
+    private final HashMap<Chunk, STAGE> _targetStages = new HashMap<Chunk, STAGE>();
+    private final LinkedHashSet<Chunk> _waitingChunks = new LinkedHashSet<Chunk>();
+    private final HashSet<Chunk> _claimedChunks = new HashSet<Chunk>();
+    private final LinkedList<Chunk> _uploadQueue = new LinkedList<Chunk>();
+    private final HashSet<Chunk> _urgentChunks = new HashSet<Chunk>();
+    private final ArrayList<Chunk> _requiredNeighbors = new ArrayList<Chunk>();
+    private final HashMap<Chunk, Chunk[]> _loadedNeighbors = new HashMap<Chunk, Chunk[]>();
+    private final HashSet<Chunk> _loadingNeighbors = new HashSet<Chunk>();
+    private final int[] _waitingPerStage = new int[STAGES.length];
+    private final HashMap<Chunk, Long> _offerTimes = new HashMap<Chunk, Long>();
+
+    /* BACK-PRESSURE */
+    private final int _capacity = Math.max(1, Config.getInstance().getChunkPipelineCapacity());
+    private final int _uploadsPerFrame = Math.max(1, Config.getInstance().getChunkUploadsPerFrame());
+
+    private boolean _disposed;
+
+    public ChunkPipeline() {
+        _workerCount[STAGE.TERRAIN.ordinal()] = Config.getInstance().getChunkTerrainWorkers();
+        _workerCount[STAGE.FEATURES.ordinal()] = Config.getInstance().getChunkFeaturesWorkers();
+        _workerCount[STAGE.SUNLIGHT.ordinal()] = Config.getInstance().getChunkSunlightWorkers();
+        _workerCount[STAGE.LIGHT.ordinal()] = Config.getInstance().getChunkLightWorkers();
+        _workerCount[STAGE.TESSELLATION.ordinal()] = Config.getInstance().getChunkTessellationWorkers();
+
+        distributeWorkers(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+
+        for (STAGE stage : STAGES) {
+            // The uploads are processed on the main thread
+            if (stage == STAGE.UPLOAD)
+                continue;
+
+            int i = stage.ordinal();
+            _workers[i] = Executors.newFixedThreadPool(_workerCount[i], new StageThreadFactory(stage));
+        }
+    }
+
+    /**
+     * Distributes the workers left by the stages with a configured amount of workers evenly among the other
+     * stages. Each stage gets at least one worker.
+     *
+     * @param budget The total amount of workers
+     */
+    private void distributeWorkers(int budget) {
+        int configured = 0, unconfigured = 0;
+
+        for (STAGE stage : STAGES) {
+            if (stage == STAGE.UPLOAD)
+                continue;
+
+            if (_workerCount[stage.ordinal()] > 0)
+                configured += _workerCount[stage.ordinal()];
+            else
+                unconfigured++;
+        }
+
+        if (unconfigured == 0)
+            return;
+
+        int shared = Math.max(unconfigured, budget - configured);
+        int assigned = 0;
+
+        for (STAGE stage : STAGES) {
+            if (stage == STAGE.UPLOAD || _workerCount[stage.ordinal()] > 0)
+                continue;
+
+            _workerCount[stage.ordinal()] = shared / unconfigured + (assigned < shared % unconfigured ? 1 : 0);
+            assigned++;
+        }
+    }
+
+    /**
+     * Adds a chunk to the pipeline. The chunk passes all stages it needs, until its new meshes are uploaded.
+     *
+     * @param chunk The chunk to process
+     * @param force Ignores the capacity of the pipeline
+     * @return False if the pipeline is full
+     */
+    public synchronized boolean offer(Chunk chunk, boolean force) {
+        if (_disposed)
+            return false;
+
+        if (_targetStages.containsKey(chunk)) {
+            _targetStages.put(chunk, STAGE.UPLOAD);
+
+            if (force)
+                _urgentChunks.add(chunk);
+
+            return true;
+        }
+
+        if (!force && _targetStages.size() >= _capacity)
+            return false;
+
+        _targetStages.put(chunk, STAGE.UPLOAD);
+        _waitingChunks.add(chunk);
+
+        if (force)
+            _urgentChunks.add(chunk);
+
+        if (!_offerTimes.containsKey(chunk))
+            _offerTimes.put(chunk, System.nanoTime());
+
+        dispatch();
+        return true;
+    }
+
+    /**
+     * Uploads the meshes of a limited amount of finished chunks. Has to be called on the main thread.
+     */
+    public void processUploads() {
+        for (int i = 0; i < _uploadsPerFrame; i++) {
+            Chunk c;
+            Long offerTime;
+
+            synchronized (this) {
+                c = _uploadQueue.poll();
+                offerTime = _offerTimes.remove(c);
+            }
+
+            if (c == null)
+                return;
+
+            c.update();
+
+            if (offerTime != null)
+                PerformanceMonitor.recordTaskLatency("Chunk Pipeline", (System.nanoTime() - offerTime) / 1000000.0);
+
+            synchronized (this) {
+                // The upload queue might block the tessellation
+                dispatch();
+            }
+        }
+    }
+
+    /**
+     * Returns true if the given chunk is waiting for or passing any stage of the pipeline.
+     */
+    public synchronized boolean contains(Chunk chunk) {
+        return _targetStages.containsKey(chunk) || _uploadQueue.contains(chunk);
+    }
+
+    /**
+     * Returns the amount of chunks waiting for or passing any stage of the pipeline.
+     */
+    public synchronized int size() {
+        return _targetStages.size() + _uploadQueue.size();
+    }
+
+    /**
+     * Stops all workers. Jobs which are currently running are finished, all other chunks are dropped.
+     */
+    public synchronized void dispose() {
+        _disposed = true;
+
+        for (ExecutorService workers : _workers) {
+            if (workers != null)
+                workers.shutdown();
+        }
+
+        _targetStages.clear();
+        _waitingChunks.clear();
+        _urgentChunks.clear();
+        _uploadQueue.clear();
+        _offerTimes.clear();
+        _loadedNeighbors.clear();
+    }
+
+    /**
+     * Returns the next stage the given chunk has to pass or null if the chunk is up to date.
+     */
+    private static STAGE nextStage(Chunk c) {
+        if (c.isFresh()) {
+            if (!c.isTerrainGenerated())
+                return STAGE.TERRAIN;
+            if (!c.isFeaturesGenerated())
+                return STAGE.FEATURES;
+
+            return STAGE.SUNLIGHT;
+        }
+
+        if (c.isLightDirty())
+            return STAGE.LIGHT;
+        if (c.isDirty())
+            return STAGE.TESSELLATION;
+
+        return null;
+    }
+
+    /**
+     * Returns true if the given chunk has passed the given stage.
+     */
+    private static boolean hasPassed(Chunk c, STAGE stage) {
+        STAGE next = nextStage(c);
+        return next == null || next.ordinal() > stage.ordinal();
+    }
+
+    /**
+     * Returns the stage all neighbors have to pass before the given stage can be executed.
+     */
+    private static STAGE requiredNeighborStage(STAGE stage) {
+        switch (stage) {
+            case FEATURES:
+                // Features must not be overwritten by the terrain generation of the neighbors
+                return STAGE.TERRAIN;
+            case SUNLIGHT:
+                // The features of the neighbors might reach into this chunk
+                return STAGE.FEATURES;
+            case LIGHT:
+                // The light is spread into the neighbors, which need their sunlight for this
+                return STAGE.SUNLIGHT;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean claimsNeighbors(STAGE stage) {
+        return stage == STAGE.FEATURES || stage == STAGE.LIGHT;
+    }
+
+    /**
+     * Starts the next stage of all waiting chunks whose dependencies are fulfilled and whose chunks
+     * are not claimed by other workers.
+     */
+    private void dispatch() {
+        if (_disposed)
+            return;
+
+        boolean pulledNeighbors;
+
+        do {
+            Arrays.fill(_waitingPerStage, 0);
+
+            // Player triggered updates first
+            dispatchWaitingChunks(true);
+            dispatchWaitingChunks(false);
+
+            // Pull the neighbors into the pipeline which are needed to advance the waiting chunks
+            pulledNeighbors = !_requiredNeighbors.isEmpty();
+            _waitingChunks.addAll(_requiredNeighbors);
+            _requiredNeighbors.clear();
+        } while (pulledNeighbors);
+
+        for (STAGE stage : STAGES) {
+            if (stage != STAGE.UPLOAD)
+                PerformanceMonitor.setQueueDepth("Chunk " + stage, _waitingPerStage[stage.ordinal()]);
+        }
+
+        PerformanceMonitor.setQueueDepth("Chunk " + STAGE.UPLOAD, _uploadQueue.size());
+    }
+
+    private void dispatchWaitingChunks(boolean urgent) {
+        Iterator<Chunk> it = _waitingChunks.iterator();
+
+        while (it.hasNext()) {
+            Chunk c = it.next();
+
+            if (_urgentChunks.contains(c) != urgent)
+                continue;
+
+            if (dispatch(c))
+                it.remove();
+        }
+    }
+
+    /**
+     * Starts the next stage of the given chunk if possible.
+     *
+     * @return True if the chunk is not waiting anymore
+     */
+    private boolean dispatch(Chunk c) {
+        STAGE stage = nextStage(c);
+
+        if (stage == null || stage.ordinal() > _targetStages.get(c).ordinal()) {
+            remove(c);
+            return true;
+        }
+
+        _waitingPerStage[stage.ordinal()]++;
+
+        if (_runningJobs[stage.ordinal()] >= _workerCount[stage.ordinal()])
+            return false;
+
+        // Back-pressure: do not create new meshes while too many are waiting for the upload
+        if (stage == STAGE.TESSELLATION && _uploadQueue.size() >= _capacity)
+            return false;
+
+        Chunk[] neighbors = null;
+        STAGE requiredStage = requiredNeighborStage(stage);
+
+        if (requiredStage != null || claimsNeighbors(stage)) {
+            neighbors = getNeighbors(c);
+
+            if (neighbors == null) {
+                loadNeighbors(c);
+                return false;
+            }
+        }
+
+        if (requiredStage != null && !requireNeighbors(neighbors, requiredStage, _urgentChunks.contains(c)))
+            return false;
+
+        if (!claim(c, claimsNeighbors(stage) ? neighbors : null))
+            return false;
+
+        _waitingPerStage[stage.ordinal()]--;
+        _loadedNeighbors.remove(c);
+        execute(c, stage, claimsNeighbors(stage) ? neighbors : null);
+        return true;
+    }
+
+    /**
+     * Returns the neighbors of the given chunk if all of them are loaded, null otherwise.
+     */
+    private Chunk[] getNeighbors(Chunk c) {
+        Chunk[] neighbors = _loadedNeighbors.get(c);
+
+        if (neighbors == null)
+            neighbors = c.getNeighbors();
+
+        for (Chunk n : neighbors) {
+            if (n == null || n.isDisposed())
+                return null;
+        }
+
+        return neighbors;
+    }
+
+    /**
+     * Loads the neighbors of the given chunk using the terrain workers. The chunk is dispatched again afterwards.
+     */
+    private void loadNeighbors(final Chunk c) {
+        if (!_loadingNeighbors.add(c))
+            return;
+
+        _runningJobs[STAGE.TERRAIN.ordinal()]++;
+
+        _workers[STAGE.TERRAIN.ordinal()].execute(new Runnable() {
+            public void run() {
+                Chunk[] neighbors = null;
+
+                try {
+                    neighbors = c.loadOrCreateNeighbors();
+                } catch (Exception e) {
+                    Terasology.getInstance().getLogger().log(Level.SEVERE, "Could not load the neighbors of a chunk.", e);
+                } finally {
+                    finishLoading(c, neighbors);
+                }
+            }
+        });
+    }
+
+    private synchronized void finishLoading(Chunk c, Chunk[] neighbors) {
+        _runningJobs[STAGE.TERRAIN.ordinal()]--;
+        _loadingNeighbors.remove(c);
+
+        if (_disposed)
+            return;
+
+        // Chunks which could not be loaded are requested again by the next dispatch
+        if (neighbors != null && _targetStages.containsKey(c))
+            _loadedNeighbors.put(c, neighbors);
+
+        dispatch();
+    }
+
+    /**
+     * Removes a chunk which passed all stages it had to pass.
+     */
+    private void remove(Chunk c) {
+        _targetStages.remove(c);
+        _urgentChunks.remove(c);
+        _loadedNeighbors.remove(c);
+
+        // Chunks waiting for the upload record their latency afterwards
+        if (!_uploadQueue.contains(c))
+            _offerTimes.remove(c);
+    }
+
+    /**
+     * Checks if all neighbors have passed the given stage. Neighbors which have not are queued to pass it.
+     * <p/>
+     * Pulled in neighbors count against the capacity of the pipeline. If the pipeline is full, neighbors are
+     * only pulled in for urgent chunks or if nothing else is making progress, so the pipeline can not get
+     * stuck with chunks waiting for neighbors which do not fit into it.
+     */
+    private boolean requireNeighbors(Chunk[] neighbors, STAGE stage, boolean urgent) {
+        boolean fulfilled = true;
+
+        for (Chunk n : neighbors) {
+            if (n == null || hasPassed(n, stage))
+                continue;
+
+            fulfilled = false;
+
+            STAGE target = _targetStages.get(n);
+
+            if (target == null) {
+                if (!urgent && _targetStages.size() >= _capacity && !isIdle())
+                    continue;
+
+                _targetStages.put(n, stage);
+                _requiredNeighbors.add(n);
+            } else if (target.ordinal() < stage.ordinal()) {
+                _targetStages.put(n, stage);
+            }
+        }
+
+        return fulfilled;
+    }
+
+    /**
+     * Returns true if no job is running and no neighbors are about to be pulled in.
+     */
+    private boolean isIdle() {
+        for (int runningJobs : _runningJobs) {
+            if (runningJobs > 0)
+                return false;
+        }
+
+        return _requiredNeighbors.isEmpty();
+    }
+
+    private boolean claim(Chunk c, Chunk[] neighbors) {
+        if (_claimedChunks.contains(c))
+            return false;
+
+        if (neighbors != null) {
+            for (Chunk n : neighbors) {
+                if (n != null && _claimedChunks.contains(n))
+                    return false;
+            }
+
+            for (Chunk n : neighbors) {
+                if (n != null)
+                    _claimedChunks.add(n);
+            }
+        }
+
+        _claimedChunks.add(c);
+        return true;
+    }
+
+    private void release(Chunk c, Chunk[] neighbors) {
+        _claimedChunks.remove(c);
+
+        if (neighbors != null) {
+            for (Chunk n : neighbors) {
+                if (n != null)
+                    _claimedChunks.remove(n);
+            }
+        }
+    }
+
+    private void execute(final Chunk c, final STAGE stage, final Chunk[] claimedNeighbors) {
+        _runningJobs[stage.ordinal()]++;
+
+        _workers[stage.ordinal()].execute(new Runnable() {
+            public void run() {
+                boolean failed = true;
+
+                PerformanceMonitor.startThread("Chunk " + stage);
+                try {
+                    executeStage(c, stage);
+                    failed = false;
+                } catch (Exception e) {
+                    Terasology.getInstance().getLogger().log(Level.SEVERE, "Chunk stage " + stage + " failed.", e);
+                } finally {
+                    PerformanceMonitor.endThread("Chunk " + stage);
+                    finish(c, stage, claimedNeighbors, failed);
+                }
+            }
+        });
+    }
+
+    private static void executeStage(Chunk c, STAGE stage) {
+        switch (stage) {
+            case TERRAIN:
+                c.generateTerrain();
+                break;
+            case FEATURES:
+                c.generateFeatures();
+                break;
+            case SUNLIGHT:
+                c.generateInitialSunlight();
+                break;
+            case LIGHT:
+                c.updateLight();
+                break;
+            case TESSELLATION:
+                c.generateMeshes();
+                break;
+        }
+    }
+
+    private synchronized void finish(Chunk c, STAGE stage, Chunk[] claimedNeighbors, boolean failed) {
+        _runningJobs[stage.ordinal()]--;
+        release(c, claimedNeighbors);
+
+        if (_disposed)
+            return;
+
+        if (stage == STAGE.TESSELLATION && !failed)
+            _uploadQueue.add(c);
+
+        STAGE target = _targetStages.get(c);
+
+        // Do not retry failed chunks forever, they are offered again if they are still needed
+        if (failed || target == null || hasPassed(c, target)) {
+            remove(c);
+        } else {
+            _waitingChunks.add(c);
+        }
+
+        dispatch();
+    }
+
+    private static final class StageThreadFactory implements ThreadFactory {
+        private final STAGE _stage;
+        private int _counter;
+
+        private StageThreadFactory(STAGE stage) {
+            _stage = stage;
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Chunk " + _stage + " " + (++_counter));
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+/**
+ * An immutable copy of the blocks and light values of a chunk, including a border of one block taken from the
+ * neighboring chunks. Snapshots can be read from any thread without locking, so tessellation and similar tasks
+ * never see the chunk while it is being modified.
+ * <p/>
+ * The snapshot is accessed using local block positions. The border is located at the positions -1 and
+ * CHUNK_DIMENSION on all axes. The border above and below the chunk contains air with full light.
+ * <p/>
+ * The values are stored column by column, so index(x, y, z) equals index(x, 0, z) + y. This allows reading
+ * neighboring values using fixed offsets.
+ */
+public final class ChunkSnapshot {
+
+    /* CONST */
+    public static final int BORDER = 1;
+    private static final int SIZE_X = Chunk.CHUNK_DIMENSION_X + 2 * BORDER;
+    private static final int SIZE_Y = Chunk.CHUNK_DIMENSION_Y + 2 * BORDER;
+    private static final int SIZE_Z = Chunk.CHUNK_DIMENSION_Z + 2 * BORDER;
+
+    /**
+     * Amount of times copying is retried if one of the chunks is modified while being copied.
+     */
+    private static final int MAX_ATTEMPTS = 4;
+
+    private final int _chunkPosX, _chunkPosZ;
+    private final byte[] _blocks = new byte[SIZE_X * SIZE_Y * SIZE_Z];
+    private final byte[] _sunlight = new byte[SIZE_X * SIZE_Y * SIZE_Z];
+    private final byte[] _light = new byte[SIZE_X * SIZE_Y * SIZE_Z];
+    private final double[] _temperature = new double[Chunk.CHUNK_DIMENSION_X * Chunk.CHUNK_DIMENSION_Z];
+    private final double[] _humidity = new double[Chunk.CHUNK_DIMENSION_X * Chunk.CHUNK_DIMENSION_Z];
+    private final int[] _sectionBlocks = new int[Chunk.SECTIONS];
+    private final boolean[] _enclosedSections = new boolean[Chunk.SECTIONS];
+    private boolean _consistent;
+
+    /**
+     * Creates a snapshot of the given chunk. The neighbors of the chunk are loaded if necessary.
+     *
+     * @param c The chunk
+     * @return The snapshot
+     */
+    public static ChunkSnapshot create(Chunk c) {
+        ChunkSnapshot snapshot = new ChunkSnapshot(c, c.loadOrCreateNeighbors());
+        LocalWorldProvider parent = c.getParent();
+
+        for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x++) {
+            for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z++) {
+                int index = x * Chunk.CHUNK_DIMENSION_Z + z;
+                snapshot._temperature[index] = parent.getTemperatureAt(c.getBlockWorldPosX(x), c.getBlockWorldPosZ(z));
+                snapshot._humidity[index] = parent.getHumidityAt(c.getBlockWorldPosX(x), c.getBlockWorldPosZ(z));
+            }
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Init. a new snapshot of the given chunk and its neighbors. The temperature and humidity are not captured.
+     *
+     * @param c         The chunk
+     * @param neighbors The neighbors in the order returned by Chunk.loadOrCreateNeighbors()
+     */
+    public ChunkSnapshot(Chunk c, Chunk[] neighbors) {
+        _chunkPosX = (int) c.getPosition().x;
+        _chunkPosZ = (int) c.getPosition().z;
+
+        Chunk[] chunks = new Chunk[9];
+        chunks[0] = c;
+        System.arraycopy(neighbors, 0, chunks, 1, neighbors.length);
+
+        // Fill the border above and below the chunk
+        for (int x = -BORDER; x < SIZE_X - BORDER; x++) {
+            for (int z = -BORDER; z < SIZE_Z - BORDER; z++) {
+                _sunlight[index(x, -1, z)] = _sunlight[index(x, Chunk.CHUNK_DIMENSION_Y, z)] = 15;
+                _light[index(x, -1, z)] = _light[index(x, Chunk.CHUNK_DIMENSION_Y, z)] = 15;
+            }
+        }
+
+        int[] versions = new int[chunks.length];
+
+        // Copy again if one of the chunks has been modified in the meantime
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            for (int i = 0; i < chunks.length; i++)
+                versions[i] = chunks[i].getVersion();
+
+            for (int i = 0; i < chunks.length; i++)
+                copyChunk(chunks[i]);
+
+            copySections(c, neighbors);
+
+            if (!isModified(chunks, versions)) {
+                _consistent = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns false if the chunks kept being modified while they were copied. The snapshot might be torn in
+     * this case and must not be used.
+     */
+    public boolean isConsistent() {
+        return _consistent;
+    }
+
+    private static boolean isModified(Chunk[] chunks, int[] versions) {
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i].getVersion() != versions[i])
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Copies the section summary of the given chunk and determines which uniform sections are
+     * enclosed by the same block type.
+     */
+    private void copySections(Chunk c, Chunk[] neighbors) {
+        for (int section = 0; section < Chunk.SECTIONS; section++)
+            _sectionBlocks[section] = c.getSectionBlock(section);
+
+        for (int section = 0; section < Chunk.SECTIONS; section++) {
+            int sectionBlock = _sectionBlocks[section];
+            // Nothing is drawn below the chunk, but the air above the chunk might expose the top section
+            boolean enclosed = sectionBlock != Chunk.MIXED_SECTION && section < Chunk.SECTIONS - 1
+                    && _sectionBlocks[section + 1] == sectionBlock && (section == 0 || _sectionBlocks[section - 1] == sectionBlock);
+
+            // The first four neighbors share the sides of the chunk
+            for (int i = 0; i < 4 && enclosed; i++)
+                enclosed = neighbors[i].getSectionBlock(section) == sectionBlock;
+
+            _enclosedSections[section] = enclosed;
+        }
+    }
+
+    /**
+     * Copies the part of the given chunk covered by this snapshot.
+     */
+    private void copyChunk(Chunk c) {
+        int offsetX = ((int) c.getPosition().x - _chunkPosX) * Chunk.CHUNK_DIMENSION_X;
+        int offsetZ = ((int) c.getPosition().z - _chunkPosZ) * Chunk.CHUNK_DIMENSION_Z;
+
+        int minX = Math.max(-BORDER, offsetX), maxX = Math.min(Chunk.CHUNK_DIMENSION_X + BORDER, offsetX + Chunk.CHUNK_DIMENSION_X);
+        int minZ = Math.max(-BORDER, offsetZ), maxZ = Math.min(Chunk.CHUNK_DIMENSION_Z + BORDER, offsetZ + Chunk.CHUNK_DIMENSION_Z);
+
+        for (int x = minX; x < maxX; x++) {
+            for (int z = minZ; z < maxZ; z++) {
+                int index = index(x, 0, z);
+
+                for (int y = 0; y < Chunk.CHUNK_DIMENSION_Y; y++) {
+                    _blocks[index + y] = c.getBlock(x - offsetX, y, z - offsetZ);
+                    _sunlight[index + y] = c.getLight(x - offsetX, y, z - offsetZ, Chunk.LIGHT_TYPE.SUN);
+                    _light[index + y] = c.getLight(x - offsetX, y, z - offsetZ, Chunk.LIGHT_TYPE.BLOCK);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the given local block position. The position has to be within the snapshot.
+     */
+    public static int index(int x, int y, int z) {
+        return ((x + BORDER) * SIZE_Z + z + BORDER) * SIZE_Y + y + BORDER;
+    }
+
+    public static boolean isInside(int x, int y, int z) {
+        return x >= -BORDER && y >= -BORDER && z >= -BORDER && x < SIZE_X - BORDER && y < SIZE_Y - BORDER && z < SIZE_Z - BORDER;
+    }
+
+    /**
+     * Returns the block type at the given local block position. Positions above or below the chunk return air.
+     */
+    public byte getBlock(int x, int y, int z) {
+        if (!isInside(x, y, z))
+            return 0;
+
+        return _blocks[index(x, y, z)];
+    }
+
+    /**
+     * Returns the light intensity at the given local block position. Positions above or below the chunk are fully lit.
+     */
+    public byte getLight(int x, int y, int z, Chunk.LIGHT_TYPE type) {
+        if (!isInside(x, y, z))
+            return 15;
+
+        return type == Chunk.LIGHT_TYPE.SUN ? _sunlight[index(x, y, z)] : _light[index(x, y, z)];
+    }
+
+    /**
+     * Returns the block type at the given index without checking the bounds.
+     */
+    public byte getBlock(int index) {
+        return _blocks[index];
+    }
+
+    /**
+     * Returns the sunlight intensity at the given index without checking the bounds.
+     */
+    public byte getSunlight(int index) {
+        return _sunlight[index];
+    }
+
+    /**
+     * Returns the block light intensity at the given index without checking the bounds.
+     */
+    public byte getBlockLight(int index) {
+        return _light[index];
+    }
+
+    /**
+     * Returns the temperature of the given column within the chunk.
+     */
+    public double getTemperature(int x, int z) {
+        return _temperature[x * Chunk.CHUNK_DIMENSION_Z + z];
+    }
+
+    /**
+     * Returns the humidity of the given column within the chunk.
+     */
+    public double getHumidity(int x, int z) {
+        return _humidity[x * Chunk.CHUNK_DIMENSION_Z + z];
+    }
+
+    /**
+     * Returns the block type filling the given section of the chunk or Chunk.MIXED_SECTION.
+     */
+    public int getSectionBlock(int section) {
+        return _sectionBlocks[section];
+    }
+
+    /**
+     * Returns true if the given section is uniform and the adjacent blocks of the sections above, below
+     * and beside it are of the same type.
+     */
+    public boolean isSectionEnclosed(int section) {
+        return _enclosedSections[section];
+    }
+
+    public int getChunkPosX() {
+        return _chunkPosX;
+    }
+
+    public int getChunkPosZ() {
+        return _chunkPosZ;
+    }
+}
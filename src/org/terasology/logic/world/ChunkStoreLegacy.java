@@ -0,0 +1,173 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import org.terasology.game.Terasology;
+
+import javax.vecmath.Vector3d;
+import java.io.*;
+import java.util.logging.Level;
+
+/**
+ * Stores each chunk in a separate serialized file within a directory tree based on the chunk position.
+ * <p/>
+ * This is the original save format of Terasology. It is kept to be able to migrate old worlds to
+ * the region based store.
+ */
+public final class ChunkStoreLegacy implements IChunkStore {
+
+    private static final String FILE_PREFIX = "bc_";
+
+    private final File _savePath;
+
+    /**
+     * Init. a new store within the given world save directory.
+     *
+     * @param savePath The save directory of the world
+     */
+    public ChunkStoreLegacy(File savePath) {
+        _savePath = savePath;
+    }
+
+    public Chunk loadChunk(int x, int z) {
+        return loadChunkFromFile(fileForPosition(new Vector3d(x, 0, z)));
+    }
+
+    public boolean saveChunk(Chunk c) {
+        File dirPath = new File(_savePath, c.getChunkSavePath());
+        if (!dirPath.exists()) {
+            if (!dirPath.mkdirs()) {
+                Terasology.getInstance().getLogger().log(Level.SEVERE, "Could not create save directory.");
+                return false;
+            }
+        }
+
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(new File(dirPath, c.getChunkFileName()))));
+            try {
+                out.writeObject(c);
+            } finally {
+                out.close();
+            }
+
+            return true;
+        } catch (IOException e) {
+            Terasology.getInstance().getLogger().log(Level.WARNING, "Could not save chunk.", e);
+        }
+
+        return false;
+    }
+
+    public void dispose() {
+        // Nothing to release
+    }
+
+    /**
+     * Moves all chunks stored in the legacy layout to the given store and deletes the old files
+     * and directories afterwards.
+     *
+     * @param target The store to migrate the chunks to
+     * @return The amount of migrated chunks
+     */
+    public int migrateTo(IChunkStore target) {
+        File[] xDirs = _savePath.listFiles();
+
+        if (xDirs == null)
+            return 0;
+
+        int counter = 0;
+
+        for (File xDir : xDirs) {
+            if (!xDir.isDirectory())
+                continue;
+
+            File[] zDirs = xDir.listFiles();
+
+            if (zDirs == null)
+                continue;
+
+            for (File zDir : zDirs) {
+                if (!zDir.isDirectory())
+                    continue;
+
+                File[] chunkFiles = zDir.listFiles();
+
+                if (chunkFiles == null)
+                    continue;
+
+                for (File chunkFile : chunkFiles) {
+                    if (!chunkFile.getName().startsWith(FILE_PREFIX))
+                        continue;
+
+                    Chunk c = loadChunkFromFile(chunkFile);
+
+                    // Keep the old file around if the chunk could not be moved
+                    if (c == null) {
+                        Terasology.getInstance().getLogger().log(Level.WARNING, "Could not read chunk file {0}, leaving it in place.", chunkFile);
+                        continue;
+                    }
+
+                    if (!target.saveChunk(c)) {
+                        Terasology.getInstance().getLogger().log(Level.WARNING, "Could not migrate chunk file {0}, leaving it in place.", chunkFile);
+                        continue;
+                    }
+
+                    counter++;
+
+                    if (!chunkFile.delete()) {
+                        Terasology.getInstance().getLogger().log(Level.WARNING, "Could not delete migrated chunk file {0}.", chunkFile);
+                    }
+                }
+
+                deleteIfEmpty(zDir);
+            }
+
+            deleteIfEmpty(xDir);
+        }
+
+        return counter;
+    }
+
+    private Chunk loadChunkFromFile(File f) {
+        if (!f.exists())
+            return null;
+
+        try {
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(f)));
+            try {
+                return (Chunk) in.readObject();
+            } finally {
+                in.close();
+            }
+        } catch (Exception e) {
+            Terasology.getInstance().getLogger().log(Level.WARNING, "Could not load chunk from " + f + ".", e);
+        }
+
+        return null;
+    }
+
+    private File fileForPosition(Vector3d position) {
+        return new File(new File(_savePath, Chunk.getChunkSavePathForPosition(position)), Chunk.getChunkFileNameForPosition(position));
+    }
+
+    private static void deleteIfEmpty(File dir) {
+        String[] content = dir.list();
+
+        if (content != null && content.length == 0) {
+            dir.delete();
+        }
+    }
+}
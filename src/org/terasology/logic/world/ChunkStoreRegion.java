@@ -0,0 +1,185 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import org.terasology.game.Terasology;
+import org.terasology.logic.world.codecs.ChunkCodecs;
+import org.terasology.math.TeraMath;
+import org.terasology.model.structures.IChunkCodec;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Stores chunks in region files, each holding the data of RegionFile.REGION_SIZE x RegionFile.REGION_SIZE chunks.
+ * <p/>
+ * If memory mapping is enabled, chunks are loaded by bulk copying their data from a mapping of the
+ * region file instead of reading it through the file.
+ * <p/>
+ * The layers of each chunk are compressed using the given codecs. Since the id of the codec is stored with
+ * each layer, chunks written with different codecs can always be loaded.
+ */
+public final class ChunkStoreRegion implements IChunkStore {
+
+    private static final String REGION_DIRECTORY = "regions";
+
+    private final File _regionPath;
+    private final ConcurrentHashMap<Integer, RegionFile> _regionFiles = new ConcurrentHashMap<Integer, RegionFile>();
+    private final boolean _memoryMapped;
+    private final IChunkCodec _blockCodec, _nibbleCodec;
+
+    /**
+     * Init. a new store within the given world save directory, loading chunks through memory mapped files.
+     *
+     * @param savePath The save directory of the world
+     */
+    public ChunkStoreRegion(File savePath) {
+        this(savePath, true);
+    }
+
+    /**
+     * Init. a new store within the given world save directory.
+     *
+     * @param savePath     The save directory of the world
+     * @param memoryMapped Load chunks from memory mapped region files
+     */
+    public ChunkStoreRegion(File savePath, boolean memoryMapped) {
+        this(savePath, memoryMapped, ChunkCodecs.RUN_LENGTH, ChunkCodecs.PAGE_ELISION);
+    }
+
+    /**
+     * Init. a new store within the given world save directory.
+     *
+     * @param savePath     The save directory of the world
+     * @param memoryMapped Load chunks from memory mapped region files
+     * @param blockCodec   The codec used to compress the block layer
+     * @param nibbleCodec  The codec used to compress the light and state layers
+     */
+    public ChunkStoreRegion(File savePath, boolean memoryMapped, IChunkCodec blockCodec, IChunkCodec nibbleCodec) {
+        _regionPath = new File(savePath, REGION_DIRECTORY);
+        _memoryMapped = memoryMapped;
+        _blockCodec = blockCodec;
+        _nibbleCodec = nibbleCodec;
+    }
+
+    public Chunk loadChunk(int x, int z) {
+        try {
+            RegionFile region = getRegionFile(x, z, false);
+
+            if (region == null)
+                return null;
+
+            // The region is only locked while the data is copied, the chunk is decoded afterwards
+            byte[] data = _memoryMapped ? region.readMapped(x, z) : region.read(x, z);
+
+            if (data == null)
+                return null;
+
+            Chunk c = new Chunk();
+            c.readChunkData(ByteBuffer.wrap(data));
+
+            return c;
+        } catch (IOException e) {
+            Terasology.getInstance().getLogger().log(Level.WARNING, "Could not load chunk.", e);
+        } catch (BufferUnderflowException e) {
+            Terasology.getInstance().getLogger().log(Level.WARNING, "Could not load chunk. The chunk data is truncated.", e);
+        }
+
+        return null;
+    }
+
+    public boolean saveChunk(Chunk c) {
+        try {
+            ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(byteOut);
+            c.writeChunkData(out, _blockCodec, _nibbleCodec);
+            out.flush();
+
+            int x = (int) c.getPosition().x;
+            int z = (int) c.getPosition().z;
+
+            RegionFile region = getRegionFile(x, z, true);
+
+            if (region != null) {
+                region.write(x, z, byteOut.toByteArray(), byteOut.size());
+                return true;
+            }
+        } catch (IOException e) {
+            Terasology.getInstance().getLogger().log(Level.WARNING, "Could not save chunk.", e);
+        }
+
+        return false;
+    }
+
+    public synchronized void dispose() {
+        for (RegionFile region : _regionFiles.values()) {
+            try {
+                region.close();
+            } catch (IOException e) {
+                Terasology.getInstance().getLogger().log(Level.WARNING, "Could not close region file.", e);
+            }
+        }
+
+        _regionFiles.clear();
+    }
+
+    /**
+     * Returns the region file containing the given chunk.
+     *
+     * @param x      The chunk position on the x-axis
+     * @param z      The chunk position on the z-axis
+     * @param create Creates the region file if it does not exist yet
+     * @return The region file, null if not present and create is false
+     * @throws IOException If the region file could not be opened
+     */
+    private RegionFile getRegionFile(int x, int z, boolean create) throws IOException {
+        int regionX = RegionFile.regionPos(x);
+        int regionZ = RegionFile.regionPos(z);
+        int regionId = TeraMath.cantorize(TeraMath.mapToPositive(regionX), TeraMath.mapToPositive(regionZ));
+
+        RegionFile region = _regionFiles.get(regionId);
+
+        if (region != null)
+            return region;
+
+        synchronized (this) {
+            region = _regionFiles.get(regionId);
+
+            if (region != null)
+                return region;
+
+            File f = new File(_regionPath, "r." + Integer.toString(regionX, 36) + "." + Integer.toString(regionZ, 36) + ".tr");
+
+            if (!f.exists()) {
+                if (!create)
+                    return null;
+
+                if (!_regionPath.exists() && !_regionPath.mkdirs()) {
+                    Terasology.getInstance().getLogger().log(Level.SEVERE, "Could not create region directory.");
+                    return null;
+                }
+            }
+
+            region = new RegionFile(f);
+            _regionFiles.put(regionId, region);
+
+            return region;
+        }
+    }
+}
@@ -15,14 +15,20 @@
  */
 package org.terasology.logic.world;
 
-import org.terasology.game.Terasology;
-import org.terasology.logic.manager.Config;
 import org.terasology.model.structures.BlockPosition;
+import org.terasology.performanceMonitor.PerformanceMonitor;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.PriorityQueue;
 
 /**
  * Provides the mechanism for updating and generating chunks.
+ * <p/>
+ * Chunk updates are collected in a priority queue, ordered by the distance of the chunks to the camera. Player
+ * triggered updates always come first. Repeated updates of the same chunk are coalesced into a single entry.
+ * The queued chunks are fed into the chunk pipeline as long as the pipeline accepts them. Updates which do not
+ * fit into the pipeline stay queued, so no update is lost. The methods of this class are thread-safe.
  *
  * @author Benjamin Glatzel <benjamin.glatzel@me.com>
  */
@@ -32,43 +38,77 @@ public final class ChunkUpdateManager implements IBlockObserver {
         DEFAULT, PLAYER_TRIGGERED
     }
 
-    /* CONST */
-    private static final int MAX_THREADS = Config.getInstance().getMaxThreads();
-
     /* CHUNK UPDATES */
-    private static final HashSet<Chunk> _currentlyProcessedChunks = new HashSet<Chunk>();
-
+    private final ChunkPipeline _pipeline = new ChunkPipeline();
+    private final PriorityQueue<ChunkUpdate> _queue = new PriorityQueue<ChunkUpdate>();
+    private final HashMap<Chunk, ChunkUpdate> _queuedUpdates = new HashMap<Chunk, ChunkUpdate>();
+    private long _sequence;
 
     /**
-     * Updates the given chunk using a new thread from the thread pool. If the maximum amount of chunk updates
-     * is reached, the chunk update is ignored. Chunk updates can be forced though.
+     * Queues an update of the given chunk. If the chunk is already queued, the updates are coalesced.
+     * Player triggered updates are passed to the chunk pipeline right away.
      *
      * @param chunk The chunk to update
      * @param type  The chunk update type
-     * @return True if a chunk update was executed
      */
-    public boolean queueChunkUpdate(Chunk chunk, final UPDATE_TYPE type) {
+    public synchronized void queueChunkUpdate(Chunk chunk, UPDATE_TYPE type) {
+        ChunkUpdate update = _queuedUpdates.get(chunk);
 
-        if (!_currentlyProcessedChunks.contains(chunk) && (_currentlyProcessedChunks.size() < MAX_THREADS || type != UPDATE_TYPE.DEFAULT)) {
-            executeChunkUpdate(chunk);
-            return true;
+        if (update != null) {
+            if (update._type == type || type == UPDATE_TYPE.DEFAULT)
+                return;
+
+            // Raise the priority of the queued update
+            _queue.remove(update);
         }
 
-        return false;
+        update = new ChunkUpdate(chunk, type, chunk.distanceToCamera(), _sequence++);
+        _queuedUpdates.put(chunk, update);
+        _queue.add(update);
+
+        if (type == UPDATE_TYPE.PLAYER_TRIGGERED)
+            dispatchUpdates();
     }
 
-    private void executeChunkUpdate(final Chunk c) {
-        _currentlyProcessedChunks.add(c);
+    /**
+     * Passes the queued updates to the chunk pipeline and uploads the meshes of updated chunks.
+     * Has to be called on the main thread.
+     */
+    public void update() {
+        synchronized (this) {
+            dispatchUpdates();
+            PerformanceMonitor.setQueueDepth("Chunk Updates", _queue.size());
+        }
+
+        _pipeline.processUploads();
+    }
 
-        // Create a new thread and start processing
-        Runnable r = new Runnable() {
-            public void run() {
-                c.processChunk();
-                _currentlyProcessedChunks.remove(c);
-            }
-        };
+    /**
+     * Orders the queued updates using the current distances of the chunks to the camera. Should be called
+     * whenever the camera moved to another chunk.
+     */
+    public synchronized void updatePriorities() {
+        ArrayList<ChunkUpdate> updates = new ArrayList<ChunkUpdate>(_queue);
+        _queue.clear();
+
+        for (ChunkUpdate update : updates) {
+            ChunkUpdate newUpdate = new ChunkUpdate(update._chunk, update._type, update._chunk.distanceToCamera(), update._sequence);
+            _queuedUpdates.put(newUpdate._chunk, newUpdate);
+            _queue.add(newUpdate);
+        }
+    }
 
-        Terasology.getInstance().submitTask("Chunk Update", r);
+    /**
+     * Returns true if the given chunk is queued or currently being updated.
+     */
+    public synchronized boolean isUpdating(Chunk chunk) {
+        return _queuedUpdates.containsKey(chunk) || _pipeline.contains(chunk);
+    }
+
+    public synchronized void dispose() {
+        _queue.clear();
+        _queuedUpdates.clear();
+        _pipeline.dispose();
     }
 
     public void blockPlaced(Chunk chunk, BlockPosition pos, boolean update) {
@@ -81,4 +121,46 @@ public final class ChunkUpdateManager implements IBlockObserver {
             queueChunkUpdate(chunk, UPDATE_TYPE.PLAYER_TRIGGERED);
     }
 
+    /**
+     * Passes the closest chunks to the pipeline until it is full.
+     */
+    private void dispatchUpdates() {
+        while (!_queue.isEmpty()) {
+            ChunkUpdate update = _queue.peek();
+
+            // Keep the update queued until the pipeline has room for it
+            if (!_pipeline.offer(update._chunk, update._type == UPDATE_TYPE.PLAYER_TRIGGERED))
+                return;
+
+            _queue.poll();
+            _queuedUpdates.remove(update._chunk);
+        }
+    }
+
+    private static final class ChunkUpdate implements Comparable<ChunkUpdate> {
+        private final Chunk _chunk;
+        private final UPDATE_TYPE _type;
+        private final double _distance;
+        private final long _sequence;
+
+        private ChunkUpdate(Chunk chunk, UPDATE_TYPE type, double distance, long sequence) {
+            _chunk = chunk;
+            _type = type;
+            _distance = distance;
+            _sequence = sequence;
+        }
+
+        public int compareTo(ChunkUpdate o) {
+            if (_type != o._type)
+                return _type == UPDATE_TYPE.PLAYER_TRIGGERED ? -1 : 1;
+
+            if (_distance != o._distance)
+                return _distance < o._distance ? -1 : 1;
+
+            if (_sequence != o._sequence)
+                return _sequence < o._sequence ? -1 : 1;
+
+            return 0;
+        }
+    }
 }
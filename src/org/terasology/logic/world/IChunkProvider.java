@@ -31,6 +31,13 @@ public interface IChunkProvider {
      */
     public Chunk loadOrCreateChunk(int x, int z);
 
+    /**
+     * Marks the given chunk as used, keeping it from being freed.
+     *
+     * @param c The chunk
+     */
+    public void touchChunk(Chunk c);
+
     /**
      * Frees obsolete chunks.
      */
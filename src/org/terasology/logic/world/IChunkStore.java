@@ -0,0 +1,44 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+/**
+ * Basic interface for anything able to persist chunks.
+ */
+public interface IChunkStore {
+
+    /**
+     * Loads the chunk at the given position. The parent of the returned chunk is NOT set.
+     *
+     * @param x The chunk position on the x-axis
+     * @param z The chunk position on the z-axis
+     * @return The loaded chunk, null if the chunk has not been stored yet
+     */
+    public Chunk loadChunk(int x, int z);
+
+    /**
+     * Persists the given chunk, replacing any previously stored version.
+     *
+     * @param c The chunk to save
+     * @return True if the chunk was written successfully
+     */
+    public boolean saveChunk(Chunk c);
+
+    /**
+     * Releases all resources held by this store. The store may be used again afterwards.
+     */
+    public void dispose();
+}
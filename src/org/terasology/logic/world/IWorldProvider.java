@@ -44,6 +44,17 @@ public interface IWorldProvider {
      */
     public boolean setBlock(int x, int y, int z, byte type, boolean updateLight, boolean overwrite);
 
+    /**
+     * Starts a batch of block changes. The light values of the changed blocks are updated
+     * at once when the batch gets committed. Batches can be nested.
+     */
+    public void beginBatch();
+
+    /**
+     * Commits the current batch of block changes and updates the light values.
+     */
+    public void commitBatch();
+
     /**
      * Sets the given state at the given position.
      *
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import gnu.trove.list.array.TIntArrayList;
+import org.terasology.model.blocks.Block;
+import org.terasology.model.blocks.management.BlockManager;
+
+import java.util.Arrays;
+
+/**
+ * Spreads and removes light using breadth-first flood fills instead of recursion.
+ * <p/>
+ * The queued nodes are packed into single integers holding the position relative to the origin of the
+ * current operation and the light value. The chunks touched by an operation are cached, so each chunk is
+ * only resolved once, preferably using the neighbor references of the chunks already cached. Since the
+ * queues and the cache are reused, light updates do not allocate any memory once the queues have grown
+ * large enough. Each thread uses its own instance.
+ */
+public final class LightPropagator {
+
+    /* CONST */
+    private static final int MAX_LIGHT = 15;
+    private static final int MAX_OFFSET = 127;
+    private static final int CACHE_RADIUS = 2;
+    private static final int CACHE_SIZE = 2 * CACHE_RADIUS + 1;
+    private static final int[][] DIRECTIONS = {{1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}};
+
+    private static final ThreadLocal<LightPropagator> _instance = new ThreadLocal<LightPropagator>() {
+        @Override
+        protected LightPropagator initialValue() {
+            return new LightPropagator();
+        }
+    };
+
+    private final boolean[] _translucentBlocks = new boolean[256];
+
+    /* QUEUES */
+    private final TIntArrayList _addQueue = new TIntArrayList(1024);
+    private final TIntArrayList _removeQueue = new TIntArrayList(1024);
+
+    /* CHUNK CACHE */
+    private final Chunk[] _chunkCache = new Chunk[CACHE_SIZE * CACHE_SIZE];
+    private IChunkProvider _chunkProvider;
+    private int _originX, _originZ, _originChunkX, _originChunkZ;
+    private Chunk.LIGHT_TYPE _type;
+
+    /**
+     * Returns the light propagator of the current thread.
+     */
+    public static LightPropagator getInstance() {
+        return _instance.get();
+    }
+
+    /**
+     * Init. a new light propagator using the blocks of the block manager.
+     */
+    private LightPropagator() {
+        for (int i = 0; i < _translucentBlocks.length; i++)
+            _translucentBlocks[i] = BlockManager.getInstance().getBlock((byte) i).isTranslucent();
+    }
+
+    /**
+     * Init. a new light propagator.
+     *
+     * @param blocks The blocks indexed by their ids
+     */
+    public LightPropagator(Block[] blocks) {
+        for (int i = 0; i < _translucentBlocks.length; i++)
+            _translucentBlocks[i] = blocks[i] != null && blocks[i].isTranslucent();
+    }
+
+    /**
+     * Sets the light at the given position and spreads it to all neighbors which are darker.
+     *
+     * @param provider   The chunk provider used to access the chunks
+     * @param x          The X-coordinate
+     * @param y          The Y-coordinate
+     * @param z          The Z-coordinate
+     * @param lightValue The light value
+     * @param type       The type of the light
+     */
+    public void spreadLight(IChunkProvider provider, int x, int y, int z, byte lightValue, Chunk.LIGHT_TYPE type) {
+        if (y < 0 || y >= Chunk.CHUNK_DIMENSION_Y)
+            return;
+
+        begin(provider, x, z, type);
+
+        setLight(x, y, z, lightValue);
+        queueSource(x, y, z, lightValue);
+        spreadQueuedLight();
+
+        end();
+    }
+
+    /**
+     * Removes the light originating from the given position. Afterwards the light of all brighter
+     * neighbors is spread again to fill the gap.
+     *
+     * @param provider   The chunk provider used to access the chunks
+     * @param x          The X-coordinate
+     * @param y          The Y-coordinate
+     * @param z          The Z-coordinate
+     * @param lightValue The light value before the light got removed
+     * @param type       The type of the light
+     */
+    public void unspreadLight(IChunkProvider provider, int x, int y, int z, byte lightValue, Chunk.LIGHT_TYPE type) {
+        if (y < 0 || y >= Chunk.CHUNK_DIMENSION_Y)
+            return;
+
+        begin(provider, x, z, type);
+
+        setLight(x, y, z, (byte) 0);
+        _removeQueue.add(pack(x, y, z, lightValue));
+
+        removeQueuedLight();
+        spreadQueuedLight();
+        end();
+    }
+
+    /**
+     * Starts spreading the light of many sources at once. Queue the sources using queueSource(...)
+     * and call finishSpreading() afterwards. Light can be removed beforehand using queueRemoval(...)
+     * followed by removeQueuedLight().
+     *
+     * @param provider The chunk provider used to access the chunks
+     * @param originX  The X-coordinate all sources are close to
+     * @param originZ  The Z-coordinate all sources are close to
+     * @param type     The type of the light
+     */
+    public void beginSpreading(IChunkProvider provider, int originX, int originZ, Chunk.LIGHT_TYPE type) {
+        begin(provider, originX, originZ, type);
+    }
+
+    /**
+     * Queues a light source with its current light value. The source has to be located within 127 blocks
+     * of the origin on the x- and z-axis.
+     */
+    public void queueSource(int x, int y, int z, byte lightValue) {
+        if (lightValue > 1 && isInRange(x, y, z))
+            _addQueue.add(pack(x, y, z, lightValue));
+    }
+
+    /**
+     * Queues all neighbors of the given position as light sources with their current light values.
+     * Used to fill cells which just became translucent.
+     */
+    public void queueNeighbors(int x, int y, int z) {
+        for (int[] dir : DIRECTIONS) {
+            int nx = x + dir[0], ny = y + dir[1], nz = z + dir[2];
+
+            if (isInRange(nx, ny, nz))
+                queueSource(nx, ny, nz, getChunk(nx, nz).getLight(nx & 15, ny, nz & 15, _type));
+        }
+    }
+
+    /**
+     * Removes the light at the given position, which had the given light value before. The light
+     * originating from it is removed once removeQueuedLight() is called.
+     */
+    public void queueRemoval(int x, int y, int z, byte lightValue) {
+        if (lightValue > 0 && isInRange(x, y, z)) {
+            setLight(x, y, z, (byte) 0);
+            _removeQueue.add(pack(x, y, z, lightValue));
+        }
+    }
+
+    /**
+     * Removes the light originating from all queued removals. Brighter neighbors found on the way are queued
+     * as sources, so the gaps are filled again by finishSpreading().
+     */
+    public void removeQueuedLight() {
+        for (int head = 0; head < _removeQueue.size(); head++) {
+            int node = _removeQueue.getQuick(head);
+            int nodeX = unpackX(node), nodeY = unpackY(node), nodeZ = unpackZ(node);
+            int nodeValue = unpackValue(node);
+
+            for (int[] dir : DIRECTIONS) {
+                int nx = nodeX + dir[0], ny = nodeY + dir[1], nz = nodeZ + dir[2];
+
+                if (!isInRange(nx, ny, nz))
+                    continue;
+
+                Chunk c = getChunk(nx, nz);
+                byte neighborValue = c.getLight(nx & 15, ny, nz & 15, _type);
+
+                if (neighborValue > 0 && neighborValue < nodeValue && isTranslucent(c, nx, ny, nz)) {
+                    // This light originated from the removed light, so remove it as well
+                    c.setLight(nx & 15, ny, nz & 15, (byte) 0, _type);
+                    _removeQueue.add(pack(nx, ny, nz, neighborValue));
+                } else if (neighborValue >= nodeValue) {
+                    // An independent light source, which has to fill the gap again
+                    queueSource(nx, ny, nz, neighborValue);
+                }
+            }
+        }
+
+        _removeQueue.resetQuick();
+    }
+
+    /**
+     * Spreads the light of all queued sources.
+     */
+    public void finishSpreading() {
+        spreadQueuedLight();
+        end();
+    }
+
+    private void spreadQueuedLight() {
+        for (int head = 0; head < _addQueue.size(); head++) {
+            int node = _addQueue.getQuick(head);
+            int nodeX = unpackX(node), nodeY = unpackY(node), nodeZ = unpackZ(node);
+            int newValue = unpackValue(node) - 1;
+
+            for (int[] dir : DIRECTIONS) {
+                int nx = nodeX + dir[0], ny = nodeY + dir[1], nz = nodeZ + dir[2];
+
+                if (!isInRange(nx, ny, nz))
+                    continue;
+
+                Chunk c = getChunk(nx, nz);
+
+                if (c.getLight(nx & 15, ny, nz & 15, _type) < newValue && isTranslucent(c, nx, ny, nz)) {
+                    c.setLight(nx & 15, ny, nz & 15, (byte) newValue, _type);
+
+                    if (newValue > 1)
+                        _addQueue.add(pack(nx, ny, nz, newValue));
+                }
+            }
+        }
+    }
+
+    private void begin(IChunkProvider provider, int originX, int originZ, Chunk.LIGHT_TYPE type) {
+        _chunkProvider = provider;
+        _type = type;
+        _originX = originX;
+        _originZ = originZ;
+        _originChunkX = originX >> 4;
+        _originChunkZ = originZ >> 4;
+    }
+
+    private void end() {
+        _addQueue.resetQuick();
+        _removeQueue.resetQuick();
+
+        // Do not keep any chunks alive
+        Arrays.fill(_chunkCache, null);
+        _chunkProvider = null;
+    }
+
+    private void setLight(int x, int y, int z, byte lightValue) {
+        getChunk(x, z).setLight(x & 15, y, z & 15, lightValue, _type);
+    }
+
+    private Chunk getChunk(int x, int z) {
+        int cacheX = (x >> 4) - _originChunkX + CACHE_RADIUS;
+        int cacheZ = (z >> 4) - _originChunkZ + CACHE_RADIUS;
+
+        if (cacheX < 0 || cacheZ < 0 || cacheX >= CACHE_SIZE || cacheZ >= CACHE_SIZE)
+            return _chunkProvider.loadOrCreateChunk(x >> 4, z >> 4);
+
+        int index = cacheX * CACHE_SIZE + cacheZ;
+        Chunk c = _chunkCache[index];
+
+        if (c == null) {
+            c = findLinkedChunk(cacheX, cacheZ);
+
+            if (c == null)
+                c = _chunkProvider.loadOrCreateChunk(x >> 4, z >> 4);
+
+            _chunkCache[index] = c;
+        }
+
+        return c;
+    }
+
+    /**
+     * Returns the chunk at the given cache position using the neighbor references of an adjacent cached chunk.
+     */
+    private Chunk findLinkedChunk(int cacheX, int cacheZ) {
+        for (int[] dir : DIRECTIONS) {
+            int adjacentX = cacheX + dir[0], adjacentZ = cacheZ + dir[2];
+
+            if (dir[1] != 0 || adjacentX < 0 || adjacentZ < 0 || adjacentX >= CACHE_SIZE || adjacentZ >= CACHE_SIZE)
+                continue;
+
+            Chunk adjacent = _chunkCache[adjacentX * CACHE_SIZE + adjacentZ];
+
+            if (adjacent != null) {
+                Chunk c = adjacent.getNeighbor(-dir[0], -dir[2]);
+
+                if (c != null)
+                    return c;
+            }
+        }
+
+        return null;
+    }
+
+    private boolean isTranslucent(Chunk c, int x, int y, int z) {
+        return _translucentBlocks[c.getBlock(x & 15, y, z & 15) & 0xFF];
+    }
+
+    private boolean isInRange(int x, int y, int z) {
+        return y >= 0 && y < Chunk.CHUNK_DIMENSION_Y && Math.abs(x - _originX) <= MAX_OFFSET && Math.abs(z - _originZ) <= MAX_OFFSET;
+    }
+
+    /**
+     * Packs the position relative to the origin (8 bits per axis) and the light value (4 bits).
+     */
+    private int pack(int x, int y, int z, int lightValue) {
+        return ((x - _originX + MAX_OFFSET) << 20) | ((z - _originZ + MAX_OFFSET) << 12) | (y << 4) | Math.min(lightValue, MAX_LIGHT);
+    }
+
+    private int unpackX(int node) {
+        return (node >>> 20) - MAX_OFFSET + _originX;
+    }
+
+    private static int unpackY(int node) {
+        return (node >>> 4) & 0xFF;
+    }
+
+    private int unpackZ(int node) {
+        return ((node >>> 12) & 0xFF) - MAX_OFFSET + _originZ;
+    }
+
+    private static int unpackValue(int node) {
+        return node & 0x0F;
+    }
+}
@@ -15,39 +15,111 @@
  */
 package org.terasology.logic.world;
 
+import org.terasology.game.TaskScheduler;
 import org.terasology.game.Terasology;
 import org.terasology.logic.manager.Config;
-import org.terasology.math.TeraMath;
+import org.terasology.model.structures.ConcurrentLongMap;
 
 import javax.vecmath.Vector3d;
-import java.io.*;
+import java.io.File;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 
 /**
  * Provides a dynamic cache for accessing chunks.
+ * <p/>
+ * The chunks are stored using their packed positions as primitive keys. Each thread additionally remembers
+ * the chunk it accessed last, since consecutive block accesses mostly hit the same chunk.
+ * <p/>
+ * Missing chunks are loaded single-flight: concurrent requests for the same chunk wait for the one load
+ * or generation in progress instead of creating their own copy.
+ * <p/>
+ * Once the cache exceeds its size, the least recently used chunks are evicted in one batch until the cache
+ * has shrunk to its low-water mark. Evicted chunks are written to disk asynchronously. Repeated saves of
+ * the same chunk are coalesced into a single write.
+ * <p/>
+ * Cached chunks reference their cached neighbors directly, so chunks can access their surroundings
+ * without any lookups. The references are established on load and removed on eviction.
  *
  * @author Benjamin Glatzel <benjamin.glatzel@me.com>
  */
 public final class LocalChunkCache implements IChunkProvider {
 
     private static final boolean SAVE_CHUNKS = Config.getInstance().isSaveChunks();
-    private static final int CACHE_SIZE = Config.getInstance().getChunkCacheSize();
 
-    private static boolean _running = false;
+    private final int _cacheSize, _lowWaterMark;
+    private final ConcurrentLongMap<Chunk> _chunkCache;
+
+    private final ConcurrentLongMap<FutureTask<Chunk>> _pendingLoads = new ConcurrentLongMap<FutureTask<Chunk>>();
+
+    /* LAST CHUNK CACHE */
+    private final ThreadLocal<LastChunk> _lastChunk = new ThreadLocal<LastChunk>() {
+        @Override
+        protected LastChunk initialValue() {
+            return new LastChunk();
+        }
+    };
+
+    /**
+     * Incremented whenever a chunk leaves the cache, invalidating the last chunks remembered by the threads.
+     */
+    private volatile int _removals;
+
+    /* EVICTION */
+    private final AtomicBoolean _evicting = new AtomicBoolean();
+    private volatile int _tick;
+
+    /* WRITE-BEHIND */
+    private final ConcurrentLongMap<Chunk> _pendingWrites = new ConcurrentLongMap<Chunk>();
+    private final AtomicBoolean _writing = new AtomicBoolean();
 
-    private final ConcurrentHashMap<Integer, Chunk> _chunkCache = new ConcurrentHashMap<Integer, Chunk>();
     private final LocalWorldProvider _parent;
+    private final IChunkStore _chunkStore;
 
     /**
-     * Init. a new local chunk cache.
+     * Init. a new local chunk cache storing its chunks in region files. Chunks saved in the
+     * legacy one-file-per-chunk layout are migrated to the region files.
      *
      * @param parent The parent
      */
     public LocalChunkCache(LocalWorldProvider parent) {
+        this(parent, new ChunkStoreRegion(new File(parent.getObjectSavePath())));
+
+        int migratedChunks = new ChunkStoreLegacy(new File(parent.getObjectSavePath())).migrateTo(_chunkStore);
+
+        if (migratedChunks > 0) {
+            Terasology.getInstance().getLogger().log(Level.INFO, "Migrated {0} chunks to region files.", migratedChunks);
+        }
+    }
+
+    /**
+     * Init. a new local chunk cache using the given chunk store.
+     *
+     * @param parent     The parent
+     * @param chunkStore The store used to load and save chunks
+     */
+    public LocalChunkCache(LocalWorldProvider parent, IChunkStore chunkStore) {
+        this(parent, chunkStore, Config.getInstance().getChunkCacheSize());
+    }
+
+    /**
+     * Init. a new local chunk cache using the given chunk store and size.
+     *
+     * @param parent     The parent
+     * @param chunkStore The store used to load and save chunks
+     * @param cacheSize  The amount of chunks kept in the cache
+     */
+    public LocalChunkCache(LocalWorldProvider parent, IChunkStore chunkStore, int cacheSize) {
         _parent = parent;
+        _chunkStore = chunkStore;
+        _cacheSize = cacheSize;
+        _lowWaterMark = cacheSize - cacheSize / 8;
+        _chunkCache = new ConcurrentLongMap<Chunk>(cacheSize);
     }
 
     /**
@@ -61,63 +133,97 @@ public final class LocalChunkCache implements IChunkProvider {
      * @return The chunk
      */
     public Chunk loadOrCreateChunk(int x, int z) {
-        int chunkId = TeraMath.cantorize(TeraMath.mapToPositive(x), TeraMath.mapToPositive(z));
+        LastChunk lastChunk = _lastChunk.get();
+
+        // Most of the time the same chunk as before is requested
+        if (lastChunk._chunk != null && lastChunk._x == x && lastChunk._z == z && lastChunk._removals == _removals) {
+            return lastChunk._chunk;
+        }
+
+        long chunkId = ConcurrentLongMap.key(x, z);
+        int removals = _removals;
 
         // Try to load the chunk from the cache
         Chunk c = _chunkCache.get(chunkId);
 
         // We got a chunk! Already! Great!
         if (c != null) {
+            touchChunk(c);
+            lastChunk.set(c, x, z, removals);
             return c;
         }
 
         // Okay, seems like we've got some more stuff to do...
-        Vector3d chunkPos = new Vector3d(x, 0, z);
+        FutureTask<Chunk> load = new FutureTask<Chunk>(new ChunkLoader(x, z, chunkId));
+        FutureTask<Chunk> pendingLoad = _pendingLoads.putIfAbsent(chunkId, load);
+
+        if (pendingLoad == null) {
+            // This thread is in charge of loading the chunk
+            load.run();
+            _pendingLoads.remove(chunkId, load);
+        } else {
+            // Another thread is already loading the chunk
+            load = pendingLoad;
+        }
+
+        c = awaitLoad(load);
+        touchChunk(c);
+        lastChunk.set(c, x, z, removals);
+        return c;
+    }
 
-        // Try to load the chunk from the disk
-        c = loadChunkFromDisk(chunkPos);
+    private static Chunk awaitLoad(FutureTask<Chunk> load) {
+        boolean interrupted = false;
 
-        // Check if chunk has been loaded, otherwise create fresh chunk from scratch
-        if (c == null) {
-            c = new Chunk(_parent, chunkPos);
+        try {
+            while (true) {
+                try {
+                    return load.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to load chunk.", e.getCause());
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
         }
+    }
 
-        // Cache the chunk...
-        _chunkCache.put(chunkId, c);
+    /**
+     * Marks the given chunk as used during the current tick.
+     *
+     * @param c The chunk
+     */
+    public void touchChunk(Chunk c) {
+        int tick = _tick;
 
-        // ... and finally return it
-        return c;
+        // Avoid writing to the chunk more than once per tick
+        if (c.getLastAccess() != tick)
+            c.setLastAccess(tick);
     }
 
     /**
-     * Removes old chunks from the cache if the size limit has been reached.
+     * Evicts the least recently used chunks if the size limit has been reached. Has to be called once per frame.
      */
     public void flushCache() {
-        if (_running || _chunkCache.size() <= CACHE_SIZE)
-            return;
+        _tick++;
 
-        _running = true;
+        if (_chunkCache.size() <= _cacheSize || !_evicting.compareAndSet(false, true))
+            return;
 
         Runnable r = new Runnable() {
             public void run() {
-                ArrayList<Chunk> cachedChunks = new ArrayList<Chunk>(_chunkCache.values());
-                Collections.sort(cachedChunks);
-
-                if (cachedChunks.size() > CACHE_SIZE) {
-                    Chunk chunkToDelete = cachedChunks.remove(cachedChunks.size() - 1);
-                    // Write the chunk to disk (but do not remove it from the cache just jet)
-                    writeChunkToDisk(chunkToDelete);
-                    // When the chunk is written, finally remove it from the cache
-                    _chunkCache.values().remove(chunkToDelete);
-
-                    chunkToDelete.dispose();
+                try {
+                    evictChunks();
+                } finally {
+                    _evicting.set(false);
                 }
-
-                _running = false;
             }
         };
 
-        Terasology.getInstance().submitTask("Flush Chunk Cache", r);
+        Terasology.getInstance().submitTask("Flush Chunk Cache", TaskScheduler.CATEGORY.IO, r);
     }
 
     /**
@@ -128,75 +234,144 @@ public final class LocalChunkCache implements IChunkProvider {
             public void run() {
                 for (Chunk c : _chunkCache.values()) {
                     writeChunkToDisk(c);
+                    c.unlinkNeighbors();
                     c.dispose();
                 }
 
                 _chunkCache.clear();
+                _removals++;
+
+                writePendingChunks();
+                _chunkStore.dispose();
             }
         };
 
-        Terasology.getInstance().submitTask("Dispose Chunk", r);
+        Terasology.getInstance().submitTask("Dispose Chunk", TaskScheduler.CATEGORY.IO, r);
     }
 
     /**
-     * Writes a given chunk to the disk.
+     * Removes the least recently used chunks until the cache has shrunk to its low-water mark. Chunks used
+     * during the current tick are never evicted.
+     */
+    private void evictChunks() {
+        ArrayList<Chunk> chunks = _chunkCache.values();
+        int excess = chunks.size() - _lowWaterMark;
+
+        if (excess <= 0)
+            return;
+
+        // Sort the chunks by their last access, the access ticks are copied since they keep changing
+        long[] order = new long[chunks.size()];
+
+        for (int i = 0; i < order.length; i++)
+            order[i] = ((long) chunks.get(i).getLastAccess() << 32) | i;
+
+        Arrays.sort(order);
+
+        int tick = _tick;
+
+        for (int i = 0; i < order.length && excess > 0; i++) {
+            Chunk c = chunks.get((int) order[i]);
+
+            if (c.getLastAccess() == tick)
+                break;
+
+            // Queue the write first, so the chunk can always be found in either place
+            queueChunkWrite(c);
+
+            if (_chunkCache.remove(chunkId(c), c)) {
+                _removals++;
+                excess--;
+
+                c.unlinkNeighbors();
+                c.dispose();
+            }
+        }
+    }
+
+    /**
+     * Queues the given chunk for being written to disk. Queuing a chunk which has not been written yet
+     * does not cause an additional write.
      *
      * @param c The chunk to save
      */
-    private void writeChunkToDisk(Chunk c) {
-        if (!SAVE_CHUNKS) {
+    private void queueChunkWrite(Chunk c) {
+        if (!SAVE_CHUNKS)
             return;
-        }
 
-        File dirPath = new File(_parent.getObjectSavePath() + "/" + c.getChunkSavePath());
-        if (!dirPath.exists()) {
-            if (!dirPath.mkdirs()) {
-                Terasology.getInstance().getLogger().log(Level.SEVERE, "Could not create save directory.");
-                return;
+        _pendingWrites.put(chunkId(c), c);
+
+        if (!_writing.compareAndSet(false, true))
+            return;
+
+        Runnable r = new Runnable() {
+            public void run() {
+                do {
+                    try {
+                        writePendingChunks();
+                    } finally {
+                        _writing.set(false);
+                    }
+                    // Chunks queued while the flag was still set have to be written as well
+                } while (!_pendingWrites.isEmpty() && _writing.compareAndSet(false, true));
             }
-        }
+        };
 
-        File f = new File(_parent.getObjectSavePath() + "/" + c.getChunkSavePath() + "/" + c.getChunkFileName());
+        Terasology.getInstance().submitTask("Write Chunks", TaskScheduler.CATEGORY.IO, r);
+    }
 
-        try {
-            FileOutputStream fileOut = new FileOutputStream(f);
-            ObjectOutputStream out = new ObjectOutputStream(fileOut);
-            out.writeObject(c);
-            out.close();
-            fileOut.close();
-        } catch (Exception e) {
-            e.printStackTrace();
+    private void writePendingChunks() {
+        for (Chunk c : _pendingWrites.values()) {
+            writeChunkToDisk(c);
+            // Only remove the chunk once it is written, so loading it does not read outdated data
+            _pendingWrites.remove(chunkId(c), c);
         }
     }
 
     /**
-     * Tries to load a chunk at the given position from disk.
+     * Links the given chunk with its cached neighbors.
      *
-     * @param chunkPos The position of the chunk
-     * @return The loaded chunk, null if none was found
+     * @param c The chunk just put into the cache
      */
-    private Chunk loadChunkFromDisk(Vector3d chunkPos) {
-        File f = new File(_parent.getObjectSavePath() + "/" + Chunk.getChunkSavePathForPosition(chunkPos) + "/" + Chunk.getChunkFileNameForPosition(chunkPos));
+    private void linkNeighbors(Chunk c) {
+        int x = (int) c.getPosition().x, z = (int) c.getPosition().z;
 
-        if (!f.exists())
-            return null;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                long neighborId = ConcurrentLongMap.key(x + dx, z + dz);
+                Chunk neighbor = _chunkCache.get(neighborId);
 
-        try {
-            FileInputStream fileIn = new FileInputStream(f);
-            ObjectInputStream in = new ObjectInputStream(fileIn);
+                if (neighbor == null || neighbor == c)
+                    continue;
 
-            Chunk result = (Chunk) in.readObject();
-            result.setParent(_parent);
+                c.linkNeighbor(neighbor);
 
-            in.close();
-            fileIn.close();
+                // An evicted neighbor might have been unlinked before the link was established
+                if (_chunkCache.get(neighborId) != neighbor)
+                    neighbor.unlinkNeighbors();
+            }
+        }
 
-            return result;
-        } catch (Exception e) {
-            e.printStackTrace();
+        // The same applies to the chunk itself
+        if (_chunkCache.get(chunkId(c)) != c)
+            c.unlinkNeighbors();
+    }
+
+    private static long chunkId(Chunk c) {
+        return ConcurrentLongMap.key((int) c.getPosition().x, (int) c.getPosition().z);
+    }
+
+    /**
+     * Writes a given chunk to the disk.
+     *
+     * @param c The chunk to save
+     */
+    private void writeChunkToDisk(Chunk c) {
+        if (!SAVE_CHUNKS) {
+            return;
         }
 
-        return null;
+        _chunkStore.saveChunk(c);
     }
 
     /**
@@ -207,4 +382,62 @@ public final class LocalChunkCache implements IChunkProvider {
     public int size() {
         return _chunkCache.size();
     }
+
+    private static final class LastChunk {
+        private Chunk _chunk;
+        private int _x, _z;
+        private int _removals;
+
+        private void set(Chunk chunk, int x, int z, int removals) {
+            _chunk = chunk;
+            _x = x;
+            _z = z;
+            _removals = removals;
+        }
+    }
+
+    /**
+     * Loads a chunk from the disk or creates it from scratch and puts it into the cache.
+     */
+    private final class ChunkLoader implements Callable<Chunk> {
+        private final int _x, _z;
+        private final long _chunkId;
+
+        private ChunkLoader(int x, int z, long chunkId) {
+            _x = x;
+            _z = z;
+            _chunkId = chunkId;
+        }
+
+        public Chunk call() {
+            // The chunk might have been cached since the lookup
+            Chunk c = _chunkCache.get(_chunkId);
+
+            if (c != null)
+                return c;
+
+            // Make sure an evicted version of the chunk has been written
+            Chunk evicted = _pendingWrites.get(_chunkId);
+
+            if (evicted != null) {
+                writeChunkToDisk(evicted);
+                _pendingWrites.remove(_chunkId, evicted);
+            }
+
+            // Try to load the chunk from the disk
+            c = _chunkStore.loadChunk(_x, _z);
+
+            // Check if chunk has been loaded, otherwise create fresh chunk from scratch
+            if (c == null) {
+                c = new Chunk(_parent, new Vector3d(_x, 0, _z));
+            } else {
+                c.setParent(_parent);
+            }
+
+            // Cache the chunk
+            _chunkCache.put(_chunkId, c);
+            linkNeighbors(c);
+            return c;
+        }
+    }
 }
@@ -31,7 +31,6 @@ import javax.vecmath.Tuple3i;
 import javax.vecmath.Vector2f;
 import javax.vecmath.Vector3d;
 import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.logging.Level;
 
 /**
@@ -59,6 +58,14 @@ public class LocalWorldProvider extends PersistableObject implements IWorldProvi
     private final LiquidSimulator _liquidSimulator;
     private final GrowthSimulator _growthSimulator;
 
+    /* BATCHED EDITS */
+    private final ThreadLocal<WorldEditBatch> _editBatch = new ThreadLocal<WorldEditBatch>() {
+        @Override
+        protected WorldEditBatch initialValue() {
+            return new WorldEditBatch();
+        }
+    };
+
     /* RANDOMNESS */
     protected final FastRandom _random;
 
@@ -127,7 +134,10 @@ public class LocalWorldProvider extends PersistableObject implements IWorldProvi
             c.setBlock(blockPosX, y, blockPosZ, type);
             newBlock = type;
 
-            if (updateLight) {
+            if (updateLight && _editBatch.get().isActive()) {
+                // The light gets updated when the batch is committed
+                _editBatch.get().addChangedBlock(x, y, z);
+            } else if (updateLight) {
                 /*
                 * Update sunlight.
                 */
@@ -167,6 +177,30 @@ public class LocalWorldProvider extends PersistableObject implements IWorldProvi
         return true;
     }
 
+    /**
+     * Starts a batch of block changes. Until the batch is committed, setBlock(...) only remembers
+     * which blocks need light updates. Batches can be nested and are bound to the calling thread.
+     */
+    public void beginBatch() {
+        _editBatch.get().begin();
+    }
+
+    /**
+     * Commits the current batch of block changes and updates the light of all affected chunks in one pass.
+     */
+    public void commitBatch() {
+        WorldEditBatch batch = _editBatch.get();
+
+        if (!batch.isActive()) {
+            Terasology.getInstance().getLogger().log(Level.WARNING, "Tried to commit a batch of block changes without beginning one.");
+            return;
+        }
+
+        if (batch.end()) {
+            batch.relight(getChunkProvider());
+        }
+    }
+
     /**
      * Sets the block state value at the given position.
      *
@@ -332,49 +366,6 @@ public class LocalWorldProvider extends PersistableObject implements IWorldProvi
         getChunkProvider().dispose();
     }
 
-    /**
-     * "Unspreads" light recursively.
-     *
-     * @param x           The X-coordinate
-     * @param y           The Y-coordinate
-     * @param z           The Z-coordinate
-     * @param lightValue  The initial light value
-     * @param depth       The current depth of the recursion
-     * @param type        The type of light
-     * @param brightSpots List of bright spots found while unspreading the light
-     */
-    public void unspreadLight(int x, int y, int z, byte lightValue, int depth, Chunk.LIGHT_TYPE type, ArrayList<Vector3d> brightSpots) {
-        int chunkPosX = TeraMath.calcChunkPosX(x);
-        int chunkPosZ = TeraMath.calcChunkPosZ(z);
-
-        int blockPosX = TeraMath.calcBlockPosX(x, chunkPosX);
-        int blockPosZ = TeraMath.calcBlockPosZ(z, chunkPosZ);
-
-        Chunk c = getChunkProvider().loadOrCreateChunk(TeraMath.calcChunkPosX(x), TeraMath.calcChunkPosZ(z));
-        c.unspreadLight(blockPosX, y, blockPosZ, lightValue, depth, type, brightSpots);
-    }
-
-    /**
-     * Propagates light recursively.
-     *
-     * @param x          The X-coordinate
-     * @param y          The Y-coordinate
-     * @param z          The Z-coordinate
-     * @param lightValue The initial light value
-     * @param depth      The current depth of the recursion
-     * @param type       The type of light
-     */
-    public void spreadLight(int x, int y, int z, byte lightValue, int depth, Chunk.LIGHT_TYPE type) {
-        int chunkPosX = TeraMath.calcChunkPosX(x);
-        int chunkPosZ = TeraMath.calcChunkPosZ(z);
-
-        int blockPosX = TeraMath.calcBlockPosX(x, chunkPosX);
-        int blockPosZ = TeraMath.calcBlockPosZ(z, chunkPosZ);
-
-        Chunk c = getChunkProvider().loadOrCreateChunk(TeraMath.calcChunkPosX(x), TeraMath.calcChunkPosZ(z));
-        c.spreadLight(blockPosX, y, blockPosZ, lightValue, depth, type);
-    }
-
     /**
      * Returns the humidity at the given position.
      *
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+
+/**
+ * A single file storing the data of REGION_SIZE x REGION_SIZE chunks.
+ * <p/>
+ * The file starts with an offset table holding one entry (first sector, length in bytes) for each chunk of
+ * the region. The chunk data itself is stored in consecutive sectors of SECTOR_SIZE bytes. Sectors freed by
+ * rewritten chunks are reused by later writes.
+ * <p/>
+ * Chunk data can either be read through the file or bulk copied from a read-only memory mapping of the file.
+ * The file grows in steps of FILE_GROWTH_SECTORS sectors, so the mapping only has to be replaced after the file
+ * has grown by that amount, not after each write appending to the file.
+ */
+public final class RegionFile {
+
+    public static final int REGION_SIZE = 32;
+    public static final int REGION_SIZE_BITS = 5;
+
+    private static final int SECTOR_SIZE = 4096;
+    private static final int ENTRY_COUNT = REGION_SIZE * REGION_SIZE;
+    private static final int ENTRY_SIZE = 8;
+    private static final int HEADER_SECTORS = (ENTRY_COUNT * ENTRY_SIZE + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    private static final int FILE_GROWTH_SECTORS = 256;
+
+    private final RandomAccessFile _file;
+    private final int[] _sectorOffsets = new int[ENTRY_COUNT];
+    private final int[] _lengths = new int[ENTRY_COUNT];
+    private final BitSet _usedSectors = new BitSet();
+
+    private MappedByteBuffer _mappedFile;
+
+    /**
+     * Opens the given region file. A new file is created if none is present.
+     *
+     * @param f The file
+     * @throws IOException If the file could not be opened or is corrupt
+     */
+    public RegionFile(File f) throws IOException {
+        _file = new RandomAccessFile(f, "rw");
+
+        if (_file.length() < HEADER_SECTORS * SECTOR_SIZE) {
+            _file.setLength(HEADER_SECTORS * SECTOR_SIZE);
+        }
+
+        _usedSectors.set(0, HEADER_SECTORS);
+
+        byte[] header = new byte[ENTRY_COUNT * ENTRY_SIZE];
+        _file.seek(0);
+        _file.readFully(header);
+        ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            _sectorOffsets[i] = headerBuffer.getInt();
+            _lengths[i] = headerBuffer.getInt();
+
+            if (_lengths[i] > 0) {
+                if (_sectorOffsets[i] < HEADER_SECTORS || (long) _sectorOffsets[i] * SECTOR_SIZE + _lengths[i] > _file.length()) {
+                    // Drop broken entries instead of failing the whole region
+                    _sectorOffsets[i] = 0;
+                    _lengths[i] = 0;
+                    continue;
+                }
+
+                _usedSectors.set(_sectorOffsets[i], _sectorOffsets[i] + sectorsForLength(_lengths[i]));
+            }
+        }
+    }
+
+    /**
+     * Returns the index of a chunk within its region.
+     *
+     * @param x The chunk position on the x-axis
+     * @param z The chunk position on the z-axis
+     * @return The local index
+     */
+    public static int localIndex(int x, int z) {
+        return (x & (REGION_SIZE - 1)) + ((z & (REGION_SIZE - 1)) << REGION_SIZE_BITS);
+    }
+
+    /**
+     * Returns the region position for a chunk position.
+     *
+     * @param chunkPos The chunk position on the x- or z-axis
+     * @return The region position on the same axis
+     */
+    public static int regionPos(int chunkPos) {
+        return chunkPos >> REGION_SIZE_BITS;
+    }
+
+    /**
+     * Reads the data stored for the given chunk.
+     *
+     * @param x The chunk position on the x-axis
+     * @param z The chunk position on the z-axis
+     * @return The stored data, null if nothing is stored for this chunk
+     * @throws IOException If the data could not be read
+     */
+    public synchronized byte[] read(int x, int z) throws IOException {
+        int index = localIndex(x, z);
+
+        if (_lengths[index] == 0)
+            return null;
+
+        byte[] result = new byte[_lengths[index]];
+        _file.seek((long) _sectorOffsets[index] * SECTOR_SIZE);
+        _file.readFully(result);
+
+        return result;
+    }
+
+    /**
+     * Reads the data stored for the given chunk by bulk copying it from a memory mapping of the file. The data
+     * is copied while this region file is locked, so it can not be overwritten in the meantime.
+     *
+     * @param x The chunk position on the x-axis
+     * @param z The chunk position on the z-axis
+     * @return The stored data, null if nothing is stored for this chunk
+     * @throws IOException If the file could not be mapped
+     */
+    public synchronized byte[] readMapped(int x, int z) throws IOException {
+        int index = localIndex(x, z);
+
+        if (_lengths[index] == 0)
+            return null;
+
+        long start = (long) _sectorOffsets[index] * SECTOR_SIZE;
+        long end = start + _lengths[index];
+
+        // A single mapping can not cover more than 2 GB
+        if (end > Integer.MAX_VALUE)
+            return read(x, z);
+
+        // Remap the file if it has grown beyond the current mapping
+        if (_mappedFile == null || _mappedFile.capacity() < end) {
+            _mappedFile = null;
+            _mappedFile = _file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, Math.min(_file.length(), Integer.MAX_VALUE));
+        }
+
+        byte[] result = new byte[_lengths[index]];
+        ByteBuffer data = _mappedFile.duplicate();
+        data.position((int) start);
+        data.get(result);
+
+        return result;
+    }
+
+    /**
+     * Stores the given data for a chunk, replacing any previously stored data.
+     *
+     * @param x      The chunk position on the x-axis
+     * @param z      The chunk position on the z-axis
+     * @param data   The data to store
+     * @param length The amount of bytes of data to store
+     * @throws IOException If the data could not be written
+     */
+    public synchronized void write(int x, int z, byte[] data, int length) throws IOException {
+        int index = localIndex(x, z);
+
+        int sectorsNeeded = sectorsForLength(length);
+        int oldOffset = _sectorOffsets[index];
+        int oldSectors = _lengths[index] > 0 ? sectorsForLength(_lengths[index]) : 0;
+
+        int offset;
+
+        if (oldSectors >= sectorsNeeded) {
+            // The data still fits into the old location
+            offset = oldOffset;
+            _usedSectors.clear(oldOffset + sectorsNeeded, oldOffset + oldSectors);
+        } else {
+            if (oldSectors > 0) {
+                _usedSectors.clear(oldOffset, oldOffset + oldSectors);
+            }
+
+            offset = findFreeSectors(sectorsNeeded);
+            _usedSectors.set(offset, offset + sectorsNeeded);
+        }
+
+        long end = (long) (offset + sectorsNeeded) * SECTOR_SIZE;
+
+        // Grow the file ahead of the data, so the mapping does not have to be replaced after every write
+        if (end > _file.length()) {
+            _file.setLength(end + (long) FILE_GROWTH_SECTORS * SECTOR_SIZE);
+        }
+
+        // Write the data before updating the offset table
+        _file.seek((long) offset * SECTOR_SIZE);
+        _file.write(data, 0, length);
+
+        _sectorOffsets[index] = offset;
+        _lengths[index] = length;
+
+        _file.seek((long) index * ENTRY_SIZE);
+        _file.writeInt(offset);
+        _file.writeInt(length);
+    }
+
+    /**
+     * Returns true if data is stored for the given chunk.
+     */
+    public synchronized boolean contains(int x, int z) {
+        return _lengths[localIndex(x, z)] > 0;
+    }
+
+    /**
+     * Closes the underlying file.
+     *
+     * @throws IOException If the file could not be closed
+     */
+    public synchronized void close() throws IOException {
+        _mappedFile = null;
+        _file.close();
+    }
+
+    private int findFreeSectors(int count) {
+        int start = _usedSectors.nextClearBit(HEADER_SECTORS);
+
+        while (true) {
+            int end = _usedSectors.nextSetBit(start);
+
+            // Either the run is large enough or we reached the end of the file
+            if (end < 0 || end - start >= count)
+                return start;
+
+            start = _usedSectors.nextClearBit(end);
+        }
+    }
+
+    private static int sectorsForLength(int length) {
+        return (length + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    }
+}
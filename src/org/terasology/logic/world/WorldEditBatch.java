@@ -0,0 +1,198 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.iterator.TLongObjectIterator;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TIntHashSet;
+import org.terasology.math.TeraMath;
+import org.terasology.model.blocks.management.BlockManager;
+
+/**
+ * Collects the blocks changed during a bulk world edit and updates the light of all affected chunks
+ * at once when the edit is committed.
+ * <p/>
+ * Instead of spreading and removing light for every single block, the changed columns of each chunk are
+ * refreshed first and the light is then removed and spread again in one combined pass per chunk and light type.
+ * This way the costs depend on the affected volume and not on the amount of changed blocks.
+ */
+final class WorldEditBatch {
+
+    /* CHANGED BLOCKS (PER CHUNK) */
+    private final TLongObjectHashMap<TIntHashSet> _changedBlocks = new TLongObjectHashMap<TIntHashSet>();
+    private final TIntHashSet _columns = new TIntHashSet();
+    private final byte[] _columnLight = new byte[Chunk.CHUNK_DIMENSION_Y];
+
+    private int _depth;
+
+    /**
+     * Begins a (possibly nested) edit.
+     */
+    public void begin() {
+        _depth++;
+    }
+
+    /**
+     * Ends a (possibly nested) edit.
+     *
+     * @return True if the outermost edit was ended and the light has to be updated
+     */
+    public boolean end() {
+        return --_depth == 0;
+    }
+
+    public boolean isActive() {
+        return _depth > 0;
+    }
+
+    /**
+     * Remembers that the block at the given world position has been changed.
+     */
+    public void addChangedBlock(int x, int y, int z) {
+        if (y < 0 || y >= Chunk.CHUNK_DIMENSION_Y)
+            return;
+
+        int chunkPosX = TeraMath.calcChunkPosX(x);
+        int chunkPosZ = TeraMath.calcChunkPosZ(z);
+
+        long key = ((long) chunkPosX << 32) | (chunkPosZ & 0xFFFFFFFFL);
+        TIntHashSet blocks = _changedBlocks.get(key);
+
+        if (blocks == null) {
+            blocks = new TIntHashSet();
+            _changedBlocks.put(key, blocks);
+        }
+
+        blocks.add(pack(TeraMath.calcBlockPosX(x, chunkPosX), y, TeraMath.calcBlockPosZ(z, chunkPosZ)));
+    }
+
+    /**
+     * Updates the light of all chunks containing changed blocks.
+     *
+     * @param provider The chunk provider used to access the chunks
+     */
+    public void relight(IChunkProvider provider) {
+        TLongObjectIterator<TIntHashSet> it = _changedBlocks.iterator();
+
+        while (it.hasNext()) {
+            it.advance();
+
+            Chunk c = provider.loadOrCreateChunk((int) (it.key() >> 32), (int) it.key());
+
+            if (c != null) {
+                relightSunlight(provider, c, it.value());
+                relightBlockLight(provider, c, it.value());
+            }
+        }
+
+        _changedBlocks.clear();
+    }
+
+    private void relightSunlight(IChunkProvider provider, Chunk c, TIntHashSet blocks) {
+        LightPropagator propagator = LightPropagator.getInstance();
+        propagator.beginSpreading(provider, c.getBlockWorldPosX(Chunk.CHUNK_DIMENSION_X / 2), c.getBlockWorldPosZ(Chunk.CHUNK_DIMENSION_Z / 2), Chunk.LIGHT_TYPE.SUN);
+
+        _columns.clear();
+        for (TIntIterator it = blocks.iterator(); it.hasNext(); ) {
+            int block = it.next();
+            _columns.add(pack(unpackX(block), 0, unpackZ(block)));
+        }
+
+        // Refresh the direct sunlight of the changed columns and remove the light which got lost
+        for (TIntIterator it = _columns.iterator(); it.hasNext(); ) {
+            int column = it.next();
+            int x = unpackX(column), z = unpackZ(column);
+
+            for (int y = 0; y < Chunk.CHUNK_DIMENSION_Y; y++)
+                _columnLight[y] = c.getLight(x, y, z, Chunk.LIGHT_TYPE.SUN);
+
+            c.refreshSunlightAtLocalPos(x, z, false, false);
+
+            for (int y = 0; y < Chunk.CHUNK_DIMENSION_Y; y++) {
+                if (c.getLight(x, y, z, Chunk.LIGHT_TYPE.SUN) < _columnLight[y])
+                    propagator.queueRemoval(c.getBlockWorldPosX(x), y, c.getBlockWorldPosZ(z), _columnLight[y]);
+            }
+        }
+
+        propagator.removeQueuedLight();
+
+        // Spread the light of the refreshed columns and fill the cells which became translucent
+        for (TIntIterator it = _columns.iterator(); it.hasNext(); ) {
+            int column = it.next();
+            int x = unpackX(column), z = unpackZ(column);
+
+            for (int y = 0; y < Chunk.CHUNK_DIMENSION_Y; y++)
+                propagator.queueSource(c.getBlockWorldPosX(x), y, c.getBlockWorldPosZ(z), c.getLight(x, y, z, Chunk.LIGHT_TYPE.SUN));
+        }
+
+        for (TIntIterator it = blocks.iterator(); it.hasNext(); ) {
+            int block = it.next();
+            propagator.queueNeighbors(c.getBlockWorldPosX(unpackX(block)), unpackY(block), c.getBlockWorldPosZ(unpackZ(block)));
+        }
+
+        propagator.finishSpreading();
+    }
+
+    private void relightBlockLight(IChunkProvider provider, Chunk c, TIntHashSet blocks) {
+        LightPropagator propagator = LightPropagator.getInstance();
+        propagator.beginSpreading(provider, c.getBlockWorldPosX(Chunk.CHUNK_DIMENSION_X / 2), c.getBlockWorldPosZ(Chunk.CHUNK_DIMENSION_Z / 2), Chunk.LIGHT_TYPE.BLOCK);
+
+        // Remove the light of the changed blocks
+        for (TIntIterator it = blocks.iterator(); it.hasNext(); ) {
+            int block = it.next();
+            int x = unpackX(block), y = unpackY(block), z = unpackZ(block);
+
+            propagator.queueRemoval(c.getBlockWorldPosX(x), y, c.getBlockWorldPosZ(z), c.getLight(x, y, z, Chunk.LIGHT_TYPE.BLOCK));
+        }
+
+        propagator.removeQueuedLight();
+
+        // Spread the light of new light sources and fill the cells which became translucent
+        for (TIntIterator it = blocks.iterator(); it.hasNext(); ) {
+            int block = it.next();
+            int x = unpackX(block), y = unpackY(block), z = unpackZ(block);
+            int worldX = c.getBlockWorldPosX(x), worldZ = c.getBlockWorldPosZ(z);
+
+            byte luminance = BlockManager.getInstance().getBlock(c.getBlock(x, y, z)).getLuminance();
+
+            if (luminance > 0) {
+                c.setLight(x, y, z, luminance, Chunk.LIGHT_TYPE.BLOCK);
+                propagator.queueSource(worldX, y, worldZ, luminance);
+            }
+
+            propagator.queueNeighbors(worldX, y, worldZ);
+        }
+
+        propagator.finishSpreading();
+    }
+
+    private static int pack(int x, int y, int z) {
+        return (x << 16) | (z << 8) | y;
+    }
+
+    private static int unpackX(int value) {
+        return value >>> 16;
+    }
+
+    private static int unpackY(int value) {
+        return value & 0xFF;
+    }
+
+    private static int unpackZ(int value) {
+        return (value >>> 8) & 0xFF;
+    }
+}
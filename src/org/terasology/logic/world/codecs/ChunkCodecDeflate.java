@@ -0,0 +1,105 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world.codecs;
+
+import org.terasology.model.structures.IChunkCodec;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the layer data using Deflate. Slower than the specialized codecs, but useful as a baseline
+ * for comparing the achievable compression.
+ */
+public final class ChunkCodecDeflate implements IChunkCodec {
+
+    private final int _level;
+
+    public ChunkCodecDeflate() {
+        this(Deflater.BEST_SPEED);
+    }
+
+    public ChunkCodecDeflate(int level) {
+        _level = level;
+    }
+
+    public byte getId() {
+        return 3;
+    }
+
+    public void encode(byte[] data, DataOutput out) throws IOException {
+        Deflater deflater = new Deflater(_level);
+        byte[] buffer = new byte[data.length + data.length / 1000 + 64];
+
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    byte[] newBuffer = new byte[buffer.length * 2];
+                    System.arraycopy(buffer, 0, newBuffer, 0, length);
+                    buffer = newBuffer;
+                }
+
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+
+            ChunkCodecs.writeVarInt(out, length);
+            out.write(buffer, 0, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public void decode(ByteBuffer in, byte[] data) throws IOException {
+        int length = ChunkCodecs.readVarInt(in);
+
+        if (length > in.remaining())
+            throw new IOException("Truncated chunk layer.");
+
+        byte[] compressed = new byte[length];
+        in.get(compressed);
+
+        Inflater inflater = new Inflater();
+
+        try {
+            inflater.setInput(compressed);
+
+            int decoded = 0;
+            while (decoded < data.length && !inflater.finished()) {
+                int count = inflater.inflate(data, decoded, data.length - decoded);
+
+                if (count == 0 && inflater.needsInput())
+                    break;
+
+                decoded += count;
+            }
+
+            if (decoded != data.length)
+                throw new IOException("Truncated chunk layer.");
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt chunk layer: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+}
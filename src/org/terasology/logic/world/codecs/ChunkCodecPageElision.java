@@ -0,0 +1,109 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world.codecs;
+
+import org.terasology.model.structures.IChunkCodec;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Splits the layer data into pages of PAGE_SIZE bytes. Consecutive pages filled with a single value are
+ * stored as one run, all other pages are stored uncompressed. Meant for the light and state layers,
+ * which are mostly completely dark or completely lit.
+ */
+public final class ChunkCodecPageElision implements IChunkCodec {
+
+    private static final int PAGE_SIZE = 256;
+
+    private static final byte PAGE_UNIFORM = 0;
+    private static final byte PAGE_LITERAL = 1;
+
+    public byte getId() {
+        return 2;
+    }
+
+    public void encode(byte[] data, DataOutput out) throws IOException {
+        int page = 0;
+        int pageCount = pageCount(data.length);
+
+        while (page < pageCount) {
+            int start = page * PAGE_SIZE;
+
+            if (isUniform(data, start)) {
+                byte value = data[start];
+                int runStart = page;
+
+                while (page < pageCount && isUniform(data, page * PAGE_SIZE) && data[page * PAGE_SIZE] == value)
+                    page++;
+
+                out.writeByte(PAGE_UNIFORM);
+                out.writeByte(value);
+                ChunkCodecs.writeVarInt(out, page - runStart);
+            } else {
+                out.writeByte(PAGE_LITERAL);
+                out.write(data, start, Math.min(PAGE_SIZE, data.length - start));
+                page++;
+            }
+        }
+    }
+
+    public void decode(ByteBuffer in, byte[] data) throws IOException {
+        int page = 0;
+        int pageCount = pageCount(data.length);
+
+        while (page < pageCount) {
+            byte type = in.get();
+            int start = page * PAGE_SIZE;
+
+            if (type == PAGE_UNIFORM) {
+                byte value = in.get();
+                int runLength = ChunkCodecs.readVarInt(in);
+
+                if (runLength <= 0 || page + runLength > pageCount)
+                    throw new IOException("Corrupt page run in chunk layer.");
+
+                int end = Math.min(data.length, (page + runLength) * PAGE_SIZE);
+                for (int i = start; i < end; i++)
+                    data[i] = value;
+
+                page += runLength;
+            } else if (type == PAGE_LITERAL) {
+                in.get(data, start, Math.min(PAGE_SIZE, data.length - start));
+                page++;
+            } else {
+                throw new IOException("Unknown page type " + type + ".");
+            }
+        }
+    }
+
+    private static boolean isUniform(byte[] data, int start) {
+        int end = Math.min(data.length, start + PAGE_SIZE);
+        byte value = data[start];
+
+        for (int i = start + 1; i < end; i++) {
+            if (data[i] != value)
+                return false;
+        }
+
+        return true;
+    }
+
+    private static int pageCount(int length) {
+        return (length + PAGE_SIZE - 1) / PAGE_SIZE;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world.codecs;
+
+import org.terasology.model.structures.IChunkCodec;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Stores the layer data uncompressed.
+ */
+public final class ChunkCodecRaw implements IChunkCodec {
+
+    public byte getId() {
+        return 0;
+    }
+
+    public void encode(byte[] data, DataOutput out) throws IOException {
+        out.write(data);
+    }
+
+    public void decode(ByteBuffer in, byte[] data) throws IOException {
+        if (in.remaining() < data.length)
+            throw new IOException("Truncated chunk layer.");
+
+        in.get(data);
+    }
+}
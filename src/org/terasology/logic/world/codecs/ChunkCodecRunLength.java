@@ -0,0 +1,63 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world.codecs;
+
+import org.terasology.model.structures.IChunkCodec;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Run-length encodes the layer data as (value, run length) pairs. Works well for the block layer where
+ * large parts of each column are either air or stone.
+ */
+public final class ChunkCodecRunLength implements IChunkCodec {
+
+    public byte getId() {
+        return 1;
+    }
+
+    public void encode(byte[] data, DataOutput out) throws IOException {
+        int i = 0;
+
+        while (i < data.length) {
+            byte value = data[i];
+            int runStart = i;
+
+            while (i < data.length && data[i] == value)
+                i++;
+
+            out.writeByte(value);
+            ChunkCodecs.writeVarInt(out, i - runStart);
+        }
+    }
+
+    public void decode(ByteBuffer in, byte[] data) throws IOException {
+        int i = 0;
+
+        while (i < data.length) {
+            byte value = in.get();
+            int runLength = ChunkCodecs.readVarInt(in);
+
+            if (runLength <= 0 || i + runLength > data.length)
+                throw new IOException("Corrupt run in chunk layer.");
+
+            for (int end = i + runLength; i < end; i++)
+                data[i] = value;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world.codecs;
+
+import org.terasology.model.structures.IChunkCodec;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Provides the available chunk codecs and some helpers shared by them.
+ */
+public final class ChunkCodecs {
+
+    public static final IChunkCodec RAW = new ChunkCodecRaw();
+    public static final IChunkCodec RUN_LENGTH = new ChunkCodecRunLength();
+    public static final IChunkCodec PAGE_ELISION = new ChunkCodecPageElision();
+    public static final IChunkCodec DEFLATE = new ChunkCodecDeflate();
+
+    private static final IChunkCodec[] CODECS = {RAW, RUN_LENGTH, PAGE_ELISION, DEFLATE};
+
+    // Prevent instantiation
+    private ChunkCodecs() {
+    }
+
+    /**
+     * Returns the codec with the given id.
+     *
+     * @param id The id of the codec
+     * @return The codec
+     * @throws IOException If no codec with this id exists
+     */
+    public static IChunkCodec getCodec(byte id) throws IOException {
+        for (IChunkCodec codec : CODECS) {
+            if (codec.getId() == id)
+                return codec;
+        }
+
+        throw new IOException("Unknown chunk codec " + id + ".");
+    }
+
+    /**
+     * Writes an unsigned integer using as few bytes as possible (7 bits per byte).
+     */
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads an unsigned integer written by writeVarInt(...).
+     */
+    static int readVarInt(ByteBuffer in) throws IOException {
+        int result = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.get() & 0xFF;
+            result |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0)
+                return result;
+        }
+
+        throw new IOException("Malformed variable length integer.");
+    }
+}
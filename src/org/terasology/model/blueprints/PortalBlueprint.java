@@ -54,8 +54,13 @@ public class PortalBlueprint extends Blueprint {
     //public PortalComponent createPortal(IWorldProvider provider, BlockPosition pos) {
     public void createPortal(IWorldProvider provider, BlockPosition pos) {
         // Build the Portal in pieces so we can store what's what in the returned PortalComponent
-        BlockSelection portalBlocks = _blockCollection.buildWithFilter(provider, pos, "Companion");
-        BlockSelection frameBlocks = _blockCollection.buildWithFilter(provider, pos, "PortalBlock");
+        provider.beginBatch();
+        try {
+            BlockSelection portalBlocks = _blockCollection.buildWithFilter(provider, pos, "Companion");
+            BlockSelection frameBlocks = _blockCollection.buildWithFilter(provider, pos, "PortalBlock");
+        } finally {
+            provider.commitBatch();
+        }
 
         //return new PortalComponent(portalBlocks, frameBlocks);
     }
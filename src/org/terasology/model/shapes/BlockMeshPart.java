@@ -61,29 +61,16 @@ public class BlockMeshPart {
     }
 
     public void appendTo(ChunkMesh chunk, int offsetX, int offsetY, int offsetZ, Vector4f colorOffset, int meshBit) {
-        for (Vector2f texCoord : _texCoords) {
-            chunk._vertexElements[meshBit].tex.add(texCoord.x);
-            chunk._vertexElements[meshBit].tex.add(texCoord.y);
-            chunk._vertexElements[meshBit].tex.add(1.0f);
-        }
+        ChunkMesh.VertexElements elements = chunk._vertexElements[meshBit];
 
-        int nextIndex = chunk._vertexElements[meshBit].vertCount;
+        int nextIndex = elements.vertCount;
         for (int vIdx = 0; vIdx < _vertices.length; ++vIdx) {
-            chunk._vertexElements[meshBit].color.add(colorOffset.x);
-            chunk._vertexElements[meshBit].color.add(colorOffset.y);
-            chunk._vertexElements[meshBit].color.add(colorOffset.z);
-            chunk._vertexElements[meshBit].color.add(colorOffset.w);
-            chunk._vertexElements[meshBit].vertices.add(_vertices[vIdx].x + offsetX);
-            chunk._vertexElements[meshBit].vertices.add(_vertices[vIdx].y + offsetY);
-            chunk._vertexElements[meshBit].vertices.add(_vertices[vIdx].z + offsetZ);
-            chunk._vertexElements[meshBit].normals.add(_normals[vIdx].x);
-            chunk._vertexElements[meshBit].normals.add(_normals[vIdx].y);
-            chunk._vertexElements[meshBit].normals.add(_normals[vIdx].z);
+            elements.addVertex(_vertices[vIdx].x + offsetX, _vertices[vIdx].y + offsetY, _vertices[vIdx].z + offsetZ,
+                    _texCoords[vIdx].x, _texCoords[vIdx].y, ChunkMesh.NO_TILE, _normals[vIdx], colorOffset);
         }
-        chunk._vertexElements[meshBit].vertCount += _vertices.length;
 
         for (int i = 0; i < _indices.length; ++i) {
-            chunk._vertexElements[meshBit].indices.add(_indices[i] + nextIndex);
+            elements.indices.add(_indices[i] + nextIndex);
         }
     }
     
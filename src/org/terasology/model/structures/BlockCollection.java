@@ -99,14 +99,20 @@ public class BlockCollection {
         BlockSelection result = new BlockSelection();
         Terasology.getInstance().getLogger().log(Level.INFO, "Going to build this collection into the world at " + position + ", attaching at relative " + _attachPos);
         //System.out.println(toString());
-        for (BlockPosition pos : buildingBlocks.getBlocks().keySet()) {
-            //System.out.println("Processing block " + getBlock(pos) + " relative position " + pos);
-            int x = position.x + pos.x - _attachPos.x;
-            int y = position.y + pos.y - _attachPos.y;
-            int z = position.z + pos.z - _attachPos.z;
-            //System.out.println("This block is being placed at " + x + "," + y + "," + z);
-            provider.setBlock(x, y, z, buildingBlocks.getBlocks().get(pos).getId(), true, true);
-            result.add(new BlockPosition(x,y,z));
+        // Update the light of all placed blocks at once
+        provider.beginBatch();
+        try {
+            for (BlockPosition pos : buildingBlocks.getBlocks().keySet()) {
+                //System.out.println("Processing block " + getBlock(pos) + " relative position " + pos);
+                int x = position.x + pos.x - _attachPos.x;
+                int y = position.y + pos.y - _attachPos.y;
+                int z = position.z + pos.z - _attachPos.z;
+                //System.out.println("This block is being placed at " + x + "," + y + "," + z);
+                provider.setBlock(x, y, z, buildingBlocks.getBlocks().get(pos).getId(), true, true);
+                result.add(new BlockPosition(x,y,z));
+            }
+        } finally {
+            provider.commitBatch();
         }
         return result;
     }
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.model.structures;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A concurrent hash map using primitive long keys.
+ * <p/>
+ * The entries are stored in an open-addressed table using linear probing. Lookups do not lock and neither box
+ * the key nor allocate any objects. Modifications are synchronized and are expected to be far less frequent
+ * than lookups. Removed entries leave a tombstone behind which is cleaned up the next time the table is rebuilt.
+ *
+ * @param <T> The type of the values
+ */
+public final class ConcurrentLongMap<T> {
+
+    /* CONST */
+    private static final float MAX_LOAD = 0.5f;
+    private static final int MIN_CAPACITY = 16;
+
+    private static final Entry<?> TOMBSTONE = new Entry<Object>(0, null);
+
+    private volatile AtomicReferenceArray<Entry<T>> _table;
+    private volatile int _size;
+    private int _usedSlots;
+
+    public ConcurrentLongMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Init. a new map with enough room for the given amount of entries.
+     *
+     * @param expectedSize The expected amount of entries
+     */
+    public ConcurrentLongMap(int expectedSize) {
+        _table = new AtomicReferenceArray<Entry<T>>(capacityFor(expectedSize));
+    }
+
+    /**
+     * Packs two int values into a single key.
+     *
+     * @param x The upper 32 bit of the key
+     * @param z The lower 32 bit of the key
+     * @return The key
+     */
+    public static long key(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the value stored for the given key or null if no value is present.
+     */
+    public T get(long key) {
+        AtomicReferenceArray<Entry<T>> table = _table;
+        int mask = table.length() - 1;
+
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            Entry<T> e = table.get(i);
+
+            if (e == null)
+                return null;
+            if (e != TOMBSTONE && e._key == key)
+                return e._value;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Stores the given value for the given key.
+     *
+     * @return The previous value or null if no value was present
+     */
+    public synchronized T put(long key, T value) {
+        if (value == null)
+            throw new IllegalArgumentException("Null values are not supported.");
+
+        T previous = putInternal(_table, key, value);
+
+        if (previous == null) {
+            _size++;
+
+            if (_usedSlots > _table.length() * MAX_LOAD)
+                rehash(capacityFor(_size));
+        }
+
+        return previous;
+    }
+
+    /**
+     * Stores the given value only if no value is present for the given key.
+     *
+     * @return The value present before or null if the given value has been stored
+     */
+    public synchronized T putIfAbsent(long key, T value) {
+        T present = get(key);
+
+        if (present != null)
+            return present;
+
+        put(key, value);
+        return null;
+    }
+
+    /**
+     * Removes the value stored for the given key.
+     *
+     * @return The removed value or null if no value was present
+     */
+    public synchronized T remove(long key) {
+        AtomicReferenceArray<Entry<T>> table = _table;
+        int mask = table.length() - 1;
+
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            Entry<T> e = table.get(i);
+
+            if (e == null)
+                return null;
+
+            if (e != TOMBSTONE && e._key == key) {
+                table.set(i, tombstone());
+                _size--;
+                return e._value;
+            }
+        }
+    }
+
+    /**
+     * Removes the given value if it is stored for the given key.
+     *
+     * @return True if the value has been removed
+     */
+    public synchronized boolean remove(long key, T value) {
+        if (get(key) != value)
+            return false;
+
+        remove(key);
+        return true;
+    }
+
+    public synchronized void clear() {
+        _table = new AtomicReferenceArray<Entry<T>>(MIN_CAPACITY);
+        _size = 0;
+        _usedSlots = 0;
+    }
+
+    /**
+     * Returns a snapshot of all values stored in this map.
+     */
+    public ArrayList<T> values() {
+        AtomicReferenceArray<Entry<T>> table = _table;
+        ArrayList<T> values = new ArrayList<T>(_size);
+
+        for (int i = 0; i < table.length(); i++) {
+            Entry<T> e = table.get(i);
+
+            if (e != null && e != TOMBSTONE)
+                values.add(e._value);
+        }
+
+        return values;
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    private T putInternal(AtomicReferenceArray<Entry<T>> table, long key, T value) {
+        int mask = table.length() - 1;
+        int free = -1;
+
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            Entry<T> e = table.get(i);
+
+            if (e == null) {
+                if (free == -1) {
+                    free = i;
+                    _usedSlots++;
+                }
+
+                table.set(free, new Entry<T>(key, value));
+                return null;
+            }
+
+            if (e == TOMBSTONE) {
+                if (free == -1)
+                    free = i;
+            } else if (e._key == key) {
+                table.set(i, new Entry<T>(key, value));
+                return e._value;
+            }
+        }
+    }
+
+    /**
+     * Copies all entries into a new table which is published once it is complete, so concurrent lookups
+     * always see a consistent table.
+     */
+    private void rehash(int capacity) {
+        AtomicReferenceArray<Entry<T>> oldTable = _table;
+        AtomicReferenceArray<Entry<T>> newTable = new AtomicReferenceArray<Entry<T>>(capacity);
+
+        _usedSlots = 0;
+
+        for (int i = 0; i < oldTable.length(); i++) {
+            Entry<T> e = oldTable.get(i);
+
+            if (e != null && e != TOMBSTONE)
+                putInternal(newTable, e._key, e._value);
+        }
+
+        _table = newTable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Entry<T> tombstone() {
+        return (Entry<T>) TOMBSTONE;
+    }
+
+    private static int capacityFor(int size) {
+        int capacity = MIN_CAPACITY;
+
+        while (capacity * MAX_LOAD < size * 2)
+            capacity <<= 1;
+
+        return capacity;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static final class Entry<T> {
+        private final long _key;
+        private final T _value;
+
+        private Entry(long key, T value) {
+            _key = key;
+            _value = value;
+        }
+    }
+}
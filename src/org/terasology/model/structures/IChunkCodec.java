@@ -0,0 +1,52 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.model.structures;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes and decodes the raw data of a single chunk layer (blocks, light or states). The available codecs
+ * are listed in org.terasology.logic.world.codecs.ChunkCodecs.
+ */
+public interface IChunkCodec {
+
+    /**
+     * Returns the unique id of this codec. The id is stored in front of each encoded layer.
+     *
+     * @return The id
+     */
+    public byte getId();
+
+    /**
+     * Encodes the given layer data.
+     *
+     * @param data The raw layer data
+     * @param out  The output to write the encoded data to
+     * @throws IOException If the data could not be written
+     */
+    public void encode(byte[] data, DataOutput out) throws IOException;
+
+    /**
+     * Decodes a layer previously encoded by this codec.
+     *
+     * @param in   The buffer to read the encoded data from, starting at its current position
+     * @param data The array to decode the raw layer data to
+     * @throws IOException If the encoded data is corrupt
+     */
+    public void decode(ByteBuffer in, byte[] data) throws IOException;
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.model.structures;
+
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A 3D array of byte values as used to store the layers of a chunk.
+ */
+public interface ITeraArray {
+
+    /**
+     * Returns the byte value at the given position.
+     */
+    public byte get(int x, int y, int z);
+
+    /**
+     * Sets the byte value for the given position.
+     */
+    public void set(int x, int y, int z, byte b);
+
+    /**
+     * Returns the byte value at the given position without checking the bounds.
+     * Only use this in trusted loops running within the dimensions of the array.
+     */
+    public byte getUnsafe(int x, int y, int z);
+
+    /**
+     * Sets the byte value for the given position without checking the bounds.
+     * Only use this in trusted loops running within the dimensions of the array.
+     */
+    public void setUnsafe(int x, int y, int z, byte b);
+
+    /**
+     * Returns the size of this array.
+     */
+    public int size();
+
+    /**
+     * Returns the approximate amount of memory in bytes used to store the values of this array.
+     */
+    public int getMemoryUsage();
+
+    /**
+     * Reduces the memory used by this array, if possible.
+     */
+    public void compact();
+
+    /**
+     * Returns the amount of raw bytes of this array.
+     */
+    public int getRawSize();
+
+    /**
+     * Writes the raw bytes of this array to the given output.
+     */
+    public void writeRawBytes(DataOutput out) throws IOException;
+
+    /**
+     * Fills this array with raw bytes read from the given input.
+     */
+    public void readRawBytes(DataInput in) throws IOException;
+
+    /**
+     * Fills this array with raw bytes copied from the given buffer, starting at its current position.
+     */
+    public void readRawBytes(ByteBuffer buffer);
+
+    /**
+     * Writes the raw bytes of this array to the given output using the given codec.
+     */
+    public void writeRawBytes(IChunkCodec codec, DataOutput out) throws IOException;
+
+    /**
+     * Fills this array with raw bytes decoded from the given buffer using the given codec.
+     */
+    public void readRawBytes(IChunkCodec codec, ByteBuffer buffer) throws IOException;
+
+    /**
+     * Writes the raw bytes of this array to the given output using the x-major layout of older versions.
+     */
+    public void writeLegacyRawBytes(DataOutput out) throws IOException;
+
+    /**
+     * Fills this array with the given raw bytes using the x-major layout of older versions.
+     */
+    public void readLegacyRawBytes(byte[] raw);
+}
@@ -15,25 +15,48 @@
  */
 package org.terasology.model.structures;
 
+import org.terasology.math.IntMath;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
 /**
  * A fast 3D array wrapper.
+ * <p/>
+ * The values are stored column by column, so values on top of each other are next to each other in memory.
+ * All dimensions have to be powers of two, allowing to calculate the index using shifts only.
  *
  * @author Benjamin Glatzel <benjamin.glatzel@me.com>
  */
-public class TeraArray {
+public class TeraArray implements ITeraArray {
 
     private final byte _array[];
     private final int _lX, _lY, _lZ;
     private final int _size;
+    private final int _shiftX, _shiftZ;
+    private final int _outOfBoundsX, _outOfBoundsY, _outOfBoundsZ;
 
     /**
      * Init. a new 3D array with the given dimensions.
      */
     public TeraArray(int x, int y, int z) {
+        if (IntMath.ceilPowerOfTwo(x) != x || IntMath.ceilPowerOfTwo(y) != y || IntMath.ceilPowerOfTwo(z) != z)
+            throw new IllegalArgumentException("The dimensions of the array have to be powers of two.");
+
         _lX = x;
         _lY = y;
         _lZ = z;
 
+        _shiftZ = IntMath.sizeOfPower(_lY);
+        _shiftX = _shiftZ + IntMath.sizeOfPower(_lZ);
+
+        // Non-zero for negative positions and positions exceeding the dimensions
+        _outOfBoundsX = ~(_lX - 1);
+        _outOfBoundsY = ~(_lY - 1);
+        _outOfBoundsZ = ~(_lZ - 1);
+
         _size = _lX * _lY * _lZ;
         _array = new byte[_size];
     }
@@ -42,25 +65,34 @@ public class TeraArray {
      * Returns the byte value at the given position.
      */
     public byte get(int x, int y, int z) {
-
-        int pos = (x * _lX * _lY) + (y * _lX) + z;
-
-        if (x >= _lX || y >= _lY || z >= _lZ || x < 0 || y < 0 || z < 0)
+        if (((x & _outOfBoundsX) | (y & _outOfBoundsY) | (z & _outOfBoundsZ)) != 0)
             return 0;
 
-        return _array[pos];
+        return _array[(x << _shiftX) | (z << _shiftZ) | y];
     }
 
     /**
      * Sets the byte value for the given position.
      */
     public void set(int x, int y, int z, byte b) {
-        int pos = (x * _lX * _lY) + (y * _lX) + z;
-
-        if (x >= _lX || y >= _lY || z >= _lZ || x < 0 || y < 0 || z < 0)
+        if (((x & _outOfBoundsX) | (y & _outOfBoundsY) | (z & _outOfBoundsZ)) != 0)
             return;
 
-        _array[pos] = b;
+        _array[(x << _shiftX) | (z << _shiftZ) | y] = b;
+    }
+
+    /**
+     * Returns the byte value at the given position without checking the bounds.
+     */
+    public byte getUnsafe(int x, int y, int z) {
+        return _array[(x << _shiftX) | (z << _shiftZ) | y];
+    }
+
+    /**
+     * Sets the byte value for the given position without checking the bounds.
+     */
+    public void setUnsafe(int x, int y, int z, byte b) {
+        _array[(x << _shiftX) | (z << _shiftZ) | y] = b;
     }
 
     /**
@@ -77,10 +109,84 @@ public class TeraArray {
         _array[i] = b;
     }
 
+    /**
+     * Returns the amount of raw bytes of this array.
+     */
+    public int getRawSize() {
+        return _array.length;
+    }
+
+    /**
+     * Writes the raw bytes of this array to the given output.
+     */
+    public void writeRawBytes(DataOutput out) throws IOException {
+        out.write(_array);
+    }
+
+    /**
+     * Fills this array with raw bytes read from the given input.
+     */
+    public void readRawBytes(DataInput in) throws IOException {
+        in.readFully(_array);
+    }
+
+    /**
+     * Fills this array with raw bytes copied from the given buffer, starting at its current position.
+     */
+    public void readRawBytes(ByteBuffer buffer) {
+        buffer.get(_array);
+    }
+
+    /**
+     * Writes the raw bytes of this array to the given output using the given codec.
+     */
+    public void writeRawBytes(IChunkCodec codec, DataOutput out) throws IOException {
+        codec.encode(_array, out);
+    }
+
+    /**
+     * Fills this array with raw bytes decoded from the given buffer using the given codec.
+     */
+    public void readRawBytes(IChunkCodec codec, ByteBuffer buffer) throws IOException {
+        codec.decode(buffer, _array);
+    }
+
+    public void writeLegacyRawBytes(DataOutput out) throws IOException {
+        byte[] raw = new byte[_size];
+
+        for (int x = 0; x < _lX; x++) {
+            for (int y = 0; y < _lY; y++) {
+                for (int z = 0; z < _lZ; z++) {
+                    raw[TeraLegacyLayout.index(x, y, z, _lX, _lY)] = getUnsafe(x, y, z);
+                }
+            }
+        }
+
+        out.write(raw);
+    }
+
+    public void readLegacyRawBytes(byte[] raw) {
+        for (int x = 0; x < _lX; x++) {
+            for (int y = 0; y < _lY; y++) {
+                for (int z = 0; z < _lZ; z++) {
+                    setUnsafe(x, y, z, raw[TeraLegacyLayout.index(x, y, z, _lX, _lY)]);
+                }
+            }
+        }
+    }
+
     /**
      * Returns the size of this array.
      */
     public int size() {
         return _size;
     }
+
+    public int getMemoryUsage() {
+        return _array.length;
+    }
+
+    public void compact() {
+        // Nothing to do here, the array is always stored densely
+    }
 }
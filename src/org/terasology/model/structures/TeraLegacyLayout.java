@@ -0,0 +1,51 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.model.structures;
+
+/**
+ * Helpers for the x-major layout of the raw bytes used by older versions of TeraArray and TeraSmartArray.
+ * In this layout the value at (x, y, z) has the index x * lX * lY + y * lX + z. For 4-bit values the
+ * first half of the values is stored in the lower nibbles, the second half in the upper nibbles.
+ */
+final class TeraLegacyLayout {
+
+    // Prevent instantiation
+    private TeraLegacyLayout() {
+    }
+
+    static int index(int x, int y, int z, int lX, int lY) {
+        return (x * lX * lY) + (y * lX) + z;
+    }
+
+    static byte getNibble(byte[] raw, int index) {
+        int halfSize = raw.length;
+
+        if (index < halfSize)
+            return (byte) (raw[index] & 0x0F);
+
+        return (byte) ((raw[index - halfSize] >> 4) & 0x0F);
+    }
+
+    static void setNibble(byte[] raw, int index, byte value) {
+        int halfSize = raw.length;
+
+        if (index < halfSize) {
+            raw[index] = (byte) ((raw[index] & 0xF0) | (value & 0x0F));
+        } else {
+            raw[index - halfSize] = (byte) ((raw[index - halfSize] & 0x0F) | ((value & 0x0F) << 4));
+        }
+    }
+}
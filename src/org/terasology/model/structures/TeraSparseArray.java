@@ -0,0 +1,469 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.model.structures;
+
+import org.terasology.math.IntMath;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A 3D array storing its values in sections of 16x16x16 values. Each section holds either a single uniform
+ * value or a small palette with packed indices. Sections are expanded transparently when a value is written
+ * that does not fit into the palette. Sections containing more than 16 different values are stored densely.
+ * <p/>
+ * The raw bytes of this array use the same layout as TeraArray or, if packed nibbles are enabled,
+ * the layout of TeraSmartArray. So the arrays can be used interchangeably. For the same reason all
+ * dimensions have to be powers of two.
+ * <p/>
+ * Reads never block. Writes lock the affected section, so concurrent writes to the same section are not lost
+ * while the section is updated, expanded or compacted.
+ */
+public class TeraSparseArray implements ITeraArray {
+
+    private static final int SECTION_BITS = 4;
+    private static final int SECTION_SIZE = 1 << SECTION_BITS;
+    private static final int SECTION_MASK = SECTION_SIZE - 1;
+    private static final int SECTION_VOLUME = SECTION_SIZE * SECTION_SIZE * SECTION_SIZE;
+
+    private static final Section[] UNIFORM_SECTIONS = new Section[256];
+
+    static {
+        for (int i = 0; i < UNIFORM_SECTIONS.length; i++) {
+            UNIFORM_SECTIONS[i] = new Section((byte) i);
+        }
+    }
+
+    private final Section[] _sections;
+    private final Object[] _locks;
+    private final int _lX, _lY, _lZ;
+    private final int _sectionsY, _sectionsZ;
+    private final int _shiftX, _shiftZ;
+    private final int _size;
+    private final boolean _packedNibbles;
+
+    /**
+     * Init. a new 3D array with the given dimensions. All dimensions have to be powers of two and at least 16.
+     *
+     * @param packedNibbles Store 4-bit values and use the raw layout of TeraSmartArray
+     */
+    public TeraSparseArray(int x, int y, int z, boolean packedNibbles) {
+        if ((x & SECTION_MASK) != 0 || (y & SECTION_MASK) != 0 || (z & SECTION_MASK) != 0)
+            throw new IllegalArgumentException("The dimensions of the array have to be multiples of " + SECTION_SIZE + ".");
+        if (IntMath.ceilPowerOfTwo(x) != x || IntMath.ceilPowerOfTwo(y) != y || IntMath.ceilPowerOfTwo(z) != z)
+            throw new IllegalArgumentException("The dimensions of the array have to be powers of two.");
+
+        _lX = x;
+        _lY = y;
+        _lZ = z;
+        _size = _lX * _lY * _lZ;
+        _packedNibbles = packedNibbles;
+
+        _shiftZ = IntMath.sizeOfPower(_lY);
+        _shiftX = _shiftZ + IntMath.sizeOfPower(_lZ);
+
+        _sectionsY = _lY >> SECTION_BITS;
+        _sectionsZ = _lZ >> SECTION_BITS;
+        _sections = new Section[(_lX >> SECTION_BITS) * _sectionsY * _sectionsZ];
+        _locks = new Object[_sections.length];
+
+        for (int i = 0; i < _sections.length; i++) {
+            _sections[i] = UNIFORM_SECTIONS[0];
+            _locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Returns the byte value at the given position.
+     */
+    public byte get(int x, int y, int z) {
+        if (x >= _lX || y >= _lY || z >= _lZ || x < 0 || y < 0 || z < 0)
+            return _packedNibbles ? (byte) -1 : 0;
+
+        return _sections[sectionIndex(x, y, z)].get(localIndex(x, y, z));
+    }
+
+    /**
+     * Sets the byte value for the given position.
+     */
+    public void set(int x, int y, int z, byte b) {
+        if (x >= _lX || y >= _lY || z >= _lZ || x < 0 || y < 0 || z < 0)
+            return;
+
+        if (_packedNibbles)
+            b &= 0x0F;
+
+        int sectionIndex = sectionIndex(x, y, z);
+        int localIndex = localIndex(x, y, z);
+
+        // The packed indices and the palette are updated by read-modify-write
+        synchronized (_locks[sectionIndex]) {
+            Section section = _sections[sectionIndex];
+
+            if (!section.set(localIndex, b)) {
+                // The palette is full, so expand the section
+                _sections[sectionIndex] = new Section(section, localIndex, b);
+            }
+        }
+    }
+
+    public byte getUnsafe(int x, int y, int z) {
+        return _sections[sectionIndex(x, y, z)].get(localIndex(x, y, z));
+    }
+
+    public void setUnsafe(int x, int y, int z, byte b) {
+        set(x, y, z, b);
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    public int getMemoryUsage() {
+        int result = 0;
+
+        for (Section section : _sections) {
+            result += section.getMemoryUsage();
+        }
+
+        return result;
+    }
+
+    /**
+     * Rebuilds all sections using the smallest possible palettes.
+     */
+    public void compact() {
+        byte[] values = new byte[SECTION_VOLUME];
+
+        for (int i = 0; i < _sections.length; i++) {
+            synchronized (_locks[i]) {
+                Section section = _sections[i];
+
+                if (section.isUniform())
+                    continue;
+
+                for (int j = 0; j < SECTION_VOLUME; j++) {
+                    values[j] = section.get(j);
+                }
+
+                _sections[i] = Section.create(values);
+            }
+        }
+    }
+
+    public int getRawSize() {
+        return _packedNibbles ? _size / 2 : _size;
+    }
+
+    public void writeRawBytes(DataOutput out) throws IOException {
+        out.write(toRawBytes(false));
+    }
+
+    public void readRawBytes(DataInput in) throws IOException {
+        byte[] raw = new byte[getRawSize()];
+        in.readFully(raw);
+        fromRawBytes(raw, false);
+    }
+
+    public void readRawBytes(ByteBuffer buffer) {
+        byte[] raw = new byte[getRawSize()];
+        buffer.get(raw);
+        fromRawBytes(raw, false);
+    }
+
+    public void writeRawBytes(IChunkCodec codec, DataOutput out) throws IOException {
+        codec.encode(toRawBytes(false), out);
+    }
+
+    public void readRawBytes(IChunkCodec codec, ByteBuffer buffer) throws IOException {
+        byte[] raw = new byte[getRawSize()];
+        codec.decode(buffer, raw);
+        fromRawBytes(raw, false);
+    }
+
+    public void writeLegacyRawBytes(DataOutput out) throws IOException {
+        out.write(toRawBytes(true));
+    }
+
+    public void readLegacyRawBytes(byte[] raw) {
+        fromRawBytes(raw, true);
+    }
+
+    private int sectionIndex(int x, int y, int z) {
+        return ((x >> SECTION_BITS) * _sectionsY + (y >> SECTION_BITS)) * _sectionsZ + (z >> SECTION_BITS);
+    }
+
+    private static int localIndex(int x, int y, int z) {
+        return ((x & SECTION_MASK) << (2 * SECTION_BITS)) | ((y & SECTION_MASK) << SECTION_BITS) | (z & SECTION_MASK);
+    }
+
+    /**
+     * Returns the values of this array in the raw layout of the dense arrays.
+     */
+    private byte[] toRawBytes(boolean legacy) {
+        byte[] raw = new byte[getRawSize()];
+
+        for (int x = 0; x < _lX; x++) {
+            for (int y = 0; y < _lY; y++) {
+                for (int z = 0; z < _lZ; z++) {
+                    byte value = getUnsafe(x, y, z);
+
+                    if (legacy) {
+                        int pos = TeraLegacyLayout.index(x, y, z, _lX, _lY);
+
+                        if (_packedNibbles)
+                            TeraLegacyLayout.setNibble(raw, pos, value);
+                        else
+                            raw[pos] = value;
+                    } else {
+                        int pos = (x << _shiftX) | (z << _shiftZ) | y;
+
+                        if (_packedNibbles)
+                            raw[pos >> 1] |= value << ((pos & 1) << 2);
+                        else
+                            raw[pos] = value;
+                    }
+                }
+            }
+        }
+
+        return raw;
+    }
+
+    /**
+     * Replaces the values of this array with the given raw bytes.
+     */
+    private void fromRawBytes(byte[] raw, boolean legacy) {
+        byte[] values = new byte[SECTION_VOLUME];
+
+        for (int sx = 0; sx < _lX; sx += SECTION_SIZE) {
+            for (int sy = 0; sy < _lY; sy += SECTION_SIZE) {
+                for (int sz = 0; sz < _lZ; sz += SECTION_SIZE) {
+
+                    for (int x = sx; x < sx + SECTION_SIZE; x++) {
+                        for (int y = sy; y < sy + SECTION_SIZE; y++) {
+                            for (int z = sz; z < sz + SECTION_SIZE; z++) {
+                                byte value;
+
+                                if (legacy) {
+                                    int pos = TeraLegacyLayout.index(x, y, z, _lX, _lY);
+                                    value = _packedNibbles ? TeraLegacyLayout.getNibble(raw, pos) : raw[pos];
+                                } else {
+                                    int pos = (x << _shiftX) | (z << _shiftZ) | y;
+                                    value = _packedNibbles ? (byte) ((raw[pos >> 1] >> ((pos & 1) << 2)) & 0x0F) : raw[pos];
+                                }
+
+                                values[localIndex(x, y, z)] = value;
+                            }
+                        }
+                    }
+
+                    int sectionIndex = sectionIndex(sx, sy, sz);
+
+                    synchronized (_locks[sectionIndex]) {
+                        _sections[sectionIndex] = Section.create(values);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A section of 16x16x16 values. Uniform sections use no indices, palette sections 1, 2 or 4 bits per value
+     * and dense sections store the values directly.
+     * <p/>
+     * Everything but the palette size is final, so readers always see a consistent section. If the format
+     * has to change, a new section is created instead. Writers have to hold the lock of the section.
+     */
+    private static final class Section {
+
+        private static final int DENSE_BITS = 8;
+
+        private final int _bits;
+        private final byte[] _palette;
+        private final long[] _indices;
+        private final byte[] _values;
+        private int _paletteSize;
+
+        /**
+         * Creates a uniform section.
+         */
+        private Section(byte value) {
+            _bits = 0;
+            _palette = new byte[]{value};
+            _paletteSize = 1;
+            _indices = null;
+            _values = null;
+        }
+
+        /**
+         * Creates a section containing the given values.
+         */
+        private Section(int bits, byte[] values) {
+            _bits = bits;
+
+            if (bits == DENSE_BITS) {
+                _palette = null;
+                _indices = null;
+                _values = values.clone();
+                return;
+            }
+
+            _palette = new byte[1 << bits];
+            _indices = new long[SECTION_VOLUME * bits / 64];
+            _values = null;
+
+            for (int i = 0; i < SECTION_VOLUME; i++) {
+                setIndex(i, paletteIndex(values[i]));
+            }
+        }
+
+        /**
+         * Creates an expanded copy of the given section which additionally contains the given value.
+         */
+        private Section(Section source, int index, byte value) {
+            this(source._bits == 0 ? 1 : source._bits * 2, source.getValues(index, value));
+        }
+
+        /**
+         * Creates the smallest section able to store the given values.
+         */
+        private static Section create(byte[] values) {
+            boolean[] used = new boolean[256];
+            int distinct = 0;
+
+            for (byte value : values) {
+                if (!used[value & 0xFF]) {
+                    used[value & 0xFF] = true;
+                    distinct++;
+                }
+            }
+
+            if (distinct == 1)
+                return UNIFORM_SECTIONS[values[0] & 0xFF];
+
+            int bits = 1;
+            while (bits < DENSE_BITS && (1 << bits) < distinct) {
+                bits *= 2;
+            }
+
+            return new Section(bits, values);
+        }
+
+        private boolean isUniform() {
+            return _bits == 0;
+        }
+
+        private byte get(int index) {
+            if (_bits == 0)
+                return _palette[0];
+
+            if (_values != null)
+                return _values[index];
+
+            return _palette[getIndex(index)];
+        }
+
+        /**
+         * Sets the value at the given index. Returns false if the palette is full and the section has to be expanded.
+         */
+        private boolean set(int index, byte value) {
+            if (_values != null) {
+                _values[index] = value;
+                return true;
+            }
+
+            if (get(index) == value)
+                return true;
+
+            if (_bits == 0)
+                return false;
+
+            int paletteIndex = findPaletteIndex(value);
+
+            if (paletteIndex < 0) {
+                if (_paletteSize == _palette.length)
+                    return false;
+
+                // Add the value before it gets referenced
+                _palette[_paletteSize] = value;
+                paletteIndex = _paletteSize++;
+            }
+
+            setIndex(index, paletteIndex);
+            return true;
+        }
+
+        private int getMemoryUsage() {
+            if (_bits == 0)
+                return 0;
+
+            if (_values != null)
+                return _values.length;
+
+            return _palette.length + _indices.length * 8;
+        }
+
+        /**
+         * Returns all values of this section, replacing the value at the given index.
+         */
+        private byte[] getValues(int index, byte value) {
+            byte[] result = new byte[SECTION_VOLUME];
+
+            for (int i = 0; i < SECTION_VOLUME; i++) {
+                result[i] = get(i);
+            }
+
+            result[index] = value;
+            return result;
+        }
+
+        private int findPaletteIndex(byte value) {
+            for (int i = 0; i < _paletteSize; i++) {
+                if (_palette[i] == value)
+                    return i;
+            }
+
+            return -1;
+        }
+
+        private int paletteIndex(byte value) {
+            int result = findPaletteIndex(value);
+
+            if (result < 0) {
+                _palette[_paletteSize] = value;
+                result = _paletteSize++;
+            }
+
+            return result;
+        }
+
+        private int getIndex(int index) {
+            int bitIndex = index * _bits;
+            return (int) (_indices[bitIndex >> 6] >>> (bitIndex & 63)) & ((1 << _bits) - 1);
+        }
+
+        private void setIndex(int index, int paletteIndex) {
+            int bitIndex = index * _bits;
+            int shift = bitIndex & 63;
+            long mask = (long) ((1 << _bits) - 1) << shift;
+
+            _indices[bitIndex >> 6] = (_indices[bitIndex >> 6] & ~mask) | ((long) paletteIndex << shift);
+        }
+    }
+}
@@ -29,7 +29,14 @@ import java.nio.FloatBuffer;
  */
 public class ViewFrustum {
 
+    public enum INTERSECTION {
+        OUTSIDE,
+        INTERSECTING,
+        INSIDE
+    }
+
     private final FrustumPlane[] _planes = new FrustumPlane[6];
+    private final double[] _planeData = new double[24];
 
     private final FloatBuffer _proj = BufferUtils.createFloatBuffer(16);
     private final FloatBuffer _model = BufferUtils.createFloatBuffer(16);
@@ -50,25 +57,35 @@ public class ViewFrustum {
         GL11.glGetFloat(GL11.GL_PROJECTION_MATRIX, _proj);
         GL11.glGetFloat(GL11.GL_MODELVIEW_MATRIX, _model);
 
-        _clip.put(0, _model.get(0) * _proj.get(0) + _model.get(1) * _proj.get(4) + _model.get(2) * _proj.get(8) + _model.get(3) * _proj.get(12));
-        _clip.put(1, _model.get(0) * _proj.get(1) + _model.get(1) * _proj.get(5) + _model.get(2) * _proj.get(9) + _model.get(3) * _proj.get(13));
-        _clip.put(2, _model.get(0) * _proj.get(2) + _model.get(1) * _proj.get(6) + _model.get(2) * _proj.get(10) + _model.get(3) * _proj.get(14));
-        _clip.put(3, _model.get(0) * _proj.get(3) + _model.get(1) * _proj.get(7) + _model.get(2) * _proj.get(11) + _model.get(3) * _proj.get(15));
-
-        _clip.put(4, _model.get(4) * _proj.get(0) + _model.get(5) * _proj.get(4) + _model.get(6) * _proj.get(8) + _model.get(7) * _proj.get(12));
-        _clip.put(5, _model.get(4) * _proj.get(1) + _model.get(5) * _proj.get(5) + _model.get(6) * _proj.get(9) + _model.get(7) * _proj.get(13));
-        _clip.put(6, _model.get(4) * _proj.get(2) + _model.get(5) * _proj.get(6) + _model.get(6) * _proj.get(10) + _model.get(7) * _proj.get(14));
-        _clip.put(7, _model.get(4) * _proj.get(3) + _model.get(5) * _proj.get(7) + _model.get(6) * _proj.get(11) + _model.get(7) * _proj.get(15));
-
-        _clip.put(8, _model.get(8) * _proj.get(0) + _model.get(9) * _proj.get(4) + _model.get(10) * _proj.get(8) + _model.get(11) * _proj.get(12));
-        _clip.put(9, _model.get(8) * _proj.get(1) + _model.get(9) * _proj.get(5) + _model.get(10) * _proj.get(9) + _model.get(11) * _proj.get(13));
-        _clip.put(10, _model.get(8) * _proj.get(2) + _model.get(9) * _proj.get(6) + _model.get(10) * _proj.get(10) + _model.get(11) * _proj.get(14));
-        _clip.put(11, _model.get(8) * _proj.get(3) + _model.get(9) * _proj.get(7) + _model.get(10) * _proj.get(11) + _model.get(11) * _proj.get(15));
+        updateFrustum(_proj, _model);
+    }
 
-        _clip.put(12, _model.get(12) * _proj.get(0) + _model.get(13) * _proj.get(4) + _model.get(14) * _proj.get(8) + _model.get(15) * _proj.get(12));
-        _clip.put(13, _model.get(12) * _proj.get(1) + _model.get(13) * _proj.get(5) + _model.get(14) * _proj.get(9) + _model.get(15) * _proj.get(13));
-        _clip.put(14, _model.get(12) * _proj.get(2) + _model.get(13) * _proj.get(6) + _model.get(14) * _proj.get(10) + _model.get(15) * _proj.get(14));
-        _clip.put(15, _model.get(12) * _proj.get(3) + _model.get(13) * _proj.get(7) + _model.get(14) * _proj.get(11) + _model.get(15) * _proj.get(15));
+    /**
+     * Updates the view frustum using the given modelview and projection matrices.
+     *
+     * @param proj  The projection matrix in column-major order
+     * @param model The modelview matrix in column-major order
+     */
+    public void updateFrustum(FloatBuffer proj, FloatBuffer model) {
+        _clip.put(0, model.get(0) * proj.get(0) + model.get(1) * proj.get(4) + model.get(2) * proj.get(8) + model.get(3) * proj.get(12));
+        _clip.put(1, model.get(0) * proj.get(1) + model.get(1) * proj.get(5) + model.get(2) * proj.get(9) + model.get(3) * proj.get(13));
+        _clip.put(2, model.get(0) * proj.get(2) + model.get(1) * proj.get(6) + model.get(2) * proj.get(10) + model.get(3) * proj.get(14));
+        _clip.put(3, model.get(0) * proj.get(3) + model.get(1) * proj.get(7) + model.get(2) * proj.get(11) + model.get(3) * proj.get(15));
+
+        _clip.put(4, model.get(4) * proj.get(0) + model.get(5) * proj.get(4) + model.get(6) * proj.get(8) + model.get(7) * proj.get(12));
+        _clip.put(5, model.get(4) * proj.get(1) + model.get(5) * proj.get(5) + model.get(6) * proj.get(9) + model.get(7) * proj.get(13));
+        _clip.put(6, model.get(4) * proj.get(2) + model.get(5) * proj.get(6) + model.get(6) * proj.get(10) + model.get(7) * proj.get(14));
+        _clip.put(7, model.get(4) * proj.get(3) + model.get(5) * proj.get(7) + model.get(6) * proj.get(11) + model.get(7) * proj.get(15));
+
+        _clip.put(8, model.get(8) * proj.get(0) + model.get(9) * proj.get(4) + model.get(10) * proj.get(8) + model.get(11) * proj.get(12));
+        _clip.put(9, model.get(8) * proj.get(1) + model.get(9) * proj.get(5) + model.get(10) * proj.get(9) + model.get(11) * proj.get(13));
+        _clip.put(10, model.get(8) * proj.get(2) + model.get(9) * proj.get(6) + model.get(10) * proj.get(10) + model.get(11) * proj.get(14));
+        _clip.put(11, model.get(8) * proj.get(3) + model.get(9) * proj.get(7) + model.get(10) * proj.get(11) + model.get(11) * proj.get(15));
+
+        _clip.put(12, model.get(12) * proj.get(0) + model.get(13) * proj.get(4) + model.get(14) * proj.get(8) + model.get(15) * proj.get(12));
+        _clip.put(13, model.get(12) * proj.get(1) + model.get(13) * proj.get(5) + model.get(14) * proj.get(9) + model.get(15) * proj.get(13));
+        _clip.put(14, model.get(12) * proj.get(2) + model.get(13) * proj.get(6) + model.get(14) * proj.get(10) + model.get(15) * proj.get(14));
+        _clip.put(15, model.get(12) * proj.get(3) + model.get(13) * proj.get(7) + model.get(14) * proj.get(11) + model.get(15) * proj.get(15));
 
         // RIGHT
         _planes[0].setA(_clip.get(3) - _clip.get(0));
@@ -111,6 +128,13 @@ public class ViewFrustum {
         _planes[5].setC(_clip.get(11) + _clip.get(10));
         _planes[5].setD(_clip.get(15) + _clip.get(14));
         _planes[5].normalize();
+
+        for (int i = 0; i < 6; i++) {
+            _planeData[i * 4] = _planes[i].getA();
+            _planeData[i * 4 + 1] = _planes[i].getB();
+            _planeData[i * 4 + 2] = _planes[i].getC();
+            _planeData[i * 4 + 3] = _planes[i].getD();
+        }
     }
 
     /**
@@ -129,30 +153,41 @@ public class ViewFrustum {
      * Returns true if this view frustum intersects the given AABB.
      */
     public boolean intersects(AABB aabb) {
-
-        Vector3d[] aabbVertices = aabb.getVertices();
         Vector3d cp = Terasology.getInstance().getActiveCamera().getPosition();
+        return intersects(aabb.minX(), aabb.minY(), aabb.minZ(), aabb.maxX(), aabb.maxY(), aabb.maxZ(), cp) != INTERSECTION.OUTSIDE;
+    }
 
-        for (int i = 0; i < 6; i++) {
-            if (_planes[i].getA() * (aabbVertices[0].x - cp.x) + _planes[i].getB() * (aabbVertices[0].y - cp.y) + _planes[i].getC() * (aabbVertices[0].z - cp.z) + _planes[i].getD() > 0)
-                continue;
-            if (_planes[i].getA() * (aabbVertices[1].x - cp.x) + _planes[i].getB() * (aabbVertices[1].y - cp.y) + _planes[i].getC() * (aabbVertices[1].z - cp.z) + _planes[i].getD() > 0)
-                continue;
-            if (_planes[i].getA() * (aabbVertices[2].x - cp.x) + _planes[i].getB() * (aabbVertices[2].y - cp.y) + _planes[i].getC() * (aabbVertices[2].z - cp.z) + _planes[i].getD() > 0)
-                continue;
-            if (_planes[i].getA() * (aabbVertices[3].x - cp.x) + _planes[i].getB() * (aabbVertices[3].y - cp.y) + _planes[i].getC() * (aabbVertices[3].z - cp.z) + _planes[i].getD() > 0)
-                continue;
-            if (_planes[i].getA() * (aabbVertices[4].x - cp.x) + _planes[i].getB() * (aabbVertices[4].y - cp.y) + _planes[i].getC() * (aabbVertices[4].z - cp.z) + _planes[i].getD() > 0)
-                continue;
-            if (_planes[i].getA() * (aabbVertices[5].x - cp.x) + _planes[i].getB() * (aabbVertices[5].y - cp.y) + _planes[i].getC() * (aabbVertices[5].z - cp.z) + _planes[i].getD() > 0)
-                continue;
-            if (_planes[i].getA() * (aabbVertices[6].x - cp.x) + _planes[i].getB() * (aabbVertices[6].y - cp.y) + _planes[i].getC() * (aabbVertices[6].z - cp.z) + _planes[i].getD() > 0)
-                continue;
-            if (_planes[i].getA() * (aabbVertices[7].x - cp.x) + _planes[i].getB() * (aabbVertices[7].y - cp.y) + _planes[i].getC() * (aabbVertices[7].z - cp.z) + _planes[i].getD() > 0)
-                continue;
-            return false;
+    /**
+     * Tests the given box against the planes of this view frustum. For each plane only the corner of the box
+     * which lies farthest in the direction of the plane normal (and the opposite corner) has to be tested.
+     *
+     * @param origin The position of the camera the view frustum belongs to
+     * @return Whether the box lies outside, inside or intersects the view frustum
+     */
+    public INTERSECTION intersects(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, Vector3d origin) {
+        minX -= origin.x;
+        minY -= origin.y;
+        minZ -= origin.z;
+        maxX -= origin.x;
+        maxY -= origin.y;
+        maxZ -= origin.z;
+
+        boolean inside = true;
+
+        for (int i = 0; i < 24; i += 4) {
+            double a = _planeData[i], b = _planeData[i + 1], c = _planeData[i + 2], d = _planeData[i + 3];
+
+            double farthest = a * (a > 0 ? maxX : minX) + b * (b > 0 ? maxY : minY) + c * (c > 0 ? maxZ : minZ) + d;
+
+            if (farthest <= 0)
+                return INTERSECTION.OUTSIDE;
+
+            if (inside) {
+                double nearest = a * (a > 0 ? minX : maxX) + b * (b > 0 ? minY : maxY) + c * (c > 0 ? minZ : maxZ) + d;
+                inside = nearest > 0;
+            }
         }
 
-        return true;
+        return inside ? INTERSECTION.INSIDE : INTERSECTION.INTERSECTING;
     }
 }
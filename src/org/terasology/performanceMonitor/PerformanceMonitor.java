@@ -69,6 +69,40 @@ public class PerformanceMonitor {
         return _instance.getRunningThreads();
     }
 
+    /**
+     * Reports the amount of tasks waiting in a queue. May be called from any thread.
+     *
+     * @param queue The name of the queue
+     * @param depth The amount of waiting tasks
+     */
+    public static void setQueueDepth(String queue, int depth) {
+        _instance.setQueueDepth(queue, depth);
+    }
+
+    /**
+     * Reports the time a task waited in a queue before it got started. May be called from any thread.
+     *
+     * @param queue     The name of the queue
+     * @param latencyMs The time the task waited in milliseconds
+     */
+    public static void recordTaskLatency(String queue, double latencyMs) {
+        _instance.recordTaskLatency(queue, latencyMs);
+    }
+
+    /**
+     * @return A mapping of queues to the amount of tasks waiting in them.
+     */
+    public static TObjectIntMap<String> getQueueDepths() {
+        return _instance.getQueueDepths();
+    }
+
+    /**
+     * @return A mapping of queues to a running mean of the time tasks waited in them (in milliseconds).
+     */
+    public static TObjectDoubleMap<String> getTaskLatencies() {
+        return _instance.getTaskLatencies();
+    }
+
 
     /**
      * Should be called once per frame, drops old information and updates the metrics.
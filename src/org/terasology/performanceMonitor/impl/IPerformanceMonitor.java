@@ -36,6 +36,14 @@ public interface IPerformanceMonitor {
 
     TObjectIntMap<String> getRunningThreads();
 
+    void setQueueDepth(String queue, int depth);
+
+    void recordTaskLatency(String queue, double latencyMs);
+
+    TObjectIntMap<String> getQueueDepths();
+
+    TObjectDoubleMap<String> getTaskLatencies();
+
     TObjectDoubleMap<String> getRunningMean();
 
     TObjectDoubleMap<String> getDecayingSpikes();
@@ -26,6 +26,8 @@ import gnu.trove.map.hash.TObjectIntHashMap;
 public class NullPerformanceMonitor implements IPerformanceMonitor {
     private TObjectDoubleMap<String> _metrics = new TObjectDoubleHashMap<String>();
     private TObjectIntMap<String> _threads = new TObjectIntHashMap<String>();
+    private TObjectIntMap<String> _queueDepths = new TObjectIntHashMap<String>();
+    private TObjectDoubleMap<String> _taskLatencies = new TObjectDoubleHashMap<String>();
 
     public void startThread(String name) {
     }
@@ -54,4 +56,18 @@ public class NullPerformanceMonitor implements IPerformanceMonitor {
         return _threads;
     }
 
+    public void setQueueDepth(String queue, int depth) {
+    }
+
+    public void recordTaskLatency(String queue, double latencyMs) {
+    }
+
+    public TObjectIntMap<String> getQueueDepths() {
+        return _queueDepths;
+    }
+
+    public TObjectDoubleMap<String> getTaskLatencies() {
+        return _taskLatencies;
+    }
+
 }
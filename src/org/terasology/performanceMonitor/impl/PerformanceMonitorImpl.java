@@ -41,6 +41,7 @@ import java.util.Stack;
 public class PerformanceMonitorImpl implements IPerformanceMonitor {
     private static final int RETAINED_CYCLES = 60;
     private static final double DECAY_RATE = 0.98;
+    private static final double LATENCY_DECAY_RATE = 0.9;
 
     private Stack<Activity> _activityStack;
     private List<TObjectLongMap<String>> _metricData;
@@ -52,6 +53,8 @@ public class PerformanceMonitorImpl implements IPerformanceMonitor {
     private TObjectDoubleMap<String> _spikeData;
     private double _timeFactor;
     private TObjectIntMap<String> _lastRunningThreads;
+    private TObjectIntMap<String> _queueDepths;
+    private TObjectDoubleMap<String> _taskLatencies;
 
     private Thread _mainThread;
 
@@ -65,6 +68,8 @@ public class PerformanceMonitorImpl implements IPerformanceMonitor {
         _runningThreads = TCollections.synchronizedMap(new TObjectIntHashMap<String>());
         _stoppedThreads = TCollections.synchronizedMap(new TObjectIntHashMap<String>());
         _lastRunningThreads = new TObjectIntHashMap<String>();
+        _queueDepths = TCollections.synchronizedMap(new TObjectIntHashMap<String>());
+        _taskLatencies = TCollections.synchronizedMap(new TObjectDoubleHashMap<String>());
         _timeFactor = 1000.0 / _timerTicksPerSecond;
         _mainThread = Thread.currentThread();
 
@@ -179,6 +184,28 @@ public class PerformanceMonitorImpl implements IPerformanceMonitor {
         return _lastRunningThreads;
     }
 
+    public void setQueueDepth(String queue, int depth) {
+        _queueDepths.put(queue, depth);
+    }
+
+    public void recordTaskLatency(String queue, double latencyMs) {
+        synchronized (_taskLatencies) {
+            if (_taskLatencies.containsKey(queue)) {
+                latencyMs = _taskLatencies.get(queue) * LATENCY_DECAY_RATE + latencyMs * (1.0 - LATENCY_DECAY_RATE);
+            }
+
+            _taskLatencies.put(queue, latencyMs);
+        }
+    }
+
+    public TObjectIntMap<String> getQueueDepths() {
+        return _queueDepths;
+    }
+
+    public TObjectDoubleMap<String> getTaskLatencies() {
+        return _taskLatencies;
+    }
+
     private static class Activity {
         public String name;
         public long startTime;
@@ -2735,9 +2735,49 @@ public final class Configuration {
       boolean hasAnimatedWaterAndGrass();
       boolean getAnimatedWaterAndGrass();
       
-      // optional int32 vertical_chunk_mesh_segments = 20 [default = 1];
+      // optional int32 vertical_chunk_mesh_segments = 20 [default = 8];
       boolean hasVerticalChunkMeshSegments();
       int getVerticalChunkMeshSegments();
+      
+      // optional bool compact_chunk_storage = 21 [default = false];
+      boolean hasCompactChunkStorage();
+      boolean getCompactChunkStorage();
+      
+      // optional int32 chunk_terrain_workers = 22 [default = 0];
+      boolean hasChunkTerrainWorkers();
+      int getChunkTerrainWorkers();
+      
+      // optional int32 chunk_features_workers = 23 [default = 0];
+      boolean hasChunkFeaturesWorkers();
+      int getChunkFeaturesWorkers();
+      
+      // optional int32 chunk_sunlight_workers = 24 [default = 1];
+      boolean hasChunkSunlightWorkers();
+      int getChunkSunlightWorkers();
+      
+      // optional int32 chunk_light_workers = 25 [default = 0];
+      boolean hasChunkLightWorkers();
+      int getChunkLightWorkers();
+      
+      // optional int32 chunk_tessellation_workers = 26 [default = 0];
+      boolean hasChunkTessellationWorkers();
+      int getChunkTessellationWorkers();
+      
+      // optional int32 chunk_pipeline_capacity = 27 [default = 128];
+      boolean hasChunkPipelineCapacity();
+      int getChunkPipelineCapacity();
+      
+      // optional int32 chunk_uploads_per_frame = 28 [default = 4];
+      boolean hasChunkUploadsPerFrame();
+      int getChunkUploadsPerFrame();
+      
+      // optional bool greedy_meshing = 29 [default = false];
+      boolean hasGreedyMeshing();
+      boolean getGreedyMeshing();
+      
+      // optional int32 chunk_prefetch_budget = 30 [default = 4];
+      boolean hasChunkPrefetchBudget();
+      int getChunkPrefetchBudget();
     }
     public static final class System extends
         com.google.protobuf.GeneratedMessage
@@ -3754,7 +3794,7 @@ public final class Configuration {
         return animatedWaterAndGrass_;
       }
       
-      // optional int32 vertical_chunk_mesh_segments = 20 [default = 1];
+      // optional int32 vertical_chunk_mesh_segments = 20 [default = 8];
       public static final int VERTICAL_CHUNK_MESH_SEGMENTS_FIELD_NUMBER = 20;
       private int verticalChunkMeshSegments_;
       public boolean hasVerticalChunkMeshSegments() {
@@ -3764,6 +3804,106 @@ public final class Configuration {
         return verticalChunkMeshSegments_;
       }
       
+      // optional bool compact_chunk_storage = 21 [default = false];
+      public static final int COMPACT_CHUNK_STORAGE_FIELD_NUMBER = 21;
+      private boolean compactChunkStorage_;
+      public boolean hasCompactChunkStorage() {
+        return ((bitField0_ & 0x00100000) == 0x00100000);
+      }
+      public boolean getCompactChunkStorage() {
+        return compactChunkStorage_;
+      }
+      
+      // optional int32 chunk_terrain_workers = 22 [default = 0];
+      public static final int CHUNK_TERRAIN_WORKERS_FIELD_NUMBER = 22;
+      private int chunkTerrainWorkers_;
+      public boolean hasChunkTerrainWorkers() {
+        return ((bitField0_ & 0x00200000) == 0x00200000);
+      }
+      public int getChunkTerrainWorkers() {
+        return chunkTerrainWorkers_;
+      }
+      
+      // optional int32 chunk_features_workers = 23 [default = 0];
+      public static final int CHUNK_FEATURES_WORKERS_FIELD_NUMBER = 23;
+      private int chunkFeaturesWorkers_;
+      public boolean hasChunkFeaturesWorkers() {
+        return ((bitField0_ & 0x00400000) == 0x00400000);
+      }
+      public int getChunkFeaturesWorkers() {
+        return chunkFeaturesWorkers_;
+      }
+      
+      // optional int32 chunk_sunlight_workers = 24 [default = 1];
+      public static final int CHUNK_SUNLIGHT_WORKERS_FIELD_NUMBER = 24;
+      private int chunkSunlightWorkers_;
+      public boolean hasChunkSunlightWorkers() {
+        return ((bitField0_ & 0x00800000) == 0x00800000);
+      }
+      public int getChunkSunlightWorkers() {
+        return chunkSunlightWorkers_;
+      }
+      
+      // optional int32 chunk_light_workers = 25 [default = 0];
+      public static final int CHUNK_LIGHT_WORKERS_FIELD_NUMBER = 25;
+      private int chunkLightWorkers_;
+      public boolean hasChunkLightWorkers() {
+        return ((bitField0_ & 0x01000000) == 0x01000000);
+      }
+      public int getChunkLightWorkers() {
+        return chunkLightWorkers_;
+      }
+      
+      // optional int32 chunk_tessellation_workers = 26 [default = 0];
+      public static final int CHUNK_TESSELLATION_WORKERS_FIELD_NUMBER = 26;
+      private int chunkTessellationWorkers_;
+      public boolean hasChunkTessellationWorkers() {
+        return ((bitField0_ & 0x02000000) == 0x02000000);
+      }
+      public int getChunkTessellationWorkers() {
+        return chunkTessellationWorkers_;
+      }
+      
+      // optional int32 chunk_pipeline_capacity = 27 [default = 128];
+      public static final int CHUNK_PIPELINE_CAPACITY_FIELD_NUMBER = 27;
+      private int chunkPipelineCapacity_;
+      public boolean hasChunkPipelineCapacity() {
+        return ((bitField0_ & 0x04000000) == 0x04000000);
+      }
+      public int getChunkPipelineCapacity() {
+        return chunkPipelineCapacity_;
+      }
+      
+      // optional int32 chunk_uploads_per_frame = 28 [default = 4];
+      public static final int CHUNK_UPLOADS_PER_FRAME_FIELD_NUMBER = 28;
+      private int chunkUploadsPerFrame_;
+      public boolean hasChunkUploadsPerFrame() {
+        return ((bitField0_ & 0x08000000) == 0x08000000);
+      }
+      public int getChunkUploadsPerFrame() {
+        return chunkUploadsPerFrame_;
+      }
+      
+      // optional bool greedy_meshing = 29 [default = false];
+      public static final int GREEDY_MESHING_FIELD_NUMBER = 29;
+      private boolean greedyMeshing_;
+      public boolean hasGreedyMeshing() {
+        return ((bitField0_ & 0x10000000) == 0x10000000);
+      }
+      public boolean getGreedyMeshing() {
+        return greedyMeshing_;
+      }
+      
+      // optional int32 chunk_prefetch_budget = 30 [default = 4];
+      public static final int CHUNK_PREFETCH_BUDGET_FIELD_NUMBER = 30;
+      private int chunkPrefetchBudget_;
+      public boolean hasChunkPrefetchBudget() {
+        return ((bitField0_ & 0x20000000) == 0x20000000);
+      }
+      public int getChunkPrefetchBudget() {
+        return chunkPrefetchBudget_;
+      }
+      
       private void initFields() {
         maxParticles_ = 256;
         cloudResolution_ = org.terasology.protobuf.Configuration.Setting.System.CloudRes.getDefaultInstance();
@@ -3784,7 +3924,17 @@ public final class Configuration {
         flickeringLight_ = false;
         enablePostProcessingEffects_ = false;
         animatedWaterAndGrass_ = false;
-        verticalChunkMeshSegments_ = 1;
+        verticalChunkMeshSegments_ = 8;
+        compactChunkStorage_ = false;
+        chunkTerrainWorkers_ = 0;
+        chunkFeaturesWorkers_ = 0;
+        chunkSunlightWorkers_ = 1;
+        chunkLightWorkers_ = 0;
+        chunkTessellationWorkers_ = 0;
+        chunkPipelineCapacity_ = 128;
+        chunkUploadsPerFrame_ = 4;
+        greedyMeshing_ = false;
+        chunkPrefetchBudget_ = 4;
       }
       private byte memoizedIsInitialized = -1;
       public final boolean isInitialized() {
@@ -3858,6 +4008,36 @@ public final class Configuration {
         if (((bitField0_ & 0x00080000) == 0x00080000)) {
           output.writeInt32(20, verticalChunkMeshSegments_);
         }
+        if (((bitField0_ & 0x00100000) == 0x00100000)) {
+          output.writeBool(21, compactChunkStorage_);
+        }
+        if (((bitField0_ & 0x00200000) == 0x00200000)) {
+          output.writeInt32(22, chunkTerrainWorkers_);
+        }
+        if (((bitField0_ & 0x00400000) == 0x00400000)) {
+          output.writeInt32(23, chunkFeaturesWorkers_);
+        }
+        if (((bitField0_ & 0x00800000) == 0x00800000)) {
+          output.writeInt32(24, chunkSunlightWorkers_);
+        }
+        if (((bitField0_ & 0x01000000) == 0x01000000)) {
+          output.writeInt32(25, chunkLightWorkers_);
+        }
+        if (((bitField0_ & 0x02000000) == 0x02000000)) {
+          output.writeInt32(26, chunkTessellationWorkers_);
+        }
+        if (((bitField0_ & 0x04000000) == 0x04000000)) {
+          output.writeInt32(27, chunkPipelineCapacity_);
+        }
+        if (((bitField0_ & 0x08000000) == 0x08000000)) {
+          output.writeInt32(28, chunkUploadsPerFrame_);
+        }
+        if (((bitField0_ & 0x10000000) == 0x10000000)) {
+          output.writeBool(29, greedyMeshing_);
+        }
+        if (((bitField0_ & 0x20000000) == 0x20000000)) {
+          output.writeInt32(30, chunkPrefetchBudget_);
+        }
         getUnknownFields().writeTo(output);
       }
       
@@ -3947,6 +4127,46 @@ public final class Configuration {
           size += com.google.protobuf.CodedOutputStream
             .computeInt32Size(20, verticalChunkMeshSegments_);
         }
+        if (((bitField0_ & 0x00100000) == 0x00100000)) {
+          size += com.google.protobuf.CodedOutputStream
+            .computeBoolSize(21, compactChunkStorage_);
+        }
+        if (((bitField0_ & 0x00200000) == 0x00200000)) {
+          size += com.google.protobuf.CodedOutputStream
+            .computeInt32Size(22, chunkTerrainWorkers_);
+        }
+        if (((bitField0_ & 0x00400000) == 0x00400000)) {
+          size += com.google.protobuf.CodedOutputStream
+            .computeInt32Size(23, chunkFeaturesWorkers_);
+        }
+        if (((bitField0_ & 0x00800000) == 0x00800000)) {
+          size += com.google.protobuf.CodedOutputStream
+            .computeInt32Size(24, chunkSunlightWorkers_);
+        }
+        if (((bitField0_ & 0x01000000) == 0x01000000)) {
+          size += com.google.protobuf.CodedOutputStream
+            .computeInt32Size(25, chunkLightWorkers_);
+        }
+        if (((bitField0_ & 0x02000000) == 0x02000000)) {
+          size += com.google.protobuf.CodedOutputStream
+            .computeInt32Size(26, chunkTessellationWorkers_);
+        }
+        if (((bitField0_ & 0x04000000) == 0x04000000)) {
+          size += com.google.protobuf.CodedOutputStream
+            .computeInt32Size(27, chunkPipelineCapacity_);
+        }
+        if (((bitField0_ & 0x08000000) == 0x08000000)) {
+          size += com.google.protobuf.CodedOutputStream
+            .computeInt32Size(28, chunkUploadsPerFrame_);
+        }
+        if (((bitField0_ & 0x10000000) == 0x10000000)) {
+          size += com.google.protobuf.CodedOutputStream
+            .computeBoolSize(29, greedyMeshing_);
+        }
+        if (((bitField0_ & 0x20000000) == 0x20000000)) {
+          size += com.google.protobuf.CodedOutputStream
+            .computeInt32Size(30, chunkPrefetchBudget_);
+        }
         size += getUnknownFields().getSerializedSize();
         memoizedSerializedSize = size;
         return size;
@@ -4119,8 +4339,28 @@ public final class Configuration {
           bitField0_ = (bitField0_ & ~0x00020000);
           animatedWaterAndGrass_ = false;
           bitField0_ = (bitField0_ & ~0x00040000);
-          verticalChunkMeshSegments_ = 1;
+          verticalChunkMeshSegments_ = 8;
           bitField0_ = (bitField0_ & ~0x00080000);
+          compactChunkStorage_ = false;
+          bitField0_ = (bitField0_ & ~0x00100000);
+          chunkTerrainWorkers_ = 0;
+          bitField0_ = (bitField0_ & ~0x00200000);
+          chunkFeaturesWorkers_ = 0;
+          bitField0_ = (bitField0_ & ~0x00400000);
+          chunkSunlightWorkers_ = 1;
+          bitField0_ = (bitField0_ & ~0x00800000);
+          chunkLightWorkers_ = 0;
+          bitField0_ = (bitField0_ & ~0x01000000);
+          chunkTessellationWorkers_ = 0;
+          bitField0_ = (bitField0_ & ~0x02000000);
+          chunkPipelineCapacity_ = 128;
+          bitField0_ = (bitField0_ & ~0x04000000);
+          chunkUploadsPerFrame_ = 4;
+          bitField0_ = (bitField0_ & ~0x08000000);
+          greedyMeshing_ = false;
+          bitField0_ = (bitField0_ & ~0x10000000);
+          chunkPrefetchBudget_ = 4;
+          bitField0_ = (bitField0_ & ~0x20000000);
           return this;
         }
         
@@ -4247,6 +4487,46 @@ public final class Configuration {
             to_bitField0_ |= 0x00080000;
           }
           result.verticalChunkMeshSegments_ = verticalChunkMeshSegments_;
+          if (((from_bitField0_ & 0x00100000) == 0x00100000)) {
+            to_bitField0_ |= 0x00100000;
+          }
+          result.compactChunkStorage_ = compactChunkStorage_;
+          if (((from_bitField0_ & 0x00200000) == 0x00200000)) {
+            to_bitField0_ |= 0x00200000;
+          }
+          result.chunkTerrainWorkers_ = chunkTerrainWorkers_;
+          if (((from_bitField0_ & 0x00400000) == 0x00400000)) {
+            to_bitField0_ |= 0x00400000;
+          }
+          result.chunkFeaturesWorkers_ = chunkFeaturesWorkers_;
+          if (((from_bitField0_ & 0x00800000) == 0x00800000)) {
+            to_bitField0_ |= 0x00800000;
+          }
+          result.chunkSunlightWorkers_ = chunkSunlightWorkers_;
+          if (((from_bitField0_ & 0x01000000) == 0x01000000)) {
+            to_bitField0_ |= 0x01000000;
+          }
+          result.chunkLightWorkers_ = chunkLightWorkers_;
+          if (((from_bitField0_ & 0x02000000) == 0x02000000)) {
+            to_bitField0_ |= 0x02000000;
+          }
+          result.chunkTessellationWorkers_ = chunkTessellationWorkers_;
+          if (((from_bitField0_ & 0x04000000) == 0x04000000)) {
+            to_bitField0_ |= 0x04000000;
+          }
+          result.chunkPipelineCapacity_ = chunkPipelineCapacity_;
+          if (((from_bitField0_ & 0x08000000) == 0x08000000)) {
+            to_bitField0_ |= 0x08000000;
+          }
+          result.chunkUploadsPerFrame_ = chunkUploadsPerFrame_;
+          if (((from_bitField0_ & 0x10000000) == 0x10000000)) {
+            to_bitField0_ |= 0x10000000;
+          }
+          result.greedyMeshing_ = greedyMeshing_;
+          if (((from_bitField0_ & 0x20000000) == 0x20000000)) {
+            to_bitField0_ |= 0x20000000;
+          }
+          result.chunkPrefetchBudget_ = chunkPrefetchBudget_;
           result.bitField0_ = to_bitField0_;
           onBuilt();
           return result;
@@ -4323,6 +4603,36 @@ public final class Configuration {
           if (other.hasVerticalChunkMeshSegments()) {
             setVerticalChunkMeshSegments(other.getVerticalChunkMeshSegments());
           }
+          if (other.hasCompactChunkStorage()) {
+            setCompactChunkStorage(other.getCompactChunkStorage());
+          }
+          if (other.hasChunkTerrainWorkers()) {
+            setChunkTerrainWorkers(other.getChunkTerrainWorkers());
+          }
+          if (other.hasChunkFeaturesWorkers()) {
+            setChunkFeaturesWorkers(other.getChunkFeaturesWorkers());
+          }
+          if (other.hasChunkSunlightWorkers()) {
+            setChunkSunlightWorkers(other.getChunkSunlightWorkers());
+          }
+          if (other.hasChunkLightWorkers()) {
+            setChunkLightWorkers(other.getChunkLightWorkers());
+          }
+          if (other.hasChunkTessellationWorkers()) {
+            setChunkTessellationWorkers(other.getChunkTessellationWorkers());
+          }
+          if (other.hasChunkPipelineCapacity()) {
+            setChunkPipelineCapacity(other.getChunkPipelineCapacity());
+          }
+          if (other.hasChunkUploadsPerFrame()) {
+            setChunkUploadsPerFrame(other.getChunkUploadsPerFrame());
+          }
+          if (other.hasGreedyMeshing()) {
+            setGreedyMeshing(other.getGreedyMeshing());
+          }
+          if (other.hasChunkPrefetchBudget()) {
+            setChunkPrefetchBudget(other.getChunkPrefetchBudget());
+          }
           this.mergeUnknownFields(other.getUnknownFields());
           return this;
         }
@@ -4462,6 +4772,56 @@ public final class Configuration {
                 verticalChunkMeshSegments_ = input.readInt32();
                 break;
               }
+              case 168: {
+                bitField0_ |= 0x00100000;
+                compactChunkStorage_ = input.readBool();
+                break;
+              }
+              case 176: {
+                bitField0_ |= 0x00200000;
+                chunkTerrainWorkers_ = input.readInt32();
+                break;
+              }
+              case 184: {
+                bitField0_ |= 0x00400000;
+                chunkFeaturesWorkers_ = input.readInt32();
+                break;
+              }
+              case 192: {
+                bitField0_ |= 0x00800000;
+                chunkSunlightWorkers_ = input.readInt32();
+                break;
+              }
+              case 200: {
+                bitField0_ |= 0x01000000;
+                chunkLightWorkers_ = input.readInt32();
+                break;
+              }
+              case 208: {
+                bitField0_ |= 0x02000000;
+                chunkTessellationWorkers_ = input.readInt32();
+                break;
+              }
+              case 216: {
+                bitField0_ |= 0x04000000;
+                chunkPipelineCapacity_ = input.readInt32();
+                break;
+              }
+              case 224: {
+                bitField0_ |= 0x08000000;
+                chunkUploadsPerFrame_ = input.readInt32();
+                break;
+              }
+              case 232: {
+                bitField0_ |= 0x10000000;
+                greedyMeshing_ = input.readBool();
+                break;
+              }
+              case 240: {
+                bitField0_ |= 0x20000000;
+                chunkPrefetchBudget_ = input.readInt32();
+                break;
+              }
             }
           }
         }
@@ -5005,8 +5365,8 @@ public final class Configuration {
           return this;
         }
         
-        // optional int32 vertical_chunk_mesh_segments = 20 [default = 1];
-        private int verticalChunkMeshSegments_ = 1;
+        // optional int32 vertical_chunk_mesh_segments = 20 [default = 8];
+        private int verticalChunkMeshSegments_ = 8;
         public boolean hasVerticalChunkMeshSegments() {
           return ((bitField0_ & 0x00080000) == 0x00080000);
         }
@@ -5021,7 +5381,217 @@ public final class Configuration {
         }
         public Builder clearVerticalChunkMeshSegments() {
           bitField0_ = (bitField0_ & ~0x00080000);
-          verticalChunkMeshSegments_ = 1;
+          verticalChunkMeshSegments_ = 8;
+          onChanged();
+          return this;
+        }
+        
+        // optional bool compact_chunk_storage = 21 [default = false];
+        private boolean compactChunkStorage_ = false;
+        public boolean hasCompactChunkStorage() {
+          return ((bitField0_ & 0x00100000) == 0x00100000);
+        }
+        public boolean getCompactChunkStorage() {
+          return compactChunkStorage_;
+        }
+        public Builder setCompactChunkStorage(boolean value) {
+          bitField0_ |= 0x00100000;
+          compactChunkStorage_ = value;
+          onChanged();
+          return this;
+        }
+        public Builder clearCompactChunkStorage() {
+          bitField0_ = (bitField0_ & ~0x00100000);
+          compactChunkStorage_ = false;
+          onChanged();
+          return this;
+        }
+        
+        // optional int32 chunk_terrain_workers = 22 [default = 0];
+        private int chunkTerrainWorkers_ = 0;
+        public boolean hasChunkTerrainWorkers() {
+          return ((bitField0_ & 0x00200000) == 0x00200000);
+        }
+        public int getChunkTerrainWorkers() {
+          return chunkTerrainWorkers_;
+        }
+        public Builder setChunkTerrainWorkers(int value) {
+          bitField0_ |= 0x00200000;
+          chunkTerrainWorkers_ = value;
+          onChanged();
+          return this;
+        }
+        public Builder clearChunkTerrainWorkers() {
+          bitField0_ = (bitField0_ & ~0x00200000);
+          chunkTerrainWorkers_ = 0;
+          onChanged();
+          return this;
+        }
+        
+        // optional int32 chunk_features_workers = 23 [default = 0];
+        private int chunkFeaturesWorkers_ = 0;
+        public boolean hasChunkFeaturesWorkers() {
+          return ((bitField0_ & 0x00400000) == 0x00400000);
+        }
+        public int getChunkFeaturesWorkers() {
+          return chunkFeaturesWorkers_;
+        }
+        public Builder setChunkFeaturesWorkers(int value) {
+          bitField0_ |= 0x00400000;
+          chunkFeaturesWorkers_ = value;
+          onChanged();
+          return this;
+        }
+        public Builder clearChunkFeaturesWorkers() {
+          bitField0_ = (bitField0_ & ~0x00400000);
+          chunkFeaturesWorkers_ = 0;
+          onChanged();
+          return this;
+        }
+        
+        // optional int32 chunk_sunlight_workers = 24 [default = 1];
+        private int chunkSunlightWorkers_ = 1;
+        public boolean hasChunkSunlightWorkers() {
+          return ((bitField0_ & 0x00800000) == 0x00800000);
+        }
+        public int getChunkSunlightWorkers() {
+          return chunkSunlightWorkers_;
+        }
+        public Builder setChunkSunlightWorkers(int value) {
+          bitField0_ |= 0x00800000;
+          chunkSunlightWorkers_ = value;
+          onChanged();
+          return this;
+        }
+        public Builder clearChunkSunlightWorkers() {
+          bitField0_ = (bitField0_ & ~0x00800000);
+          chunkSunlightWorkers_ = 1;
+          onChanged();
+          return this;
+        }
+        
+        // optional int32 chunk_light_workers = 25 [default = 0];
+        private int chunkLightWorkers_ = 0;
+        public boolean hasChunkLightWorkers() {
+          return ((bitField0_ & 0x01000000) == 0x01000000);
+        }
+        public int getChunkLightWorkers() {
+          return chunkLightWorkers_;
+        }
+        public Builder setChunkLightWorkers(int value) {
+          bitField0_ |= 0x01000000;
+          chunkLightWorkers_ = value;
+          onChanged();
+          return this;
+        }
+        public Builder clearChunkLightWorkers() {
+          bitField0_ = (bitField0_ & ~0x01000000);
+          chunkLightWorkers_ = 0;
+          onChanged();
+          return this;
+        }
+        
+        // optional int32 chunk_tessellation_workers = 26 [default = 0];
+        private int chunkTessellationWorkers_ = 0;
+        public boolean hasChunkTessellationWorkers() {
+          return ((bitField0_ & 0x02000000) == 0x02000000);
+        }
+        public int getChunkTessellationWorkers() {
+          return chunkTessellationWorkers_;
+        }
+        public Builder setChunkTessellationWorkers(int value) {
+          bitField0_ |= 0x02000000;
+          chunkTessellationWorkers_ = value;
+          onChanged();
+          return this;
+        }
+        public Builder clearChunkTessellationWorkers() {
+          bitField0_ = (bitField0_ & ~0x02000000);
+          chunkTessellationWorkers_ = 0;
+          onChanged();
+          return this;
+        }
+        
+        // optional int32 chunk_pipeline_capacity = 27 [default = 128];
+        private int chunkPipelineCapacity_ = 128;
+        public boolean hasChunkPipelineCapacity() {
+          return ((bitField0_ & 0x04000000) == 0x04000000);
+        }
+        public int getChunkPipelineCapacity() {
+          return chunkPipelineCapacity_;
+        }
+        public Builder setChunkPipelineCapacity(int value) {
+          bitField0_ |= 0x04000000;
+          chunkPipelineCapacity_ = value;
+          onChanged();
+          return this;
+        }
+        public Builder clearChunkPipelineCapacity() {
+          bitField0_ = (bitField0_ & ~0x04000000);
+          chunkPipelineCapacity_ = 128;
+          onChanged();
+          return this;
+        }
+        
+        // optional int32 chunk_uploads_per_frame = 28 [default = 4];
+        private int chunkUploadsPerFrame_ = 4;
+        public boolean hasChunkUploadsPerFrame() {
+          return ((bitField0_ & 0x08000000) == 0x08000000);
+        }
+        public int getChunkUploadsPerFrame() {
+          return chunkUploadsPerFrame_;
+        }
+        public Builder setChunkUploadsPerFrame(int value) {
+          bitField0_ |= 0x08000000;
+          chunkUploadsPerFrame_ = value;
+          onChanged();
+          return this;
+        }
+        public Builder clearChunkUploadsPerFrame() {
+          bitField0_ = (bitField0_ & ~0x08000000);
+          chunkUploadsPerFrame_ = 4;
+          onChanged();
+          return this;
+        }
+        
+        // optional bool greedy_meshing = 29 [default = false];
+        private boolean greedyMeshing_ = false;
+        public boolean hasGreedyMeshing() {
+          return ((bitField0_ & 0x10000000) == 0x10000000);
+        }
+        public boolean getGreedyMeshing() {
+          return greedyMeshing_;
+        }
+        public Builder setGreedyMeshing(boolean value) {
+          bitField0_ |= 0x10000000;
+          greedyMeshing_ = value;
+          onChanged();
+          return this;
+        }
+        public Builder clearGreedyMeshing() {
+          bitField0_ = (bitField0_ & ~0x10000000);
+          greedyMeshing_ = false;
+          onChanged();
+          return this;
+        }
+        
+        // optional int32 chunk_prefetch_budget = 30 [default = 4];
+        private int chunkPrefetchBudget_ = 4;
+        public boolean hasChunkPrefetchBudget() {
+          return ((bitField0_ & 0x20000000) == 0x20000000);
+        }
+        public int getChunkPrefetchBudget() {
+          return chunkPrefetchBudget_;
+        }
+        public Builder setChunkPrefetchBudget(int value) {
+          bitField0_ |= 0x20000000;
+          chunkPrefetchBudget_ = value;
+          onChanged();
+          return this;
+        }
+        public Builder clearChunkPrefetchBudget() {
+          bitField0_ = (bitField0_ & ~0x20000000);
+          chunkPrefetchBudget_ = 4;
           onChanged();
           return this;
         }
@@ -5888,7 +6458,7 @@ public final class Configuration {
       descriptor;
   static {
     java.lang.String[] descriptorData = {
-      "\n\rConfig2.proto\022\010protobuf\"\211\016\n\007Setting\022&\n" +
+      "\n\rConfig2.proto\022\010protobuf\"\351\020\n\007Setting\022&\n" +
       "\005world\030\001 \001(\0132\027.protobuf.Setting.World\022(\n" +
       "\006player\030\002 \001(\0132\030.protobuf.Setting.Player\022" +
       "(\n\006system\030\003 \001(\0132\030.protobuf.Setting.Syste" +
@@ -5913,7 +6483,7 @@ public final class Configuration {
       "\n\nmouse_sens\030\002 \001(\002:\0050.075\022\034\n\016camera_bobb" +
       "ing\030\003 \001(\010:\004true\022&\n\030render_first_person_v" +
       "iew\030\004 \001(\010:\004true\022\031\n\013placing_box\030\005 \001(\010:\004tr" +
-      "ue\032\270\006\n\006System\022\032\n\rmax_particles\030\001 \001(\005:\00325" +
+      "ue\032\230\t\n\006System\022\032\n\rmax_particles\030\001 \001(\005:\00325" +
       "6\022;\n\020cloud_resolution\030\002 \001(\0132!.protobuf.S" +
       "etting.System.CloudRes\022#\n\025cloud_update_i" +
       "nterval\030\003 \001(\005:\0048000\022\026\n\013max_threads\030\004 \001(\005" +
@@ -5931,10 +6501,19 @@ public final class Configuration {
       "-\n\036enable_post_processing_effects\030\022 \001(\010:" +
       "\005false\022\'\n\030animated_water_and_grass\030\023 \001(\010" +
       ":\005false\022\'\n\034vertical_chunk_mesh_segments\030" +
-      "\024 \001(\005:\0011\032*\n\010CloudRes\022\016\n\001x\030\001 \001(\002:\003128\022\016\n\001" +
-      "y\030\002 \001(\002:\003128\0327\n\013DisplayMode\022\023\n\005width\030\001 \001" +
-      "(\005:\0041280\022\023\n\006height\030\002 \001(\005:\003720B*\n\027org.ter" +
-      "asology.protobufB\rConfigurationH\001"
+      "\024 \001(\005:\0018\022$\n\025compact_chunk_storage\030\025 \001(\010:" +
+      "\005false\022 \n\025chunk_terrain_workers\030\026 \001(\005:\0010" +
+      "\022!\n\026chunk_features_workers\030\027 \001(\005:\0010\022!\n\026c" +
+      "hunk_sunlight_workers\030\030 \001(\005:\0011\022\036\n\023chunk_" +
+      "light_workers\030\031 \001(\005:\0010\022%\n\032chunk_tessella" +
+      "tion_workers\030\032 \001(\005:\0010\022$\n\027chunk_pipeline_" +
+      "capacity\030\033 \001(\005:\003128\022\"\n\027chunk_uploads_per",
+      "_frame\030\034 \001(\005:\0014\022\035\n\016greedy_meshing\030\035 \001(\010:" +
+      "\005false\022 \n\025chunk_prefetch_budget\030\036 \001(\005:\0014" +
+      "\032*\n\010CloudRes\022\016\n\001x\030\001 \001(\002:\003128\022\016\n\001y\030\002 \001(\002:" +
+      "\003128\0327\n\013DisplayMode\022\023\n\005width\030\001 \001(\005:\0041280" +
+      "\022\023\n\006height\030\002 \001(\005:\003720B*\n\027org.terasology." +
+      "protobufB\rConfigurationH\001"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
       new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
@@ -5986,7 +6565,7 @@ public final class Configuration {
           internal_static_protobuf_Setting_System_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_protobuf_Setting_System_descriptor,
-              new java.lang.String[] { "MaxParticles", "CloudResolution", "CloudUpdateInterval", "MaxThreads", "SaveChunks", "ChunkCacheSize", "MaxChunkVBOs", "Gamma", "PixelFormat", "DisplayMode", "Fullscreen", "ActiveViewingDistanceId", "ViewingDistanceNear", "ViewingDistanceModerate", "ViewingDistanceFar", "ViewingDistanceUltra", "FlickeringLight", "EnablePostProcessingEffects", "AnimatedWaterAndGrass", "VerticalChunkMeshSegments", },
+              new java.lang.String[] { "MaxParticles", "CloudResolution", "CloudUpdateInterval", "MaxThreads", "SaveChunks", "ChunkCacheSize", "MaxChunkVBOs", "Gamma", "PixelFormat", "DisplayMode", "Fullscreen", "ActiveViewingDistanceId", "ViewingDistanceNear", "ViewingDistanceModerate", "ViewingDistanceFar", "ViewingDistanceUltra", "FlickeringLight", "EnablePostProcessingEffects", "AnimatedWaterAndGrass", "VerticalChunkMeshSegments", "CompactChunkStorage", "ChunkTerrainWorkers", "ChunkFeaturesWorkers", "ChunkSunlightWorkers", "ChunkLightWorkers", "ChunkTessellationWorkers", "ChunkPipelineCapacity", "ChunkUploadsPerFrame", "GreedyMeshing", "ChunkPrefetchBudget", },
               org.terasology.protobuf.Configuration.Setting.System.class,
               org.terasology.protobuf.Configuration.Setting.System.Builder.class);
           internal_static_protobuf_Setting_System_CloudRes_descriptor =
@@ -136,6 +136,29 @@ public class UIMetrics extends UIDisplayRenderer {
                     lines.get(line).setVisible(false);
                 }
             }
+        },
+        TaskQueues("Task Queues", true) {
+            @Override
+            public void updateLines(List<UIText> lines) {
+                final SortedSet<String> queues = new TreeSet<String>();
+                final TObjectDoubleMap<String> latencies = PerformanceMonitor.getTaskLatencies();
+                PerformanceMonitor.getQueueDepths().forEachEntry(new TObjectIntProcedure<String>() {
+                    public boolean execute(String s, int i) {
+                        queues.add(String.format("%s: %d waiting, %.2fms latency", s, i, latencies.get(s)));
+                        return true;
+                    }
+                });
+                int line = 0;
+                for (String queue : queues) {
+                    lines.get(line).setVisible(true);
+                    lines.get(line).setText(queue);
+                    line++;
+                    if (line >= lines.size()) break;
+                }
+                for (; line < lines.size(); line++) {
+                    lines.get(line).setVisible(false);
+                }
+            }
         };
 
         public final String displayText;
@@ -156,6 +179,8 @@ public class UIMetrics extends UIDisplayRenderer {
                     return DecayingSpikes;
                 case DecayingSpikes:
                     return RunningThreads;
+                case RunningThreads:
+                    return TaskQueues;
                 default:
                     return Off;
             }
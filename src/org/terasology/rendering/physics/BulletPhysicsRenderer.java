@@ -33,6 +33,8 @@ import org.terasology.game.Terasology;
 import org.terasology.logic.characters.Player;
 import org.terasology.logic.manager.AudioManager;
 import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.IChunkProvider;
+import org.terasology.math.TeraMath;
 import org.terasology.model.blocks.Block;
 import org.terasology.model.blocks.management.BlockManager;
 import org.terasology.model.inventory.ItemBlock;
@@ -46,9 +48,11 @@ import javax.vecmath.Vector3d;
 import javax.vecmath.Vector3f;
 import java.nio.FloatBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 
 /**
@@ -114,11 +118,13 @@ public class BulletPhysicsRenderer implements IGameObject {
     }
 
     private static final int MAX_TEMP_BLOCKS = 128;
+    // Distance of a block to the border of a chunk at which the collision shape of the neighbor is needed
+    private static final float CHUNK_MARGIN = 2f;
 
     private final LinkedList<RigidBody> _insertionQueue = new LinkedList<RigidBody>();
     private final ArrayList<BlockRigidBody> _blocks = new ArrayList<BlockRigidBody>();
 
-    private HashSet<RigidBody> _chunks = new HashSet<RigidBody>();
+    private HashMap<Chunk, RigidBody> _chunks = new HashMap<Chunk, RigidBody>();
 
     private final BoxShape _blockShape = new BoxShape(new Vector3f(0.5f, 0.5f, 0.5f));
     private final BoxShape _blockShapeHalf = new BoxShape(new Vector3f(0.25f, 0.25f, 0.25f));
@@ -221,35 +227,69 @@ public class BulletPhysicsRenderer implements IGameObject {
         return rigidBlock;
     }
 
+    /**
+     * Adds the collision shapes of the chunks close to the dynamic blocks to the simulation. The collision shapes
+     * of the chunks which are no longer needed are removed and freed.
+     */
     public void updateChunks() {
-        ArrayList<Chunk> chunks = Terasology.getInstance().getActiveWorldRenderer().getChunksInProximity();
-        HashSet<RigidBody> newBodies = new HashSet<RigidBody>();
+        HashMap<Chunk, RigidBody> newChunks = new HashMap<Chunk, RigidBody>();
 
-        for (int i = 0; i < 32 && i < chunks.size(); i++) {
-            final Chunk chunk = chunks.get(i);
+        for (Chunk chunk : findChunksNearBlocks()) {
+            chunk.updateRigidBody();
 
-            if (chunk != null) {
-                chunk.updateRigidBody();
+            RigidBody body = chunk.getRigidBody();
+            RigidBody oldBody = _chunks.remove(chunk);
 
-                RigidBody c = chunk.getRigidBody();
+            if (oldBody != null && oldBody != body)
+                _discreteDynamicsWorld.removeRigidBody(oldBody);
 
-                if (c != null) {
-                    newBodies.add(c);
+            if (body != null) {
+                if (body != oldBody)
+                    _discreteDynamicsWorld.addRigidBody(body);
 
-                    if (!_chunks.contains(c)) {
-                        _discreteDynamicsWorld.addRigidBody(c);
-                    }
-                }
+                newChunks.put(chunk, body);
             }
         }
 
-        for (RigidBody body : _chunks) {
-            if (!newBodies.contains(body)) {
-                _discreteDynamicsWorld.removeRigidBody(body);
+        for (Map.Entry<Chunk, RigidBody> entry : _chunks.entrySet()) {
+            _discreteDynamicsWorld.removeRigidBody(entry.getValue());
+            entry.getKey().releaseRigidBody();
+        }
+
+        _chunks = newChunks;
+    }
+
+    /**
+     * Returns the chunks the dynamic blocks are in or close to.
+     */
+    private HashSet<Chunk> findChunksNearBlocks() {
+        HashSet<Chunk> chunks = new HashSet<Chunk>();
+
+        if (_blocks.isEmpty())
+            return chunks;
+
+        IChunkProvider chunkProvider = Terasology.getInstance().getActiveWorldProvider().getChunkProvider();
+        Transform t = new Transform();
+
+        for (BlockRigidBody block : _blocks) {
+            block.getMotionState().getWorldTransform(t);
+
+            int minX = TeraMath.calcChunkPosX((int) Math.floor(t.origin.x - CHUNK_MARGIN));
+            int maxX = TeraMath.calcChunkPosX((int) Math.floor(t.origin.x + CHUNK_MARGIN));
+            int minZ = TeraMath.calcChunkPosZ((int) Math.floor(t.origin.z - CHUNK_MARGIN));
+            int maxZ = TeraMath.calcChunkPosZ((int) Math.floor(t.origin.z + CHUNK_MARGIN));
+
+            for (int x = minX; x <= maxX; x++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    Chunk c = chunkProvider.loadOrCreateChunk(x, z);
+
+                    if (c != null)
+                        chunks.add(c);
+                }
             }
         }
 
-        _chunks = newBodies;
+        return chunks;
     }
 
     public void render() {
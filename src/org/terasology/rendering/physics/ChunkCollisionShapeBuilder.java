@@ -0,0 +1,218 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.physics;
+
+import com.bulletphysics.collision.shapes.IndexedMesh;
+import com.bulletphysics.collision.shapes.ScalarType;
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import org.terasology.logic.world.Chunk;
+import org.terasology.model.blocks.Block;
+import org.terasology.model.blocks.management.BlockManager;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Generates simplified collision geometry for chunks. Only the exposed faces of solid blocks are used and
+ * coplanar faces are merged into larger quads, so a flat area of terrain results in a couple of triangles
+ * instead of two triangles per block. Every solid block is treated as a full cube.
+ * <p/>
+ * The borders of the chunk are treated as being open, so the shape does not depend on the neighbors.
+ */
+public final class ChunkCollisionShapeBuilder {
+
+    /* CONST */
+    private static final int FLOAT_BYTES = 4;
+    private static final int INT_BYTES = 4;
+    private static final int[] DIMENSIONS = {Chunk.CHUNK_DIMENSION_X, Chunk.CHUNK_DIMENSION_Y, Chunk.CHUNK_DIMENSION_Z};
+
+    private final boolean[] _solidBlocks = new boolean[256];
+
+    /**
+     * Init. a new builder using the blocks of the block manager.
+     */
+    public ChunkCollisionShapeBuilder() {
+        for (int i = 0; i < _solidBlocks.length; i++)
+            _solidBlocks[i] = isSolid(BlockManager.getInstance().getBlock((byte) i));
+    }
+
+    /**
+     * Init. a new builder.
+     *
+     * @param blocks The blocks indexed by their ids
+     */
+    public ChunkCollisionShapeBuilder(Block[] blocks) {
+        for (int i = 0; i < _solidBlocks.length; i++)
+            _solidBlocks[i] = blocks[i] != null && isSolid(blocks[i]);
+    }
+
+    private static boolean isSolid(Block block) {
+        return !block.isInvisible() && !block.isPenetrable();
+    }
+
+    /**
+     * Builds the collision geometry of the given chunk in chunk coordinates.
+     *
+     * @param c The chunk
+     * @return The mesh or null if the chunk does not contain any solid blocks
+     */
+    public IndexedMesh build(Chunk c) {
+        boolean[] solid = new boolean[Chunk.CHUNK_DIMENSION_X * Chunk.CHUNK_DIMENSION_Y * Chunk.CHUNK_DIMENSION_Z];
+
+        for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x++) {
+            for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z++) {
+                for (int y = 0; y < Chunk.CHUNK_DIMENSION_Y; y++)
+                    solid[index(x, y, z)] = _solidBlocks[c.getBlock(x, y, z) & 0xFF];
+            }
+        }
+
+        TFloatArrayList vertices = new TFloatArrayList();
+        TIntArrayList indices = new TIntArrayList();
+        int[] pos = new int[3];
+
+        for (int axis = 0; axis < 3; axis++) {
+            int u = (axis + 1) % 3, v = (axis + 2) % 3;
+            boolean[] mask = new boolean[DIMENSIONS[u] * DIMENSIONS[v]];
+
+            for (int direction = -1; direction <= 1; direction += 2) {
+                for (int slice = 0; slice < DIMENSIONS[axis]; slice++) {
+                    // Find the faces of this slice pointing in the current direction
+                    for (int j = 0; j < DIMENSIONS[v]; j++) {
+                        for (int i = 0; i < DIMENSIONS[u]; i++) {
+                            pos[axis] = slice;
+                            pos[u] = i;
+                            pos[v] = j;
+
+                            boolean exposed = false;
+
+                            if (solid[index(pos[0], pos[1], pos[2])]) {
+                                pos[axis] += direction;
+                                exposed = !isSolid(solid, pos);
+                            }
+
+                            mask[i + j * DIMENSIONS[u]] = exposed;
+                        }
+                    }
+
+                    mergeFaces(mask, axis, u, v, slice, direction, vertices, indices);
+                }
+            }
+        }
+
+        if (indices.isEmpty())
+            return null;
+
+        IndexedMesh mesh = new IndexedMesh();
+        mesh.vertexBase = ByteBuffer.allocate(vertices.size() * FLOAT_BYTES).order(ByteOrder.nativeOrder());
+        mesh.triangleIndexBase = ByteBuffer.allocate(indices.size() * INT_BYTES).order(ByteOrder.nativeOrder());
+        mesh.triangleIndexStride = 3 * INT_BYTES;
+        mesh.vertexStride = 3 * FLOAT_BYTES;
+        mesh.numVertices = vertices.size() / 3;
+        mesh.numTriangles = indices.size() / 3;
+        mesh.indexType = ScalarType.INTEGER;
+
+        for (int i = 0; i < vertices.size(); i++)
+            mesh.vertexBase.putFloat(vertices.get(i));
+        for (int i = 0; i < indices.size(); i++)
+            mesh.triangleIndexBase.putInt(indices.get(i));
+
+        return mesh;
+    }
+
+    /**
+     * Covers the faces of the given mask with as few quads as possible.
+     */
+    private static void mergeFaces(boolean[] mask, int axis, int u, int v, int slice, int direction, TFloatArrayList vertices, TIntArrayList indices) {
+        int sizeU = DIMENSIONS[u], sizeV = DIMENSIONS[v];
+
+        for (int j = 0; j < sizeV; j++) {
+            for (int i = 0; i < sizeU; ) {
+                if (!mask[i + j * sizeU]) {
+                    i++;
+                    continue;
+                }
+
+                int width = 1;
+                while (i + width < sizeU && mask[i + width + j * sizeU])
+                    width++;
+
+                int height = 1;
+                while (j + height < sizeV && isRowSet(mask, sizeU, i, width, j + height))
+                    height++;
+
+                for (int l = 0; l < height; l++) {
+                    for (int k = 0; k < width; k++)
+                        mask[i + k + (j + l) * sizeU] = false;
+                }
+
+                // The blocks are centered on their coordinates
+                float plane = slice + direction * 0.5f;
+                float minU = i - 0.5f, maxU = i + width - 0.5f;
+                float minV = j - 0.5f, maxV = j + height - 0.5f;
+
+                int nextIndex = vertices.size() / 3;
+                addVertex(vertices, axis, u, v, plane, minU, minV);
+                addVertex(vertices, axis, u, v, plane, maxU, minV);
+                addVertex(vertices, axis, u, v, plane, maxU, maxV);
+                addVertex(vertices, axis, u, v, plane, minU, maxV);
+
+                indices.add(nextIndex);
+                indices.add(nextIndex + 1);
+                indices.add(nextIndex + 2);
+                indices.add(nextIndex);
+                indices.add(nextIndex + 2);
+                indices.add(nextIndex + 3);
+
+                i += width;
+            }
+        }
+    }
+
+    private static boolean isRowSet(boolean[] mask, int sizeU, int i, int width, int j) {
+        for (int k = 0; k < width; k++) {
+            if (!mask[i + k + j * sizeU])
+                return false;
+        }
+
+        return true;
+    }
+
+    private static void addVertex(TFloatArrayList vertices, int axis, int u, int v, float plane, float valueU, float valueV) {
+        for (int i = 0; i < 3; i++)
+            vertices.add((i == axis) ? plane : (i == u) ? valueU : valueV);
+    }
+
+    /**
+     * Returns true if the block at the given position is solid. Everything below the chunk counts as solid,
+     * everything else outside of the chunk as open.
+     */
+    private static boolean isSolid(boolean[] solid, int[] pos) {
+        if (pos[1] < 0)
+            return true;
+
+        for (int i = 0; i < 3; i++) {
+            if (pos[i] < 0 || pos[i] >= DIMENSIONS[i])
+                return false;
+        }
+
+        return solid[index(pos[0], pos[1], pos[2])];
+    }
+
+    private static int index(int x, int y, int z) {
+        return (x * Chunk.CHUNK_DIMENSION_Z + z) * Chunk.CHUNK_DIMENSION_Y + y;
+    }
+}
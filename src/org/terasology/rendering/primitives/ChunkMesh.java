@@ -15,18 +15,18 @@
  */
 package org.terasology.rendering.primitives;
 
-import com.bulletphysics.collision.shapes.IndexedMesh;
-import gnu.trove.list.TFloatList;
-import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TFloatArrayList;
 import gnu.trove.list.array.TIntArrayList;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL14;
 import org.lwjgl.opengl.GL15;
 import org.terasology.logic.manager.VertexBufferObjectManager;
 
-import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
+import javax.vecmath.Vector3f;
+import javax.vecmath.Vector4f;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static org.lwjgl.opengl.GL11.*;
@@ -38,27 +38,148 @@ public class ChunkMesh {
 
     /**
      * Data structure for storing vertex data. Abused like a "struct" in C/C++. Just sad.
+     * <p/>
+     * The vertices are written in the packed format described by STRIDE. The positions are additionally kept as
+     * floats for calculating the lighting and for the physics. The vertex elements are reused for building
+     * several meshes, one after another, so the backing arrays only grow once.
      */
-    public class VertexElements {
+    public static class VertexElements {
 
         public VertexElements() {
             vertCount = 0;
-            normals = new TFloatArrayList();
             vertices = new TFloatArrayList();
-            tex = new TFloatArrayList();
-            color = new TFloatArrayList();
             indices = new TIntArrayList();
         }
 
-        public final TFloatList normals;
-        public final TFloatList vertices;
-        public final TFloatList tex;
-        public final TFloatList color;
-        public final TIntList indices;
+        public final TFloatArrayList vertices;
+        public final TIntArrayList indices;
         public int vertCount;
 
-        public FloatBuffer finalVertices;
-        public IntBuffer finalIndices;
+        private ByteBuffer _data = ByteBuffer.allocate(INITIAL_VERTEX_CAPACITY * STRIDE).order(ByteOrder.nativeOrder());
+
+        /**
+         * Adds a vertex. The lighting is set afterwards using setLighting(...).
+         *
+         * @param x      The position of the vertex within the chunk on the x-axis
+         * @param y      The position of the vertex within the chunk on the y-axis
+         * @param z      The position of the vertex within the chunk on the z-axis
+         * @param u      The first texture coordinate
+         * @param v      The second texture coordinate
+         * @param tile   The texture atlas tile repeated across the face or NO_TILE if the texture coordinates point into the atlas
+         * @param normal The normal
+         * @param color  The color offset
+         */
+        public void addVertex(float x, float y, float z, float u, float v, int tile, Vector3f normal, Vector4f color) {
+            ensureCapacity();
+
+            vertices.add(x);
+            vertices.add(y);
+            vertices.add(z);
+
+            float texCoordScale = (tile == NO_TILE) ? TEX_COORD_SCALE : TILE_COORD_SCALE;
+
+            _data.putShort(toShort(x * POSITION_SCALE));
+            _data.putShort(toShort(y * POSITION_SCALE));
+            _data.putShort(toShort(z * POSITION_SCALE));
+            _data.putShort((short) 0);
+
+            _data.putShort(toShort(u * texCoordScale));
+            _data.putShort(toShort(v * texCoordScale));
+            _data.putShort((short) (tile + 2));
+            _data.putShort((short) 0);
+
+            _data.put((byte) Math.round(normal.x * 127f));
+            _data.put((byte) Math.round(normal.y * 127f));
+            _data.put((byte) Math.round(normal.z * 127f));
+            _data.put((byte) 0);
+
+            _data.put(toUnsignedByte(color.x));
+            _data.put(toUnsignedByte(color.y));
+            _data.put(toUnsignedByte(color.z));
+            _data.put(toUnsignedByte(color.w));
+
+            // Lighting
+            _data.putInt(0);
+
+            vertCount++;
+        }
+
+        /**
+         * Sets the lighting of a vertex that was added before.
+         *
+         * @param vertex     The index of the vertex
+         * @param sunlight   The sunlight between 0 and 1
+         * @param blockLight The block light between 0 and 1
+         * @param occlusion  The ambient occlusion between 0 and 1
+         */
+        public void setLighting(int vertex, float sunlight, float blockLight, float occlusion) {
+            int offset = vertex * STRIDE + OFFSET_LIGHT;
+
+            _data.put(offset, toUnsignedByte(sunlight));
+            _data.put(offset + 1, toUnsignedByte(blockLight));
+            _data.put(offset + 2, toUnsignedByte(occlusion));
+        }
+
+        /**
+         * Returns the type of the indices, GL_UNSIGNED_SHORT if all vertices can be addressed using 16 bits.
+         */
+        public int getIndexType() {
+            return (vertCount <= 0xFFFF) ? GL11.GL_UNSIGNED_SHORT : GL11.GL_UNSIGNED_INT;
+        }
+
+        /**
+         * Copies the packed vertices into a buffer acquired from the given pool.
+         */
+        public ByteBuffer copyVertices(DirectBufferPool pool) {
+            ByteBuffer data = _data.duplicate();
+            data.flip();
+
+            ByteBuffer buffer = pool.acquire(data.remaining());
+            buffer.put(data);
+            buffer.flip();
+            return buffer;
+        }
+
+        /**
+         * Copies the indices into a buffer acquired from the given pool, using the type returned by getIndexType().
+         */
+        public ByteBuffer copyIndices(DirectBufferPool pool) {
+            ByteBuffer buffer;
+
+            if (getIndexType() == GL11.GL_UNSIGNED_SHORT) {
+                buffer = pool.acquire(indices.size() * 2);
+
+                for (int i = 0; i < indices.size(); i++)
+                    buffer.putShort((short) indices.get(i));
+            } else {
+                buffer = pool.acquire(indices.size() * 4);
+
+                for (int i = 0; i < indices.size(); i++)
+                    buffer.putInt(indices.get(i));
+            }
+
+            buffer.flip();
+            return buffer;
+        }
+
+        /**
+         * Removes all vertices, keeping the allocated memory.
+         */
+        public void reset() {
+            vertices.resetQuick();
+            indices.resetQuick();
+            vertCount = 0;
+            _data.clear();
+        }
+
+        private void ensureCapacity() {
+            if (_data.remaining() < STRIDE) {
+                ByteBuffer data = ByteBuffer.allocate(_data.capacity() * 2).order(ByteOrder.nativeOrder());
+                _data.flip();
+                data.put(_data);
+                _data = data;
+            }
+        }
     }
 
     /**
@@ -88,36 +209,91 @@ public class ChunkMesh {
     }
 
     /* CONST */
-    private static final int STRIDE = (3 + 3 + 3 + 3 + 4) * 4;
+    public static final int NO_TILE = -1;
+
+    /**
+     * Scales of the fixed point positions and texture coordinates, also known to the shaders.
+     */
+    public static final float POSITION_SCALE = 128f;
+    public static final float TEX_COORD_SCALE = 4096f;
+    public static final float TILE_COORD_SCALE = 16f;
+
+    /*
+     * Packed vertex: position (3 shorts + padding), texture coordinates and tile (3 shorts + padding),
+     * normal (3 bytes + padding), color (4 unsigned bytes) and sunlight, block light and occlusion
+     * (3 unsigned bytes + padding).
+     */
+    private static final int STRIDE = 2 * 4 + 2 * 4 + 4 + 4 + 4;
     private static final int OFFSET_VERTEX = 0;
-    private static final int OFFSET_TEX_0 = (3 * 4);
-    private static final int OFFSET_TEX_1 = ((3 + 3) * 4);
-    private static final int OFFSET_COLOR = ((3 + 3 + 3) * 4);
-    private static final int OFFSET_NORMAL = ((3 + 3 + 3 + 4) * 4);
+    private static final int OFFSET_TEX_0 = 2 * 4;
+    private static final int OFFSET_NORMAL = 2 * 4 + 2 * 4;
+    private static final int OFFSET_COLOR = 2 * 4 + 2 * 4 + 4;
+    private static final int OFFSET_LIGHT = 2 * 4 + 2 * 4 + 4 + 4;
+
+    private static final int INITIAL_VERTEX_CAPACITY = 256;
 
     /* VERTEX DATA */
     private final int[] _vertexBuffers = new int[4];
     private final int[] _idxBuffers = new int[4];
     private final int[] _vertexCount = new int[4];
+    private final int[] _indexType = new int[4];
 
     /* STATS */
     private int _triangleCount = -1;
 
     /* TEMPORARY DATA */
-    public VertexElements[] _vertexElements = new VertexElements[4];
+    public VertexElements[] _vertexElements;
+    private ByteBuffer[] _vertexData, _indexData;
 
-    /* BULLET PHYSICS */
-    public IndexedMesh _indexedMesh;
     private boolean _disposed = false;
 
     /* CONCURRENCY */
     public ReentrantLock _lock = new ReentrantLock();
 
     public ChunkMesh() {
-        _vertexElements[0] = new VertexElements();
-        _vertexElements[1] = new VertexElements();
-        _vertexElements[2] = new VertexElements();
-        _vertexElements[3] = new VertexElements();
+        this(new VertexElements[]{new VertexElements(), new VertexElements(), new VertexElements(), new VertexElements()});
+    }
+
+    /**
+     * Init. a new mesh which is built using the given vertex elements. The vertex elements are cleared and can be
+     * reused as soon as finish() was called.
+     *
+     * @param vertexElements The vertex elements for each render type
+     */
+    public ChunkMesh(VertexElements[] vertexElements) {
+        for (VertexElements elements : vertexElements)
+            elements.reset();
+
+        _vertexElements = vertexElements;
+    }
+
+    /**
+     * Copies the vertex data into pooled direct buffers which are used for generating the VBOs. Afterwards
+     * the vertex elements are no longer referenced by the mesh.
+     */
+    public void finish() {
+        _lock.lock();
+
+        try {
+            if (_vertexElements == null || _disposed)
+                return;
+
+            _vertexData = new ByteBuffer[_vertexElements.length];
+            _indexData = new ByteBuffer[_vertexElements.length];
+
+            for (int i = 0; i < _vertexElements.length; i++) {
+                _vertexData[i] = _vertexElements[i].copyVertices(DirectBufferPool.getInstance());
+                _indexData[i] = _vertexElements[i].copyIndices(DirectBufferPool.getInstance());
+                _indexType[i] = _vertexElements[i].getIndexType();
+                _vertexCount[i] = _vertexElements[i].indices.size();
+            }
+
+            // Calculate the final amount of triangles
+            _triangleCount = (_vertexCount[0] + _vertexCount[1] + _vertexCount[2] + _vertexCount[3]) / 3;
+            _vertexElements = null;
+        } finally {
+            _lock.unlock();
+        }
     }
 
     /**
@@ -129,16 +305,14 @@ public class ChunkMesh {
         if (_lock.tryLock()) {
             try {
                 // IMPORTANT: A mesh can only be generated once.
-                if (_vertexElements == null || _disposed)
+                if (_vertexData == null || _disposed)
                     return false;
 
                 for (int i = 0; i < _vertexBuffers.length; i++)
                     generateVBO(i);
 
-                // Free unused space on the heap
-                _vertexElements = null;
-                // Calculate the final amount of triangles
-                _triangleCount = (_vertexCount[0] + _vertexCount[1] + _vertexCount[2] + _vertexCount[3]) / 3;
+                // The data was copied to the GPU
+                releaseBuffers();
             } finally {
                 _lock.unlock();
             }
@@ -155,10 +329,9 @@ public class ChunkMesh {
                 if (!_disposed) {
                     _vertexBuffers[id] = VertexBufferObjectManager.getInstance().getVboId();
                     _idxBuffers[id] = VertexBufferObjectManager.getInstance().getVboId();
-                    _vertexCount[id] = _vertexElements[id].finalIndices.limit();
 
-                    VertexBufferObjectManager.getInstance().bufferVboElementData(_idxBuffers[id], _vertexElements[id].finalIndices, GL15.GL_STATIC_DRAW);
-                    VertexBufferObjectManager.getInstance().bufferVboData(_vertexBuffers[id], _vertexElements[id].finalVertices, GL15.GL_STATIC_DRAW);
+                    VertexBufferObjectManager.getInstance().bufferVboElementData(_idxBuffers[id], _indexData[id], GL15.GL_STATIC_DRAW);
+                    VertexBufferObjectManager.getInstance().bufferVboData(_vertexBuffers[id], _vertexData[id], GL15.GL_STATIC_DRAW);
                 }
             } finally {
                 _lock.unlock();
@@ -172,28 +345,30 @@ public class ChunkMesh {
                 if (_vertexBuffers[id] <= 0 || _disposed)
                     return;
 
+                GL13.glClientActiveTexture(GL13.GL_TEXTURE0);
+
                 glEnableClientState(GL_VERTEX_ARRAY);
                 glEnableClientState(GL_TEXTURE_COORD_ARRAY);
                 glEnableClientState(GL_COLOR_ARRAY);
                 glEnableClientState(GL_NORMAL_ARRAY);
+                glEnableClientState(GL14.GL_SECONDARY_COLOR_ARRAY);
 
                 GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, _idxBuffers[id]);
                 GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, _vertexBuffers[id]);
 
-                glVertexPointer(3, GL11.GL_FLOAT, STRIDE, OFFSET_VERTEX);
+                glVertexPointer(3, GL11.GL_SHORT, STRIDE, OFFSET_VERTEX);
 
-                GL13.glClientActiveTexture(GL13.GL_TEXTURE0);
-                glTexCoordPointer(3, GL11.GL_FLOAT, STRIDE, OFFSET_TEX_0);
+                glTexCoordPointer(3, GL11.GL_SHORT, STRIDE, OFFSET_TEX_0);
 
-                GL13.glClientActiveTexture(GL13.GL_TEXTURE1);
-                glTexCoordPointer(3, GL11.GL_FLOAT, STRIDE, OFFSET_TEX_1);
+                glColorPointer(4, GL11.GL_UNSIGNED_BYTE, STRIDE, OFFSET_COLOR);
 
-                glColorPointer(4, GL11.GL_FLOAT, STRIDE, OFFSET_COLOR);
+                glNormalPointer(GL11.GL_BYTE, STRIDE, OFFSET_NORMAL);
 
-                glNormalPointer(GL11.GL_FLOAT, STRIDE, OFFSET_NORMAL);
+                GL14.glSecondaryColorPointer(3, GL11.GL_UNSIGNED_BYTE, STRIDE, OFFSET_LIGHT);
 
-                GL11.glDrawElements(GL11.GL_TRIANGLES, _vertexCount[id], GL_UNSIGNED_INT, 0);
+                GL11.glDrawElements(GL11.GL_TRIANGLES, _vertexCount[id], _indexType[id], 0);
 
+                glDisableClientState(GL14.GL_SECONDARY_COLOR_ARRAY);
                 glDisableClientState(GL_NORMAL_ARRAY);
                 glDisableClientState(GL_COLOR_ARRAY);
                 glDisableClientState(GL_TEXTURE_COORD_ARRAY);
@@ -243,15 +418,29 @@ public class ChunkMesh {
 
                 _disposed = true;
                 _vertexElements = null;
-                _indexedMesh = null;
+
+                releaseBuffers();
             }
         } finally {
             _lock.unlock();
         }
     }
 
+    private void releaseBuffers() {
+        if (_vertexData == null)
+            return;
+
+        for (int i = 0; i < _vertexData.length; i++) {
+            DirectBufferPool.getInstance().release(_vertexData[i]);
+            DirectBufferPool.getInstance().release(_indexData[i]);
+        }
+
+        _vertexData = null;
+        _indexData = null;
+    }
+
     public boolean isGenerated() {
-        return _vertexElements == null;
+        return _vertexElements == null && _vertexData == null;
     }
 
     public boolean isDisposed() {
@@ -274,4 +463,12 @@ public class ChunkMesh {
     public boolean isEmpty() {
         return _triangleCount == 0;
     }
+
+    private static short toShort(float value) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value)));
+    }
+
+    private static byte toUnsignedByte(float value) {
+        return (byte) Math.round(Math.max(0f, Math.min(1f, value)) * 255f);
+    }
 }
@@ -15,220 +15,263 @@
  */
 package org.terasology.rendering.primitives;
 
-import com.bulletphysics.collision.shapes.IndexedMesh;
-import com.bulletphysics.collision.shapes.ScalarType;
-import gnu.trove.iterator.TFloatIterator;
-import gnu.trove.iterator.TIntIterator;
-import org.lwjgl.BufferUtils;
+import org.terasology.logic.manager.Config;
 import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.ChunkSnapshot;
 import org.terasology.math.Side;
 import org.terasology.math.Vector3i;
 import org.terasology.model.blocks.Block;
 import org.terasology.model.blocks.management.BlockManager;
 import org.terasology.performanceMonitor.PerformanceMonitor;
 
-import javax.vecmath.Vector3f;
 import javax.vecmath.Vector4f;
 
 /**
- * Generates tessellated chunk meshes from chunks.
+ * Generates tessellated chunk meshes from chunk snapshots.
  *
  * @author Benjamin Glatzel <benjamin.glatzel@me.com>
  */
 public final class ChunkTessellator {
 
-    private static final int FLOAT_BYTES = 4;
-    private static final int INT_BYTES = 4;
+    private static final Side[] SIDES = Side.values();
+
+    private static final ThreadLocal<ChunkMesh.VertexElements[]> VERTEX_ELEMENTS = new ThreadLocal<ChunkMesh.VertexElements[]>() {
+        @Override
+        protected ChunkMesh.VertexElements[] initialValue() {
+            ChunkMesh.VertexElements[] vertexElements = new ChunkMesh.VertexElements[ChunkMesh.RENDER_TYPE.values().length];
+
+            for (int i = 0; i < vertexElements.length; i++)
+                vertexElements[i] = new ChunkMesh.VertexElements();
+
+            return vertexElements;
+        }
+    };
+
+    private static final ThreadLocal<GreedyMesher> GREEDY_MESHER = new ThreadLocal<GreedyMesher>() {
+        @Override
+        protected GreedyMesher initialValue() {
+            return new GreedyMesher();
+        }
+    };
 
-    private final Chunk _chunk;
     private static int _statVertexArrayUpdateCount = 0;
 
-    public ChunkTessellator(Chunk chunk) {
-        _chunk = chunk;
+    /* AMBIENT OCCLUSION */
+    private static final float[] OCCLUSION = new float[5];
+    private static final float[] BILLBOARD_OCCLUSION = new float[5];
+
+    static {
+        for (int i = 0; i < OCCLUSION.length; i++) {
+            OCCLUSION[i] = (float) Math.pow(0.60, i);
+            BILLBOARD_OCCLUSION[i] = (float) Math.pow(0.86, i);
+        }
+    }
+
+    /**
+     * Generates the mesh of a vertical segment of the chunk captured by the given snapshot.
+     *
+     * @param snapshot       The snapshot of the chunk
+     * @param meshHeight     The height of the segment
+     * @param verticalOffset The lowest block of the segment
+     * @return The mesh
+     */
+    public ChunkMesh generateMesh(ChunkSnapshot snapshot, int meshHeight, int verticalOffset) {
+        return generateMesh(snapshot, fetchBlocks(), meshHeight, verticalOffset, Config.getInstance().isGreedyMeshing());
     }
 
-    public ChunkMesh generateMesh(int meshHeight, int verticalOffset) {
+    /**
+     * Generates the mesh of a vertical segment of the chunk captured by the given snapshot.
+     *
+     * @param snapshot       The snapshot of the chunk
+     * @param blocks         The blocks indexed by their ids
+     * @param meshHeight     The height of the segment
+     * @param verticalOffset The lowest block of the segment
+     * @param greedyMeshing  True if coplanar faces of opaque blocks should be merged
+     * @return The mesh
+     */
+    public ChunkMesh generateMesh(ChunkSnapshot snapshot, Block[] blocks, int meshHeight, int verticalOffset, boolean greedyMeshing) {
         PerformanceMonitor.startActivity("GenerateMesh");
-        ChunkMesh mesh = new ChunkMesh();
+        ChunkMesh mesh = new ChunkMesh(VERTEX_ELEMENTS.get());
+        GreedyMesher greedyMesher = null;
 
-        for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x++) {
-            for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z++) {
-                double biomeTemp = _chunk.getParent().getTemperatureAt(_chunk.getBlockWorldPosX(x), _chunk.getBlockWorldPosZ(z));
-                double biomeHumidity = _chunk.getParent().getHumidityAt(_chunk.getBlockWorldPosX(x), _chunk.getBlockWorldPosZ(z));
+        if (greedyMeshing) {
+            greedyMesher = GREEDY_MESHER.get();
+            greedyMesher.begin(snapshot, blocks, meshHeight, verticalOffset);
+        }
+
+        int minSection = verticalOffset / Chunk.SECTION_HEIGHT;
+        int maxSection = (verticalOffset + meshHeight - 1) / Chunk.SECTION_HEIGHT;
+
+        for (int section = minSection; section <= maxSection; section++) {
+            if (isSectionHidden(snapshot, blocks, section))
+                continue;
+
+            int minY = Math.max(verticalOffset, section * Chunk.SECTION_HEIGHT);
+            int maxY = Math.min(verticalOffset + meshHeight, (section + 1) * Chunk.SECTION_HEIGHT);
 
-                for (int y = verticalOffset; y < verticalOffset + meshHeight; y++) {
-                    byte blockType = _chunk.getBlock(x, y, z);
-                    Block block = BlockManager.getInstance().getBlock(blockType);
+            for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x++) {
+                for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z++) {
+                    double biomeTemp = snapshot.getTemperature(x, z);
+                    double biomeHumidity = snapshot.getHumidity(x, z);
+                    int column = ChunkSnapshot.index(x, 0, z);
 
-                    if (block == null || block.isInvisible())
-                        continue;
+                    for (int y = minY; y < maxY; y++) {
+                        Block block = blocks[snapshot.getBlock(column + y) & 0xFF];
 
-                    generateBlockVertices(mesh, x, y, z, biomeTemp, biomeHumidity);
+                        if (block == null || block.isInvisible())
+                            continue;
+
+                        generateBlockVertices(snapshot, blocks, greedyMesher, mesh, x, y, z, biomeTemp, biomeHumidity);
+                    }
                 }
             }
         }
 
-        generateOptimizedBuffers(mesh);
+        if (greedyMesher != null)
+            greedyMesher.appendTo(mesh, ChunkMesh.RENDER_TYPE.OPAQUE.getIndex());
+
+        generateOptimizedBuffers(snapshot, blocks, mesh);
+        mesh.finish();
         _statVertexArrayUpdateCount++;
 
         PerformanceMonitor.endActivity();
         return mesh;
     }
 
-    private void generateOptimizedBuffers(ChunkMesh mesh) {
-        PerformanceMonitor.startActivity("OptimizeBuffers");
+    /**
+     * Returns the blocks indexed by their ids, so the tessellator does not have to look up the blocks one by one.
+     */
+    private static Block[] fetchBlocks() {
+        Block[] blocks = new Block[256];
 
-        generateBulletBuffers(mesh);
+        for (int i = 0; i < blocks.length; i++)
+            blocks[i] = BlockManager.getInstance().getBlock((byte) i);
 
-        for (int j = 0; j < mesh._vertexElements.length; j++) {
-            // Vertices double to account for light info
-            mesh._vertexElements[j].finalVertices = BufferUtils.createFloatBuffer(mesh._vertexElements[j].vertices.size() * 2 + mesh._vertexElements[j].tex.size() + mesh._vertexElements[j].color.size() + mesh._vertexElements[j].normals.size());
+        return blocks;
+    }
+
+    /**
+     * Returns true if the given section does not produce any faces: either it is filled with an invisible
+     * block or it is enclosed by a block type hiding its own sides.
+     */
+    private boolean isSectionHidden(ChunkSnapshot snapshot, Block[] blocks, int section) {
+        int sectionBlock = snapshot.getSectionBlock(section);
 
-            int cTex = 0;
-            int cColor = 0;
-            for (int i = 0; i < mesh._vertexElements[j].vertices.size(); i += 3, cTex += 3, cColor += 4) {
+        if (sectionBlock == Chunk.MIXED_SECTION)
+            return false;
 
-                Vector3f vertexPos = new Vector3f(mesh._vertexElements[j].vertices.get(i), mesh._vertexElements[j].vertices.get(i + 1), mesh._vertexElements[j].vertices.get(i + 2));
+        Block block = blocks[sectionBlock & 0xFF];
 
-                mesh._vertexElements[j].finalVertices.put(vertexPos.x);
-                mesh._vertexElements[j].finalVertices.put(vertexPos.y);
-                mesh._vertexElements[j].finalVertices.put(vertexPos.z);
+        if (block == null || block.isInvisible())
+            return true;
 
-                mesh._vertexElements[j].finalVertices.put(mesh._vertexElements[j].tex.get(cTex));
-                mesh._vertexElements[j].finalVertices.put(mesh._vertexElements[j].tex.get(cTex + 1));
-                mesh._vertexElements[j].finalVertices.put(mesh._vertexElements[j].tex.get(cTex + 2));
+        if (!snapshot.isSectionEnclosed(section) || block.getCenterMesh() != null || block.getBlockForm() != Block.BLOCK_FORM.DEFAULT)
+            return false;
 
-                Double[] result = new Double[3];
-                calcLightingValuesForVertexPos(vertexPos, result);
+        for (Side side : SIDES) {
+            if (isSideVisibleForBlockTypes(block, block, side))
+                return false;
+        }
 
-                mesh._vertexElements[j].finalVertices.put(result[0].floatValue());
-                mesh._vertexElements[j].finalVertices.put(result[1].floatValue());
-                mesh._vertexElements[j].finalVertices.put(result[2].floatValue());
+        return true;
+    }
 
-                mesh._vertexElements[j].finalVertices.put(mesh._vertexElements[j].color.get(cColor));
-                mesh._vertexElements[j].finalVertices.put(mesh._vertexElements[j].color.get(cColor + 1));
-                mesh._vertexElements[j].finalVertices.put(mesh._vertexElements[j].color.get(cColor + 2));
-                mesh._vertexElements[j].finalVertices.put(mesh._vertexElements[j].color.get(cColor + 3));
+    private void generateOptimizedBuffers(ChunkSnapshot snapshot, Block[] blocks, ChunkMesh mesh) {
+        PerformanceMonitor.startActivity("OptimizeBuffers");
 
-                mesh._vertexElements[j].finalVertices.put(mesh._vertexElements[j].normals.get(i));
-                mesh._vertexElements[j].finalVertices.put(mesh._vertexElements[j].normals.get(i + 1));
-                mesh._vertexElements[j].finalVertices.put(mesh._vertexElements[j].normals.get(i + 2));
-            }
+        float[] lighting = new float[3];
 
-            mesh._vertexElements[j].finalIndices = BufferUtils.createIntBuffer(mesh._vertexElements[j].indices.size());
-            TIntIterator indexIterator = mesh._vertexElements[j].indices.iterator();
-            while (indexIterator.hasNext()) {
-                mesh._vertexElements[j].finalIndices.put(indexIterator.next());
-            }
+        for (int j = 0; j < mesh._vertexElements.length; j++) {
+            ChunkMesh.VertexElements elements = mesh._vertexElements[j];
 
-            mesh._vertexElements[j].finalVertices.flip();
-            mesh._vertexElements[j].finalIndices.flip();
-        }
-        PerformanceMonitor.endActivity();
-    }
+            for (int i = 0; i < elements.vertCount; i++) {
+                float x = elements.vertices.get(i * 3);
+                float y = elements.vertices.get(i * 3 + 1);
+                float z = elements.vertices.get(i * 3 + 2);
 
-    private void generateBulletBuffers(ChunkMesh mesh) {
-        mesh._indexedMesh = new IndexedMesh();
-        mesh._indexedMesh.vertexBase = BufferUtils.createByteBuffer(mesh._vertexElements[0].vertices.size() * FLOAT_BYTES);
-        mesh._indexedMesh.triangleIndexBase = BufferUtils.createByteBuffer(mesh._vertexElements[0].indices.size() * INT_BYTES);
-        mesh._indexedMesh.triangleIndexStride = 3 * INT_BYTES;
-        mesh._indexedMesh.vertexStride = 3 * FLOAT_BYTES;
-        mesh._indexedMesh.numVertices = mesh._vertexElements[0].vertices.size() / 3;
-        mesh._indexedMesh.numTriangles = mesh._vertexElements[0].indices.size() / 3;
-        mesh._indexedMesh.indexType = ScalarType.INTEGER;
-
-        TIntIterator indexIterator = mesh._vertexElements[0].indices.iterator();
-        while (indexIterator.hasNext()) {
-            mesh._indexedMesh.triangleIndexBase.putInt(indexIterator.next());
-        }
-        TFloatIterator vertIterator = mesh._vertexElements[0].vertices.iterator();
-        while (vertIterator.hasNext()) {
-            mesh._indexedMesh.vertexBase.putFloat(vertIterator.next());
+                calcLightingValuesForVertexPos(snapshot, blocks, x, y, z, lighting);
+                elements.setLighting(i, lighting[0], lighting[1], lighting[2]);
+            }
         }
-    }
-
-    private void calcLightingValuesForVertexPos(Vector3f vertexPos, Double[] output) {
-        PerformanceMonitor.startActivity("calcLighting");
-        double[] lights = new double[8];
-        double[] blockLights = new double[8];
-        byte[] blocks = new byte[4];
-
-        Vector3f vertexWorldPos = moveVectorFromChunkSpaceToWorldSpace(vertexPos);
-
-        PerformanceMonitor.startActivity("gatherLightInfo");
-        blocks[0] = _chunk.getParent().getBlockAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z + 0.1f));
-        blocks[1] = _chunk.getParent().getBlockAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z - 0.1f));
-        blocks[2] = _chunk.getParent().getBlockAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z - 0.1f));
-        blocks[3] = _chunk.getParent().getBlockAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z + 0.1f));
-
-        lights[0] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z + 0.1f), Chunk.LIGHT_TYPE.SUN);
-        lights[1] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z - 0.1f), Chunk.LIGHT_TYPE.SUN);
-        lights[2] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z - 0.1f), Chunk.LIGHT_TYPE.SUN);
-        lights[3] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z + 0.1f), Chunk.LIGHT_TYPE.SUN);
-
-        lights[4] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y - 0.1f), (vertexWorldPos.z + 0.1f), Chunk.LIGHT_TYPE.SUN);
-        lights[5] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y - 0.1f), (vertexWorldPos.z - 0.1f), Chunk.LIGHT_TYPE.SUN);
-        lights[6] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y - 0.1f), (vertexWorldPos.z - 0.1f), Chunk.LIGHT_TYPE.SUN);
-        lights[7] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y - 0.1f), (vertexWorldPos.z + 0.1f), Chunk.LIGHT_TYPE.SUN);
-
-        blockLights[0] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z + 0.1f), Chunk.LIGHT_TYPE.BLOCK);
-        blockLights[1] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z - 0.1f), Chunk.LIGHT_TYPE.BLOCK);
-        blockLights[2] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z - 0.1f), Chunk.LIGHT_TYPE.BLOCK);
-        blockLights[3] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y + 0.8f), (vertexWorldPos.z + 0.1f), Chunk.LIGHT_TYPE.BLOCK);
-
-        blockLights[4] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y - 0.1f), (vertexWorldPos.z + 0.1f), Chunk.LIGHT_TYPE.BLOCK);
-        blockLights[5] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x + 0.1f), (vertexWorldPos.y - 0.1f), (vertexWorldPos.z - 0.1f), Chunk.LIGHT_TYPE.BLOCK);
-        blockLights[6] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y - 0.1f), (vertexWorldPos.z - 0.1f), Chunk.LIGHT_TYPE.BLOCK);
-        blockLights[7] = _chunk.getParent().getLightAtPosition((vertexWorldPos.x - 0.1f), (vertexWorldPos.y - 0.1f), (vertexWorldPos.z + 0.1f), Chunk.LIGHT_TYPE.BLOCK);
         PerformanceMonitor.endActivity();
+    }
 
-        double resultLight = 0;
-        double resultBlockLight = 0;
-        int counterLight = 0;
-        int counterBlockLight = 0;
-
-        int occCounter = 0;
-        int occCounterBillboard = 0;
-        for (int i = 0; i < 8; i++) {
-            if (lights[i] > 0) {
-                resultLight += lights[i];
-                counterLight++;
+    /**
+     * Calculates the sunlight, the block light and the ambient occlusion of a vertex. The values are sampled
+     * from the four blocks around the vertex, both above and below it.
+     *
+     * @param x      The position of the vertex within the chunk on the x-axis
+     * @param y      The position of the vertex within the chunk on the y-axis
+     * @param z      The position of the vertex within the chunk on the z-axis
+     * @param output Receives the sunlight, the block light and the ambient occlusion
+     */
+    static void calcLightingValuesForVertexPos(ChunkSnapshot snapshot, Block[] blocks, float x, float y, float z, float[] output) {
+        int minX = round(x - 0.1f, Chunk.CHUNK_DIMENSION_X), maxX = round(x + 0.1f, Chunk.CHUNK_DIMENSION_X);
+        int minZ = round(z - 0.1f, Chunk.CHUNK_DIMENSION_Z), maxZ = round(z + 0.1f, Chunk.CHUNK_DIMENSION_Z);
+        int above = round(y + 0.8f, Chunk.CHUNK_DIMENSION_Y), below = round(y - 0.1f, Chunk.CHUNK_DIMENSION_Y);
+
+        int sunlight = 0, sunlightSamples = 0;
+        int blockLight = 0, blockLightSamples = 0;
+        int occluders = 0, billboardOccluders = 0;
+
+        for (int i = 0; i < 4; i++) {
+            int column = ChunkSnapshot.index((i < 2) ? maxX : minX, 0, (i == 0 || i == 3) ? maxZ : minZ);
+            int indexAbove = column + above;
+            int indexBelow = column + below;
+
+            byte light = snapshot.getSunlight(indexAbove);
+            if (light > 0) {
+                sunlight += light;
+                sunlightSamples++;
+            }
+            light = snapshot.getSunlight(indexBelow);
+            if (light > 0) {
+                sunlight += light;
+                sunlightSamples++;
             }
-            if (blockLights[i] > 0) {
-                resultBlockLight += blockLights[i];
-                counterBlockLight++;
+            light = snapshot.getBlockLight(indexAbove);
+            if (light > 0) {
+                blockLight += light;
+                blockLightSamples++;
+            }
+            light = snapshot.getBlockLight(indexBelow);
+            if (light > 0) {
+                blockLight += light;
+                blockLightSamples++;
             }
 
-            if (i < 4) {
-                Block b = BlockManager.getInstance().getBlock(blocks[i]);
+            Block b = blocks[snapshot.getBlock(indexAbove) & 0xFF];
 
-                if (b.isCastsShadows() && b.getBlockForm() != Block.BLOCK_FORM.BILLBOARD) {
-                    occCounter++;
-                } else if (b.isCastsShadows() && b.getBlockForm() == Block.BLOCK_FORM.BILLBOARD) {
-                    occCounterBillboard++;
-                }
+            if (b != null && b.isCastsShadows()) {
+                if (b.getBlockForm() != Block.BLOCK_FORM.BILLBOARD)
+                    occluders++;
+                else
+                    billboardOccluders++;
             }
         }
 
-        double resultAmbientOcclusion = (Math.pow(0.60, occCounter) + Math.pow(0.86, occCounterBillboard)) / 2.0;
+        output[0] = (sunlightSamples == 0) ? 0 : sunlight / (sunlightSamples * 15f);
+        output[1] = (blockLightSamples == 0) ? 0 : blockLight / (blockLightSamples * 15f);
+        output[2] = (OCCLUSION[occluders] + BILLBOARD_OCCLUSION[billboardOccluders]) / 2f;
+    }
 
-        if (counterLight == 0)
-            output[0] = (double) 0;
-        else
-            output[0] = resultLight / counterLight / 15f;
+    /**
+     * Rounds the given position like LocalWorldProvider.getBlockAtPosition(...), limited to the snapshot.
+     */
+    private static int round(float value, int dimension) {
+        int result = (int) Math.floor(value + 0.5f);
 
-        if (counterBlockLight == 0)
-            output[1] = (double) 0;
-        else
-            output[1] = resultBlockLight / counterBlockLight / 15f;
+        if (result < -ChunkSnapshot.BORDER)
+            return -ChunkSnapshot.BORDER;
+        if (result >= dimension + ChunkSnapshot.BORDER)
+            return dimension + ChunkSnapshot.BORDER - 1;
 
-        output[2] = resultAmbientOcclusion;
-        PerformanceMonitor.endActivity();
+        return result;
     }
 
-    private void generateBlockVertices(ChunkMesh mesh, int x, int y, int z, double temp, double hum) {
-        byte blockId = _chunk.getBlock(x, y, z);
-        Block block = BlockManager.getInstance().getBlock(blockId);
+    private void generateBlockVertices(ChunkSnapshot snapshot, Block[] blocks, GreedyMesher greedyMesher, ChunkMesh mesh, int x, int y, int z, double temp, double hum) {
+        byte blockId = snapshot.getBlock(x, y, z);
+        Block block = blocks[blockId & 0xFF];
 
         /*
          * Determine the render process.
@@ -251,10 +294,10 @@ public final class ChunkTessellator {
 
         boolean[] drawDir = new boolean[6];
 
-        for (Side side : Side.values()) {
+        for (Side side : SIDES) {
             Vector3i offset = side.getVector3i();
-            byte blockToCheckId = _chunk.getParent().getBlock(_chunk.getBlockWorldPosX(x + offset.x), y + offset.y, _chunk.getBlockWorldPosZ(z + offset.z));
-            drawDir[side.ordinal()] = isSideVisibleForBlockTypes(blockToCheckId, blockId, side);
+            byte blockToCheckId = snapshot.getBlock(x + offset.x, y + offset.y, z + offset.z);
+            drawDir[side.ordinal()] = isSideVisibleForBlockTypes(blocks[blockToCheckId & 0xFF], block, side);
         }
 
         if (y == 0) {
@@ -266,18 +309,18 @@ public final class ChunkTessellator {
             // Draw horizontal sides if visible from below
             for (Side side : Side.horizontalSides()) {
                 Vector3i offset = side.getVector3i();
-                byte blockToCheckId = _chunk.getParent().getBlock(_chunk.getBlockWorldPosX(x + offset.x), y - 1, _chunk.getBlockWorldPosZ(z + offset.z));
-                drawDir[side.ordinal()] |= isSideVisibleForBlockTypes(blockToCheckId, blockId, side);
+                byte blockToCheckId = snapshot.getBlock(x + offset.x, y - 1, z + offset.z);
+                drawDir[side.ordinal()] |= isSideVisibleForBlockTypes(blocks[blockToCheckId & 0xFF], block, side);
             }
 
             // Draw the top if below a non-lowered block
             // TODO: Don't need to render the top if each side and the block above each side are either liquid or opaque solids.
-            byte blockToCheckId = _chunk.getParent().getBlock(_chunk.getBlockWorldPosX(x), y + 1, _chunk.getBlockWorldPosZ(z));
-            drawDir[Side.TOP.ordinal()] |= (BlockManager.getInstance().getBlock(blockToCheckId).getBlockForm() != Block.BLOCK_FORM.LOWERED_BLOCK);
+            byte blockToCheckId = snapshot.getBlock(x, y + 1, z);
+            drawDir[Side.TOP.ordinal()] |= (blocks[blockToCheckId & 0xFF].getBlockForm() != Block.BLOCK_FORM.LOWERED_BLOCK);
 
-            byte bottomBlock = _chunk.getParent().getBlock(_chunk.getBlockWorldPosX(x), y - 1, _chunk.getBlockWorldPosZ(z));
-            if (BlockManager.getInstance().getBlock(bottomBlock).getBlockForm() == Block.BLOCK_FORM.LOWERED_BLOCK || bottomBlock == 0x0) {
-                for (Side dir : Side.values()) {
+            byte bottomBlock = snapshot.getBlock(x, y - 1, z);
+            if (blocks[bottomBlock & 0xFF].getBlockForm() == Block.BLOCK_FORM.LOWERED_BLOCK || bottomBlock == 0x0) {
+                for (Side dir : SIDES) {
                     if (drawDir[dir.ordinal()]) {
                         Vector4f colorOffset = block.calcColorOffsetFor(dir, temp, hum);
                         block.getLoweredSideMesh(dir).appendTo(mesh, x, y, z, colorOffset, renderType.getIndex());
@@ -287,37 +330,30 @@ public final class ChunkTessellator {
             }
         }
 
-        for (Side dir : Side.values()) {
+        // Waving blocks are animated using their texture coordinates, which merged faces do not provide
+        boolean mergeFaces = greedyMesher != null && renderType == ChunkMesh.RENDER_TYPE.OPAQUE && blockForm == Block.BLOCK_FORM.DEFAULT && !block.isWaving();
+
+        for (Side dir : SIDES) {
             if (drawDir[dir.ordinal()]) {
                 Vector4f colorOffset = block.calcColorOffsetFor(dir, temp, hum);
+
+                if (mergeFaces && greedyMesher.addFace(dir, block.getSideMesh(dir), x, y, z, colorOffset))
+                    continue;
+
                 block.getSideMesh(dir).appendTo(mesh, x, y, z, colorOffset, renderType.getIndex());
             }
         }
     }
 
-    private Vector3f moveVectorFromChunkSpaceToWorldSpace(Vector3f offset) {
-        double offsetX = _chunk.getPosition().x * Chunk.CHUNK_DIMENSION_X;
-        double offsetY = _chunk.getPosition().y * Chunk.CHUNK_DIMENSION_Y;
-        double offsetZ = _chunk.getPosition().z * Chunk.CHUNK_DIMENSION_Z;
-
-        offset.x += offsetX;
-        offset.y += offsetY;
-        offset.z += offsetZ;
-
-        return offset;
-    }
-
     /**
      * Returns true if the side should be rendered adjacent to the second side provided.
      *
-     * @param blockToCheck The block to check
-     * @param currentBlock The current block
+     * @param bCheck The block to check
+     * @param cBlock The current block
      * @return True if the side is visible for the given block types
      */
-    private boolean isSideVisibleForBlockTypes(byte blockToCheck, byte currentBlock, Side side) {
-        Block cBlock = BlockManager.getInstance().getBlock(currentBlock);
+    private boolean isSideVisibleForBlockTypes(Block bCheck, Block cBlock, Side side) {
         if (cBlock.getSideMesh(side) == null) return false;
-        Block bCheck = BlockManager.getInstance().getBlock(blockToCheck);
 
         // Liquids can be transparent but there should be no visible adjacent faces
         // !!! In comparison to leaves !!!
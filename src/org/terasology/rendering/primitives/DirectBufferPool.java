@@ -0,0 +1,117 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pools direct buffers in power-of-two size classes, so streaming chunk meshes does not keep allocating and
+ * freeing native memory. Buffers above the largest size class are allocated, but never pooled.
+ */
+public final class DirectBufferPool {
+
+    /* CONST */
+    private static final int MIN_SIZE_CLASS = 10;
+    private static final int MAX_SIZE_CLASS = 24;
+    private static final long DEFAULT_MAX_POOLED_BYTES = 64L * 1024 * 1024;
+
+    private static final DirectBufferPool _instance = new DirectBufferPool(DEFAULT_MAX_POOLED_BYTES);
+
+    private final ConcurrentLinkedQueue<ByteBuffer>[] _pools;
+    private final AtomicLong _pooledBytes = new AtomicLong();
+    private final long _maxPooledBytes;
+
+    public static DirectBufferPool getInstance() {
+        return _instance;
+    }
+
+    /**
+     * Init. a new pool.
+     *
+     * @param maxPooledBytes The amount of memory the pool may hold on to
+     */
+    @SuppressWarnings("unchecked")
+    public DirectBufferPool(long maxPooledBytes) {
+        _maxPooledBytes = maxPooledBytes;
+        _pools = new ConcurrentLinkedQueue[MAX_SIZE_CLASS + 1];
+
+        for (int i = MIN_SIZE_CLASS; i <= MAX_SIZE_CLASS; i++)
+            _pools[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+    }
+
+    /**
+     * Returns a direct buffer in native byte order with the position set to zero and the limit set to the given
+     * size. The content of the buffer is undefined.
+     *
+     * @param size The size of the buffer in bytes
+     * @return The buffer
+     */
+    public ByteBuffer acquire(int size) {
+        int sizeClass = sizeClass(size);
+
+        if (sizeClass > MAX_SIZE_CLASS)
+            return BufferUtils.createByteBuffer(size);
+
+        ByteBuffer buffer = _pools[sizeClass].poll();
+
+        if (buffer != null)
+            _pooledBytes.addAndGet(-buffer.capacity());
+        else
+            buffer = BufferUtils.createByteBuffer(1 << sizeClass);
+
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer acquired from this pool. The buffer must no longer be used afterwards.
+     *
+     * @param buffer The buffer
+     */
+    public void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        int sizeClass = sizeClass(capacity);
+
+        if (sizeClass > MAX_SIZE_CLASS || capacity != 1 << sizeClass || !buffer.isDirect())
+            return;
+
+        if (_pooledBytes.addAndGet(capacity) > _maxPooledBytes) {
+            _pooledBytes.addAndGet(-capacity);
+            return;
+        }
+
+        _pools[sizeClass].offer(buffer);
+    }
+
+    /**
+     * Returns the amount of memory currently held by the pool.
+     */
+    public long getPooledBytes() {
+        return _pooledBytes.get();
+    }
+
+    private static int sizeClass(int size) {
+        if (size <= 1 << MIN_SIZE_CLASS)
+            return MIN_SIZE_CLASS;
+
+        return 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.ChunkSnapshot;
+import org.terasology.math.Side;
+import org.terasology.math.Vector3i;
+import org.terasology.model.blocks.Block;
+import org.terasology.model.shapes.BlockMeshPart;
+
+import javax.vecmath.Vector2f;
+import javax.vecmath.Vector3f;
+import javax.vecmath.Vector4f;
+import java.util.IdentityHashMap;
+
+/**
+ * Merges coplanar faces of full blocks into larger quads.
+ * <p/>
+ * Faces are collected per side of the blocks and merged if they use the same mesh part, the same color offset
+ * and the same lighting. Only faces with the same lighting at all corners are merged, so the lighting of the
+ * merged quads equals the lighting of the single faces.
+ * <p/>
+ * The texture coordinates of the merged quads count the repetitions of the texture tile, the third texture
+ * coordinate stores the index of the tile within the texture atlas increased by two. The chunk shader
+ * repeats the tile based on these values.
+ * <p/>
+ * A mesher can be reused for the next segment once its faces have been appended to a mesh.
+ */
+final class GreedyMesher {
+
+    /* CONST */
+    private static final Side[] SIDES = Side.values();
+    private static final int TILES_PER_ROW = Math.round(1.0f / Block.TEXTURE_OFFSET);
+
+    private ChunkSnapshot _snapshot;
+    private Block[] _blocks;
+    private int _meshHeight, _verticalOffset;
+    private int _volume;
+
+    /* FACES */
+    private BlockMeshPart[] _parts = new BlockMeshPart[0];
+    private float[] _colors;
+    private float[] _lights;
+
+    private final IdentityHashMap<BlockMeshPart, Boolean> _mergeableParts = new IdentityHashMap<BlockMeshPart, Boolean>();
+    private final float[] _lighting = new float[3];
+
+    /**
+     * Prepares the mesher for collecting the faces of a vertical segment of the chunk.
+     */
+    void begin(ChunkSnapshot snapshot, Block[] blocks, int meshHeight, int verticalOffset) {
+        _snapshot = snapshot;
+        _blocks = blocks;
+        _meshHeight = meshHeight;
+        _verticalOffset = verticalOffset;
+        _volume = Chunk.CHUNK_DIMENSION_X * meshHeight * Chunk.CHUNK_DIMENSION_Z;
+
+        if (_parts.length < SIDES.length * _volume) {
+            _parts = new BlockMeshPart[SIDES.length * _volume];
+            _colors = new float[_parts.length * 4];
+            _lights = new float[_parts.length * 3];
+        }
+
+        // The blocks might have been replaced
+        _mergeableParts.clear();
+    }
+
+    /**
+     * Collects the given face for merging.
+     *
+     * @return False if the face cannot be merged and has to be added to the mesh directly
+     */
+    boolean addFace(Side side, BlockMeshPart part, int x, int y, int z, Vector4f colorOffset) {
+        if (!isMergeable(side, part))
+            return false;
+
+        // The lighting has to be the same at all corners of the face
+        float sunlight = 0, blockLight = 0, occlusion = 0;
+
+        for (int i = 0; i < part.size(); i++) {
+            Vector3f vertex = part.getVertex(i);
+            ChunkTessellator.calcLightingValuesForVertexPos(_snapshot, _blocks, vertex.x + x, vertex.y + y, vertex.z + z, _lighting);
+
+            if (i == 0) {
+                sunlight = _lighting[0];
+                blockLight = _lighting[1];
+                occlusion = _lighting[2];
+            } else if (sunlight != _lighting[0] || blockLight != _lighting[1] || occlusion != _lighting[2]) {
+                return false;
+            }
+        }
+
+        int index = side.ordinal() * _volume + cellIndex(x, y - _verticalOffset, z);
+
+        _parts[index] = part;
+        _colors[index * 4] = colorOffset.x;
+        _colors[index * 4 + 1] = colorOffset.y;
+        _colors[index * 4 + 2] = colorOffset.z;
+        _colors[index * 4 + 3] = colorOffset.w;
+        _lights[index * 3] = sunlight;
+        _lights[index * 3 + 1] = blockLight;
+        _lights[index * 3 + 2] = occlusion;
+
+        return true;
+    }
+
+    /**
+     * Merges the collected faces and appends the resulting quads to the given mesh. Afterwards no faces are
+     * left in the mesher.
+     */
+    void appendTo(ChunkMesh mesh, int meshBit) {
+        int[] dimensions = {Chunk.CHUNK_DIMENSION_X, _meshHeight, Chunk.CHUNK_DIMENSION_Z};
+        int[] pos = new int[3];
+
+        for (Side side : SIDES) {
+            int n = normalAxis(side), u = (n == 0) ? 1 : 0, v = (n == 2) ? 1 : 2;
+            int offset = side.ordinal() * _volume;
+
+            for (int slice = 0; slice < dimensions[n]; slice++) {
+                for (int b = 0; b < dimensions[v]; b++) {
+                    for (int a = 0; a < dimensions[u]; a++) {
+                        int index = offset + cellIndex(pos, n, slice, u, a, v, b);
+
+                        if (_parts[index] == null)
+                            continue;
+
+                        // Grow the quad along the first axis...
+                        int width = 1;
+                        while (a + width < dimensions[u] && isSameFace(index, offset + cellIndex(pos, n, slice, u, a + width, v, b)))
+                            width++;
+
+                        // ... and along the second axis as long as complete rows match
+                        int height = 1;
+                        grow:
+                        while (b + height < dimensions[v]) {
+                            for (int k = 0; k < width; k++) {
+                                if (!isSameFace(index, offset + cellIndex(pos, n, slice, u, a + k, v, b + height)))
+                                    break grow;
+                            }
+
+                            height++;
+                        }
+
+                        cellIndex(pos, n, slice, u, a, v, b);
+                        appendQuad(mesh, meshBit, side, index, pos, u, width, v, height);
+
+                        for (int l = 0; l < height; l++) {
+                            for (int k = 0; k < width; k++)
+                                _parts[offset + cellIndex(pos, n, slice, u, a + k, v, b + l)] = null;
+                        }
+                    }
+                }
+            }
+        }
+
+        _snapshot = null;
+        _blocks = null;
+    }
+
+    private boolean isSameFace(int index, int other) {
+        if (_parts[index] != _parts[other])
+            return false;
+
+        for (int i = 0; i < 4; i++) {
+            if (_colors[index * 4 + i] != _colors[other * 4 + i])
+                return false;
+        }
+
+        for (int i = 0; i < 3; i++) {
+            if (_lights[index * 3 + i] != _lights[other * 3 + i])
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Appends a quad covering width x height faces, starting at the given block position.
+     */
+    private void appendQuad(ChunkMesh mesh, int meshBit, Side side, int index, int[] pos, int u, int width, int v, int height) {
+        BlockMeshPart part = _parts[index];
+        ChunkMesh.VertexElements elements = mesh._vertexElements[meshBit];
+
+        float minU = Float.MAX_VALUE, minV = Float.MAX_VALUE;
+        for (int i = 0; i < part.size(); i++) {
+            minU = Math.min(minU, part.getTexCoord(i).x);
+            minV = Math.min(minV, part.getTexCoord(i).y);
+        }
+
+        int tile = Math.round(minU / Block.TEXTURE_OFFSET) + Math.round(minV / Block.TEXTURE_OFFSET) * TILES_PER_ROW;
+
+        // Find out which texture coordinate follows which axis of the quad
+        boolean sAlongU = true;
+        for (int i = 1; i < part.size(); i++) {
+            if (coordinate(part.getVertex(i), v) == coordinate(part.getVertex(0), v)) {
+                sAlongU = part.getTexCoord(i).x != part.getTexCoord(0).x;
+                break;
+            }
+        }
+
+        Vector4f color = new Vector4f(_colors[index * 4], _colors[index * 4 + 1], _colors[index * 4 + 2], _colors[index * 4 + 3]);
+        int nextIndex = elements.vertCount;
+
+        for (int i = 0; i < part.size(); i++) {
+            Vector3f vertex = part.getVertex(i);
+            Vector2f texCoord = part.getTexCoord(i);
+            Vector3f normal = part.getNormal(i);
+
+            float[] position = {vertex.x + pos[0], vertex.y + pos[1] + _verticalOffset, vertex.z + pos[2]};
+
+            // Stretch the face over the whole quad
+            if (coordinate(vertex, u) > 0)
+                position[u] += width - 1;
+            if (coordinate(vertex, v) > 0)
+                position[v] += height - 1;
+
+            float s = Math.round((texCoord.x - minU) / Block.TEXTURE_OFFSET_WIDTH);
+            float t = Math.round((texCoord.y - minV) / Block.TEXTURE_OFFSET_WIDTH);
+
+            elements.addVertex(position[0], position[1], position[2], s * (sAlongU ? width : height), t * (sAlongU ? height : width), tile, normal, color);
+        }
+
+        for (int i = 0; i < part.indicesSize(); i++)
+            elements.indices.add(part.getIndex(i) + nextIndex);
+    }
+
+    /**
+     * Returns true if the given mesh part is a quad covering the complete side of the block.
+     */
+    private boolean isMergeable(Side side, BlockMeshPart part) {
+        Boolean mergeable = _mergeableParts.get(part);
+
+        if (mergeable == null) {
+            mergeable = part.size() == 4 && part.indicesSize() == 6;
+
+            int n = normalAxis(side);
+            Vector3i normal = side.getVector3i();
+            float plane = 0.5f * (normal.x + normal.y + normal.z);
+
+            for (int i = 0; i < part.size() && mergeable; i++) {
+                Vector3f vertex = part.getVertex(i);
+
+                for (int axis = 0; axis < 3; axis++) {
+                    float c = coordinate(vertex, axis);
+
+                    if ((axis == n && c != plane) || (axis != n && c != 0.5f && c != -0.5f))
+                        mergeable = false;
+                }
+            }
+
+            _mergeableParts.put(part, mergeable);
+        }
+
+        return mergeable;
+    }
+
+    private int cellIndex(int x, int y, int z) {
+        return (x * Chunk.CHUNK_DIMENSION_Z + z) * _meshHeight + y;
+    }
+
+    /**
+     * Stores the block position of the given cell of a slice in pos and returns the index of the cell.
+     */
+    private int cellIndex(int[] pos, int n, int slice, int u, int a, int v, int b) {
+        pos[n] = slice;
+        pos[u] = a;
+        pos[v] = b;
+
+        return cellIndex(pos[0], pos[1], pos[2]);
+    }
+
+    private static int normalAxis(Side side) {
+        Vector3i normal = side.getVector3i();
+        return (normal.x != 0) ? 0 : (normal.y != 0) ? 1 : 2;
+    }
+
+    private static float coordinate(Vector3f vector, int axis) {
+        return (axis == 0) ? vector.x : (axis == 1) ? vector.y : vector.z;
+    }
+}
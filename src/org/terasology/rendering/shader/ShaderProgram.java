@@ -24,6 +24,7 @@ import org.terasology.logic.manager.Config;
 import org.terasology.logic.manager.ShaderManager;
 import org.terasology.logic.manager.TextureManager;
 import org.terasology.model.blocks.Block;
+import org.terasology.rendering.primitives.ChunkMesh;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
@@ -43,7 +44,8 @@ public class ShaderProgram {
     private int _shaderProgram, _fragmentProgram, _vertexProgram;
     private String _title;
 
-    private static String _preProcessorPreamble = "#version 120 \n float TEXTURE_OFFSET = " + Block.TEXTURE_OFFSET + "; \n";
+    private static String _preProcessorPreamble = "#version 120 \n #extension GL_ARB_shader_texture_lod : enable \n float TEXTURE_OFFSET = " + Block.TEXTURE_OFFSET + "; \n float TEXTURE_OFFSET_WIDTH = " + Block.TEXTURE_OFFSET_WIDTH + "; \n"
+            + " float POSITION_SCALE = " + ChunkMesh.POSITION_SCALE + "; \n float TEX_COORD_SCALE = " + ChunkMesh.TEX_COORD_SCALE + "; \n float TILE_COORD_SCALE = " + ChunkMesh.TILE_COORD_SCALE + "; \n";
     private static String _includedFunctionsVertex = "", _includedFunctionsFragment = "";
 
     private IShaderParameters _parameters;
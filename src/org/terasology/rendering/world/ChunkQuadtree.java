@@ -0,0 +1,227 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import org.terasology.logic.world.Chunk;
+import org.terasology.model.structures.AABB;
+import org.terasology.model.structures.ViewFrustum;
+
+import javax.vecmath.Vector3d;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Quadtree over a list of chunks used for frustum culling. The bounds of the nodes are calculated once when the
+ * tree is built, so whole groups of chunks lying outside of the view frustum can be rejected with a single test
+ * and groups lying completely inside of the view frustum do not have to be tested any further.
+ * <p/>
+ * If every chunk of the list is replaced by the chunk at the same offset to a new position, as done by
+ * ChunkStreamer when the camera moves, the tree is shifted instead of being built again.
+ */
+public final class ChunkQuadtree {
+
+    /* CONST */
+    private static final int LEAF_SIZE = 2;
+
+    private static final class Node {
+        private double _minX = Double.MAX_VALUE, _minY = Double.MAX_VALUE, _minZ = Double.MAX_VALUE;
+        private double _maxX = -Double.MAX_VALUE, _maxY = -Double.MAX_VALUE, _maxZ = -Double.MAX_VALUE;
+
+        private Node[] _children;
+        private int[] _chunks;
+
+        private void include(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+            _minX = Math.min(_minX, minX);
+            _minY = Math.min(_minY, minY);
+            _minZ = Math.min(_minZ, minZ);
+            _maxX = Math.max(_maxX, maxX);
+            _maxY = Math.max(_maxY, maxY);
+            _maxZ = Math.max(_maxZ, maxZ);
+        }
+    }
+
+    private Node _root;
+    private double[] _bounds = new double[0];
+    private boolean[] _visible = new boolean[0];
+    private int _tests;
+    private double _shiftX, _shiftZ;
+    private final Vector3d _shiftedOrigin = new Vector3d();
+
+    /**
+     * Builds the tree for the given chunks. The indices of the chunks within the list are used to query
+     * the visibility afterwards.
+     *
+     * @param chunks The chunks
+     */
+    public void build(List<Chunk> chunks) {
+        _visible = new boolean[chunks.size()];
+        _bounds = new double[chunks.size() * 6];
+        _shiftX = _shiftZ = 0;
+
+        if (chunks.isEmpty()) {
+            _root = null;
+            return;
+        }
+
+        int minX = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        int[] indices = new int[chunks.size()];
+
+        for (int i = 0; i < indices.length; i++) {
+            Vector3d position = chunks.get(i).getPosition();
+            minX = Math.min(minX, (int) position.x);
+            minZ = Math.min(minZ, (int) position.z);
+            maxX = Math.max(maxX, (int) position.x);
+            maxZ = Math.max(maxZ, (int) position.z);
+            indices[i] = i;
+
+            AABB aabb = chunks.get(i).getAABB();
+            _bounds[i * 6] = aabb.minX();
+            _bounds[i * 6 + 1] = aabb.minY();
+            _bounds[i * 6 + 2] = aabb.minZ();
+            _bounds[i * 6 + 3] = aabb.maxX();
+            _bounds[i * 6 + 4] = aabb.maxY();
+            _bounds[i * 6 + 5] = aabb.maxZ();
+        }
+
+        int size = LEAF_SIZE;
+
+        while (size < maxX - minX + 1 || size < maxZ - minZ + 1)
+            size *= 2;
+
+        _root = createNode(chunks, indices, minX, minZ, size);
+    }
+
+    private Node createNode(List<Chunk> chunks, int[] indices, int x, int z, int size) {
+        Node node = new Node();
+
+        if (size <= LEAF_SIZE) {
+            node._chunks = indices;
+
+            for (int i : indices) {
+                int b = i * 6;
+                node.include(_bounds[b], _bounds[b + 1], _bounds[b + 2], _bounds[b + 3], _bounds[b + 4], _bounds[b + 5]);
+            }
+
+            return node;
+        }
+
+        int half = size / 2;
+        ArrayList<Node> children = new ArrayList<Node>(4);
+
+        for (int quadrant = 0; quadrant < 4; quadrant++) {
+            int qx = x + (quadrant & 1) * half;
+            int qz = z + (quadrant >> 1) * half;
+
+            int[] subset = new int[indices.length];
+            int count = 0;
+
+            for (int i : indices) {
+                Vector3d position = chunks.get(i).getPosition();
+
+                if ((int) position.x >= qx && (int) position.x < qx + half && (int) position.z >= qz && (int) position.z < qz + half)
+                    subset[count++] = i;
+            }
+
+            if (count == 0)
+                continue;
+
+            Node child = createNode(chunks, Arrays.copyOf(subset, count), qx, qz, half);
+            node.include(child._minX, child._minY, child._minZ, child._maxX, child._maxY, child._maxZ);
+            children.add(child);
+        }
+
+        node._children = children.toArray(new Node[children.size()]);
+        return node;
+    }
+
+    /**
+     * Moves all chunks of the tree by the given amount of chunks.
+     *
+     * @param dx The offset on the x-axis in chunks
+     * @param dz The offset on the z-axis in chunks
+     */
+    public void shift(int dx, int dz) {
+        _shiftX += dx * Chunk.CHUNK_DIMENSION_X;
+        _shiftZ += dz * Chunk.CHUNK_DIMENSION_Z;
+    }
+
+    /**
+     * Determines which chunks intersect the given view frustum.
+     *
+     * @param frustum The view frustum
+     * @param origin  The position of the camera the view frustum belongs to
+     */
+    public void cull(ViewFrustum frustum, Vector3d origin) {
+        Arrays.fill(_visible, false);
+        _tests = 0;
+
+        // Moving the chunks by the shift equals moving the camera in the opposite direction
+        _shiftedOrigin.set(origin.x - _shiftX, origin.y, origin.z - _shiftZ);
+
+        if (_root != null)
+            cull(_root, frustum, _shiftedOrigin, false);
+    }
+
+    private void cull(Node node, ViewFrustum frustum, Vector3d origin, boolean inside) {
+        if (!inside) {
+            _tests++;
+            ViewFrustum.INTERSECTION intersection = frustum.intersects(node._minX, node._minY, node._minZ, node._maxX, node._maxY, node._maxZ, origin);
+
+            if (intersection == ViewFrustum.INTERSECTION.OUTSIDE)
+                return;
+
+            inside = intersection == ViewFrustum.INTERSECTION.INSIDE;
+        }
+
+        if (node._children != null) {
+            for (Node child : node._children)
+                cull(child, frustum, origin, inside);
+
+            return;
+        }
+
+        // The bounds of a leaf containing a single chunk are the bounds of the chunk
+        if (inside || node._chunks.length == 1) {
+            for (int i : node._chunks)
+                _visible[i] = true;
+
+            return;
+        }
+
+        for (int i : node._chunks) {
+            int b = i * 6;
+            _tests++;
+            _visible[i] = frustum.intersects(_bounds[b], _bounds[b + 1], _bounds[b + 2], _bounds[b + 3], _bounds[b + 4], _bounds[b + 5], origin) != ViewFrustum.INTERSECTION.OUTSIDE;
+        }
+    }
+
+    /**
+     * Returns true if the chunk with the given index intersected the view frustum during the last culling pass.
+     *
+     * @param index The index of the chunk within the list used to build the tree
+     */
+    public boolean isVisible(int index) {
+        return index < _visible.length && _visible[index];
+    }
+
+    /**
+     * Returns the amount of bounding boxes tested during the last culling pass.
+     */
+    public int getTests() {
+        return _tests;
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.IChunkProvider;
+
+import javax.vecmath.Vector3d;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Keeps track of the chunks around the camera. The chunks are kept in a ring buffer indexed by their
+ * position modulo the size of the window, so moving the camera only replaces the rows and columns which
+ * entered the window. The chunks in proximity are a view of the ring buffer, ordered by the distance to
+ * the center of the window. Additionally chunks lying ahead of the camera are loaded in advance using
+ * the measured velocity of the camera.
+ */
+public final class ChunkStreamer {
+
+    /* CONST */
+    private static final double PREFETCH_TIME = 2.0;
+    private static final double MAX_SPEED = 64.0;
+    private static final double VELOCITY_SMOOTHING = 0.1;
+
+    private final IChunkProvider _chunkProvider;
+    private final List<Chunk> _chunksInProximity = new ProximityList();
+
+    /* RING BUFFER */
+    private Chunk[] _ring;
+    private int _size = -1;
+    private int _centerX, _centerZ;
+    private int[] _offsetsX, _offsetsZ;
+
+    /* PREFETCHING */
+    private final Vector3d _lastPosition = new Vector3d();
+    private final Vector3d _velocity = new Vector3d();
+    private boolean _positionKnown;
+    private int _prefetchX, _prefetchZ, _prefetchIndex;
+
+    public ChunkStreamer(IChunkProvider chunkProvider) {
+        _chunkProvider = chunkProvider;
+    }
+
+    /**
+     * Updates the window of chunks around the given chunk position. If the window only moved, the chunks of
+     * the rows and columns which entered the window are requested from the chunk provider. Otherwise the
+     * whole window is requested again, which also replaces chunks disposed by the chunk provider.
+     *
+     * @param centerX         The chunk position of the camera on the x-axis
+     * @param centerZ         The chunk position of the camera on the z-axis
+     * @param viewingDistance The viewing distance in chunks
+     * @param force           Forces the update
+     * @return True if the list of chunks was changed
+     */
+    public boolean update(int centerX, int centerZ, int viewingDistance, boolean force) {
+        int size = 2 * (viewingDistance / 2);
+
+        if (!force && size == _size && centerX == _centerX && centerZ == _centerZ)
+            return false;
+
+        int dx = centerX - _centerX;
+        int dz = centerZ - _centerZ;
+        boolean moved = !force && size == _size && Math.abs(dx) < size && Math.abs(dz) < size;
+
+        if (force || size != _size) {
+            _size = size;
+            _ring = new Chunk[size * size];
+            initOffsets(size);
+        }
+
+        _centerX = centerX;
+        _centerZ = centerZ;
+
+        if (!moved) {
+            // Request the closest chunks first
+            for (int i = 0; i < _offsetsX.length; i++)
+                loadChunk(centerX + _offsetsX[i], centerZ + _offsetsZ[i]);
+
+            return true;
+        }
+
+        int half = size / 2;
+
+        // The chunks which entered the window replace the ones which left it
+        if (dx > 0)
+            loadArea(centerX + half - dx, centerX + half, centerZ - half, centerZ + half);
+        else if (dx < 0)
+            loadArea(centerX - half, centerX - half - dx, centerZ - half, centerZ + half);
+
+        if (dz > 0)
+            loadArea(centerX - half, centerX + half, centerZ + half - dz, centerZ + half);
+        else if (dz < 0)
+            loadArea(centerX - half, centerX + half, centerZ - half, centerZ - half - dz);
+
+        return true;
+    }
+
+    private void loadArea(int minX, int maxX, int minZ, int maxZ) {
+        for (int x = minX; x < maxX; x++) {
+            for (int z = minZ; z < maxZ; z++)
+                loadChunk(x, z);
+        }
+    }
+
+    /**
+     * Puts the chunk at the given position into its slot, unless the slot already holds it.
+     */
+    private void loadChunk(int x, int z) {
+        int slot = slot(x, z);
+        Chunk c = _ring[slot];
+
+        if (c == null || c.isDisposed() || (int) c.getPosition().x != x || (int) c.getPosition().z != z)
+            _ring[slot] = _chunkProvider.loadOrCreateChunk(x, z);
+        else
+            _chunkProvider.touchChunk(c);
+    }
+
+    /**
+     * Estimates the velocity of the camera using its position in the last frame.
+     *
+     * @param position The current position of the camera
+     * @param delta    The time passed since the last frame in milliseconds
+     */
+    public void updateVelocity(Vector3d position, double delta) {
+        if (_positionKnown && delta > 0) {
+            double scale = 1000.0 / delta;
+            double vx = clampSpeed((position.x - _lastPosition.x) * scale);
+            double vz = clampSpeed((position.z - _lastPosition.z) * scale);
+
+            _velocity.x += (vx - _velocity.x) * VELOCITY_SMOOTHING;
+            _velocity.z += (vz - _velocity.z) * VELOCITY_SMOOTHING;
+        }
+
+        _lastPosition.set(position);
+        _positionKnown = true;
+    }
+
+    /**
+     * Forgets the measured velocity, for example after the camera was teleported.
+     */
+    public void resetVelocity() {
+        _velocity.set(0, 0, 0);
+        _positionKnown = false;
+    }
+
+    /**
+     * Loads chunks which will enter the window around the camera in the near future. The chunks closest to the
+     * predicted position of the camera are loaded first. Successive calls continue where the last call stopped
+     * until the predicted position changes.
+     *
+     * @param budget The maximum amount of chunk positions to examine
+     * @return The chunks which were loaded ahead of the camera
+     */
+    public ArrayList<Chunk> prefetch(int budget) {
+        ArrayList<Chunk> result = new ArrayList<Chunk>();
+
+        if (budget <= 0 || _size <= 0)
+            return result;
+
+        int predictedX = (int) ((_lastPosition.x + _velocity.x * PREFETCH_TIME) / Chunk.CHUNK_DIMENSION_X);
+        int predictedZ = (int) ((_lastPosition.z + _velocity.z * PREFETCH_TIME) / Chunk.CHUNK_DIMENSION_Z);
+
+        if (predictedX == _centerX && predictedZ == _centerZ)
+            return result;
+
+        if (predictedX != _prefetchX || predictedZ != _prefetchZ) {
+            _prefetchX = predictedX;
+            _prefetchZ = predictedZ;
+            _prefetchIndex = 0;
+        }
+
+        for (int examined = 0; examined < budget && _prefetchIndex < _offsetsX.length; examined++, _prefetchIndex++) {
+            int x = predictedX + _offsetsX[_prefetchIndex];
+            int z = predictedZ + _offsetsZ[_prefetchIndex];
+
+            // Chunks within the current window are already taken care of
+            if (isInWindow(x, z))
+                continue;
+
+            result.add(_chunkProvider.loadOrCreateChunk(x, z));
+        }
+
+        return result;
+    }
+
+    private boolean isInWindow(int x, int z) {
+        int half = _size / 2;
+        return x >= _centerX - half && x < _centerX + half && z >= _centerZ - half && z < _centerZ + half;
+    }
+
+    private int slot(int x, int z) {
+        int rx = x % _size;
+        int rz = z % _size;
+
+        if (rx < 0)
+            rx += _size;
+        if (rz < 0)
+            rz += _size;
+
+        return rx * _size + rz;
+    }
+
+    /**
+     * Creates the offsets of the chunks within the window, sorted by their distance to the center.
+     *
+     * @param size The size of the window
+     */
+    private void initOffsets(int size) {
+        int half = size / 2;
+        long[] keys = new long[size * size];
+
+        for (int x = 0; x < size; x++) {
+            for (int z = 0; z < size; z++) {
+                int ox = x - half;
+                int oz = z - half;
+
+                keys[x * size + z] = ((long) (ox * ox + oz * oz) << 32) | (x * size + z);
+            }
+        }
+
+        Arrays.sort(keys);
+
+        _offsetsX = new int[keys.length];
+        _offsetsZ = new int[keys.length];
+
+        for (int i = 0; i < keys.length; i++) {
+            int index = (int) keys[i];
+            _offsetsX[i] = index / size - half;
+            _offsetsZ[i] = index % size - half;
+        }
+
+        _prefetchIndex = 0;
+    }
+
+    private static double clampSpeed(double speed) {
+        return Math.max(-MAX_SPEED, Math.min(MAX_SPEED, speed));
+    }
+
+    /**
+     * Returns the chunks within the window, ordered from the closest chunk to the farthest. The list is a
+     * view of the window: after the window moved, each index refers to the chunk at the same offset to
+     * the new center.
+     */
+    public List<Chunk> getChunksInProximity() {
+        return _chunksInProximity;
+    }
+
+    public int getCenterX() {
+        return _centerX;
+    }
+
+    public int getCenterZ() {
+        return _centerZ;
+    }
+
+    /**
+     * Returns the width of the window in chunks, -1 before the first update.
+     */
+    public int getSize() {
+        return _size;
+    }
+
+    public Vector3d getVelocity() {
+        return _velocity;
+    }
+
+    /**
+     * Reads the chunks from the ring buffer using the offsets sorted by distance.
+     */
+    private final class ProximityList extends AbstractList<Chunk> implements RandomAccess {
+
+        public Chunk get(int index) {
+            return _ring[slot(_centerX + _offsetsX[index], _centerZ + _offsetsZ[index])];
+        }
+
+        public int size() {
+            return _offsetsX == null ? 0 : _offsetsX.length;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.lwjgl.opengl.GL12;
 import org.lwjgl.opengl.GL13;
 import org.lwjgl.opengl.GL20;
 import org.lwjgl.util.glu.Sphere;
+import org.terasology.game.TaskScheduler;
 import org.terasology.game.Terasology;
 import org.terasology.logic.manager.Config;
 import org.terasology.logic.manager.ShaderManager;
@@ -170,7 +171,7 @@ public class Skysphere implements IGameObject {
         if (_cloudByteBuffer == null && Terasology.getInstance().getTimeInMs() - _lastCloudUpdate >= CLOUD_UPDATE_INTERVAL) {
             _lastCloudUpdate = Terasology.getInstance().getTimeInMs();
 
-            Terasology.getInstance().submitTask("Generate Clouds", new Runnable() {
+            Terasology.getInstance().submitTask("Generate Clouds", TaskScheduler.CATEGORY.EFFECTS, new Runnable() {
                 public void run() {
                     generateNewClouds();
                 }
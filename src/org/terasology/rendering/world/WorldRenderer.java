@@ -74,8 +74,8 @@ public final class WorldRenderer implements IGameObject {
     private Camera _spawnCamera = new DefaultCamera();
 
     /* CHUNKS */
-    private final ArrayList<Chunk> _chunksInProximity = new ArrayList<Chunk>();
-    private int _chunkPosX, _chunkPosZ;
+    private final ChunkStreamer _chunkStreamer;
+    private final ChunkQuadtree _chunkQuadtree = new ChunkQuadtree();
 
     /* RENDERING */
     private final LinkedList<Chunk> _renderQueueChunksOpaque = new LinkedList<Chunk>();
@@ -127,6 +127,7 @@ public final class WorldRenderer implements IGameObject {
         _worldProvider = new LocalWorldProvider(title, seed);
         _skysphere = new Skysphere(this);
         _chunkUpdateManager = new ChunkUpdateManager();
+        _chunkStreamer = new ChunkStreamer(_worldProvider.getChunkProvider());
         _worldTimeEventManager = new WorldTimeEventManager(_worldProvider);
         _portalManager = new PortalManager(this);
         _mobManager = new MobManager(this);
@@ -143,32 +144,39 @@ public final class WorldRenderer implements IGameObject {
      * @return True if the list was changed
      */
     public boolean updateChunksInProximity(boolean force) {
-        int newChunkPosX = calcCamChunkOffsetX();
-        int newChunkPosZ = calcCamChunkOffsetZ();
-
         int viewingDistance = Config.getInstance().getActiveViewingDistance();
-
-        if (_chunkPosX != newChunkPosX || _chunkPosZ != newChunkPosZ || force) {
-
-            _chunksInProximity.clear();
-
-            for (int x = -(viewingDistance / 2); x < (viewingDistance / 2); x++) {
-                for (int z = -(viewingDistance / 2); z < (viewingDistance / 2); z++) {
-                    Chunk c = _worldProvider.getChunkProvider().loadOrCreateChunk(calcCamChunkOffsetX() + x, calcCamChunkOffsetZ() + z);
-                    _chunksInProximity.add(c);
-                }
-            }
-
-            _chunkPosX = newChunkPosX;
-            _chunkPosZ = newChunkPosZ;
-
-            Collections.sort(_chunksInProximity);
+        int oldSize = _chunkStreamer.getSize();
+        int oldCenterX = _chunkStreamer.getCenterX(), oldCenterZ = _chunkStreamer.getCenterZ();
+
+        if (_chunkStreamer.update(calcCamChunkOffsetX(), calcCamChunkOffsetZ(), viewingDistance, force)) {
+            // Each index of the list still refers to the same offset to the center of the window
+            if (!force && _chunkStreamer.getSize() == oldSize)
+                _chunkQuadtree.shift(_chunkStreamer.getCenterX() - oldCenterX, _chunkStreamer.getCenterZ() - oldCenterZ);
+            else
+                _chunkQuadtree.build(_chunkStreamer.getChunksInProximity());
+
+            // The distances of the queued chunk updates have changed
+            _chunkUpdateManager.updatePriorities();
             return true;
         }
 
         return false;
     }
 
+    /**
+     * Loads the chunks lying ahead of the camera and queues them for generation.
+     *
+     * @param delta The time passed since the last frame in milliseconds
+     */
+    private void prefetchChunks(double delta) {
+        _chunkStreamer.updateVelocity(getActiveCamera().getPosition(), delta);
+
+        for (Chunk c : _chunkStreamer.prefetch(Config.getInstance().getChunkPrefetchBudget())) {
+            if (c.isDirty() || c.isLightDirty() || c.isFresh())
+                _chunkUpdateManager.queueChunkUpdate(c, ChunkUpdateManager.UPDATE_TYPE.DEFAULT);
+        }
+    }
+
     public boolean isInRange(Vector3d pos) {
         Vector3d dist = new Vector3d();
         dist.sub(_player.getPosition(), pos);
@@ -239,10 +247,14 @@ public final class WorldRenderer implements IGameObject {
         _statVisibleChunks = 0;
         _statIgnoredPhases = 0;
 
-        for (int i = 0; i < _chunksInProximity.size(); i++) {
-            Chunk c = _chunksInProximity.get(i);
+        List<Chunk> chunksInProximity = _chunkStreamer.getChunksInProximity();
+        _chunkQuadtree.cull(getActiveCamera().getViewFrustum(), getActiveCamera().getPosition());
+
+        for (int i = 0; i < chunksInProximity.size(); i++) {
+            Chunk c = chunksInProximity.get(i);
+            _worldProvider.getChunkProvider().touchChunk(c);
 
-            if (isChunkVisible(c)) {
+            if (_chunkQuadtree.isVisible(i)) {
                 if (c.triangleCount(ChunkMesh.RENDER_PHASE.OPAQUE) > 0)
                     _renderQueueChunksOpaque.add(c);
                 else
@@ -258,7 +270,8 @@ public final class WorldRenderer implements IGameObject {
                 else
                     _statIgnoredPhases++;
 
-                c.update();
+                // The VBOs are generated by the budgeted upload stage of the chunk pipeline
+                c.swapActiveMesh();
 
                 if (c.isDirty() || c.isLightDirty() || c.isFresh()) {
                     _statDirtyChunks++;
@@ -272,6 +285,8 @@ public final class WorldRenderer implements IGameObject {
                 c.clearMeshes();
             }
         }
+
+        _chunkUpdateManager.update();
     }
 
     private void queueRenderer() {
@@ -434,6 +449,10 @@ public final class WorldRenderer implements IGameObject {
         updateChunksInProximity(false);
         PerformanceMonitor.endActivity();
 
+        PerformanceMonitor.startActivity("Prefetch Chunks");
+        prefetchChunks(delta);
+        PerformanceMonitor.endActivity();
+
         PerformanceMonitor.startActivity("Skysphere");
         _skysphere.update(delta);
         PerformanceMonitor.endActivity();
@@ -577,6 +596,7 @@ public final class WorldRenderer implements IGameObject {
 
         _player.load();
         _player.setSpawningPoint(_worldProvider.nextSpawningPoint());
+        _chunkStreamer.resetVelocity();
         updateChunksInProximity(true);
 
         _player.reset();
@@ -603,28 +623,36 @@ public final class WorldRenderer implements IGameObject {
      * Disposes this world.
      */
     public void dispose() {
+        _chunkUpdateManager.dispose();
         _worldProvider.dispose();
         _player.dispose();
         AudioManager.getInstance().stopAllSounds();
     }
 
     /**
-     * Returns true if no more chunks can be generated.
+     * Queues the closest chunks which are not up to date in the chunk pipeline and uploads the meshes
+     * of the chunks finished in the meantime.
      *
-     * @return
+     * @param amount The amount of closest chunks to generate
+     * @return The amount of these chunks which are up to date
      */
-    public boolean generateChunk() {
-        for (int i = 0; i < _chunksInProximity.size(); i++) {
-            Chunk c = _chunksInProximity.get(i);
+    public int generateChunks(int amount) {
+        int finished = 0;
+
+        List<Chunk> chunksInProximity = _chunkStreamer.getChunksInProximity();
+
+        for (int i = 0; i < chunksInProximity.size() && i < amount; i++) {
+            Chunk c = chunksInProximity.get(i);
 
             if (c.isDirty() || c.isLightDirty() || c.isFresh()) {
-                c.processChunk();
-                c.generateVBOs();
-                return false;
+                _chunkUpdateManager.queueChunkUpdate(c, ChunkUpdateManager.UPDATE_TYPE.DEFAULT);
+            } else if (!_chunkUpdateManager.isUpdating(c)) {
+                finished++;
             }
         }
 
-        return true;
+        _chunkUpdateManager.update();
+        return finished;
     }
 
     public void printScreen() {
@@ -721,8 +749,8 @@ public final class WorldRenderer implements IGameObject {
         return _tick;
     }
 
-    public ArrayList<Chunk> getChunksInProximity() {
-        return _chunksInProximity;
+    public List<Chunk> getChunksInProximity() {
+        return _chunkStreamer.getChunksInProximity();
     }
 
     public boolean isWireframe() {
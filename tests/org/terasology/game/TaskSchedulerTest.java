@@ -0,0 +1,126 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.game;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TaskSchedulerTest {
+
+    private TaskScheduler _scheduler;
+    private CountDownLatch _release;
+    private List<String> _executed;
+
+    @Before
+    public void setup() {
+        _scheduler = new TaskScheduler();
+        _release = new CountDownLatch(1);
+        _executed = Collections.synchronizedList(new ArrayList<String>());
+
+        // The IO category uses a single worker, which is blocked until the tasks are queued
+        _scheduler.submit("Block", TaskScheduler.CATEGORY.IO, new Runnable() {
+            public void run() {
+                try {
+                    _release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testPriorityOrder() throws InterruptedException {
+        submit("Background", TaskScheduler.PRIORITY.BACKGROUND, 0);
+        submit("Far", TaskScheduler.PRIORITY.VISIBLE, 100);
+        submit("Near", TaskScheduler.PRIORITY.VISIBLE, 10);
+        submit("Player", TaskScheduler.PRIORITY.PLAYER_TRIGGERED, 50);
+        submit("Near2", TaskScheduler.PRIORITY.VISIBLE, 10);
+
+        finish();
+
+        assertEquals(5, _executed.size());
+        assertEquals("Player", _executed.get(0));
+        assertEquals("Near", _executed.get(1));
+        assertEquals("Near2", _executed.get(2));
+        assertEquals("Far", _executed.get(3));
+        assertEquals("Background", _executed.get(4));
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        TaskScheduler.ScheduledTask stale = submit("Stale", TaskScheduler.PRIORITY.VISIBLE, 0);
+        submit("Other", TaskScheduler.PRIORITY.VISIBLE, 1);
+
+        assertEquals(2, waitForQueueDepth(2));
+        assertTrue(stale.cancel());
+        assertTrue(stale.isCancelled());
+        assertEquals(1, _scheduler.getQueueDepth(TaskScheduler.CATEGORY.IO));
+        assertFalse(stale.cancel());
+
+        finish();
+
+        assertEquals(1, _executed.size());
+        assertEquals("Other", _executed.get(0));
+        assertEquals(0, _scheduler.getQueueDepth(TaskScheduler.CATEGORY.IO));
+    }
+
+    @Test
+    public void testCancelAfterStart() throws InterruptedException {
+        TaskScheduler.ScheduledTask task = submit("Task", TaskScheduler.PRIORITY.VISIBLE, 0);
+
+        finish();
+
+        assertFalse(task.cancel());
+        assertFalse(task.isCancelled());
+        assertEquals(1, _executed.size());
+    }
+
+    private TaskScheduler.ScheduledTask submit(final String name, TaskScheduler.PRIORITY priority, double distance) {
+        return _scheduler.submit(name, TaskScheduler.CATEGORY.IO, priority, distance, new Runnable() {
+            public void run() {
+                _executed.add(name);
+            }
+        });
+    }
+
+    /**
+     * Waits until the blocking task has been started, so only the submitted tasks are queued.
+     */
+    private int waitForQueueDepth(int depth) throws InterruptedException {
+        for (int i = 0; i < 100 && _scheduler.getQueueDepth(TaskScheduler.CATEGORY.IO) != depth; i++) {
+            Thread.sleep(10);
+        }
+
+        return _scheduler.getQueueDepth(TaskScheduler.CATEGORY.IO);
+    }
+
+    private void finish() throws InterruptedException {
+        _release.countDown();
+        _scheduler.shutdown();
+        _scheduler.awaitTermination();
+    }
+}
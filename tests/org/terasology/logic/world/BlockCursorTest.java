@@ -0,0 +1,54 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BlockCursorTest {
+
+    @Test
+    public void testCrossesChunkBordersUsingNeighbors() {
+        TestChunkHelper.CountingChunkProvider provider = new TestChunkHelper.CountingChunkProvider();
+        Chunk center = provider.loadOrCreateChunk(0, 0);
+        Chunk west = provider.loadOrCreateChunk(-1, 0);
+        Chunk north = provider.loadOrCreateChunk(0, -1);
+        center.linkNeighbor(west);
+        center.linkNeighbor(north);
+        provider.resetRequests();
+
+        west.setBlock(15, 10, 3, (byte) 7);
+        north.setLight(2, 10, 15, (byte) 9, Chunk.LIGHT_TYPE.BLOCK);
+
+        BlockCursor cursor = new BlockCursor(provider).moveTo(0, 10, 3);
+        assertEquals(1, provider.getRequests());
+
+        assertEquals(7, cursor.move(-1, 0, 0).getBlock());
+        assertSame(west, cursor.getChunk());
+        assertEquals(-1, cursor.getX());
+
+        cursor.moveTo(2, 10, 0);
+        assertSame(center, cursor.getChunk());
+        assertEquals(9, cursor.move(0, 0, -1).getLight(Chunk.LIGHT_TYPE.BLOCK));
+        assertSame(north, cursor.getChunk());
+        assertEquals(1, provider.getRequests());
+
+        // Chunks which are not linked are requested from the provider
+        cursor.moveTo(-5, 10, -5);
+        assertEquals(2, provider.getRequests());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import org.junit.Test;
+
+import javax.vecmath.Vector3d;
+
+import static org.junit.Assert.*;
+
+public class ChunkSnapshotTest {
+
+    @Test
+    public void testSnapshotIncludesBorder() {
+        Chunk center = TestChunkHelper.createChunk(3, -2);
+        Chunk[] neighbors = createNeighbors(3, -2);
+        ChunkSnapshot snapshot = new ChunkSnapshot(center, neighbors);
+
+        assertEquals(3, snapshot.getChunkPosX());
+        assertEquals(-2, snapshot.getChunkPosZ());
+
+        for (int y = 0; y < Chunk.CHUNK_DIMENSION_Y; y += 7) {
+            for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x++) {
+                for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z++) {
+                    assertEquals(center.getBlock(x, y, z), snapshot.getBlock(x, y, z));
+                    assertEquals(center.getLight(x, y, z, Chunk.LIGHT_TYPE.BLOCK), snapshot.getLight(x, y, z, Chunk.LIGHT_TYPE.BLOCK));
+                }
+            }
+
+            for (int i = 0; i < Chunk.CHUNK_DIMENSION_Z; i++) {
+                // The neighbors are ordered +x, -x, +z, -z, +x+z, -x-z, -x+z, +x-z
+                assertEquals(neighbors[0].getBlock(0, y, i), snapshot.getBlock(Chunk.CHUNK_DIMENSION_X, y, i));
+                assertEquals(neighbors[1].getBlock(Chunk.CHUNK_DIMENSION_X - 1, y, i), snapshot.getBlock(-1, y, i));
+                assertEquals(neighbors[2].getBlock(i, y, 0), snapshot.getBlock(i, y, Chunk.CHUNK_DIMENSION_Z));
+                assertEquals(neighbors[3].getLight(i, y, Chunk.CHUNK_DIMENSION_Z - 1, Chunk.LIGHT_TYPE.SUN), snapshot.getLight(i, y, -1, Chunk.LIGHT_TYPE.SUN));
+            }
+
+            assertEquals(neighbors[4].getBlock(0, y, 0), snapshot.getBlock(Chunk.CHUNK_DIMENSION_X, y, Chunk.CHUNK_DIMENSION_Z));
+            assertEquals(neighbors[5].getBlock(Chunk.CHUNK_DIMENSION_X - 1, y, Chunk.CHUNK_DIMENSION_Z - 1), snapshot.getBlock(-1, y, -1));
+            assertEquals(neighbors[6].getBlock(Chunk.CHUNK_DIMENSION_X - 1, y, 0), snapshot.getBlock(-1, y, Chunk.CHUNK_DIMENSION_Z));
+            assertEquals(neighbors[7].getBlock(0, y, Chunk.CHUNK_DIMENSION_Z - 1), snapshot.getBlock(Chunk.CHUNK_DIMENSION_X, y, -1));
+        }
+    }
+
+    @Test
+    public void testOutOfBounds() {
+        ChunkSnapshot snapshot = new ChunkSnapshot(TestChunkHelper.createChunk(0, 0), createNeighbors(0, 0));
+
+        assertEquals(0, snapshot.getBlock(0, -1, 0));
+        assertEquals(0, snapshot.getBlock(0, Chunk.CHUNK_DIMENSION_Y, 0));
+        assertEquals(0, snapshot.getBlock(-2, 0, 0));
+        assertEquals(15, snapshot.getLight(0, Chunk.CHUNK_DIMENSION_Y, 0, Chunk.LIGHT_TYPE.SUN));
+
+        // The border above and below the chunk can be accessed by index
+        assertEquals(0, snapshot.getBlock(ChunkSnapshot.index(-1, -1, 16)));
+        assertEquals(15, snapshot.getSunlight(ChunkSnapshot.index(16, Chunk.CHUNK_DIMENSION_Y, -1)));
+        assertEquals(15, snapshot.getBlockLight(ChunkSnapshot.index(3, -1, 4)));
+        assertEquals(ChunkSnapshot.index(3, 0, 4) + 17, ChunkSnapshot.index(3, 17, 4));
+    }
+
+    @Test
+    public void testSnapshotIsNotAffectedByModifications() {
+        Chunk center = TestChunkHelper.createChunk(0, 0);
+        ChunkSnapshot snapshot = new ChunkSnapshot(center, createNeighbors(0, 0));
+        byte block = center.getBlock(5, 10, 5);
+        int version = center.getVersion();
+
+        center.setBlock(5, 10, 5, (byte) (block + 1));
+
+        assertEquals(block, snapshot.getBlock(5, 10, 5));
+        assertTrue(version != center.getVersion());
+        assertTrue(snapshot.isConsistent());
+    }
+
+    @Test
+    public void testTornSnapshotIsNotConsistent() {
+        // Every check sees another modification, so no copy can be trusted
+        Chunk center = new Chunk() {
+            private int _modifications;
+
+            public int getVersion() {
+                return _modifications++;
+            }
+        };
+        center.setPosition(new Vector3d(0, 0, 0));
+
+        assertFalse(new ChunkSnapshot(center, createNeighbors(0, 0)).isConsistent());
+    }
+
+    @Test
+    public void testEnclosedSections() {
+        Chunk center = TestChunkHelper.createChunk(0, 0);
+        Chunk[] neighbors = createNeighbors(0, 0);
+        int section = Chunk.SECTIONS - 3;
+
+        ChunkSnapshot snapshot = new ChunkSnapshot(center, neighbors);
+        assertEquals(0, snapshot.getSectionBlock(section));
+        assertTrue(snapshot.isSectionEnclosed(section));
+        // The sections touching the surface or the top of the chunk are exposed
+        assertFalse(snapshot.isSectionEnclosed(64 / Chunk.SECTION_HEIGHT));
+        assertFalse(snapshot.isSectionEnclosed(64 / Chunk.SECTION_HEIGHT + 1));
+        assertTrue(snapshot.isSectionEnclosed(64 / Chunk.SECTION_HEIGHT + 2));
+        assertFalse(snapshot.isSectionEnclosed(Chunk.SECTIONS - 1));
+
+        // The summary of the neighbors is used, so any change to them exposes the section
+        neighbors[2].setBlock(3, section * Chunk.SECTION_HEIGHT, 3, (byte) 1);
+        snapshot = new ChunkSnapshot(center, neighbors);
+        assertEquals(0, snapshot.getSectionBlock(section));
+        assertFalse(snapshot.isSectionEnclosed(section));
+    }
+
+    private static Chunk[] createNeighbors(int x, int z) {
+        return new Chunk[]{
+                TestChunkHelper.createChunk(x + 1, z), TestChunkHelper.createChunk(x - 1, z),
+                TestChunkHelper.createChunk(x, z + 1), TestChunkHelper.createChunk(x, z - 1),
+                TestChunkHelper.createChunk(x + 1, z + 1), TestChunkHelper.createChunk(x - 1, z - 1),
+                TestChunkHelper.createChunk(x - 1, z + 1), TestChunkHelper.createChunk(x + 1, z - 1)
+        };
+    }
+}
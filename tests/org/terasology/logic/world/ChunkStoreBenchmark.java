@@ -0,0 +1,130 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import org.terasology.logic.world.codecs.ChunkCodecs;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Compares the load and save throughput of the available chunk stores. Run the main method with the
+ * amount of chunks to use as optional argument.
+ */
+public class ChunkStoreBenchmark {
+
+    private static final int WARM_UP_ROUNDS = 2;
+
+    public static void main(String[] args) throws IOException {
+        int chunkCount = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int side = (int) Math.ceil(Math.sqrt(chunkCount));
+
+        Chunk[] chunks = new Chunk[side * side];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = TestChunkHelper.createChunk(i % side - side / 2, i / side - side / 2);
+        }
+
+        for (int i = 0; i <= WARM_UP_ROUNDS; i++) {
+            boolean report = i == WARM_UP_ROUNDS;
+
+            File legacyPath = createTempDirectory();
+            run("Legacy", new ChunkStoreLegacy(legacyPath), chunks, legacyPath, report);
+
+            File regionPath = createTempDirectory();
+            run("Region", new ChunkStoreRegion(regionPath, false), chunks, regionPath, report);
+
+            File mappedPath = createTempDirectory();
+            run("Region (mapped)", new ChunkStoreRegion(mappedPath, true), chunks, mappedPath, report);
+
+            File rawPath = createTempDirectory();
+            run("Region (mapped, raw)", new ChunkStoreRegion(rawPath, true, ChunkCodecs.RAW, ChunkCodecs.RAW), chunks, rawPath, report);
+
+            File deflatePath = createTempDirectory();
+            run("Region (mapped, deflate)", new ChunkStoreRegion(deflatePath, true, ChunkCodecs.DEFLATE, ChunkCodecs.DEFLATE), chunks, deflatePath, report);
+        }
+    }
+
+    private static void run(String name, IChunkStore store, Chunk[] chunks, File savePath, boolean report) {
+        long start = System.nanoTime();
+        for (Chunk c : chunks) {
+            store.saveChunk(c);
+        }
+        store.dispose();
+        long saveTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Chunk c : chunks) {
+            store.loadChunk((int) c.getPosition().x, (int) c.getPosition().z);
+        }
+        store.dispose();
+        long loadTime = System.nanoTime() - start;
+
+        if (report) {
+            System.out.println(String.format("%s: %d chunks, save %.1f chunks/s, load %.1f chunks/s, %d files, %.2f MiB",
+                    name, chunks.length, chunks.length / (saveTime / 1e9), chunks.length / (loadTime / 1e9),
+                    countFiles(savePath), sizeOf(savePath) / (1024.0 * 1024.0)));
+        }
+
+        deleteRecursively(savePath);
+    }
+
+    private static File createTempDirectory() throws IOException {
+        File f = File.createTempFile("terasology", "benchmark");
+        f.delete();
+        f.mkdirs();
+        return f;
+    }
+
+    private static int countFiles(File f) {
+        File[] children = f.listFiles();
+
+        if (children == null)
+            return 1;
+
+        int result = 0;
+        for (File child : children) {
+            result += countFiles(child);
+        }
+
+        return result;
+    }
+
+    private static long sizeOf(File f) {
+        File[] children = f.listFiles();
+
+        if (children == null)
+            return f.length();
+
+        long result = 0;
+        for (File child : children) {
+            result += sizeOf(child);
+        }
+
+        return result;
+    }
+
+    private static void deleteRecursively(File f) {
+        File[] children = f.listFiles();
+
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+
+        f.delete();
+    }
+}
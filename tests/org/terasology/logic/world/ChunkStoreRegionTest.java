@@ -0,0 +1,243 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.logic.world.codecs.ChunkCodecs;
+import org.terasology.model.structures.IChunkCodec;
+
+import javax.vecmath.Vector3d;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class ChunkStoreRegionTest {
+
+    private File _savePath;
+
+    @Before
+    public void setup() throws IOException {
+        _savePath = File.createTempFile("terasology", "world");
+        _savePath.delete();
+        _savePath.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        deleteRecursively(_savePath);
+    }
+
+    @Test
+    public void testRegionPositions() {
+        assertEquals(0, RegionFile.regionPos(0));
+        assertEquals(0, RegionFile.regionPos(31));
+        assertEquals(1, RegionFile.regionPos(32));
+        assertEquals(-1, RegionFile.regionPos(-1));
+        assertEquals(-1, RegionFile.regionPos(-32));
+        assertEquals(-2, RegionFile.regionPos(-33));
+        assertEquals(RegionFile.localIndex(31, 31), RegionFile.localIndex(-1, -1));
+    }
+
+    @Test
+    public void testRegionFileReadAndWrite() throws IOException {
+        File f = new File(_savePath, "test.tr");
+        RegionFile region = new RegionFile(f);
+
+        assertNull(region.read(3, 4));
+
+        byte[] small = createData(100, (byte) 1);
+        byte[] large = createData(10000, (byte) 2);
+        byte[] other = createData(5000, (byte) 3);
+
+        region.write(3, 4, small, small.length);
+        long length = f.length();
+        region.write(5, 6, other, other.length);
+        assertArrayEquals(small, region.read(3, 4));
+
+        // The file grows ahead of the appended data
+        assertEquals(length, f.length());
+
+        // Grow the first entry beyond its sector...
+        region.write(3, 4, large, large.length);
+        assertArrayEquals(large, region.read(3, 4));
+        assertArrayEquals(other, region.read(5, 6));
+
+        // ... and shrink it again
+        region.write(3, 4, small, small.length);
+        assertArrayEquals(small, region.read(3, 4));
+        region.close();
+
+        // The offset table has to survive reopening the file
+        region = new RegionFile(f);
+        assertTrue(region.contains(3, 4));
+        assertFalse(region.contains(4, 3));
+        assertArrayEquals(small, region.read(3, 4));
+        assertArrayEquals(other, region.read(5, 6));
+
+        // Mapped reads have to see the same data, even after the file has grown
+        assertArrayEquals(small, region.readMapped(3, 4));
+        region.write(7, 8, large, large.length);
+        assertArrayEquals(large, region.readMapped(7, 8));
+        assertNull(region.readMapped(8, 7));
+        region.close();
+    }
+
+    @Test
+    public void testChunkRoundTrip() {
+        testChunkRoundTrip(new ChunkStoreRegion(_savePath, false));
+    }
+
+    @Test
+    public void testChunkRoundTripMapped() {
+        testChunkRoundTrip(new ChunkStoreRegion(_savePath, true));
+    }
+
+    private void testChunkRoundTrip(ChunkStoreRegion store) {
+        Chunk chunk = TestChunkHelper.createChunk(-40, 7);
+
+        store.saveChunk(chunk);
+        store.dispose();
+
+        Chunk loaded = store.loadChunk(-40, 7);
+        assertNotNull(loaded);
+        TestChunkHelper.assertChunksEqual(chunk, loaded);
+        assertNull(store.loadChunk(-40, 8));
+
+        // Overwrite the chunk while its region is mapped
+        Chunk other = TestChunkHelper.createChunk(-40, 7);
+        other.setFresh(true);
+        store.saveChunk(other);
+        TestChunkHelper.assertChunksEqual(other, store.loadChunk(-40, 7));
+        store.dispose();
+    }
+
+    @Test
+    public void testChunkDataCodecs() throws IOException {
+        Chunk chunk = TestChunkHelper.createChunk(12, -9);
+        IChunkCodec[] codecs = {ChunkCodecs.RAW, ChunkCodecs.RUN_LENGTH, ChunkCodecs.PAGE_ELISION, ChunkCodecs.DEFLATE};
+
+        for (IChunkCodec blockCodec : codecs) {
+            for (IChunkCodec nibbleCodec : codecs) {
+                ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(byteOut);
+                chunk.writeChunkData(out, blockCodec, nibbleCodec);
+                out.flush();
+
+                Chunk loaded = new Chunk();
+                loaded.readChunkData(ByteBuffer.wrap(byteOut.toByteArray()));
+                TestChunkHelper.assertChunksEqual(chunk, loaded);
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnsupportedChunkDataVersion() throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(16);
+        data.putShort((short) 0x5443).put((byte) 100).rewind();
+
+        new Chunk().readChunkData(data);
+    }
+
+    @Test
+    public void testMigration() {
+        ChunkStoreLegacy legacy = new ChunkStoreLegacy(_savePath);
+        Chunk first = TestChunkHelper.createChunk(0, 0);
+        Chunk second = TestChunkHelper.createChunk(-3, 70);
+        legacy.saveChunk(first);
+        legacy.saveChunk(second);
+
+        ChunkStoreRegion store = new ChunkStoreRegion(_savePath);
+        assertEquals(2, legacy.migrateTo(store));
+        assertNull(legacy.loadChunk(0, 0));
+
+        TestChunkHelper.assertChunksEqual(first, store.loadChunk(0, 0));
+        TestChunkHelper.assertChunksEqual(second, store.loadChunk(-3, 70));
+
+        // Nothing left to migrate
+        assertEquals(0, legacy.migrateTo(store));
+        store.dispose();
+    }
+
+    @Test
+    public void testMigrationKeepsChunksWhichCouldNotBeMoved() throws IOException {
+        ChunkStoreLegacy legacy = new ChunkStoreLegacy(_savePath);
+        Chunk chunk = TestChunkHelper.createChunk(1, 2);
+        legacy.saveChunk(chunk);
+
+        // A corrupt chunk file
+        Vector3d corruptPosition = new Vector3d(4, 0, 5);
+        File corruptDir = new File(_savePath, Chunk.getChunkSavePathForPosition(corruptPosition));
+        corruptDir.mkdirs();
+        File corrupt = new File(corruptDir, Chunk.getChunkFileNameForPosition(corruptPosition));
+        FileOutputStream out = new FileOutputStream(corrupt);
+        out.write(createData(64, (byte) 3));
+        out.close();
+
+        // A store failing to write the chunks
+        IChunkStore failingStore = new IChunkStore() {
+            public Chunk loadChunk(int x, int z) {
+                return null;
+            }
+
+            public boolean saveChunk(Chunk c) {
+                return false;
+            }
+
+            public void dispose() {
+            }
+        };
+
+        assertEquals(0, legacy.migrateTo(failingStore));
+        assertTrue(corrupt.exists());
+        TestChunkHelper.assertChunksEqual(chunk, legacy.loadChunk(1, 2));
+
+        ChunkStoreRegion store = new ChunkStoreRegion(_savePath);
+        assertEquals(1, legacy.migrateTo(store));
+        assertTrue(corrupt.exists());
+        assertNull(legacy.loadChunk(1, 2));
+        store.dispose();
+    }
+
+    private static byte[] createData(int length, byte seed) {
+        byte[] result = new byte[length];
+
+        for (int i = 0; i < length; i++) {
+            result[i] = (byte) (i * seed);
+        }
+
+        return result;
+    }
+
+    private static void deleteRecursively(File f) {
+        File[] children = f.listFiles();
+
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+
+        f.delete();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class ChunkTest {
+
+    @Test
+    public void testChangesMarkOnlyAffectedSegmentsDirty() {
+        Chunk c = TestChunkHelper.createChunk(0, 0);
+        c.setDirty(false);
+        assertFalse(c.isDirty());
+
+        int y = Chunk.SEGMENT_HEIGHT / 2;
+        c.setBlock(5, y, 5, (byte) 1);
+        assertTrue(c.isDirty());
+
+        for (int i = 0; i < Chunk.VERTICAL_SEGMENTS; i++)
+            assertEquals(i == 0, c.isSegmentDirty(i));
+
+        // Changes at the border of a segment affect the vertices of the segment below
+        c.setDirty(false);
+        c.setLight(5, Chunk.SEGMENT_HEIGHT, 5, (byte) 7, Chunk.LIGHT_TYPE.BLOCK);
+
+        for (int i = 0; i < Chunk.VERTICAL_SEGMENTS; i++)
+            assertEquals(i == 0 || i == 1, c.isSegmentDirty(i));
+
+        // Nothing changes if the value stays the same
+        c.setDirty(false);
+        c.setLight(5, Chunk.SEGMENT_HEIGHT, 5, (byte) 7, Chunk.LIGHT_TYPE.BLOCK);
+        assertFalse(c.isDirty());
+
+        c.markDirty(-10, Chunk.CHUNK_DIMENSION_Y + 10);
+        for (int i = 0; i < Chunk.VERTICAL_SEGMENTS; i++)
+            assertTrue(c.isSegmentDirty(i));
+    }
+
+    @Test
+    public void testSectionSummary() {
+        Chunk c = TestChunkHelper.createChunk(0, 0);
+
+        // The surface is the only mixed section, there is air above it
+        for (int i = 64 / Chunk.SECTION_HEIGHT; i < Chunk.SECTIONS; i++)
+            assertEquals(i == 64 / Chunk.SECTION_HEIGHT ? Chunk.MIXED_SECTION : 0, c.getSectionBlock(i));
+
+        int section = Chunk.SECTIONS - 1;
+        c.setBlock(5, section * Chunk.SECTION_HEIGHT, 5, (byte) 0);
+        assertEquals(0, c.getSectionBlock(section));
+
+        c.setBlock(5, section * Chunk.SECTION_HEIGHT, 5, (byte) 3);
+        assertEquals(Chunk.MIXED_SECTION, c.getSectionBlock(section));
+
+        // Out of range changes are ignored
+        c.setBlock(5, -1, 5, (byte) 3);
+        c.setBlock(5, Chunk.CHUNK_DIMENSION_Y, 5, (byte) 3);
+        assertEquals(0, c.getSectionBlock(section - 1));
+    }
+
+    @Test
+    public void testHeightsArePersisted() throws IOException {
+        Chunk c = new Chunk();
+        assertEquals(-1, c.getSurfaceHeight(3, 4));
+        assertTrue(c.canBlockSeeTheSky(3, -5, 4));
+
+        // Placing air above the surface keeps the heights
+        c.setBlock(3, 10, 4, (byte) 0);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        c.writeChunkData(new DataOutputStream(bytes));
+
+        // The loaded chunk does not have to scan its columns, which would require the blocks
+        Chunk loaded = new Chunk();
+        loaded.readChunkData(ByteBuffer.wrap(bytes.toByteArray()));
+        assertEquals(-1, loaded.getSurfaceHeight(3, 4));
+        assertTrue(loaded.canBlockSeeTheSky(3, 0, 4));
+    }
+}
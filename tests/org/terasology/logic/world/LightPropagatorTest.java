@@ -0,0 +1,109 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LightPropagatorTest {
+
+    private TestChunkHelper.CountingChunkProvider _provider;
+    private LightPropagator _propagator;
+
+    @Before
+    public void setUp() {
+        _provider = new TestChunkHelper.CountingChunkProvider();
+        _propagator = new LightPropagator(TestChunkHelper.createBlocks());
+    }
+
+    @Test
+    public void testSpreadTorch() {
+        _propagator.spreadLight(_provider, 8, 10, 8, (byte) 15, Chunk.LIGHT_TYPE.BLOCK);
+
+        assertEquals(15, getLight(8, 10, 8));
+        assertEquals(14, getLight(9, 10, 8));
+        assertEquals(14, getLight(8, 9, 8));
+        assertEquals(11, getLight(8, 10, 12));
+        assertEquals(9, getLight(10, 12, 10));
+        assertEquals(1, getLight(8, 10, 22));
+        assertEquals(0, getLight(8, 10, 23));
+
+        // The sunlight is not touched
+        assertEquals(0, _provider.loadOrCreateChunk(0, 0).getLight(9, 10, 8, Chunk.LIGHT_TYPE.SUN));
+    }
+
+    @Test
+    public void testOpaqueBlocksStopLight() {
+        // A wall between the torch and the next block on the x-axis
+        for (int y = 8; y <= 12; y++) {
+            for (int z = 6; z <= 10; z++)
+                _provider.loadOrCreateChunk(0, 0).setBlock(9, y, z, (byte) 1);
+        }
+
+        _propagator.spreadLight(_provider, 8, 10, 8, (byte) 15, Chunk.LIGHT_TYPE.BLOCK);
+
+        assertEquals(0, getLight(9, 10, 8));
+        // The light has to travel around the wall
+        assertEquals(7, getLight(10, 10, 8));
+    }
+
+    @Test
+    public void testLightCrossesChunkBorders() {
+        _propagator.spreadLight(_provider, 14, 10, -2, (byte) 15, Chunk.LIGHT_TYPE.BLOCK);
+
+        assertEquals(15, getLight(14, 10, -2));
+        assertEquals(13, getLight(16, 10, -2));
+        assertEquals(12, getLight(14, 10, 1));
+        assertEquals(11, getLight(16, 10, 0));
+        assertEquals(4, getLight(20, 10, -7));
+
+        assertEquals(11, _provider.loadOrCreateChunk(1, 0).getLight(0, 10, 0, Chunk.LIGHT_TYPE.BLOCK));
+        assertEquals(4, _provider.loadOrCreateChunk(1, -1).getLight(4, 10, 9, Chunk.LIGHT_TYPE.BLOCK));
+    }
+
+    @Test
+    public void testRemoveTorch() {
+        _propagator.spreadLight(_provider, 8, 10, 8, (byte) 15, Chunk.LIGHT_TYPE.BLOCK);
+        _propagator.unspreadLight(_provider, 8, 10, 8, (byte) 15, Chunk.LIGHT_TYPE.BLOCK);
+
+        for (int x = -8; x < 24; x++) {
+            for (int y = 0; y < 24; y++) {
+                for (int z = -8; z < 24; z++)
+                    assertEquals(0, getLight(x, y, z));
+            }
+        }
+    }
+
+    @Test
+    public void testRemovedLightIsFilledByOtherSources() {
+        _propagator.spreadLight(_provider, 8, 10, 8, (byte) 15, Chunk.LIGHT_TYPE.BLOCK);
+        _propagator.spreadLight(_provider, 20, 10, 8, (byte) 10, Chunk.LIGHT_TYPE.BLOCK);
+        assertEquals(11, getLight(12, 10, 8));
+
+        _propagator.unspreadLight(_provider, 8, 10, 8, (byte) 15, Chunk.LIGHT_TYPE.BLOCK);
+
+        assertEquals(0, getLight(8, 10, 8));
+        assertEquals(2, getLight(12, 10, 8));
+        assertEquals(8, getLight(18, 10, 8));
+        assertEquals(10, getLight(20, 10, 8));
+    }
+
+    private byte getLight(int x, int y, int z) {
+        return _provider.loadOrCreateChunk(x >> 4, z >> 4).getLight(x & 15, y, z & 15, Chunk.LIGHT_TYPE.BLOCK);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import org.junit.Test;
+
+import javax.vecmath.Vector3d;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LocalChunkCacheTest {
+
+    private static final int THREADS = 16;
+    private static final int DIMENSION = 8;
+
+    @Test
+    public void testEachChunkIsLoadedOnce() throws InterruptedException {
+        final CountingChunkStore store = new CountingChunkStore();
+        final LocalChunkCache cache = new LocalChunkCache(null, store);
+        final Chunk[][][] results = new Chunk[THREADS][DIMENSION][DIMENSION];
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger failures = new AtomicInteger();
+
+        Thread[] threads = new Thread[THREADS];
+
+        for (int i = 0; i < THREADS; i++) {
+            final int thread = i;
+
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+
+                        // Every thread walks the chunks in a different order
+                        for (int j = 0; j < DIMENSION * DIMENSION; j++) {
+                            int index = (j * 7 + thread * 13) % (DIMENSION * DIMENSION);
+                            int x = index % DIMENSION, z = index / DIMENSION;
+                            results[thread][x][z] = cache.loadOrCreateChunk(x - DIMENSION / 2, z - DIMENSION / 2);
+                        }
+                    } catch (Throwable e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            };
+
+            threads[i].start();
+        }
+
+        start.countDown();
+
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(0, failures.get());
+        assertEquals(DIMENSION * DIMENSION, cache.size());
+        assertEquals(DIMENSION * DIMENSION, store._loads.size());
+
+        for (AtomicInteger loads : store._loads.values())
+            assertEquals(1, loads.get());
+
+        // All threads have to share the same chunk instances
+        for (int x = 0; x < DIMENSION; x++) {
+            for (int z = 0; z < DIMENSION; z++) {
+                for (int i = 1; i < THREADS; i++)
+                    assertSame(results[0][x][z], results[i][x][z]);
+            }
+        }
+
+        // The chunks reference their neighbors, no matter in which order they have been loaded
+        for (int x = 0; x < DIMENSION; x++) {
+            for (int z = 0; z < DIMENSION; z++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        boolean inside = x + dx >= 0 && z + dz >= 0 && x + dx < DIMENSION && z + dz < DIMENSION;
+                        assertSame(inside ? results[0][x + dx][z + dz] : null, results[0][x][z].getNeighbor(dx, dz));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedChunks() throws InterruptedException {
+        CountingChunkStore store = new CountingChunkStore();
+        LocalChunkCache cache = new LocalChunkCache(null, store, 16);
+
+        for (int x = 0; x < 16; x++)
+            cache.loadOrCreateChunk(x, 0);
+
+        cache.flushCache();
+
+        for (int x = 8; x < 16; x++)
+            cache.touchChunk(cache.loadOrCreateChunk(x, 0));
+
+        cache.flushCache();
+
+        for (int x = 16; x < 20; x++)
+            cache.loadOrCreateChunk(x, 0);
+
+        // The cache shrinks to its low-water mark of 14 chunks, evicting six of the unused chunks
+        cache.flushCache();
+        waitFor(store, 6);
+        assertEquals(14, cache.size());
+
+        int evicted = -1;
+
+        for (int x = 0; x < 20; x++) {
+            if (store._saves.containsKey(x + ",0")) {
+                assertTrue(x < 8);
+                evicted = x;
+            }
+        }
+
+        // Evicted chunks are no longer referenced by their neighbors
+        assertNull(cache.loadOrCreateChunk(evicted + 1, 0).getNeighbor(-1, 0));
+
+        // The recently used chunks are still cached...
+        for (int x = 8; x < 20; x++) {
+            cache.loadOrCreateChunk(x, 0);
+            assertEquals(1, store._loads.get(x + ",0").get());
+        }
+
+        // ... while evicted chunks are loaded again
+        Chunk reloaded = cache.loadOrCreateChunk(evicted, 0);
+        assertEquals(2, store._loads.get(evicted + ",0").get());
+        assertSame(reloaded, cache.loadOrCreateChunk(evicted + 1, 0).getNeighbor(-1, 0));
+    }
+
+    private static void waitFor(CountingChunkStore store, int saves) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000;
+
+        while (store._saves.size() < saves && System.currentTimeMillis() < timeout)
+            Thread.sleep(10);
+
+        assertEquals(saves, store._saves.size());
+    }
+
+    private static class CountingChunkStore implements IChunkStore {
+        private final ConcurrentHashMap<String, AtomicInteger> _loads = new ConcurrentHashMap<String, AtomicInteger>();
+        private final ConcurrentHashMap<String, Chunk> _saves = new ConcurrentHashMap<String, Chunk>();
+
+        public Chunk loadChunk(int x, int z) {
+            AtomicInteger loads = new AtomicInteger();
+            AtomicInteger present = _loads.putIfAbsent(x + "," + z, loads);
+            (present != null ? present : loads).incrementAndGet();
+
+            // Give the other threads a chance to request the same chunk
+            Thread.yield();
+
+            Chunk c = new Chunk();
+            c.setPosition(new Vector3d(x, 0, z));
+            return c;
+        }
+
+        public boolean saveChunk(Chunk c) {
+            _saves.put((int) c.getPosition().x + "," + (int) c.getPosition().z, c);
+            return true;
+        }
+
+        public void dispose() {
+        }
+    }
+}
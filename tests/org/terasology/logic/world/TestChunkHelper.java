@@ -0,0 +1,203 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world;
+
+import org.terasology.math.Side;
+import org.terasology.math.Vector3i;
+import org.terasology.model.blocks.Block;
+import org.terasology.model.shapes.BlockMeshPart;
+import org.terasology.utilities.FastRandom;
+
+import javax.vecmath.Vector2f;
+import javax.vecmath.Vector3f;
+import javax.vecmath.Vector3d;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Creates detached chunks filled with terrain-like data for tests and benchmarks.
+ */
+public class TestChunkHelper {
+
+    /**
+     * Creates a chunk at the given position: stone below y = 64 with a few ores, a grass layer, air
+     * above and a sunlight layer matching the surface.
+     */
+    public static Chunk createChunk(int x, int z) {
+        FastRandom rand = new FastRandom(x * 31 + z);
+
+        try {
+            ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(byteOut);
+
+            out.writeInt(x);
+            out.writeInt(z);
+            out.writeByte(0);
+
+            for (int bx = 0; bx < Chunk.CHUNK_DIMENSION_X; bx++) {
+                for (int by = 0; by < Chunk.CHUNK_DIMENSION_Y; by++) {
+                    for (int bz = 0; bz < Chunk.CHUNK_DIMENSION_Z; bz++) {
+                        if (by < 64) {
+                            out.writeByte((rand.randomInt() & 63) == 0 ? 5 : 1);
+                        } else if (by == 64) {
+                            out.writeByte(2);
+                        } else {
+                            out.writeByte(0);
+                        }
+                    }
+                }
+            }
+
+            int packedSize = Chunk.CHUNK_DIMENSION_X * Chunk.CHUNK_DIMENSION_Y * Chunk.CHUNK_DIMENSION_Z / 2;
+
+            // Sunlight, block light and states
+            for (int i = 0; i < packedSize; i++)
+                out.writeByte(i > packedSize / 2 ? 0xFF : 0);
+            for (int i = 0; i < packedSize; i++)
+                out.writeByte((rand.randomInt() & 255) == 0 ? 0x4C : 0);
+            for (int i = 0; i < packedSize; i++)
+                out.writeByte(0);
+
+            out.flush();
+
+            Chunk result = new Chunk();
+            result.readChunkData(ByteBuffer.wrap(byteOut.toByteArray()));
+            return result;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static void assertChunksEqual(Chunk expected, Chunk actual) {
+        assertEquals(expected.getPosition(), actual.getPosition());
+        assertEquals(expected.isFresh(), actual.isFresh());
+        assertEquals(expected.isLightDirty(), actual.isLightDirty());
+
+        for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x++) {
+            for (int y = 0; y < Chunk.CHUNK_DIMENSION_Y; y++) {
+                for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z++) {
+                    assertEquals(expected.getBlock(x, y, z), actual.getBlock(x, y, z));
+                    assertEquals(expected.getLight(x, y, z, Chunk.LIGHT_TYPE.SUN), actual.getLight(x, y, z, Chunk.LIGHT_TYPE.SUN));
+                    assertEquals(expected.getLight(x, y, z, Chunk.LIGHT_TYPE.BLOCK), actual.getLight(x, y, z, Chunk.LIGHT_TYPE.BLOCK));
+                    assertEquals(expected.getState(x, y, z), actual.getState(x, y, z));
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates air and the full blocks used by TestChunkHelper, each using its own texture tile.
+     */
+    public static Block[] createBlocks() {
+        Block[] blocks = new Block[256];
+        blocks[0] = new Block().withId((byte) 0).withTitle("Air").withInvisible(true).withTranslucent(true).withCastsShadows(false);
+
+        for (int id : new int[]{1, 2, 5}) {
+            Block block = new Block().withId((byte) id).withTitle("Block " + id);
+
+            for (Side side : Side.values()) {
+                Vector2f atlasOffset = new Vector2f(id * Block.TEXTURE_OFFSET, side.ordinal() * Block.TEXTURE_OFFSET);
+                block.withSideMesh(side, createQuad(side).mapTexCoords(atlasOffset, Block.TEXTURE_OFFSET_WIDTH));
+                block.withFullSide(side, true);
+            }
+
+            blocks[id] = block;
+        }
+
+        for (int i = 0; i < blocks.length; i++) {
+            if (blocks[i] == null)
+                blocks[i] = blocks[0];
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Creates a quad covering the given side of a block, using the whole texture.
+     */
+    public static BlockMeshPart createQuad(Side side) {
+        Vector3i normal = side.getVector3i();
+        int n = (normal.x != 0) ? 0 : (normal.y != 0) ? 1 : 2;
+        int u = (n == 0) ? 1 : 0, v = (n == 2) ? 1 : 2;
+
+        float[][] corners = {{-0.5f, -0.5f}, {0.5f, -0.5f}, {0.5f, 0.5f}, {-0.5f, 0.5f}};
+        Vector3f[] vertices = new Vector3f[4];
+        Vector3f[] normals = new Vector3f[4];
+        Vector2f[] texCoords = new Vector2f[4];
+
+        for (int i = 0; i < 4; i++) {
+            float[] position = new float[3];
+            position[n] = 0.5f * (normal.x + normal.y + normal.z);
+            position[u] = corners[i][0];
+            position[v] = corners[i][1];
+
+            vertices[i] = new Vector3f(position[0], position[1], position[2]);
+            normals[i] = new Vector3f(normal.x, normal.y, normal.z);
+            texCoords[i] = new Vector2f(corners[i][0] + 0.5f, 0.5f - corners[i][1]);
+        }
+
+        return new BlockMeshPart(vertices, normals, texCoords, new int[]{0, 1, 2, 0, 2, 3});
+    }
+
+    /**
+     * Keeps empty detached chunks in memory and counts how often chunks are requested. Chunks which have been
+     * disposed are replaced by new ones.
+     */
+    public static class CountingChunkProvider implements IChunkProvider {
+        private final HashMap<String, Chunk> _chunks = new HashMap<String, Chunk>();
+        private int _requests;
+
+        public Chunk loadOrCreateChunk(int x, int z) {
+            _requests++;
+            Chunk c = _chunks.get(x + "," + z);
+
+            if (c == null || c.isDisposed()) {
+                c = new Chunk();
+                c.setPosition(new Vector3d(x, 0, z));
+                _chunks.put(x + "," + z, c);
+            }
+
+            return c;
+        }
+
+        /**
+         * Returns the amount of calls to loadOrCreateChunk(...) since the provider was created or last reset.
+         */
+        public int getRequests() {
+            return _requests;
+        }
+
+        public void resetRequests() {
+            _requests = 0;
+        }
+
+        public void touchChunk(Chunk c) {
+        }
+
+        public void flushCache() {
+        }
+
+        public void dispose() {
+        }
+
+        public int size() {
+            return _chunks.size();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.world.codecs;
+
+import org.junit.Test;
+import org.terasology.model.structures.IChunkCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ChunkCodecTest {
+
+    private static final IChunkCodec[] CODECS = {ChunkCodecs.RAW, ChunkCodecs.RUN_LENGTH, ChunkCodecs.PAGE_ELISION, ChunkCodecs.DEFLATE};
+
+    @Test
+    public void testCodecIds() throws IOException {
+        for (IChunkCodec codec : CODECS) {
+            assertSame(codec, ChunkCodecs.getCodec(codec.getId()));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownCodec() throws IOException {
+        ChunkCodecs.getCodec((byte) 100);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Random rand = new Random(42);
+
+        byte[] uniform = new byte[32768];
+        byte[] random = new byte[32768];
+        rand.nextBytes(random);
+
+        // Terrain-like data: runs of different lengths and a few scattered values
+        byte[] mixed = new byte[65536 + 17];
+        for (int i = 0; i < mixed.length; i++) {
+            mixed[i] = (byte) (i < 20000 ? 1 : (i % 1000 < 3 ? rand.nextInt(256) : 0));
+        }
+
+        for (IChunkCodec codec : CODECS) {
+            assertRoundTrip(codec, uniform);
+            assertRoundTrip(codec, random);
+            assertRoundTrip(codec, mixed);
+            assertRoundTrip(codec, new byte[0]);
+        }
+    }
+
+    @Test
+    public void testCompression() throws IOException {
+        byte[] uniform = new byte[32768];
+
+        for (IChunkCodec codec : CODECS) {
+            if (codec != ChunkCodecs.RAW)
+                assertTrue(encode(codec, uniform).length < uniform.length / 64);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptRun() throws IOException {
+        // A run exceeding the length of the layer
+        ChunkCodecs.RUN_LENGTH.decode(ByteBuffer.wrap(new byte[]{5, 100}), new byte[10]);
+    }
+
+    private static void assertRoundTrip(IChunkCodec codec, byte[] data) throws IOException {
+        byte[] encoded = encode(codec, data);
+        byte[] decoded = new byte[data.length];
+
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        codec.decode(buffer, decoded);
+
+        assertArrayEquals(data, decoded);
+        assertEquals(0, buffer.remaining());
+    }
+
+    private static byte[] encode(IChunkCodec codec, byte[] data) throws IOException {
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(byteOut);
+        codec.encode(data, out);
+        out.flush();
+
+        return byteOut.toByteArray();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.model.structures;
+
+import org.junit.Test;
+import org.terasology.utilities.FastRandom;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentLongMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<String>();
+
+        assertNull(map.put(ConcurrentLongMap.key(-1, 5), "a"));
+        assertNull(map.put(ConcurrentLongMap.key(5, -1), "b"));
+        assertEquals("a", map.put(ConcurrentLongMap.key(-1, 5), "c"));
+
+        assertEquals(2, map.size());
+        assertEquals("c", map.get(ConcurrentLongMap.key(-1, 5)));
+        assertEquals("b", map.get(ConcurrentLongMap.key(5, -1)));
+        assertNull(map.get(ConcurrentLongMap.key(5, 5)));
+
+        assertFalse(map.remove(ConcurrentLongMap.key(5, -1), "a"));
+        assertTrue(map.remove(ConcurrentLongMap.key(5, -1), "b"));
+        assertNull(map.get(ConcurrentLongMap.key(5, -1)));
+        assertEquals(1, map.size());
+
+        assertEquals("c", map.putIfAbsent(ConcurrentLongMap.key(-1, 5), "d"));
+        assertNull(map.putIfAbsent(ConcurrentLongMap.key(5, -1), "d"));
+        assertEquals("d", map.get(ConcurrentLongMap.key(5, -1)));
+    }
+
+    @Test
+    public void testGrowAndRemoveAgainstHashMap() {
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<Long>();
+        Map<Long, Long> reference = new HashMap<Long, Long>();
+        FastRandom rand = new FastRandom(7);
+
+        for (int i = 0; i < 20000; i++) {
+            long key = ConcurrentLongMap.key(rand.randomInt() % 64, rand.randomInt() % 64);
+
+            if (i % 3 == 0) {
+                assertEquals(reference.remove(key), map.remove(key));
+            } else {
+                assertEquals(reference.put(key, (long) i), map.put(key, (long) i));
+            }
+        }
+
+        assertEquals(reference.size(), map.size());
+        assertEquals(reference.size(), map.values().size());
+
+        for (Map.Entry<Long, Long> e : reference.entrySet())
+            assertEquals(e.getValue(), map.get(e.getKey()));
+    }
+
+    @Test
+    public void testConcurrentReads() throws InterruptedException {
+        final ConcurrentLongMap<Integer> map = new ConcurrentLongMap<Integer>();
+        final boolean[] failed = new boolean[1];
+
+        Thread reader = new Thread() {
+            public void run() {
+                for (int i = 0; i < 200000; i++) {
+                    // Entry 0 is never removed and has to be visible at any time
+                    if (map.get(ConcurrentLongMap.key(0, 0)) == null)
+                        failed[0] = true;
+                }
+            }
+        };
+
+        map.put(ConcurrentLongMap.key(0, 0), 0);
+        reader.start();
+
+        for (int i = 1; i < 5000; i++) {
+            map.put(ConcurrentLongMap.key(i, -i), i);
+
+            if (i % 2 == 0)
+                map.remove(ConcurrentLongMap.key(i - 1, 1 - i));
+        }
+
+        reader.join();
+        assertFalse(failed[0]);
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.model.structures;
+
+import org.terasology.utilities.FastRandom;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compares the array layouts for the access patterns of the chunk tessellator, the light update and the terrain
+ * generator. Run the main method with the amount of iterations as optional argument.
+ */
+public class TeraArrayBenchmark {
+
+    private static final int DIM_X = 16, DIM_Y = 256, DIM_Z = 16;
+    private static final int WARM_UP_ROUNDS = 3;
+
+    // Keeps the JIT from removing the reads
+    private static int _sink;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+        ITeraArray[] blockArrays = {new LegacyArray(false), new TeraArray(DIM_X, DIM_Y, DIM_Z), new TeraSparseArray(DIM_X, DIM_Y, DIM_Z, false)};
+        ITeraArray[] lightArrays = {new LegacyArray(true), new TeraSmartArray(DIM_X, DIM_Y, DIM_Z), new TeraSparseArray(DIM_X, DIM_Y, DIM_Z, true)};
+        String[] names = {"Legacy x-major", "Column layout", "Sparse"};
+
+        for (int round = 0; round <= WARM_UP_ROUNDS; round++) {
+            boolean report = round == WARM_UP_ROUNDS;
+
+            for (int i = 0; i < names.length; i++) {
+                ITeraArray blocks = blockArrays[i];
+                ITeraArray light = lightArrays[i];
+
+                long terrain = terrain(blocks, iterations);
+                fillLight(blocks, light);
+                blocks.compact();
+                light.compact();
+
+                long tessellator = tessellator(blocks, iterations, false);
+                long tessellatorUnsafe = tessellator(blocks, iterations, true);
+                long updateLight = updateLight(blocks, light, iterations, false);
+                long updateLightUnsafe = updateLight(blocks, light, iterations, true);
+
+                if (report) {
+                    System.out.println(String.format("%s: terrain %.2f ms, tessellator %.2f ms (unsafe %.2f ms), update light %.2f ms (unsafe %.2f ms) per chunk",
+                            names[i], toMs(terrain, iterations), toMs(tessellator, iterations), toMs(tessellatorUnsafe, iterations),
+                            toMs(updateLight, iterations), toMs(updateLightUnsafe, iterations)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes each column top down, like ChunkGeneratorTerrain.generate(...).
+     */
+    private static long terrain(ITeraArray blocks, int iterations) {
+        FastRandom rand = new FastRandom(1);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < iterations; i++) {
+            for (int x = 0; x < DIM_X; x++) {
+                for (int z = 0; z < DIM_Z; z++) {
+                    int height = 60 + rand.randomIntAbs(40);
+
+                    for (int y = DIM_Y - 1; y >= 0; y--) {
+                        blocks.set(x, y, z, (byte) (y > height ? 0 : (y > height - 3 ? 2 : 1)));
+                    }
+                }
+            }
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Reads each block and its six neighbours column by column, like ChunkTessellator.generateMesh(...).
+     */
+    private static long tessellator(ITeraArray blocks, int iterations, boolean unsafe) {
+        long start = System.nanoTime();
+        int result = 0;
+
+        for (int i = 0; i < iterations; i++) {
+            for (int x = 0; x < DIM_X; x++) {
+                for (int z = 0; z < DIM_Z; z++) {
+                    boolean inner = x > 0 && z > 0 && x < DIM_X - 1 && z < DIM_Z - 1;
+
+                    for (int y = 0; y < DIM_Y; y++) {
+                        if (blocks.get(x, y, z) == 0)
+                            continue;
+
+                        if (unsafe && inner && y > 0 && y < DIM_Y - 1) {
+                            result += blocks.getUnsafe(x + 1, y, z) + blocks.getUnsafe(x - 1, y, z)
+                                    + blocks.getUnsafe(x, y + 1, z) + blocks.getUnsafe(x, y - 1, z)
+                                    + blocks.getUnsafe(x, y, z + 1) + blocks.getUnsafe(x, y, z - 1);
+                        } else {
+                            result += blocks.get(x + 1, y, z) + blocks.get(x - 1, y, z)
+                                    + blocks.get(x, y + 1, z) + blocks.get(x, y - 1, z)
+                                    + blocks.get(x, y, z + 1) + blocks.get(x, y, z - 1);
+                        }
+                    }
+                }
+            }
+        }
+
+        _sink += result;
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Reads the blocks and the sunlight of each column top down, like Chunk.updateLight().
+     */
+    private static long updateLight(ITeraArray blocks, ITeraArray light, int iterations, boolean unsafe) {
+        long start = System.nanoTime();
+        int result = 0;
+
+        for (int i = 0; i < iterations; i++) {
+            for (int x = 0; x < DIM_X; x++) {
+                for (int z = 0; z < DIM_Z; z++) {
+                    for (int y = DIM_Y - 1; y >= 0; y--) {
+                        byte block = unsafe ? blocks.getUnsafe(x, y, z) : blocks.get(x, y, z);
+                        byte lightValue = unsafe ? light.getUnsafe(x, y, z) : light.get(x, y, z);
+
+                        if (block == 0 && lightValue > 0)
+                            result += lightValue;
+                    }
+                }
+            }
+        }
+
+        _sink += result;
+        return System.nanoTime() - start;
+    }
+
+    private static void fillLight(ITeraArray blocks, ITeraArray light) {
+        for (int x = 0; x < DIM_X; x++) {
+            for (int z = 0; z < DIM_Z; z++) {
+                for (int y = DIM_Y - 1; y >= 0; y--) {
+                    light.set(x, y, z, (byte) (blocks.get(x, y, z) == 0 ? 15 : 0));
+                }
+            }
+        }
+    }
+
+    private static double toMs(long time, int iterations) {
+        return time / 1e6 / iterations;
+    }
+
+    /**
+     * The x-major layout used by TeraArray and TeraSmartArray before the column layout was introduced.
+     */
+    private static final class LegacyArray implements ITeraArray {
+
+        private final byte[] _array;
+        private final boolean _nibbles;
+        private final int _halfSize;
+
+        private LegacyArray(boolean nibbles) {
+            _nibbles = nibbles;
+            _halfSize = DIM_X * DIM_Y * DIM_Z / 2;
+            _array = new byte[nibbles ? _halfSize : 2 * _halfSize];
+        }
+
+        public byte get(int x, int y, int z) {
+            int pos = (x * DIM_X * DIM_Y) + (y * DIM_X) + z;
+
+            if (x >= DIM_X || y >= DIM_Y || z >= DIM_Z || x < 0 || y < 0 || z < 0)
+                return (byte) (_nibbles ? -1 : 0);
+
+            if (!_nibbles)
+                return _array[pos];
+
+            if (pos < _halfSize)
+                return (byte) (_array[pos] & 0x0F);
+
+            return (byte) ((_array[pos % _halfSize] & 0xFF) >> 4);
+        }
+
+        public void set(int x, int y, int z, byte b) {
+            int pos = (x * DIM_X * DIM_Y) + (y * DIM_X) + z;
+
+            if (x >= DIM_X || y >= DIM_Y || z >= DIM_Z || x < 0 || y < 0 || z < 0)
+                return;
+
+            if (!_nibbles) {
+                _array[pos] = b;
+            } else if (pos < _halfSize) {
+                _array[pos] = (byte) ((b & 0x0F) | (_array[pos] & 0xF0));
+            } else {
+                _array[pos % _halfSize] = (byte) ((_array[pos % _halfSize] & 0x0F) | (b << 4) & 0xFF);
+            }
+        }
+
+        public byte getUnsafe(int x, int y, int z) {
+            return get(x, y, z);
+        }
+
+        public void setUnsafe(int x, int y, int z, byte b) {
+            set(x, y, z, b);
+        }
+
+        public int size() {
+            return 2 * _halfSize;
+        }
+
+        public int getMemoryUsage() {
+            return _array.length;
+        }
+
+        public void compact() {
+        }
+
+        public int getRawSize() {
+            return _array.length;
+        }
+
+        public void writeRawBytes(DataOutput out) throws IOException {
+            out.write(_array);
+        }
+
+        public void readRawBytes(DataInput in) throws IOException {
+            in.readFully(_array);
+        }
+
+        public void readRawBytes(ByteBuffer buffer) {
+            buffer.get(_array);
+        }
+
+        public void writeRawBytes(IChunkCodec codec, DataOutput out) throws IOException {
+            codec.encode(_array, out);
+        }
+
+        public void readRawBytes(IChunkCodec codec, ByteBuffer buffer) throws IOException {
+            codec.decode(buffer, _array);
+        }
+
+        // The raw bytes of this array already use the legacy layout
+        public void writeLegacyRawBytes(DataOutput out) throws IOException {
+            out.write(_array);
+        }
+
+        public void readLegacyRawBytes(byte[] raw) {
+            System.arraycopy(raw, 0, _array, 0, _array.length);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.model.structures;
+
+import org.junit.Test;
+import org.terasology.utilities.FastRandom;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class TeraArrayTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDimensions() {
+        new TeraArray(16, 100, 16);
+    }
+
+    @Test
+    public void testBounds() {
+        TeraArray array = new TeraArray(16, 256, 8);
+        array.set(15, 255, 7, (byte) 5);
+        array.set(16, 0, 0, (byte) 6);
+        array.set(0, 0, 8, (byte) 6);
+        array.set(-1, 0, 0, (byte) 6);
+
+        assertEquals(5, array.get(15, 255, 7));
+        assertEquals(5, array.getUnsafe(15, 255, 7));
+        assertEquals(0, array.get(0, 256, 0));
+        assertEquals(0, array.get(0, -1, 0));
+        assertEquals(0, array.get(0, 0, 0));
+
+        TeraSmartArray smartArray = new TeraSmartArray(16, 256, 8);
+        assertEquals(-1, smartArray.get(0, 0, 8));
+        assertEquals(-1, smartArray.get(0, -256, 0));
+    }
+
+    @Test
+    public void testUnsafeAccess() {
+        FastRandom rand = new FastRandom(3);
+        TeraArray array = new TeraArray(16, 256, 16);
+        TeraSmartArray smartArray = new TeraSmartArray(16, 256, 16);
+
+        for (int x = 0; x < 16; x++) {
+            for (int y = 0; y < 256; y++) {
+                for (int z = 0; z < 16; z++) {
+                    byte value = (byte) rand.randomIntAbs(16);
+                    array.setUnsafe(x, y, z, value);
+                    smartArray.setUnsafe(x, y, z, value);
+
+                    assertEquals(value, array.get(x, y, z));
+                    assertEquals(value, smartArray.get(x, y, z));
+                }
+            }
+        }
+
+        // Neighbouring nibbles are not affected
+        smartArray.set(3, 4, 5, (byte) 15);
+        smartArray.set(3, 5, 5, (byte) 0);
+        assertEquals(15, smartArray.getUnsafe(3, 4, 5));
+    }
+
+    @Test
+    public void testLegacyLayout() throws IOException {
+        FastRandom rand = new FastRandom(4);
+        TeraArray array = new TeraArray(16, 256, 16);
+        TeraSmartArray smartArray = new TeraSmartArray(16, 256, 16);
+
+        for (int x = 0; x < 16; x++) {
+            for (int y = 0; y < 256; y++) {
+                for (int z = 0; z < 16; z++) {
+                    array.set(x, y, z, (byte) rand.randomInt());
+                    smartArray.set(x, y, z, (byte) rand.randomIntAbs(16));
+                }
+            }
+        }
+
+        // The legacy layout is x-major...
+        byte[] raw = toLegacyRawBytes(array);
+        assertEquals(array.get(2, 3, 4), raw[2 * 16 * 256 + 3 * 16 + 4]);
+
+        // ... with the second half of the 4-bit values in the upper nibbles
+        byte[] rawNibbles = toLegacyRawBytes(smartArray);
+        assertEquals(smartArray.get(9, 3, 4), (rawNibbles[9 * 16 * 256 + 3 * 16 + 4 - rawNibbles.length] >> 4) & 0x0F);
+
+        TeraArray loaded = new TeraArray(16, 256, 16);
+        loaded.readLegacyRawBytes(raw);
+        TeraSmartArray loadedNibbles = new TeraSmartArray(16, 256, 16);
+        loadedNibbles.readLegacyRawBytes(rawNibbles);
+        TeraSparseArray loadedSparse = new TeraSparseArray(16, 256, 16, true);
+        loadedSparse.readLegacyRawBytes(rawNibbles);
+
+        for (int x = 0; x < 16; x++) {
+            for (int y = 0; y < 256; y++) {
+                for (int z = 0; z < 16; z++) {
+                    assertEquals(array.get(x, y, z), loaded.get(x, y, z));
+                    assertEquals(smartArray.get(x, y, z), loadedNibbles.get(x, y, z));
+                    assertEquals(smartArray.get(x, y, z), loadedSparse.get(x, y, z));
+                }
+            }
+        }
+
+        assertArrayEquals(rawNibbles, toLegacyRawBytes(loadedSparse));
+    }
+
+    private static byte[] toLegacyRawBytes(ITeraArray array) throws IOException {
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(byteOut);
+        array.writeLegacyRawBytes(out);
+        out.flush();
+
+        return byteOut.toByteArray();
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.model.structures;
+
+import org.junit.Test;
+import org.terasology.utilities.FastRandom;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class TeraSparseArrayTest {
+
+    @Test
+    public void testUniform() {
+        TeraSparseArray array = new TeraSparseArray(16, 256, 16, false);
+
+        assertEquals(0, array.get(3, 200, 7));
+        assertEquals(0, array.getMemoryUsage());
+        assertEquals(0, array.get(16, 0, 0));
+        assertEquals(-1, new TeraSparseArray(16, 16, 16, true).get(-1, 0, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDimensions() {
+        new TeraSparseArray(16, 20, 16, false);
+    }
+
+    @Test
+    public void testExpansion() {
+        TeraSparseArray array = new TeraSparseArray(16, 16, 16, false);
+
+        // Write enough different values to expand the section through all palette sizes
+        for (int i = 0; i < 40; i++) {
+            array.set(i % 16, i / 16, 5, (byte) (i * 3));
+
+            for (int j = 0; j <= i; j++) {
+                assertEquals((byte) (j * 3), array.get(j % 16, j / 16, 5));
+            }
+        }
+
+        assertEquals(0, array.get(0, 0, 0));
+        assertEquals(16 * 16 * 16, array.getMemoryUsage());
+    }
+
+    @Test
+    public void testCompact() {
+        TeraSparseArray array = new TeraSparseArray(16, 32, 16, false);
+
+        for (int i = 0; i < 10; i++) {
+            array.set(1, 1, 1, (byte) i);
+        }
+
+        // The palette is full of unused values...
+        assertTrue(array.getMemoryUsage() > 0);
+        array.set(1, 1, 1, (byte) 0);
+
+        // ... which are removed when compacting
+        array.compact();
+        assertEquals(0, array.getMemoryUsage());
+
+        array.set(2, 20, 2, (byte) 1);
+        array.compact();
+        assertEquals(1, array.get(2, 20, 2));
+        assertTrue(array.getMemoryUsage() < 16 * 16 * 16 / 4);
+    }
+
+    @Test
+    public void testAgainstTeraArray() throws IOException {
+        FastRandom rand = new FastRandom(1);
+        TeraArray dense = new TeraArray(16, 256, 16);
+        TeraSparseArray sparse = new TeraSparseArray(16, 256, 16, false);
+
+        for (int i = 0; i < 20000; i++) {
+            int x = rand.randomIntAbs(16);
+            int y = rand.randomIntAbs(256);
+            int z = rand.randomIntAbs(16);
+            // Lower sections get more different values than the upper ones
+            byte value = (byte) rand.randomIntAbs(1 + 256 - y);
+
+            dense.set(x, y, z, value);
+            sparse.set(x, y, z, value);
+        }
+
+        assertArraysEqual(dense, sparse);
+        assertArrayEquals(toRawBytes(dense), toRawBytes(sparse));
+
+        TeraSparseArray loaded = new TeraSparseArray(16, 256, 16, false);
+        loaded.readRawBytes(ByteBuffer.wrap(toRawBytes(dense)));
+        assertArraysEqual(dense, loaded);
+    }
+
+    @Test
+    public void testAgainstTeraSmartArray() throws IOException {
+        FastRandom rand = new FastRandom(2);
+        TeraSmartArray dense = new TeraSmartArray(16, 256, 16);
+        TeraSparseArray sparse = new TeraSparseArray(16, 256, 16, true);
+
+        for (int i = 0; i < 20000; i++) {
+            int x = rand.randomIntAbs(16);
+            int y = rand.randomIntAbs(256);
+            int z = rand.randomIntAbs(16);
+            byte value = (byte) rand.randomIntAbs(16);
+
+            dense.set(x, y, z, value);
+            sparse.set(x, y, z, value);
+        }
+
+        assertArraysEqual(dense, sparse);
+        assertArrayEquals(toRawBytes(dense), toRawBytes(sparse));
+
+        TeraSparseArray loaded = new TeraSparseArray(16, 256, 16, true);
+        loaded.readRawBytes(ByteBuffer.wrap(toRawBytes(dense)));
+        assertArraysEqual(dense, loaded);
+    }
+
+    @Test
+    public void testConcurrentWriters() throws InterruptedException {
+        final TeraSparseArray array = new TeraSparseArray(16, 32, 16, false);
+        final int writerCount = 4, rounds = 50;
+        final AtomicBoolean done = new AtomicBoolean();
+
+        // The writers share the packed index words and palettes of both sections
+        Thread[] writers = new Thread[writerCount];
+
+        for (int t = 0; t < writerCount; t++) {
+            final int writer = t;
+
+            writers[t] = new Thread() {
+                public void run() {
+                    for (int round = 0; round < rounds; round++) {
+                        for (int i = writer; i < 16 * 32 * 16; i += writerCount) {
+                            array.set(i >> 9, (i >> 4) & 31, i & 15, (byte) ((round + i) % (round + 2)));
+                        }
+                    }
+                }
+            };
+        }
+
+        Thread compactor = new Thread() {
+            public void run() {
+                while (!done.get()) {
+                    array.compact();
+                }
+            }
+        };
+
+        compactor.start();
+
+        for (Thread writer : writers) {
+            writer.start();
+        }
+
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        done.set(true);
+
+        compactor.join();
+
+        for (int i = 0; i < 16 * 32 * 16; i++) {
+            assertEquals((byte) ((rounds - 1 + i) % (rounds + 1)), array.get(i >> 9, (i >> 4) & 31, i & 15));
+        }
+    }
+
+    private static void assertArraysEqual(ITeraArray expected, ITeraArray actual) {
+        for (int x = 0; x < 16; x++) {
+            for (int y = 0; y < 256; y++) {
+                for (int z = 0; z < 16; z++) {
+                    assertEquals(expected.get(x, y, z), actual.get(x, y, z));
+                }
+            }
+        }
+    }
+
+    private static byte[] toRawBytes(ITeraArray array) throws IOException {
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(byteOut);
+        array.writeRawBytes(out);
+        out.flush();
+
+        return byteOut.toByteArray();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.physics;
+
+import com.bulletphysics.collision.shapes.IndexedMesh;
+import org.junit.Test;
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.TestChunkHelper;
+import org.terasology.model.blocks.Block;
+
+import static org.junit.Assert.*;
+
+public class ChunkCollisionShapeBuilderTest {
+
+    @Test
+    public void testFlatTerrainIsMergedIntoFewQuads() {
+        Chunk c = TestChunkHelper.createChunk(0, 0);
+        IndexedMesh mesh = createBuilder().build(c);
+
+        // The surface and the four borders of the chunk, nothing below the chunk
+        assertEquals(10, mesh.numTriangles);
+        assertEquals(20, mesh.numVertices);
+
+        float maxY = -Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        for (int i = 0; i < mesh.numVertices; i++) {
+            float y = mesh.vertexBase.getFloat((i * 3 + 1) * 4);
+            maxY = Math.max(maxY, y);
+            minY = Math.min(minY, y);
+        }
+
+        // The blocks are centered on their coordinates
+        assertEquals(64.5f, maxY, 0f);
+        assertEquals(-0.5f, minY, 0f);
+    }
+
+    @Test
+    public void testSingleBlock() {
+        Chunk c = TestChunkHelper.createChunk(0, 0);
+        c.setBlock(5, 100, 5, (byte) 1);
+        IndexedMesh mesh = createBuilder().build(c);
+
+        assertEquals(10 + 12, mesh.numTriangles);
+    }
+
+    @Test
+    public void testPenetrableBlocksAreIgnored() {
+        Block[] blocks = new Block[256];
+        blocks[0] = new Block().withId((byte) 0).withInvisible(true).withPenetrable(true);
+        blocks[1] = new Block().withId((byte) 1).withPenetrable(true);
+        blocks[2] = new Block().withId((byte) 2).withPenetrable(true);
+        blocks[5] = new Block().withId((byte) 5).withPenetrable(true);
+
+        assertNull(new ChunkCollisionShapeBuilder(blocks).build(TestChunkHelper.createChunk(0, 0)));
+    }
+
+    private static ChunkCollisionShapeBuilder createBuilder() {
+        Block[] blocks = new Block[256];
+        blocks[0] = new Block().withId((byte) 0).withInvisible(true).withPenetrable(true);
+
+        for (int id : new int[]{1, 2, 5})
+            blocks[id] = new Block().withId((byte) id);
+
+        return new ChunkCollisionShapeBuilder(blocks);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.junit.Test;
+import org.lwjgl.opengl.GL11;
+
+import javax.vecmath.Vector3f;
+import javax.vecmath.Vector4f;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class ChunkMeshTest {
+
+    @Test
+    public void testVerticesArePacked() {
+        ChunkMesh.VertexElements elements = new ChunkMesh.VertexElements();
+
+        elements.addVertex(15.5f, 255.5f, -0.5f, 0.25f, 0.0625f, ChunkMesh.NO_TILE, new Vector3f(0, 1, 0), new Vector4f(1f, 0.5f, 0f, 1f));
+        elements.addVertex(0, 0, 0, 16f, 3f, 17, new Vector3f(-1, 0, 0), new Vector4f(1f, 1f, 1f, 1f));
+        elements.setLighting(0, 1f, 0.5f, 0.25f);
+        elements.indices.add(0);
+        elements.indices.add(1);
+        elements.indices.add(0);
+        DirectBufferPool pool = new DirectBufferPool(0);
+        ByteBuffer data = elements.copyVertices(pool);
+        ByteBuffer indices = elements.copyIndices(pool);
+
+        assertEquals(2, elements.vertCount);
+        assertEquals(56, data.limit());
+
+        assertEquals(15.5f, data.getShort(0) / ChunkMesh.POSITION_SCALE, 0f);
+        assertEquals(255.5f, data.getShort(2) / ChunkMesh.POSITION_SCALE, 0f);
+        assertEquals(-0.5f, data.getShort(4) / ChunkMesh.POSITION_SCALE, 0f);
+        assertEquals(0.25f, data.getShort(8) / ChunkMesh.TEX_COORD_SCALE, 0f);
+        assertEquals(0.0625f, data.getShort(10) / ChunkMesh.TEX_COORD_SCALE, 0f);
+        assertEquals(1, data.getShort(12));
+        assertEquals(127, data.get(17));
+        assertEquals(255, data.get(20) & 0xFF);
+        assertEquals(128, data.get(21) & 0xFF);
+        assertEquals(0, data.get(22) & 0xFF);
+        assertEquals(255, data.get(24) & 0xFF);
+        assertEquals(128, data.get(25) & 0xFF);
+        assertEquals(64, data.get(26) & 0xFF);
+
+        // Repeated tile
+        assertEquals(16f, data.getShort(36) / ChunkMesh.TILE_COORD_SCALE, 0f);
+        assertEquals(3f, data.getShort(38) / ChunkMesh.TILE_COORD_SCALE, 0f);
+        assertEquals(19, data.getShort(40));
+        assertEquals(-127, data.get(44));
+        assertEquals(0, data.get(52) & 0xFF);
+
+        assertEquals(GL11.GL_UNSIGNED_SHORT, elements.getIndexType());
+        assertEquals(6, indices.limit());
+        assertEquals(1, indices.getShort(2));
+
+        elements.reset();
+        assertEquals(0, elements.vertCount);
+        assertEquals(0, elements.copyVertices(pool).limit());
+    }
+
+    @Test
+    public void testLargeMeshesUseIntIndices() {
+        ChunkMesh.VertexElements elements = new ChunkMesh.VertexElements();
+        Vector3f normal = new Vector3f(0, 1, 0);
+        Vector4f color = new Vector4f(1f, 1f, 1f, 1f);
+
+        for (int i = 0; i <= 0xFFFF; i++)
+            elements.addVertex(0, 0, 0, 0, 0, ChunkMesh.NO_TILE, normal, color);
+        elements.indices.add(0xFFFF);
+
+        assertEquals(GL11.GL_UNSIGNED_INT, elements.getIndexType());
+        assertEquals(0xFFFF, elements.copyIndices(new DirectBufferPool(0)).getInt(0));
+    }
+}
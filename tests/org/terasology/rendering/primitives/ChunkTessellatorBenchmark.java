@@ -0,0 +1,81 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.ChunkSnapshot;
+import org.terasology.logic.world.TestChunkHelper;
+import org.terasology.model.blocks.Block;
+
+/**
+ * Compares the triangle counts and build times of the default tessellation and greedy meshing. Run the main
+ * method with the amount of chunks to use as optional argument.
+ */
+public class ChunkTessellatorBenchmark {
+
+    private static final int WARM_UP_ROUNDS = 2;
+
+    public static void main(String[] args) {
+        int chunkCount = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            snapshots[i] = createSnapshot(i, 0);
+        }
+
+        Block[] blocks = TestChunkHelper.createBlocks();
+
+        for (int i = 0; i <= WARM_UP_ROUNDS; i++) {
+            boolean report = i == WARM_UP_ROUNDS;
+
+            run("Default", snapshots, blocks, false, report);
+            run("Greedy", snapshots, blocks, true, report);
+        }
+    }
+
+    private static void run(String name, ChunkSnapshot[] snapshots, Block[] blocks, boolean greedyMeshing, boolean report) {
+        ChunkTessellator tessellator = new ChunkTessellator();
+        int segmentHeight = Chunk.CHUNK_DIMENSION_Y / Chunk.VERTICAL_SEGMENTS;
+        long triangles = 0;
+
+        long start = System.nanoTime();
+        for (ChunkSnapshot snapshot : snapshots) {
+            for (int i = 0; i < Chunk.VERTICAL_SEGMENTS; i++) {
+                ChunkMesh mesh = tessellator.generateMesh(snapshot, blocks, segmentHeight, i * segmentHeight, greedyMeshing);
+
+                triangles += mesh.triangleCount();
+                mesh.dispose();
+            }
+        }
+        long time = System.nanoTime() - start;
+
+        if (report) {
+            System.out.println(String.format("%s: %d chunks, %.1f ms per chunk, %.1f triangles per chunk",
+                    name, snapshots.length, time / 1e6 / snapshots.length, (double) triangles / snapshots.length));
+        }
+    }
+
+    private static ChunkSnapshot createSnapshot(int x, int z) {
+        Chunk[] neighbors = {
+                TestChunkHelper.createChunk(x + 1, z), TestChunkHelper.createChunk(x - 1, z),
+                TestChunkHelper.createChunk(x, z + 1), TestChunkHelper.createChunk(x, z - 1),
+                TestChunkHelper.createChunk(x + 1, z + 1), TestChunkHelper.createChunk(x - 1, z - 1),
+                TestChunkHelper.createChunk(x - 1, z + 1), TestChunkHelper.createChunk(x + 1, z - 1)
+        };
+
+        return new ChunkSnapshot(TestChunkHelper.createChunk(x, z), neighbors);
+    }
+}
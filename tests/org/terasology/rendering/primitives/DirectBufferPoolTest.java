@@ -0,0 +1,65 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+public class DirectBufferPoolTest {
+
+    @Test
+    public void testBuffersAreReusedWithinSizeClass() {
+        DirectBufferPool pool = new DirectBufferPool(1 << 20);
+
+        ByteBuffer buffer = pool.acquire(3000);
+        assertTrue(buffer.isDirect());
+        assertEquals(ByteOrder.nativeOrder(), buffer.order());
+        assertEquals(4096, buffer.capacity());
+        assertEquals(3000, buffer.limit());
+        assertEquals(0, buffer.position());
+
+        buffer.put((byte) 1);
+        pool.release(buffer);
+        assertEquals(4096, pool.getPooledBytes());
+
+        ByteBuffer reused = pool.acquire(2049);
+        assertSame(buffer, reused);
+        assertEquals(2049, reused.limit());
+        assertEquals(0, reused.position());
+        assertEquals(0, pool.getPooledBytes());
+
+        assertNotSame(buffer, pool.acquire(4097));
+    }
+
+    @Test
+    public void testPoolIsLimited() {
+        DirectBufferPool pool = new DirectBufferPool(2048);
+
+        ByteBuffer[] buffers = {pool.acquire(1024), pool.acquire(1024), pool.acquire(1024)};
+        for (ByteBuffer buffer : buffers)
+            pool.release(buffer);
+        assertEquals(2048, pool.getPooledBytes());
+
+        // Foreign buffers are ignored
+        pool.release(ByteBuffer.allocate(1024));
+        pool.release(ByteBuffer.allocateDirect(1000));
+        assertEquals(2048, pool.getPooledBytes());
+    }
+}
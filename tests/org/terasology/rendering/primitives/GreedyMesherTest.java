@@ -0,0 +1,156 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.ChunkSnapshot;
+import org.terasology.logic.world.TestChunkHelper;
+import org.terasology.math.Side;
+import org.terasology.model.blocks.Block;
+
+import javax.vecmath.Vector3d;
+import javax.vecmath.Vector4f;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class GreedyMesherTest {
+
+    private static final int STRIDE = 28;
+    private static final Vector4f WHITE = new Vector4f(1f, 1f, 1f, 1f);
+
+    private final Block[] _blocks = TestChunkHelper.createBlocks();
+    private Chunk _chunk;
+
+    @Before
+    public void setUp() {
+        _chunk = createEmptyChunk(0, 0);
+
+        // A slab of 4 x 3 blocks and a single block of another type next to it
+        for (int x = 2; x < 6; x++) {
+            for (int z = 4; z < 7; z++)
+                _chunk.setBlock(x, 10, z, (byte) 1);
+        }
+
+        _chunk.setBlock(6, 10, 4, (byte) 2);
+    }
+
+    @Test
+    public void testMergesCoplanarFaces() {
+        ChunkMesh mesh = mergeTopFaces();
+        ChunkMesh.VertexElements elements = mesh._vertexElements[0];
+
+        // One quad for the slab and one for the single block
+        assertEquals(8, elements.vertCount);
+        assertEquals(12, elements.indices.size());
+
+        ByteBuffer data = elements.copyVertices(new DirectBufferPool(0));
+        int tilesPerRow = Math.round(1.0f / Block.TEXTURE_OFFSET);
+        float slabArea = 0, singleArea = 0;
+        float[] min = {Float.MAX_VALUE, Float.MAX_VALUE}, max = {-Float.MAX_VALUE, -Float.MAX_VALUE};
+
+        for (int quad = 0; quad < 2; quad++) {
+            int first = quad * 4;
+            int tile = data.getShort(first * STRIDE + 12) - 2;
+            boolean slab = tile == 1 + Side.TOP.ordinal() * tilesPerRow;
+
+            if (!slab)
+                assertEquals(2 + Side.TOP.ordinal() * tilesPerRow, tile);
+
+            min[0] = min[1] = Float.MAX_VALUE;
+            max[0] = max[1] = -Float.MAX_VALUE;
+
+            for (int i = first; i < first + 4; i++) {
+                float x = elements.vertices.get(i * 3);
+                float y = elements.vertices.get(i * 3 + 1);
+                float z = elements.vertices.get(i * 3 + 2);
+                float s = data.getShort(i * STRIDE + 8) / ChunkMesh.TILE_COORD_SCALE;
+                float t = data.getShort(i * STRIDE + 10) / ChunkMesh.TILE_COORD_SCALE;
+
+                assertEquals(10.5f, y, 0f);
+                assertEquals(tile, data.getShort(i * STRIDE + 12) - 2);
+
+                // The tile is repeated once per block
+                float minX = slab ? 1.5f : 5.5f;
+                float maxZ = slab ? 6.5f : 4.5f;
+                assertEquals(x - minX, s, 0f);
+                assertEquals(maxZ - z, t, 0f);
+
+                min[0] = Math.min(min[0], x);
+                min[1] = Math.min(min[1], z);
+                max[0] = Math.max(max[0], x);
+                max[1] = Math.max(max[1], z);
+            }
+
+            float area = (max[0] - min[0]) * (max[1] - min[1]);
+
+            if (slab)
+                slabArea = area;
+            else
+                singleArea = area;
+        }
+
+        assertEquals(12f, slabArea, 0f);
+        assertEquals(1f, singleArea, 0f);
+    }
+
+    @Test
+    public void testDifferentLightingIsNotMerged() {
+        _chunk.setLight(3, 11, 5, (byte) 12, Chunk.LIGHT_TYPE.BLOCK);
+
+        GreedyMesher mesher = new GreedyMesher();
+        mesher.begin(createSnapshot(), _blocks, Chunk.CHUNK_DIMENSION_Y / Chunk.VERTICAL_SEGMENTS, 0);
+
+        // Only some corners of the face next to the light are lit, faces farther away are not lit at all
+        assertFalse(mesher.addFace(Side.TOP, _blocks[1].getSideMesh(Side.TOP), 2, 10, 5, WHITE));
+        assertTrue(mesher.addFace(Side.TOP, _blocks[1].getSideMesh(Side.TOP), 5, 10, 4, WHITE));
+    }
+
+    private ChunkMesh mergeTopFaces() {
+        GreedyMesher mesher = new GreedyMesher();
+        mesher.begin(createSnapshot(), _blocks, Chunk.CHUNK_DIMENSION_Y / Chunk.VERTICAL_SEGMENTS, 0);
+
+        for (int x = 0; x < Chunk.CHUNK_DIMENSION_X; x++) {
+            for (int z = 0; z < Chunk.CHUNK_DIMENSION_Z; z++) {
+                int id = _chunk.getBlock(x, 10, z);
+
+                if (id != 0)
+                    assertTrue(mesher.addFace(Side.TOP, _blocks[id].getSideMesh(Side.TOP), x, 10, z, WHITE));
+            }
+        }
+
+        ChunkMesh mesh = new ChunkMesh();
+        mesher.appendTo(mesh, 0);
+        return mesh;
+    }
+
+    private ChunkSnapshot createSnapshot() {
+        Chunk[] neighbors = {
+                createEmptyChunk(1, 0), createEmptyChunk(-1, 0), createEmptyChunk(0, 1), createEmptyChunk(0, -1),
+                createEmptyChunk(1, 1), createEmptyChunk(-1, -1), createEmptyChunk(-1, 1), createEmptyChunk(1, -1)
+        };
+
+        return new ChunkSnapshot(_chunk, neighbors);
+    }
+
+    private static Chunk createEmptyChunk(int x, int z) {
+        Chunk c = new Chunk();
+        c.setPosition(new Vector3d(x, 0, z));
+        return c;
+    }
+}
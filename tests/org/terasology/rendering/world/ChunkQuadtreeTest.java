@@ -0,0 +1,162 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.logic.world.Chunk;
+import org.terasology.model.structures.AABB;
+import org.terasology.model.structures.ViewFrustum;
+
+import javax.vecmath.Vector3d;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class ChunkQuadtreeTest {
+
+    private static final float[] IDENTITY = {1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1};
+
+    private final ArrayList<Chunk> _chunks = new ArrayList<Chunk>();
+    private final ChunkQuadtree _quadtree = new ChunkQuadtree();
+
+    @Before
+    public void setUp() {
+        for (int x = -8; x < 8; x++) {
+            for (int z = -8; z < 8; z++) {
+                Chunk c = new Chunk();
+                c.setPosition(new Vector3d(x, 0, z));
+                _chunks.add(c);
+            }
+        }
+
+        _quadtree.build(_chunks);
+    }
+
+    @Test
+    public void testBoxClassification() {
+        // Looks along the negative z-axis and covers x and y in [-10, 10] and z in [-50, -1]
+        ViewFrustum frustum = createFrustum(orthographic(10, 1, 50));
+        Vector3d origin = new Vector3d();
+
+        assertEquals(ViewFrustum.INTERSECTION.INSIDE, frustum.intersects(-5, -5, -20, 5, 5, -10, origin));
+        assertEquals(ViewFrustum.INTERSECTION.INTERSECTING, frustum.intersects(5, -5, -20, 15, 5, -10, origin));
+        assertEquals(ViewFrustum.INTERSECTION.OUTSIDE, frustum.intersects(-5, -5, 10, 5, 5, 20, origin));
+
+        // The box is given in world coordinates, the frustum is relative to the camera
+        assertEquals(ViewFrustum.INTERSECTION.OUTSIDE, frustum.intersects(-5, -5, -20, 5, 5, -10, new Vector3d(100, 0, 0)));
+    }
+
+    @Test
+    public void testOrthographicCulling() {
+        Vector3d origin = new Vector3d(0, 100, 0);
+        ViewFrustum frustum = createFrustum(orthographic(20, 1, 40));
+
+        _quadtree.cull(frustum, origin);
+        assertMatchesBruteForce(frustum, origin);
+
+        // Most of the chunks are rejected together with their parent nodes
+        assertTrue(_quadtree.getTests() < _chunks.size() / 4);
+    }
+
+    @Test
+    public void testPerspectiveCulling() {
+        ViewFrustum frustum = createFrustum(perspective(0.1f, 200));
+
+        Vector3d[] origins = {new Vector3d(0, 80, 0), new Vector3d(-120, 60, 120), new Vector3d(40, 300, -40)};
+
+        for (Vector3d origin : origins) {
+            _quadtree.cull(frustum, origin);
+            assertMatchesBruteForce(frustum, origin);
+            assertTrue(_quadtree.getTests() < _chunks.size());
+        }
+    }
+
+    @Test
+    public void testShiftedTree() {
+        ViewFrustum frustum = createFrustum(perspective(0.1f, 200));
+        Vector3d origin = new Vector3d(-40, 80, 30);
+
+        // The same layout moved by (5, -3) chunks, in the same order
+        ArrayList<Chunk> shifted = new ArrayList<Chunk>();
+
+        for (Chunk c : _chunks) {
+            Chunk s = new Chunk();
+            s.setPosition(new Vector3d(c.getPosition().x + 5, 0, c.getPosition().z - 3));
+            shifted.add(s);
+        }
+
+        _quadtree.shift(5, -3);
+        _quadtree.cull(frustum, origin);
+
+        _chunks.clear();
+        _chunks.addAll(shifted);
+        assertMatchesBruteForce(frustum, origin);
+    }
+
+    @Test
+    public void testEmptyTree() {
+        ChunkQuadtree quadtree = new ChunkQuadtree();
+        quadtree.build(new ArrayList<Chunk>());
+        quadtree.cull(createFrustum(orthographic(10, 1, 50)), new Vector3d());
+
+        assertFalse(quadtree.isVisible(0));
+        assertEquals(0, quadtree.getTests());
+    }
+
+    private void assertMatchesBruteForce(ViewFrustum frustum, Vector3d origin) {
+        int visible = 0;
+
+        for (int i = 0; i < _chunks.size(); i++) {
+            AABB aabb = _chunks.get(i).getAABB();
+            boolean expected = frustum.intersects(aabb.minX(), aabb.minY(), aabb.minZ(), aabb.maxX(), aabb.maxY(), aabb.maxZ(), origin) != ViewFrustum.INTERSECTION.OUTSIDE;
+
+            assertEquals("Chunk " + _chunks.get(i).getPosition(), expected, _quadtree.isVisible(i));
+
+            if (expected)
+                visible++;
+        }
+
+        assertTrue(visible > 0);
+        assertTrue(visible < _chunks.size());
+    }
+
+    private static ViewFrustum createFrustum(float[] projection) {
+        ViewFrustum frustum = new ViewFrustum();
+        frustum.updateFrustum(FloatBuffer.wrap(projection), FloatBuffer.wrap(IDENTITY));
+        return frustum;
+    }
+
+    private static float[] orthographic(float extent, float near, float far) {
+        return new float[]{
+                1 / extent, 0, 0, 0,
+                0, 1 / extent, 0, 0,
+                0, 0, -2 / (far - near), 0,
+                0, 0, -(far + near) / (far - near), 1};
+    }
+
+    /**
+     * Perspective projection with a field of view of 90 degrees.
+     */
+    private static float[] perspective(float near, float far) {
+        return new float[]{
+                1, 0, 0, 0,
+                0, 1, 0, 0,
+                0, 0, (far + near) / (near - far), -1,
+                0, 0, 2 * far * near / (near - far), 0};
+    }
+}
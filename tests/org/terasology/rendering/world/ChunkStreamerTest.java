@@ -0,0 +1,134 @@
+/*
+ * Copyright 2011 Benjamin Glatzel <benjamin.glatzel@me.com>.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import org.junit.Test;
+import org.terasology.logic.world.Chunk;
+import org.terasology.logic.world.TestChunkHelper;
+
+import javax.vecmath.Vector3d;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ChunkStreamerTest {
+
+    @Test
+    public void testOnlyNewChunksAreLoaded() {
+        TestChunkHelper.CountingChunkProvider provider = new TestChunkHelper.CountingChunkProvider();
+        ChunkStreamer streamer = new ChunkStreamer(provider);
+
+        assertTrue(streamer.update(0, 0, 8, false));
+        assertEquals(64, provider.getRequests());
+        assertEquals(64, streamer.getChunksInProximity().size());
+
+        assertFalse(streamer.update(0, 0, 8, false));
+        assertEquals(64, provider.getRequests());
+
+        // Moving by one chunk only adds a single row of chunks
+        assertTrue(streamer.update(1, 0, 8, false));
+        assertEquals(72, provider.getRequests());
+
+        for (Chunk c : streamer.getChunksInProximity()) {
+            assertTrue(c.getPosition().x >= -3 && c.getPosition().x < 5);
+            assertTrue(c.getPosition().z >= -4 && c.getPosition().z < 4);
+        }
+
+        // Disposed chunks are requested again
+        streamer.getChunksInProximity().get(10).dispose();
+        streamer.update(1, 0, 8, true);
+        assertEquals(136, provider.getRequests());
+    }
+
+    @Test
+    public void testDiagonalMoveOnlyLoadsEnteringRowsAndColumns() {
+        TestChunkHelper.CountingChunkProvider provider = new TestChunkHelper.CountingChunkProvider();
+        ChunkStreamer streamer = new ChunkStreamer(provider);
+        streamer.update(0, 0, 8, false);
+
+        // Two columns and one row enter the window, sharing two chunks
+        streamer.update(2, -1, 8, false);
+        assertEquals(64 + 16 + 8 - 2, provider.getRequests());
+
+        List<Chunk> chunks = streamer.getChunksInProximity();
+        HashSet<Chunk> distinct = new HashSet<Chunk>(chunks);
+        assertEquals(64, distinct.size());
+        assertEquals(2.0, chunks.get(0).getPosition().x, 0.0);
+        assertEquals(-1.0, chunks.get(0).getPosition().z, 0.0);
+
+        for (Chunk c : chunks) {
+            assertTrue(c.getPosition().x >= -2 && c.getPosition().x < 6);
+            assertTrue(c.getPosition().z >= -5 && c.getPosition().z < 3);
+        }
+
+        // Jumping farther than the window requests the whole window again
+        streamer.update(20, 0, 8, false);
+        assertEquals(64 + 16 + 8 - 2 + 64, provider.getRequests());
+    }
+
+    @Test
+    public void testChunksAreSortedByDistance() {
+        ChunkStreamer streamer = new ChunkStreamer(new TestChunkHelper.CountingChunkProvider());
+        streamer.update(5, -3, 6, false);
+
+        List<Chunk> chunks = streamer.getChunksInProximity();
+        assertEquals(5.0, chunks.get(0).getPosition().x, 0.0);
+        assertEquals(-3.0, chunks.get(0).getPosition().z, 0.0);
+
+        double lastDistance = 0;
+
+        for (Chunk c : chunks) {
+            double dx = c.getPosition().x - 5;
+            double dz = c.getPosition().z + 3;
+            double distance = dx * dx + dz * dz;
+
+            assertTrue(distance >= lastDistance);
+            lastDistance = distance;
+        }
+    }
+
+    @Test
+    public void testPrefetchAlongVelocity() {
+        TestChunkHelper.CountingChunkProvider provider = new TestChunkHelper.CountingChunkProvider();
+        ChunkStreamer streamer = new ChunkStreamer(provider);
+        streamer.update(0, 0, 8, false);
+
+        // Nothing to prefetch while standing still
+        streamer.updateVelocity(new Vector3d(8, 0, 8), 20);
+        streamer.updateVelocity(new Vector3d(8, 0, 8), 20);
+        assertTrue(streamer.prefetch(4).isEmpty());
+
+        // Move along the positive x-axis with 32 blocks per second
+        for (int i = 0; i < 100; i++)
+            streamer.updateVelocity(new Vector3d(8 + i * 0.64, 0, 8), 20);
+
+        int requests = provider.getRequests();
+        ArrayList<Chunk> prefetched = new ArrayList<Chunk>();
+
+        for (int i = 0; i < 100; i++)
+            prefetched.addAll(streamer.prefetch(4));
+
+        assertFalse(prefetched.isEmpty());
+        assertEquals(requests + prefetched.size(), provider.getRequests());
+
+        for (Chunk c : prefetched)
+            assertTrue(c.getPosition().x >= 4);
+
+        assertTrue(streamer.prefetch(0).isEmpty());
+    }
+}